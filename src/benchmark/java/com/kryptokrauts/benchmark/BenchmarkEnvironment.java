@@ -0,0 +1,120 @@
+package com.kryptokrauts.benchmark;
+
+import com.kryptokrauts.aeternity.sdk.constants.Network;
+import com.kryptokrauts.aeternity.sdk.constants.VirtualMachine;
+import com.kryptokrauts.aeternity.sdk.domain.secret.KeyPair;
+import com.kryptokrauts.aeternity.sdk.service.aeternity.AeternityServiceConfiguration;
+import com.kryptokrauts.aeternity.sdk.service.aeternity.AeternityServiceFactory;
+import com.kryptokrauts.aeternity.sdk.service.aeternity.impl.AeternityService;
+import com.kryptokrauts.aeternity.sdk.service.keypair.KeyPairService;
+import com.kryptokrauts.aeternity.sdk.service.keypair.KeyPairServiceFactory;
+import com.kryptokrauts.aeternity.sdk.service.transaction.type.model.SpendTransactionModel;
+import com.kryptokrauts.aeternity.sdk.service.unit.UnitConversionService;
+import com.kryptokrauts.aeternity.sdk.service.unit.impl.DefaultUnitConversionServiceImpl;
+import com.kryptokrauts.chain.ConfirmationTracker;
+import com.kryptokrauts.chain.NodeApi;
+import com.kryptokrauts.chain.NodePollingChainFeed;
+import com.kryptokrauts.nonce.NonceManager;
+import io.reactivex.Single;
+import java.math.BigInteger;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+/** Connection to the docker-compose devnet shared by all benchmark scenarios. */
+@Slf4j
+@Getter
+public class BenchmarkEnvironment {
+
+  /** the genesis account of docker/accounts_test.json which is also used by the tests */
+  private static final String PRIVATE_KEY =
+      "79816BBF860B95600DDFABF9D81FEE81BDB30BE823B17D80B9E48BE0A7015ADF";
+
+  private static final Duration MINED_TIMEOUT = Duration.ofSeconds(60);
+
+  private final KeyPairService keyPairService = new KeyPairServiceFactory().getService();
+
+  private final UnitConversionService unitConversionService =
+      new DefaultUnitConversionServiceImpl();
+
+  private final KeyPair baseKeyPair = keyPairService.recoverKeyPair(PRIVATE_KEY);
+
+  private final AeternityServiceConfiguration baseConfig = configure(baseKeyPair, true);
+
+  private final AeternityService aeternityService =
+      new AeternityServiceFactory().getService(baseConfig);
+
+  private final NonceManager nonceManager = new NonceManager(aeternityService);
+
+  private final ConfirmationTracker confirmationTracker =
+      new ConfirmationTracker(
+          new NodePollingChainFeed(new NodeApi(baseConfig.getBaseUrl()), Duration.ofMillis(100)));
+
+  /**
+   * @param keyPair the account the generated contract classes use to sign
+   * @param waitForMined if false, stateful calls return as soon as the tx is accepted by the node
+   *     so that submission and mining can be measured separately
+   * @return configuration pointing at the local devnet
+   */
+  public AeternityServiceConfiguration configure(KeyPair keyPair, boolean waitForMined) {
+    return AeternityServiceConfiguration.configure()
+        .compilerBaseUrl(System.getProperty("benchmark.compilerBaseUrl", "http://localhost:3080"))
+        .baseUrl(System.getProperty("benchmark.baseUrl", "http://localhost"))
+        .network(Network.DEVNET)
+        .mdwBaseUrl(System.getProperty("benchmark.mdwBaseUrl", "http://localhost:4000"))
+        .keyPair(keyPair)
+        .targetVM(VirtualMachine.FATE)
+        .millisBetweenTrailsToWaitForConfirmation(100l)
+        .waitForTxIncludedInBlockEnabled(waitForMined)
+        .compile();
+  }
+
+  /**
+   * create accounts and fund them with pipelined spends from the base account
+   *
+   * @param count
+   * @param amountAe
+   * @return the funded accounts once all spends are mined
+   */
+  public List<KeyPair> fundedAccounts(int count, String amountAe) {
+    BigInteger amount = unitConversionService.toSmallestUnit(amountAe);
+    List<KeyPair> accounts =
+        IntStream.range(0, count)
+            .mapToObj(i -> keyPairService.generateKeyPair())
+            .collect(Collectors.toList());
+    List<String> txHashes =
+        Single.merge(
+                accounts.stream()
+                    .map(
+                        account ->
+                            nonceManager
+                                .post(
+                                    baseKeyPair,
+                                    nonce ->
+                                        SpendTransactionModel.builder()
+                                            .amount(amount)
+                                            .sender(baseKeyPair.getAddress())
+                                            .recipient(account.getAddress())
+                                            .nonce(nonce)
+                                            .build())
+                                .map(result -> result.getTxHash()))
+                    .collect(Collectors.toList()))
+            .toList()
+            .blockingGet();
+    CompletableFuture.allOf(
+            txHashes.stream()
+                .map(txHash -> confirmationTracker.track(txHash, MINED_TIMEOUT))
+                .toArray(CompletableFuture[]::new))
+        .join();
+    log.info("Funded {} accounts with {} AE each", count, amountAe);
+    return accounts;
+  }
+
+  public Duration getMinedTimeout() {
+    return MINED_TIMEOUT;
+  }
+}
@@ -0,0 +1,152 @@
+package com.kryptokrauts.benchmark;
+
+import com.kryptokrauts.aeternity.sdk.domain.secret.KeyPair;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import lombok.extern.slf4j.Slf4j;
+import org.HdrHistogram.Histogram;
+
+/**
+ * Throughput and latency of the generated contract classes against the docker-compose devnet.
+ *
+ * <p>Every caller uses its own funded account and works in a closed loop: a stateful call is
+ * submitted, awaited until it is mined and only then the next call is made. Time to submit (the
+ * generated method returning the tx hash) and time to mined (tx showing up in a micro block) are
+ * reported separately. Read-only calls only report time to submit, i.e. the full dry-run.
+ *
+ * <p>System properties:
+ *
+ * <ul>
+ *   <li>{@code benchmark.callers} - comma separated caller counts, default {@code 1,2,4,8}
+ *   <li>{@code benchmark.operations} - calls per caller, default {@code 50}
+ *   <li>{@code benchmark.scenarios} - comma separated scenario names, default all
+ * </ul>
+ */
+@Slf4j
+public class ContraectBenchmark {
+
+  private static final String REPORT_FORMAT = "%-34s %-9s %7s %6s %9s %22s %22s%n";
+
+  public static void main(String[] args) throws Exception {
+    List<Integer> callerCounts =
+        Arrays.stream(System.getProperty("benchmark.callers", "1,2,4,8").split(","))
+            .map(String::trim)
+            .map(Integer::valueOf)
+            .collect(Collectors.toList());
+    int operations = Integer.getInteger("benchmark.operations", 50);
+    String selectedScenarios = System.getProperty("benchmark.scenarios");
+    List<Scenario> scenarios =
+        ContraectScenarios.all().stream()
+            .filter(
+                scenario ->
+                    selectedScenarios == null
+                        || Arrays.asList(selectedScenarios.split(",")).contains(scenario.getName()))
+            .collect(Collectors.toList());
+
+    BenchmarkEnvironment environment = new BenchmarkEnvironment();
+    List<String> report = new ArrayList<>();
+    for (Scenario scenario : scenarios) {
+      log.info("Setting up scenario {}", scenario.getName());
+      scenario.setup(environment);
+      for (int callers : callerCounts) {
+        report.add(run(environment, scenario, callers, operations));
+      }
+    }
+
+    System.out.printf(
+        REPORT_FORMAT,
+        "scenario",
+        "type",
+        "callers",
+        "ops",
+        "ops/sec",
+        "submit p50/p99/p999 ms",
+        "mined p50/p99/p999 ms");
+    report.forEach(System.out::print);
+    System.exit(0);
+  }
+
+  private static String run(
+      BenchmarkEnvironment environment, Scenario scenario, int callers, int operations)
+      throws Exception {
+    List<KeyPair> accounts = environment.fundedAccounts(callers, "100");
+    List<Scenario.Caller> scenarioCallers =
+        accounts.stream()
+            .map(account -> scenario.createCaller(environment, account))
+            .collect(Collectors.toList());
+
+    LatencyRecorder submitLatency = new LatencyRecorder();
+    LatencyRecorder minedLatency = new LatencyRecorder();
+    AtomicLong failures = new AtomicLong();
+    ExecutorService executor = Executors.newFixedThreadPool(callers);
+    long start = System.nanoTime();
+    CompletableFuture.allOf(
+            scenarioCallers.stream()
+                .map(
+                    caller ->
+                        CompletableFuture.runAsync(
+                            () -> {
+                              for (int i = 0; i < operations; i++) {
+                                invoke(
+                                    environment,
+                                    scenario,
+                                    caller,
+                                    i,
+                                    submitLatency,
+                                    minedLatency,
+                                    failures);
+                              }
+                            },
+                            executor))
+                .toArray(CompletableFuture[]::new))
+        .join();
+    long elapsedNanos = System.nanoTime() - start;
+    executor.shutdown();
+
+    Histogram submit = submitLatency.snapshot();
+    Histogram mined = minedLatency.snapshot();
+    long completed = submit.getTotalCount();
+    double opsPerSecond = completed / (elapsedNanos / (double) TimeUnit.SECONDS.toNanos(1));
+    if (failures.get() > 0) {
+      log.warn("{} of {} calls of {} failed", failures.get(), completed, scenario.getName());
+    }
+    return String.format(
+        REPORT_FORMAT,
+        scenario.getName(),
+        scenario.isStateful() ? "stateful" : "read-only",
+        callers,
+        completed,
+        String.format("%.1f", opsPerSecond),
+        LatencyRecorder.percentiles(submit),
+        scenario.isStateful() ? LatencyRecorder.percentiles(mined) : "-");
+  }
+
+  private static void invoke(
+      BenchmarkEnvironment environment,
+      Scenario scenario,
+      Scenario.Caller caller,
+      int invocation,
+      LatencyRecorder submitLatency,
+      LatencyRecorder minedLatency,
+      AtomicLong failures) {
+    long start = System.nanoTime();
+    try {
+      String txHash = caller.invoke(invocation);
+      submitLatency.recordNanos(System.nanoTime() - start);
+      if (scenario.isStateful()) {
+        environment.getConfirmationTracker().awaitMined(txHash, environment.getMinedTimeout());
+        minedLatency.recordNanos(System.nanoTime() - start);
+      }
+    } catch (Exception e) {
+      failures.incrementAndGet();
+      log.debug("Call {} of {} failed", invocation, scenario.getName(), e);
+    }
+  }
+}
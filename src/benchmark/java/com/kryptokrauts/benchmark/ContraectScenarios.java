@@ -0,0 +1,148 @@
+package com.kryptokrauts.benchmark;
+
+import com.kryptokrauts.aeternity.sdk.domain.secret.KeyPair;
+import com.kryptokrauts.contraect.generated.BatchPayment;
+import com.kryptokrauts.contraect.generated.CryptoHamster;
+import com.kryptokrauts.contraect.generated.FungibleToken;
+import java.math.BigInteger;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/** The scenarios measured against the generated contract classes. */
+public final class ContraectScenarios {
+
+  private static final BigInteger TOKEN_SUPPLY = new BigInteger("1000000000000000000000000");
+
+  private static final BigInteger TOKENS_PER_CALLER = new BigInteger("1000000000000000000000");
+
+  private static final int BATCH_PAYMENT_RECIPIENTS = 3;
+
+  private ContraectScenarios() {}
+
+  public static List<Scenario> all() {
+    return List.of(
+        new FungibleTokenScenario(true),
+        new FungibleTokenScenario(false),
+        new BatchPaymentScenario(),
+        new CryptoHamsterScenario(true),
+        new CryptoHamsterScenario(false));
+  }
+
+  /** {@code FungibleToken.transfer} (stateful) or {@code FungibleToken.total_supply} */
+  static class FungibleTokenScenario implements Scenario {
+
+    private final boolean stateful;
+
+    private String contractId;
+
+    FungibleTokenScenario(boolean stateful) {
+      this.stateful = stateful;
+    }
+
+    @Override
+    public String getName() {
+      return stateful ? "FungibleToken.transfer" : "FungibleToken.total_supply";
+    }
+
+    @Override
+    public boolean isStateful() {
+      return stateful;
+    }
+
+    @Override
+    public void setup(BenchmarkEnvironment environment) {
+      contractId =
+          new FungibleToken(environment.getBaseConfig(), null)
+              .deploy("benchmark", BigInteger.valueOf(18), "BENCH", Optional.of(TOKEN_SUPPLY))
+              .getValue1();
+    }
+
+    @Override
+    public Caller createCaller(BenchmarkEnvironment environment, KeyPair caller) {
+      FungibleToken.Address callerAddress = new FungibleToken.Address(caller.getAddress());
+      if (stateful) {
+        new FungibleToken(environment.getBaseConfig(), contractId)
+            .transfer(callerAddress, TOKENS_PER_CALLER);
+      }
+      FungibleToken token = new FungibleToken(environment.configure(caller, false), contractId);
+      KeyPair recipientKeyPair = environment.getKeyPairService().generateKeyPair();
+      FungibleToken.Address recipient = new FungibleToken.Address(recipientKeyPair.getAddress());
+      return invocation ->
+          stateful ? token.transfer(recipient, BigInteger.ONE) : token.total_supply().toString();
+    }
+  }
+
+  /** {@code BatchPayment.proceedBatchPayment} with a small recipient map */
+  static class BatchPaymentScenario implements Scenario {
+
+    private String contractId;
+
+    @Override
+    public String getName() {
+      return "BatchPayment.proceedBatchPayment";
+    }
+
+    @Override
+    public boolean isStateful() {
+      return true;
+    }
+
+    @Override
+    public void setup(BenchmarkEnvironment environment) {
+      contractId = new BatchPayment(environment.getBaseConfig(), null).deploy().getValue1();
+    }
+
+    @Override
+    public Caller createCaller(BenchmarkEnvironment environment, KeyPair caller) {
+      BatchPayment batchPayment =
+          new BatchPayment(environment.configure(caller, false), contractId);
+      Map<BatchPayment.Address, BigInteger> recipients = new HashMap<>();
+      for (int i = 0; i < BATCH_PAYMENT_RECIPIENTS; i++) {
+        KeyPair recipient = environment.getKeyPairService().generateKeyPair();
+        recipients.put(new BatchPayment.Address(recipient.getAddress()), BigInteger.ONE);
+      }
+      BigInteger total = BigInteger.valueOf(BATCH_PAYMENT_RECIPIENTS);
+      return invocation -> batchPayment.proceedBatchPayment(recipients, total);
+    }
+  }
+
+  /** {@code CryptoHamster.createHamster} (stateful) or {@code CryptoHamster.nameExists} */
+  static class CryptoHamsterScenario implements Scenario {
+
+    private final boolean stateful;
+
+    private String contractId;
+
+    CryptoHamsterScenario(boolean stateful) {
+      this.stateful = stateful;
+    }
+
+    @Override
+    public String getName() {
+      return stateful ? "CryptoHamster.createHamster" : "CryptoHamster.nameExists";
+    }
+
+    @Override
+    public boolean isStateful() {
+      return stateful;
+    }
+
+    @Override
+    public void setup(BenchmarkEnvironment environment) {
+      contractId = new CryptoHamster(environment.getBaseConfig(), null).deploy().getValue1();
+    }
+
+    @Override
+    public Caller createCaller(BenchmarkEnvironment environment, KeyPair caller) {
+      CryptoHamster cryptoHamster =
+          new CryptoHamster(environment.configure(caller, false), contractId);
+      String namePrefix = caller.getAddress().substring(3, 15) + "-";
+      return invocation ->
+          stateful
+              ? cryptoHamster.createHamster(namePrefix + invocation)
+              : cryptoHamster.nameExists(namePrefix + invocation).toString();
+    }
+  }
+}
@@ -0,0 +1,37 @@
+package com.kryptokrauts.benchmark;
+
+import java.util.concurrent.TimeUnit;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+/** Thread-safe latency histogram with microsecond resolution. */
+public class LatencyRecorder {
+
+  private static final long HIGHEST_TRACKABLE_MICROS = TimeUnit.MINUTES.toMicros(10);
+
+  private final Recorder recorder = new Recorder(HIGHEST_TRACKABLE_MICROS, 3);
+
+  public void recordNanos(long nanos) {
+    recorder.recordValue(Math.min(TimeUnit.NANOSECONDS.toMicros(nanos), HIGHEST_TRACKABLE_MICROS));
+  }
+
+  /** @return all values recorded since the last call */
+  public Histogram snapshot() {
+    return recorder.getIntervalHistogram();
+  }
+
+  /**
+   * @param histogram
+   * @return p50/p99/p999 in milliseconds, e.g. {@code 12.3/45.6/78.9}
+   */
+  public static String percentiles(Histogram histogram) {
+    if (histogram.getTotalCount() == 0) {
+      return "-";
+    }
+    return String.format(
+        "%.1f/%.1f/%.1f",
+        histogram.getValueAtPercentile(50) / 1000.0,
+        histogram.getValueAtPercentile(99) / 1000.0,
+        histogram.getValueAtPercentile(99.9) / 1000.0);
+  }
+}
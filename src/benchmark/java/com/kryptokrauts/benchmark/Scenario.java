@@ -0,0 +1,39 @@
+package com.kryptokrauts.benchmark;
+
+import com.kryptokrauts.aeternity.sdk.domain.secret.KeyPair;
+
+/** A single contract interaction which is measured by the {@link ContraectBenchmark}. */
+public interface Scenario {
+
+  String getName();
+
+  /** @return true if the measured call creates a transaction which has to be mined */
+  boolean isStateful();
+
+  /**
+   * prepare everything shared by all callers, e.g. deploy the contract
+   *
+   * @param environment
+   */
+  void setup(BenchmarkEnvironment environment);
+
+  /**
+   * create the per caller state before the measurement starts
+   *
+   * @param environment
+   * @param caller funded account of the caller
+   * @return a caller object used for all invocations of this caller
+   */
+  Caller createCaller(BenchmarkEnvironment environment, KeyPair caller);
+
+  interface Caller {
+
+    /**
+     * perform the measured call
+     *
+     * @param invocation sequence number of the invocation for this caller
+     * @return the tx hash for stateful calls, ignored for read-only calls
+     */
+    String invoke(int invocation);
+  }
+}
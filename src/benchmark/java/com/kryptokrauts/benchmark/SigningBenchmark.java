@@ -0,0 +1,84 @@
+package com.kryptokrauts.benchmark;
+
+import com.kryptokrauts.aeternity.sdk.domain.secret.KeyPair;
+import com.kryptokrauts.aeternity.sdk.service.keypair.KeyPairServiceFactory;
+import com.kryptokrauts.signing.SigningService;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import org.bouncycastle.util.encoders.Hex;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Signatures per second of the {@link SigningService} batch API by number of worker threads. The
+ * cache is disabled and every invocation signs fresh hashes, so each operation is a real
+ * signature. No devnet needed.
+ *
+ * <p>{@code mvn -Pbenchmark compile exec:exec@jmh -Djmh.args=SigningBenchmark}
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class SigningBenchmark {
+
+  private static final int BATCH_SIZE = 1024;
+
+  @Param({"1", "2", "4", "8"})
+  public int threads;
+
+  private final Random random = new Random(42);
+
+  private KeyPair signer;
+
+  private SigningService signingService;
+
+  private List<String> hashes;
+
+  @Setup(Level.Trial)
+  public void createService() {
+    signer = new KeyPairServiceFactory().getService().generateKeyPair();
+    signingService = new SigningService(threads, 0);
+  }
+
+  @Setup(Level.Invocation)
+  public void createHashes() {
+    hashes =
+        IntStream.range(0, BATCH_SIZE)
+            .mapToObj(
+                i -> {
+                  byte[] hash = new byte[32];
+                  random.nextBytes(hash);
+                  return Hex.toHexString(hash);
+                })
+            .collect(Collectors.toList());
+  }
+
+  @TearDown(Level.Trial)
+  public void closeService() {
+    signingService.close();
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(BATCH_SIZE)
+  public List<String> signHashes() {
+    return signingService.signHashes(signer, hashes);
+  }
+}
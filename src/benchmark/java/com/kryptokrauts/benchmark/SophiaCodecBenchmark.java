@@ -0,0 +1,388 @@
+package com.kryptokrauts.benchmark;
+
+import static com.kryptokrauts.sophia.SophiaType.bytesType;
+import static com.kryptokrauts.sophia.SophiaType.idType;
+import static com.kryptokrauts.sophia.SophiaType.intType;
+import static com.kryptokrauts.sophia.SophiaType.listType;
+import static com.kryptokrauts.sophia.SophiaType.mapType;
+import static com.kryptokrauts.sophia.SophiaType.optionType;
+import static com.kryptokrauts.sophia.SophiaType.recordType;
+import static com.kryptokrauts.sophia.SophiaType.stringType;
+import static com.kryptokrauts.sophia.SophiaType.ttlType;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.kryptokrauts.aeternity.sdk.service.keypair.KeyPairService;
+import com.kryptokrauts.aeternity.sdk.service.keypair.KeyPairServiceFactory;
+import com.kryptokrauts.sophia.SophiaCodec;
+import com.kryptokrauts.sophia.SophiaType;
+import com.kryptokrauts.sophia.SophiaVariant;
+import java.io.IOException;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import org.bouncycastle.util.encoders.Hex;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Cost of converting the values of {@code SophiaTypes.aes} to sophia literals and back from the
+ * JSON the compiler decodes results to. Every type is measured along the straightforward path,
+ * which builds a string per element and reads the JSON into a tree of objects before converting
+ * it, and along the {@link SophiaCodec}. The grants cover the scalar types of the contract which
+ * aren't part of the collections: options, bytes and signatures, oracle ids and {@code Chain.ttl}.
+ * No devnet needed.
+ *
+ * <p>Add {@code -prof gc} to see the allocations per operation: {@code mvn -Pbenchmark compile
+ * exec:exec@jmh -Djmh.args="SophiaCodecBenchmark -prof gc"}
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class SophiaCodecBenchmark {
+
+  private static final int INNER_ENTRIES = 4;
+
+  private static final int NESTED_LISTS = 10;
+
+  private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+  /** {@code map(int, map(int, int))} */
+  private static final SophiaType MAP_OF_MAPS = mapType(intType(), mapType(intType(), intType()));
+
+  /** {@code list(list(map(int, int)))} */
+  private static final SophiaType LIST_LIST_MAP =
+      listType(listType(mapType(intType(), intType())));
+
+  private static final SophiaType EMPLOYEE =
+      recordType(
+          orderedMap(
+              "address", idType(), "firstname", stringType(), "lastname", stringType()));
+
+  private static final SophiaType COMPANY =
+      recordType(
+          orderedMap(
+              "ceo",
+              idType(),
+              "shareholders",
+              mapType(idType(), intType()),
+              "employees",
+              listType(EMPLOYEE),
+              "location",
+              recordType(
+                  orderedMap(
+                      "zip", intType(), "street", stringType(), "city", stringType()))));
+
+  /** a record of the scalar types, {@code signature} and {@code hash} are encoded as bytes */
+  private static final SophiaType GRANT =
+      recordType(
+          orderedMap(
+              "oracle",
+              idType(),
+              "signature",
+              bytesType(),
+              "hash",
+              bytesType(),
+              "ttl",
+              ttlType(),
+              "expiry",
+              optionType(intType()),
+              "memo",
+              optionType(stringType())));
+
+  private static final SophiaType GRANTS = listType(GRANT);
+
+  /**
+   * entries of the outer map, lists of maps, shareholders and employees of the company or grants
+   */
+  @Param({"100", "10000"})
+  public int entries;
+
+  private Map<BigInteger, Map<BigInteger, BigInteger>> mapOfMaps;
+
+  private String mapOfMapsJson;
+
+  private List<List<Map<BigInteger, BigInteger>>> listListMap;
+
+  private String listListMapJson;
+
+  private Map<String, Object> company;
+
+  private String companyJson;
+
+  private List<Map<String, Object>> grants;
+
+  private String grantsJson;
+
+  @Setup(Level.Trial)
+  public void createValues() throws IOException {
+    mapOfMaps = new HashMap<>();
+    List<List<Object>> mapOfMapsDecoded = new ArrayList<>();
+    for (int i = 0; i < entries; i++) {
+      Map<BigInteger, BigInteger> inner = new HashMap<>();
+      for (int j = 0; j < INNER_ENTRIES; j++) {
+        inner.put(BigInteger.valueOf(j), BigInteger.valueOf((long) i * j));
+      }
+      mapOfMaps.put(BigInteger.valueOf(i), inner);
+      mapOfMapsDecoded.add(List.of(BigInteger.valueOf(i), decodedMap(inner)));
+    }
+    mapOfMapsJson = OBJECT_MAPPER.writeValueAsString(mapOfMapsDecoded);
+
+    listListMap = new ArrayList<>();
+    List<List<Object>> listListMapDecoded = new ArrayList<>();
+    for (int i = 0; i < NESTED_LISTS; i++) {
+      List<Map<BigInteger, BigInteger>> maps = new ArrayList<>();
+      List<Object> mapsDecoded = new ArrayList<>();
+      for (int j = 0; j < entries / NESTED_LISTS; j++) {
+        Map<BigInteger, BigInteger> map = Map.of(BigInteger.valueOf(j), BigInteger.valueOf(i));
+        maps.add(map);
+        mapsDecoded.add(decodedMap(map));
+      }
+      listListMap.add(maps);
+      listListMapDecoded.add(mapsDecoded);
+    }
+    listListMapJson = OBJECT_MAPPER.writeValueAsString(listListMapDecoded);
+
+    KeyPairService keyPairService = new KeyPairServiceFactory().getService();
+    Map<String, BigInteger> shareholders = new HashMap<>();
+    List<Map<String, Object>> employees = new ArrayList<>();
+    for (int i = 0; i < entries; i++) {
+      String address = keyPairService.generateKeyPair().getAddress();
+      shareholders.put(address, BigInteger.valueOf(i));
+      employees.add(orderedMap("address", address, "firstname", "Max" + i, "lastname", "Mu"));
+    }
+    company =
+        orderedMap(
+            "ceo",
+            keyPairService.generateKeyPair().getAddress(),
+            "shareholders",
+            shareholders,
+            "employees",
+            employees,
+            "location",
+            orderedMap("zip", BigInteger.valueOf(12345), "street", "Main", "city", "Berlin"));
+    Map<String, Object> companyDecoded = new LinkedHashMap<>(company);
+    companyDecoded.put("shareholders", decodedMap(shareholders));
+    companyJson = OBJECT_MAPPER.writeValueAsString(companyDecoded);
+
+    Random random = new Random(42);
+    grants = new ArrayList<>();
+    List<Map<String, Object>> grantsDecoded = new ArrayList<>();
+    for (int i = 0; i < entries; i++) {
+      byte[] signature = new byte[64];
+      random.nextBytes(signature);
+      byte[] hash = new byte[32];
+      random.nextBytes(hash);
+      Map<String, Object> grant =
+          orderedMap(
+              "oracle",
+              "ok_" + keyPairService.generateKeyPair().getAddress().substring(3),
+              "signature",
+              "#" + Hex.toHexString(signature),
+              "hash",
+              "#" + Hex.toHexString(hash),
+              "ttl",
+              i % 2 == 0
+                  ? SophiaVariant.of("RelativeTTL", BigInteger.valueOf(50))
+                  : SophiaVariant.of("FixedTTL", BigInteger.valueOf(100_000 + i)),
+              "expiry",
+              i % 3 == 0 ? Optional.empty() : Optional.of(BigInteger.valueOf(i)),
+              "memo",
+              i % 2 == 0 ? Optional.of("grant " + i) : Optional.empty());
+      grants.add(grant);
+      Map<String, Object> grantDecoded = new LinkedHashMap<>();
+      grant.forEach((field, value) -> grantDecoded.put(field, decoded(value)));
+      grantsDecoded.add(grantDecoded);
+    }
+    grantsJson = OBJECT_MAPPER.writeValueAsString(grantsDecoded);
+  }
+
+  @Benchmark
+  public String encodeMapOfMapsStraightforward() {
+    return literal(mapOfMaps);
+  }
+
+  @Benchmark
+  public String encodeMapOfMapsCodec() {
+    return SophiaCodec.encode(MAP_OF_MAPS, mapOfMaps);
+  }
+
+  @Benchmark
+  public Object decodeMapOfMapsStraightforward() throws IOException {
+    return SophiaCodec.convert(MAP_OF_MAPS, OBJECT_MAPPER.readValue(mapOfMapsJson, Object.class));
+  }
+
+  @Benchmark
+  public Object decodeMapOfMapsCodec() {
+    return SophiaCodec.decode(MAP_OF_MAPS, mapOfMapsJson);
+  }
+
+  @Benchmark
+  public String encodeListListMapStraightforward() {
+    return literal(listListMap);
+  }
+
+  @Benchmark
+  public String encodeListListMapCodec() {
+    return SophiaCodec.encode(LIST_LIST_MAP, listListMap);
+  }
+
+  @Benchmark
+  public Object decodeListListMapStraightforward() throws IOException {
+    return SophiaCodec.convert(
+        LIST_LIST_MAP, OBJECT_MAPPER.readValue(listListMapJson, Object.class));
+  }
+
+  @Benchmark
+  public Object decodeListListMapCodec() {
+    return SophiaCodec.decode(LIST_LIST_MAP, listListMapJson);
+  }
+
+  @Benchmark
+  public String encodeCompanyStraightforward() {
+    return recordLiteral(company);
+  }
+
+  @Benchmark
+  public String encodeCompanyCodec() {
+    return SophiaCodec.encode(COMPANY, company);
+  }
+
+  @Benchmark
+  public Object decodeCompanyStraightforward() throws IOException {
+    return SophiaCodec.convert(COMPANY, OBJECT_MAPPER.readValue(companyJson, Object.class));
+  }
+
+  @Benchmark
+  public Object decodeCompanyCodec() {
+    return SophiaCodec.decode(COMPANY, companyJson);
+  }
+
+  @Benchmark
+  public String encodeGrantsStraightforward() {
+    return fieldLiteral(grants);
+  }
+
+  @Benchmark
+  public String encodeGrantsCodec() {
+    return SophiaCodec.encode(GRANTS, grants);
+  }
+
+  @Benchmark
+  public Object decodeGrantsStraightforward() throws IOException {
+    return SophiaCodec.convert(GRANTS, OBJECT_MAPPER.readValue(grantsJson, Object.class));
+  }
+
+  @Benchmark
+  public Object decodeGrantsCodec() {
+    return SophiaCodec.decode(GRANTS, grantsJson);
+  }
+
+  /** a literal built the straightforward way, one string per element */
+  private static String literal(Object value) {
+    if (value instanceof Map) {
+      return ((Map<?, ?>) value)
+          .entrySet().stream()
+              .map(entry -> "[" + literal(entry.getKey()) + "] = " + literal(entry.getValue()))
+              .collect(Collectors.joining(", ", "{", "}"));
+    }
+    if (value instanceof List) {
+      return ((List<?>) value)
+          .stream().map(SophiaCodecBenchmark::literal).collect(Collectors.joining(", ", "[", "]"));
+    }
+    if (value instanceof Optional) {
+      Optional<?> option = (Optional<?>) value;
+      return option.isEmpty() ? "None" : "Some(" + literal(option.get()) + ")";
+    }
+    if (value instanceof SophiaVariant) {
+      SophiaVariant variant = (SophiaVariant) value;
+      return variant.getConstructor()
+          + variant.getArguments().stream()
+              .map(SophiaCodecBenchmark::literal)
+              .collect(Collectors.joining(", ", "(", ")"));
+    }
+    if (value instanceof String && !isUnquoted((String) value)) {
+      return "\"" + value + "\"";
+    }
+    return String.valueOf(value);
+  }
+
+  /** ids like {@code ak_...} or {@code ok_...} and bytes like {@code #...} */
+  private static boolean isUnquoted(String value) {
+    return value.startsWith("#") || (value.length() > 3 && value.charAt(2) == '_');
+  }
+
+  private static String recordLiteral(Map<String, Object> record) {
+    return record.entrySet().stream()
+        .map(field -> field.getKey() + " = " + fieldLiteral(field.getValue()))
+        .collect(Collectors.joining(", ", "{", "}"));
+  }
+
+  private static String fieldLiteral(Object value) {
+    if (value instanceof List) {
+      // the employees
+      return ((List<?>) value)
+          .stream()
+              .map(employee -> recordLiteral(cast(employee)))
+              .collect(Collectors.joining(", ", "[", "]"));
+    }
+    if (value instanceof LinkedHashMap) {
+      // records are ordered, maps of values aren't
+      return recordLiteral(cast(value));
+    }
+    return literal(value);
+  }
+
+  @SuppressWarnings("unchecked")
+  private static Map<String, Object> cast(Object record) {
+    return (Map<String, Object>) record;
+  }
+
+  /** options and variants are decoded by the compiler as objects of the constructor's arguments */
+  private static Object decoded(Object value) {
+    if (value instanceof Optional) {
+      Optional<?> option = (Optional<?>) value;
+      return option.isEmpty() ? Map.of("None", List.of()) : Map.of("Some", List.of(option.get()));
+    }
+    if (value instanceof SophiaVariant) {
+      SophiaVariant variant = (SophiaVariant) value;
+      return Map.of(variant.getConstructor(), variant.getArguments());
+    }
+    return value;
+  }
+
+  /** maps are decoded by the compiler as lists of key value pairs */
+  private static List<List<Object>> decodedMap(Map<?, ?> map) {
+    return map.entrySet().stream()
+        .map(entry -> List.<Object>of(entry.getKey(), entry.getValue()))
+        .collect(Collectors.toList());
+  }
+
+  @SuppressWarnings("unchecked")
+  private static <T> Map<String, T> orderedMap(Object... keysAndValues) {
+    Map<String, T> map = new LinkedHashMap<>();
+    for (int i = 0; i < keysAndValues.length; i += 2) {
+      map.put((String) keysAndValues[i], (T) keysAndValues[i + 1]);
+    }
+    return map;
+  }
+}
@@ -0,0 +1,134 @@
+package com.kryptokrauts.benchmark;
+
+import com.kryptokrauts.chain.NodeApi;
+import com.kryptokrauts.chain.TransportSettings;
+import java.net.http.HttpClient;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import lombok.Value;
+import lombok.extern.slf4j.Slf4j;
+import org.HdrHistogram.Histogram;
+
+/**
+ * Closed loop GET requests against the node of the docker-compose devnet through {@link NodeApi}
+ * instances with different {@link TransportSettings}, to see how protocol and concurrency limit
+ * affect the throughput of many concurrent callers sharing one endpoint.
+ *
+ * <p>{@code mvn -Pbenchmark compile exec:java
+ * -Dbenchmark.main=com.kryptokrauts.benchmark.TransportBenchmark}, use {@code
+ * -Dbenchmark.callers}, {@code -Dbenchmark.operations} and {@code -Dbenchmark.path} (defaults to
+ * {@code /v3/status}) to adjust a run.
+ */
+@Slf4j
+public class TransportBenchmark {
+
+  private static final String REPORT_FORMAT = "%-24s %7s %6s %9s %22s%n";
+
+  public static void main(String[] args) throws Exception {
+    List<Integer> callerCounts =
+        Arrays.stream(System.getProperty("benchmark.callers", "1,8,32,128").split(","))
+            .map(String::trim)
+            .map(Integer::valueOf)
+            .collect(Collectors.toList());
+    int operations = Integer.getInteger("benchmark.operations", 200);
+    String path = System.getProperty("benchmark.path", "/v3/status");
+    String baseUrl = System.getProperty("benchmark.baseUrl", "http://localhost");
+
+    List<String> report = new ArrayList<>();
+    for (Map.Entry<String, TransportSettings> variant : variants().entrySet()) {
+      try (NodeApi nodeApi = new NodeApi(baseUrl, variant.getValue())) {
+        // open the connections before measuring
+        run(nodeApi, path, callerCounts.get(callerCounts.size() - 1), 10);
+        for (int callers : callerCounts) {
+          report.add(run(nodeApi, path, callers, operations).format(variant.getKey(), callers));
+        }
+      }
+    }
+
+    System.out.printf(REPORT_FORMAT, "transport", "callers", "ops", "ops/sec", "p50/p99/p999 ms");
+    report.forEach(System.out::print);
+    System.exit(0);
+  }
+
+  private static Map<String, TransportSettings> variants() {
+    Map<String, TransportSettings> variants = new LinkedHashMap<>();
+    variants.put(
+        "http/1.1 unlimited",
+        TransportSettings.builder()
+            .httpVersion(HttpClient.Version.HTTP_1_1)
+            .maxConcurrentRequests(0)
+            .build());
+    variants.put(
+        "http/1.1 limit 8",
+        TransportSettings.builder()
+            .httpVersion(HttpClient.Version.HTTP_1_1)
+            .maxConcurrentRequests(8)
+            .build());
+    variants.put(
+        "http/1.1 limit 64",
+        TransportSettings.builder().httpVersion(HttpClient.Version.HTTP_1_1).build());
+    variants.put("http/2 limit 64", TransportSettings.builder().build());
+    return variants;
+  }
+
+  private static Result run(NodeApi nodeApi, String path, int callers, int operations) {
+    LatencyRecorder latency = new LatencyRecorder();
+    AtomicLong failures = new AtomicLong();
+    ExecutorService executor = Executors.newFixedThreadPool(callers);
+    long start = System.nanoTime();
+    List<CompletableFuture<Void>> loops = new ArrayList<>();
+    for (int caller = 0; caller < callers; caller++) {
+      loops.add(
+          CompletableFuture.runAsync(
+              () -> {
+                for (int i = 0; i < operations; i++) {
+                  long requestStart = System.nanoTime();
+                  try {
+                    nodeApi.get(path);
+                    latency.recordNanos(System.nanoTime() - requestStart);
+                  } catch (RuntimeException e) {
+                    failures.incrementAndGet();
+                    log.debug("GET {} failed", path, e);
+                  }
+                }
+              },
+              executor));
+    }
+    CompletableFuture.allOf(loops.toArray(CompletableFuture[]::new)).join();
+    long elapsedNanos = System.nanoTime() - start;
+    executor.shutdown();
+    if (failures.get() > 0) {
+      log.warn("{} of {} requests failed", failures.get(), callers * operations);
+    }
+    return new Result(latency.snapshot(), elapsedNanos);
+  }
+
+  @Value
+  private static class Result {
+
+    Histogram histogram;
+
+    long elapsedNanos;
+
+    String format(String transport, int callers) {
+      long completed = histogram.getTotalCount();
+      double opsPerSecond = completed / (elapsedNanos / (double) TimeUnit.SECONDS.toNanos(1));
+      return String.format(
+          REPORT_FORMAT,
+          transport,
+          callers,
+          completed,
+          String.format("%.1f", opsPerSecond),
+          LatencyRecorder.percentiles(histogram));
+    }
+  }
+}
@@ -0,0 +1,30 @@
+package com.kryptokrauts.account;
+
+import com.kryptokrauts.payout.Payee;
+import java.util.List;
+import lombok.Value;
+
+/** Outcome of funding a batch of payees. */
+@Value
+public class FundingReport {
+
+  public enum Route {
+    /** one spend transaction per payee, posted on consecutive nonces */
+    SPENDS,
+    /** calls of the deployed {@code BatchPayment} contract */
+    BATCH_PAYMENT
+  }
+
+  Route route;
+
+  /** the mined transactions which funded the payees */
+  List<String> txHashes;
+
+  /** payees whose funding failed or wasn't mined in time */
+  List<Payee> unfunded;
+
+  /** @return true if every payee has been funded */
+  public boolean isComplete() {
+    return unfunded.isEmpty();
+  }
+}
@@ -0,0 +1,226 @@
+package com.kryptokrauts.account;
+
+import com.kryptokrauts.account.FundingReport.Route;
+import com.kryptokrauts.aeternity.sdk.domain.secret.KeyPair;
+import com.kryptokrauts.aeternity.sdk.service.transaction.type.model.SpendTransactionModel;
+import com.kryptokrauts.chain.ConfirmationTracker;
+import com.kryptokrauts.nonce.NonceManager;
+import com.kryptokrauts.payout.BatchPayoutEngine;
+import com.kryptokrauts.payout.ChunkResult;
+import com.kryptokrauts.payout.Payee;
+import com.kryptokrauts.payout.PayoutJournal;
+import com.kryptokrauts.payout.PayoutReport;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigInteger;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Funds any number of accounts and waits once until all of them are funded.
+ *
+ * <p>A batch is either sent as one spend per payee, all posted at once on consecutive nonces of
+ * the funder, or paid through a deployed {@code BatchPayment} contract, whichever costs less gas
+ * for its size. Spends cost the same per payee while a call has a high base cost and a small cost
+ * per payee, so small batches are spent and large batches are paid by the contract.
+ *
+ * <p>The funder's nonces are managed by the {@link NonceManager}, so it shouldn't sign
+ * transactions which read their nonce from the chain while a batch is being funded.
+ */
+@Slf4j
+public class FundingService {
+
+  /**
+   * base gas of a spend transaction, fees are charged per gas like the gas of a call. The node's
+   * consensus value, {@code ?TX_BASE_GAS} of {@code aec_governance}.
+   */
+  private static final long SPEND_BASE_GAS = 15_000;
+
+  /** base gas of a contract call transaction, {@code tx_base_gas(contract_call_tx, _)} */
+  private static final long CALL_BASE_GAS = 30 * SPEND_BASE_GAS;
+
+  /** {@code byte_gas()} of {@code aec_governance} */
+  private static final long GAS_PER_BYTE = 20;
+
+  /** approximate size of a serialized spend transaction without payload */
+  private static final long SPEND_TX_BYTES = 90;
+
+  /** approximate size of a serialized call without the recipients in its calldata */
+  private static final long CALL_TX_BYTES = 110;
+
+  /** approximate size of a single entry of the recipients map in the calldata */
+  private static final long PAYEE_BYTES = 42;
+
+  private final NonceManager nonceManager;
+
+  private final ConfirmationTracker confirmationTracker;
+
+  private final BatchPayoutEngine batchPayoutEngine;
+
+  private final FundingSettings settings;
+
+  /**
+   * a service which only funds through spends
+   *
+   * @param nonceManager posts the spends on pipelined nonces
+   * @param confirmationTracker used to wait for the spends to be mined
+   * @param settings
+   */
+  public FundingService(
+      NonceManager nonceManager,
+      ConfirmationTracker confirmationTracker,
+      FundingSettings settings) {
+    this(nonceManager, confirmationTracker, null, settings);
+  }
+
+  /**
+   * @param nonceManager posts the spends on pipelined nonces
+   * @param confirmationTracker used to wait for the spends to be mined
+   * @param batchPayoutEngine pays large batches through its {@code BatchPayment} contract, null to
+   *     only fund through spends
+   * @param settings
+   */
+  public FundingService(
+      NonceManager nonceManager,
+      ConfirmationTracker confirmationTracker,
+      BatchPayoutEngine batchPayoutEngine,
+      FundingSettings settings) {
+    this.nonceManager = nonceManager;
+    this.confirmationTracker = confirmationTracker;
+    this.batchPayoutEngine = batchPayoutEngine;
+    this.settings = settings;
+  }
+
+  /**
+   * fund all payees on the cheapest route and wait until they are funded
+   *
+   * @param funder the account paying the amounts and fees
+   * @param payees
+   * @return the route taken and the payees which couldn't be funded
+   */
+  public FundingReport fund(KeyPair funder, List<Payee> payees) {
+    return fund(funder, payees, cheapestRoute(payees.size()));
+  }
+
+  /**
+   * fund all payees on the given route and wait until they are funded
+   *
+   * @throws IllegalStateException if the batch payment route is requested without a payout engine
+   */
+  public FundingReport fund(KeyPair funder, List<Payee> payees, Route route) {
+    if (payees.isEmpty()) {
+      return new FundingReport(route, List.of(), List.of());
+    }
+    log.debug("Funding {} payees through {}", payees.size(), route);
+    if (route == Route.BATCH_PAYMENT) {
+      if (batchPayoutEngine == null) {
+        throw new IllegalStateException("No batch payout engine configured");
+      }
+      return payout(funder, payees);
+    }
+    return spend(funder, payees);
+  }
+
+  /** @return the route costing less gas for the given number of payees */
+  public Route cheapestRoute(int payees) {
+    if (batchPayoutEngine == null) {
+      return Route.SPENDS;
+    }
+    return batchGas(payees) < spendGas(payees) ? Route.BATCH_PAYMENT : Route.SPENDS;
+  }
+
+  private long spendGas(int payees) {
+    return payees * (SPEND_BASE_GAS + GAS_PER_BYTE * SPEND_TX_BYTES);
+  }
+
+  /**
+   * the gas of a single call, the base cost of further chunks of very large batches is left out as
+   * it only matters far beyond the break-even point
+   */
+  private long batchGas(int payees) {
+    long executionGas =
+        batchPayoutEngine
+            .profiledGas(payees)
+            .map(BigInteger::longValueExact)
+            .orElse(payees * settings.getEstimatedGasPerPayee());
+    return CALL_BASE_GAS + GAS_PER_BYTE * (CALL_TX_BYTES + PAYEE_BYTES * payees) + executionGas;
+  }
+
+  /** post all spends on consecutive nonces, then wait for all of them at once */
+  private FundingReport spend(KeyPair funder, List<Payee> payees) {
+    List<CompletableFuture<String>> spends = new ArrayList<>(payees.size());
+    for (Payee payee : payees) {
+      CompletableFuture<String> posted = new CompletableFuture<>();
+      // the nonce is taken on subscription, so the spends get consecutive nonces in order
+      nonceManager
+          .post(
+              funder,
+              nonce ->
+                  SpendTransactionModel.builder()
+                      .sender(funder.getAddress())
+                      .recipient(payee.getRecipient())
+                      .amount(payee.getAmount())
+                      .nonce(nonce)
+                      .build())
+          .subscribe(result -> posted.complete(result.getTxHash()), posted::completeExceptionally);
+      spends.add(
+          posted.thenCompose(
+              txHash ->
+                  confirmationTracker
+                      .track(txHash, settings.getMinedTimeout())
+                      .thenApply(mined -> txHash)));
+    }
+    CompletableFuture.allOf(spends.toArray(CompletableFuture[]::new))
+        .exceptionally(error -> null)
+        .join();
+
+    List<String> txHashes = new ArrayList<>();
+    List<Payee> unfunded = new ArrayList<>();
+    for (int i = 0; i < payees.size(); i++) {
+      try {
+        txHashes.add(spends.get(i).join());
+      } catch (CompletionException e) {
+        log.warn("Funding {} failed", payees.get(i).getRecipient(), e.getCause());
+        unfunded.add(payees.get(i));
+      }
+    }
+    return new FundingReport(Route.SPENDS, txHashes, unfunded);
+  }
+
+  /**
+   * pay the batch through the payout engine, the journal only lives as long as the batch, so an
+   * interrupted funding isn't resumed
+   */
+  private FundingReport payout(KeyPair funder, List<Payee> payees) {
+    PayoutReport report;
+    Path journalFile = null;
+    try {
+      journalFile = Files.createTempFile("funding", ".journal");
+      try (PayoutJournal journal = new PayoutJournal(journalFile)) {
+        report = batchPayoutEngine.payout(funder, payees.iterator(), journal);
+      }
+    } catch (IOException e) {
+      throw new UncheckedIOException("Cannot journal the funding", e);
+    } finally {
+      if (journalFile != null) {
+        journalFile.toFile().delete();
+      }
+    }
+    List<String> txHashes = new ArrayList<>();
+    List<Payee> unfunded = new ArrayList<>();
+    for (ChunkResult result : report.getResults()) {
+      if (result.isPaid()) {
+        txHashes.add(result.getTxHash());
+      } else {
+        log.warn("Funding chunk {} failed: {}", result.getChunk().getIndex(), result.getMessage());
+        unfunded.addAll(result.getChunk().getPayees());
+      }
+    }
+    return new FundingReport(Route.BATCH_PAYMENT, txHashes, unfunded);
+  }
+}
@@ -0,0 +1,20 @@
+package com.kryptokrauts.account;
+
+import java.time.Duration;
+import lombok.Builder;
+import lombok.Value;
+
+/** Tuning of the {@link FundingService}. */
+@Value
+@Builder
+public class FundingSettings {
+
+  /**
+   * gas a {@code BatchPayment} call is assumed to use per payee as long as the payout engine hasn't
+   * learned its gas profile yet
+   */
+  @Builder.Default long estimatedGasPerPayee = 1_000;
+
+  /** how long to wait for the funding transactions to be mined */
+  @Builder.Default Duration minedTimeout = Duration.ofSeconds(60);
+}
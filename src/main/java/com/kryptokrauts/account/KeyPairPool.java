@@ -0,0 +1,174 @@
+package com.kryptokrauts.account;
+
+import com.kryptokrauts.aeternity.sdk.domain.secret.KeyPair;
+import com.kryptokrauts.aeternity.sdk.service.keypair.KeyPairService;
+import com.kryptokrauts.aeternity.sdk.service.keypair.KeyPairServiceFactory;
+import com.kryptokrauts.payout.Payee;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Hands out fresh key pairs without waiting for their generation or funding.
+ *
+ * <p>A background filler keeps a number of generated key pairs and a number of funded key pairs
+ * ready. Funded key pairs are topped up as soon as some are taken: all missing key pairs are
+ * funded as one batch by the {@link FundingService} and become available once the batch is mined.
+ *
+ * <p>The funder's nonces are managed by the funding service's nonce manager, so it shouldn't sign
+ * transactions which read their nonce from the chain while the pool is running.
+ */
+@Slf4j
+public class KeyPairPool implements AutoCloseable {
+
+  private final KeyPairService keyPairService = new KeyPairServiceFactory().getService();
+
+  private final FundingService fundingService;
+
+  private final KeyPair funder;
+
+  private final KeyPairPoolSettings settings;
+
+  private final BlockingQueue<KeyPair> generated;
+
+  private final BlockingQueue<KeyPair> funded = new LinkedBlockingQueue<>();
+
+  private final ExecutorService filler =
+      Executors.newSingleThreadExecutor(
+          runnable -> {
+            Thread thread = new Thread(runnable, "keypair-pool-filler");
+            thread.setDaemon(true);
+            return thread;
+          });
+
+  /** notified whenever the filler has something to do */
+  private final Object demand = new Object();
+
+  /**
+   * @param fundingService funds the key pairs
+   * @param funder the account funding the key pairs
+   * @param settings
+   */
+  public KeyPairPool(FundingService fundingService, KeyPair funder, KeyPairPoolSettings settings) {
+    this.fundingService = fundingService;
+    this.funder = funder;
+    this.settings = settings;
+    this.generated = new LinkedBlockingQueue<>(settings.getGeneratedCapacity());
+  }
+
+  /** start filling the pool in the background */
+  public void start() {
+    filler.execute(this::fill);
+  }
+
+  /** @return a fresh key pair without any balance */
+  public KeyPair generate() {
+    KeyPair keyPair = generated.poll();
+    signal();
+    return keyPair != null ? keyPair : keyPairService.generateKeyPair();
+  }
+
+  /**
+   * @return a fresh key pair funded with {@link KeyPairPoolSettings#getFundingAmount()}, waiting
+   *     for its funding if none is ready
+   * @throws IllegalStateException if no funded key pair is ready in time
+   */
+  public KeyPair take() {
+    signal();
+    try {
+      KeyPair keyPair = funded.poll(settings.getTakeTimeout().toMillis(), TimeUnit.MILLISECONDS);
+      if (keyPair == null) {
+        throw new IllegalStateException(
+            "No funded key pair within "
+                + settings.getTakeTimeout()
+                + ", check the funder's balance");
+      }
+      return keyPair;
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("Interrupted while waiting for a funded key pair", e);
+    } finally {
+      signal();
+    }
+  }
+
+  /** @return a funded key pair if one is ready right now */
+  public Optional<KeyPair> poll() {
+    KeyPair keyPair = funded.poll();
+    signal();
+    return Optional.ofNullable(keyPair);
+  }
+
+  public int getFundedCount() {
+    return funded.size();
+  }
+
+  public int getGeneratedCount() {
+    return generated.size();
+  }
+
+  @Override
+  public void close() {
+    filler.shutdownNow();
+  }
+
+  private void signal() {
+    synchronized (demand) {
+      demand.notifyAll();
+    }
+  }
+
+  private void fill() {
+    try {
+      while (!Thread.currentThread().isInterrupted()) {
+        boolean complete = fund(settings.getFundedCapacity() - funded.size());
+        while (generated.remainingCapacity() > 0) {
+          generated.offer(keyPairService.generateKeyPair());
+        }
+        synchronized (demand) {
+          // after a failed funding the filler retries on its next round, not right away
+          if (!complete || funded.size() >= settings.getFundedCapacity()) {
+            demand.wait(1000);
+          }
+        }
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  /** @return false if not all key pairs could be funded */
+  private boolean fund(int missing) {
+    if (missing <= 0) {
+      return true;
+    }
+    List<KeyPair> keyPairs = new ArrayList<>(missing);
+    List<Payee> payees = new ArrayList<>(missing);
+    for (int i = 0; i < missing; i++) {
+      KeyPair keyPair = generate();
+      keyPairs.add(keyPair);
+      payees.add(new Payee(keyPair.getAddress(), settings.getFundingAmount()));
+    }
+    FundingReport report;
+    try {
+      report = fundingService.fund(funder, payees);
+    } catch (RuntimeException e) {
+      log.warn("Funding {} key pairs failed", missing, e);
+      return false;
+    }
+    Set<String> unfunded =
+        report.getUnfunded().stream().map(Payee::getRecipient).collect(Collectors.toSet());
+    keyPairs.stream()
+        .filter(keyPair -> !unfunded.contains(keyPair.getAddress()))
+        .forEach(funded::offer);
+    return report.isComplete();
+  }
+}
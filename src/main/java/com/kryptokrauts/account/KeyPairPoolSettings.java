@@ -0,0 +1,24 @@
+package com.kryptokrauts.account;
+
+import java.math.BigInteger;
+import java.time.Duration;
+import lombok.Builder;
+import lombok.Value;
+
+/** Tuning of the {@link KeyPairPool}. */
+@Value
+@Builder
+public class KeyPairPoolSettings {
+
+  /** funded key pairs kept ready, including the ones whose funding is on its way */
+  @Builder.Default int fundedCapacity = 10;
+
+  /** unfunded key pairs kept ready */
+  @Builder.Default int generatedCapacity = 100;
+
+  /** the balance every funded key pair starts with, 1 AE by default */
+  @Builder.Default BigInteger fundingAmount = BigInteger.TEN.pow(18);
+
+  /** how long {@link KeyPairPool#take()} waits for a funded key pair */
+  @Builder.Default Duration takeTimeout = Duration.ofSeconds(30);
+}
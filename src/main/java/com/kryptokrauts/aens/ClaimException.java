@@ -0,0 +1,13 @@
+package com.kryptokrauts.aens;
+
+/** Signals a claim run which can't be processed at all, e.g. an unreadable journal. */
+public class ClaimException extends RuntimeException {
+
+  public ClaimException(String message) {
+    super(message);
+  }
+
+  public ClaimException(String message, Throwable cause) {
+    super(message, cause);
+  }
+}
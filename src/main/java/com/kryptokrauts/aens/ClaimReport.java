@@ -0,0 +1,21 @@
+package com.kryptokrauts.aens;
+
+import java.util.List;
+import java.util.stream.Collectors;
+import lombok.Value;
+
+/** Per name results of a claim run, in the order the names were given. */
+@Value
+public class ClaimReport {
+
+  List<NameClaimResult> results;
+
+  /** @return true if every name has been claimed, in this or an earlier run */
+  public boolean isComplete() {
+    return results.stream().allMatch(NameClaimResult::isClaimed);
+  }
+
+  public List<NameClaimResult> getUnclaimed() {
+    return results.stream().filter(result -> !result.isClaimed()).collect(Collectors.toList());
+  }
+}
@@ -0,0 +1,23 @@
+package com.kryptokrauts.aens;
+
+import java.math.BigInteger;
+import java.time.Duration;
+import lombok.Builder;
+import lombok.Value;
+
+/** Tuning of the {@link NameClaimScheduler}. */
+@Value
+@Builder
+public class ClaimSettings {
+
+  /** number of names between their preclaim and the settled claim at the same time */
+  @Builder.Default int maxInFlight = 200;
+
+  /** threads encoding and posting the calls */
+  @Builder.Default int workers = 8;
+
+  @Builder.Default BigInteger gasLimit = BigInteger.valueOf(100_000);
+
+  /** how long to wait for a preclaim or claim to be mined */
+  @Builder.Default Duration minedTimeout = Duration.ofSeconds(120);
+}
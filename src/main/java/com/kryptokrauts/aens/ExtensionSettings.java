@@ -0,0 +1,32 @@
+package com.kryptokrauts.aens;
+
+import java.math.BigInteger;
+import java.time.Duration;
+import lombok.Builder;
+import lombok.Value;
+
+/** Tuning of the {@link NameExtensionService}. */
+@Value
+@Builder
+public class ExtensionSettings {
+
+  /** a name is extended once it expires within this number of key blocks */
+  @Builder.Default long safetyMargin = 1000;
+
+  /**
+   * the new expiry relative to the key block the extension is posted in. The node accepts at most
+   * 180000 blocks ahead of the block the call is mined in.
+   */
+  @Builder.Default long extendBy = 179_000;
+
+  /** names extended per key block at most, the remaining ones follow in the next blocks */
+  @Builder.Default int maxPerBlock = 100;
+
+  /** threads encoding and posting the calls */
+  @Builder.Default int workers = 8;
+
+  @Builder.Default BigInteger gasLimit = BigInteger.valueOf(100_000);
+
+  /** how long to wait for an extension to be mined before it's tried again */
+  @Builder.Default Duration minedTimeout = Duration.ofSeconds(120);
+}
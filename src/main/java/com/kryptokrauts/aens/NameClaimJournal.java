@@ -0,0 +1,176 @@
+package com.kryptokrauts.aens;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigInteger;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.zip.CRC32;
+import lombok.Value;
+
+/**
+ * Append-only record of the progress of each name of a claim run. A claim can only be made with
+ * the salt of its preclaim, so losing the salt means losing the preclaim: the salt and commitment
+ * of a name are written and forced to disk before its preclaim is posted.
+ *
+ * <p>Every state change is written as one line, the latest line of a name wins. Each line ends with
+ * the CRC32 of its content. A last line cut short by a crash, i.e. without its line break or with a
+ * wrong checksum, is dropped on the next start; a damaged line anywhere else fails the load.
+ */
+public class NameClaimJournal implements AutoCloseable {
+
+  private final Map<String, Entry> entries = new HashMap<>();
+
+  private final FileChannel channel;
+
+  private final BufferedWriter writer;
+
+  /**
+   * @param file the journal, created if it doesn't exist, otherwise its state is loaded
+   * @throws IOException
+   */
+  public NameClaimJournal(Path file) throws IOException {
+    channel =
+        FileChannel.open(
+            file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+    try {
+      long complete = replay(Files.readAllBytes(file));
+      // drop a partially written last line
+      channel.truncate(complete);
+      channel.position(complete);
+    } catch (IOException | RuntimeException e) {
+      channel.close();
+      throw e;
+    }
+    writer = new BufferedWriter(Channels.newWriter(channel, StandardCharsets.UTF_8));
+  }
+
+  public synchronized Optional<Entry> get(String name) {
+    return Optional.ofNullable(entries.get(name));
+  }
+
+  synchronized void record(
+      String name,
+      State state,
+      BigInteger salt,
+      String commitmentHash,
+      long preclaimHeight,
+      String txHash) {
+    entries.put(name, new Entry(state, salt, commitmentHash, preclaimHeight, txHash));
+    append(
+        String.join(
+            " ",
+            name,
+            state.name(),
+            salt != null ? salt.toString() : "-",
+            commitmentHash != null ? commitmentHash : "-",
+            Long.toString(preclaimHeight),
+            txHash != null ? txHash : "-"));
+  }
+
+  @Override
+  public synchronized void close() throws IOException {
+    writer.close();
+  }
+
+  private void append(String line) {
+    try {
+      writer.write(line);
+      writer.write(' ');
+      writer.write(checksum(line));
+      writer.newLine();
+      writer.flush();
+      channel.force(false);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  /** @return the length of the complete lines, which have been loaded */
+  private long replay(byte[] bytes) {
+    int start = 0;
+    for (int end = indexOf(bytes, '\n', start); end >= 0; end = indexOf(bytes, '\n', start)) {
+      String line = new String(bytes, start, end - start, StandardCharsets.UTF_8);
+      int separator = line.lastIndexOf(' ');
+      if (!line.isBlank()) {
+        if (separator < 0
+            || !line.substring(separator + 1).equals(checksum(line.substring(0, separator)))) {
+          if (end == bytes.length - 1) {
+            // torn by a crash while appending
+            break;
+          }
+          throw new ClaimException("Corrupt journal line: " + line);
+        }
+        load(line.substring(0, separator));
+      }
+      start = end + 1;
+    }
+    return start;
+  }
+
+  private static int indexOf(byte[] bytes, char c, int from) {
+    for (int i = from; i < bytes.length; i++) {
+      if (bytes[i] == c) {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  private static String checksum(String content) {
+    CRC32 crc = new CRC32();
+    crc.update(content.getBytes(StandardCharsets.UTF_8));
+    return String.format("%08x", crc.getValue());
+  }
+
+  private void load(String line) {
+    String[] columns = line.split(" ");
+    if (columns.length != 6) {
+      throw new ClaimException("Invalid journal line: " + line);
+    }
+    entries.put(
+        columns[0],
+        new Entry(
+            State.valueOf(columns[1]),
+            "-".equals(columns[2]) ? null : new BigInteger(columns[2]),
+            "-".equals(columns[3]) ? null : columns[3],
+            Long.parseLong(columns[4]),
+            "-".equals(columns[5]) ? null : columns[5]));
+  }
+
+  public enum State {
+    /** salt and commitment chosen, the preclaim may or may not have reached the node */
+    PRECLAIM_PREPARED,
+    PRECLAIM_SUBMITTED,
+    /** the preclaim was mined, the name can be claimed from the following key block on */
+    PRECLAIMED,
+    CLAIM_SUBMITTED,
+    CLAIMED,
+    FAILED
+  }
+
+  /** the latest journaled state of a name */
+  @Value
+  public static class Entry {
+
+    State state;
+
+    BigInteger salt;
+
+    String commitmentHash;
+
+    /** height the preclaim was mined at, -1 if not known */
+    long preclaimHeight;
+
+    /** hash of the latest transaction, null if not known */
+    String txHash;
+  }
+}
@@ -0,0 +1,33 @@
+package com.kryptokrauts.aens;
+
+import lombok.Value;
+
+/** Outcome of claiming a single name. */
+@Value
+public class NameClaimResult {
+
+  public enum Status {
+    /** the name was claimed in this run */
+    CLAIMED,
+    /** the journal shows that the name was claimed by an earlier run, nothing was submitted */
+    ALREADY_CLAIMED,
+    /** the preclaim or claim was reverted or rejected, the next run starts over with a new salt */
+    FAILED,
+    /** the run stopped in between, the next run with the same journal continues the name */
+    PENDING
+  }
+
+  String name;
+
+  Status status;
+
+  /** hash of the latest transaction of the name, null if none is known */
+  String txHash;
+
+  /** reason of a name which isn't claimed */
+  String message;
+
+  public boolean isClaimed() {
+    return status == Status.CLAIMED || status == Status.ALREADY_CLAIMED;
+  }
+}
@@ -0,0 +1,490 @@
+package com.kryptokrauts.aens;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.kryptokrauts.aens.NameClaimJournal.Entry;
+import com.kryptokrauts.aens.NameClaimJournal.State;
+import com.kryptokrauts.aens.NameClaimResult.Status;
+import com.kryptokrauts.aeternity.sdk.constants.AENS;
+import com.kryptokrauts.aeternity.sdk.constants.Network;
+import com.kryptokrauts.aeternity.sdk.constants.VirtualMachine;
+import com.kryptokrauts.aeternity.sdk.domain.secret.KeyPair;
+import com.kryptokrauts.aeternity.sdk.service.ServiceConfiguration;
+import com.kryptokrauts.aeternity.sdk.service.aeternity.impl.AeternityService;
+import com.kryptokrauts.aeternity.sdk.service.delegation.DelegationService;
+import com.kryptokrauts.aeternity.sdk.service.delegation.DelegationServiceFactory;
+import com.kryptokrauts.aeternity.sdk.service.transaction.domain.PostTransactionResult;
+import com.kryptokrauts.aeternity.sdk.service.transaction.type.model.ContractCallTransactionModel;
+import com.kryptokrauts.aeternity.sdk.util.CryptoUtils;
+import com.kryptokrauts.chain.BlockEvent;
+import com.kryptokrauts.chain.BlockEvent.BlockType;
+import com.kryptokrauts.chain.ChainFeed;
+import com.kryptokrauts.chain.ChainTransaction;
+import com.kryptokrauts.chain.ConfirmationTracker;
+import com.kryptokrauts.chain.NodeApi;
+import com.kryptokrauts.nonce.NonceManager;
+import com.kryptokrauts.nonce.TransactionRejectedException;
+import com.kryptokrauts.signing.SigningService;
+import com.kryptokrauts.sophia.Literals;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Claims any number of names for one owner through a deployed {@code AENSDelegation} contract.
+ *
+ * <p>A name is preclaimed with a salted commitment and can be claimed from the key block following
+ * the preclaim on. Instead of running the two phases name by name, the scheduler keeps up to
+ * {@link ClaimSettings#getMaxInFlight()} names in progress: preclaims of later names are posted
+ * on pipelined nonces while the claims of earlier names, which are signed in one batch per key
+ * block, are mined. The duration of a run is therefore bounded by the block cadence and the
+ * number of names in flight rather than by the round trips per name.
+ *
+ * <p>Salt, commitment and progress of every name are written to a {@link NameClaimJournal}.
+ * Running the same names with the same journal again continues every name from its last state.
+ */
+@Slf4j
+public class NameClaimScheduler {
+
+  private final AeternityService aeternityService;
+
+  private final NonceManager nonceManager;
+
+  private final ConfirmationTracker confirmationTracker;
+
+  private final NodeApi nodeApi;
+
+  private final ChainFeed chainFeed;
+
+  private final SigningService signingService;
+
+  private final Network network;
+
+  private final String contractId;
+
+  private final String contractSource;
+
+  /** pays for the calls, the owner only signs */
+  private final KeyPair caller;
+
+  private final ClaimSettings settings;
+
+  /**
+   * @param aeternityService service used to encode the calldata
+   * @param nonceManager posts the calls on pipelined nonces
+   * @param confirmationTracker used to wait for the calls to be mined
+   * @param nodeApi used to read the results of the calls
+   * @param chainFeed triggers the claims once per key block
+   * @param signingService creates the delegation signatures
+   * @param network network of the contract, part of the signed data
+   * @param contractId id of the deployed {@code AENSDelegation} contract
+   * @param contractSource source code of the {@code AENSDelegation} contract
+   * @param caller account posting the calls
+   * @param settings
+   */
+  public NameClaimScheduler(
+      AeternityService aeternityService,
+      NonceManager nonceManager,
+      ConfirmationTracker confirmationTracker,
+      NodeApi nodeApi,
+      ChainFeed chainFeed,
+      SigningService signingService,
+      Network network,
+      String contractId,
+      String contractSource,
+      KeyPair caller,
+      ClaimSettings settings) {
+    this.aeternityService = aeternityService;
+    this.nonceManager = nonceManager;
+    this.confirmationTracker = confirmationTracker;
+    this.nodeApi = nodeApi;
+    this.chainFeed = chainFeed;
+    this.signingService = signingService;
+    this.network = network;
+    this.contractId = contractId;
+    this.contractSource = contractSource;
+    this.caller = caller;
+    this.settings = settings;
+  }
+
+  /**
+   * claim all names and wait until every name is settled
+   *
+   * @param owner the future owner of the names, pays the name fees
+   * @param names the names including their namespace, consumed lazily
+   * @param journal the journal of this run
+   * @return the result of every name
+   */
+  public ClaimReport claim(KeyPair owner, Iterator<String> names, NameClaimJournal journal) {
+    Run run = new Run(owner, journal);
+    chainFeed.addListener(run.listener);
+    chainFeed.start();
+    Semaphore inFlight = new Semaphore(settings.getMaxInFlight());
+    List<CompletableFuture<NameClaimResult>> results = new ArrayList<>();
+    try {
+      while (names.hasNext()) {
+        Claim claim = new Claim(names.next());
+        inFlight.acquire();
+        claim.result.whenComplete((result, error) -> inFlight.release());
+        results.add(claim.result);
+        run.execute(claim, () -> run.resume(claim));
+      }
+      return new ClaimReport(
+          results.stream().map(CompletableFuture::join).collect(Collectors.toList()));
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new ClaimException("Interrupted while preclaiming names", e);
+    } finally {
+      chainFeed.removeListener(run.listener);
+      run.executor.shutdown();
+    }
+  }
+
+  /** the progress of one name within a run */
+  private static class Claim {
+
+    final String name;
+
+    final CompletableFuture<NameClaimResult> result = new CompletableFuture<>();
+
+    BigInteger salt;
+
+    String commitmentHash;
+
+    long preclaimHeight = -1;
+
+    Claim(String name) {
+      this.name = name;
+    }
+  }
+
+  /** state of a single call of {@link #claim(KeyPair, Iterator, NameClaimJournal)} */
+  private class Run {
+
+    final KeyPair owner;
+
+    final NameClaimJournal journal;
+
+    final ExecutorService executor =
+        Executors.newFixedThreadPool(
+            settings.getWorkers(),
+            runnable -> {
+              Thread thread = new Thread(runnable, "name-claim-scheduler");
+              thread.setDaemon(true);
+              return thread;
+            });
+
+    final DelegationService delegationService;
+
+    /** preclaimed names waiting for their claim, guarded by itself */
+    final List<Claim> preclaimed = new ArrayList<>();
+
+    final AtomicBoolean claimsPending = new AtomicBoolean();
+
+    final Consumer<BlockEvent> listener =
+        block -> {
+          if (block.getType() == BlockType.KEY) {
+            scheduleClaims();
+          }
+        };
+
+    /** the preclaim signature doesn't depend on the name */
+    volatile String preclaimSignature;
+
+    Run(KeyPair owner, NameClaimJournal journal) {
+      this.owner = owner;
+      this.journal = journal;
+      this.delegationService =
+          new DelegationServiceFactory()
+              .getService(
+                  ServiceConfiguration.configure().network(network).keyPair(owner).compile());
+    }
+
+    /** continue a name from its journaled state */
+    void resume(Claim claim) {
+      Optional<Entry> entry = journal.get(claim.name);
+      if (entry.isEmpty() || entry.get().getState() == State.FAILED) {
+        claim.salt = CryptoUtils.generateNamespaceSalt();
+        claim.commitmentHash = delegationService.getAensCommitmentHash(claim.name, claim.salt);
+        record(claim, State.PRECLAIM_PREPARED, null);
+        preclaim(claim, false);
+        return;
+      }
+      claim.salt = entry.get().getSalt();
+      claim.commitmentHash = entry.get().getCommitmentHash();
+      claim.preclaimHeight = entry.get().getPreclaimHeight();
+      String txHash = entry.get().getTxHash();
+      switch (entry.get().getState()) {
+        case CLAIMED:
+          claim.result.complete(
+              new NameClaimResult(claim.name, Status.ALREADY_CLAIMED, txHash, null));
+          break;
+        case PRECLAIM_PREPARED:
+          // posting the same commitment again either preclaims or reverts as it already exists
+          preclaim(claim, true);
+          break;
+        case PRECLAIM_SUBMITTED:
+          {
+            // the tracker only knows blocks mined since this process started
+            Optional<ChainTransaction> tx = findSubmitted(txHash);
+            if (tx.isEmpty()) {
+              preclaim(claim, true);
+            } else if (tx.get().getBlockHeight() >= 0) {
+              preclaimMined(claim, txHash, tx.get().getBlockHeight(), true);
+            } else {
+              awaitPreclaim(claim, txHash, true);
+            }
+            break;
+          }
+        case PRECLAIMED:
+          addPreclaimed(claim);
+          break;
+        case CLAIM_SUBMITTED:
+          {
+            Optional<ChainTransaction> tx = findSubmitted(txHash);
+            if (tx.isEmpty()) {
+              addPreclaimed(claim);
+            } else if (tx.get().getBlockHeight() >= 0) {
+              claimMined(claim, txHash);
+            } else {
+              awaitClaim(claim, txHash);
+            }
+            break;
+          }
+        default:
+          throw new IllegalStateException("Unexpected state of " + claim.name);
+      }
+    }
+
+    /** @param resumed true if an earlier run may have preclaimed the commitment already */
+    void preclaim(Claim claim, boolean resumed) {
+      if (preclaimSignature == null) {
+        preclaimSignature = signingService.aensDelegation(owner, network, contractId, null).join();
+      }
+      String callData =
+          encodeCalldata(
+              "pre_claim",
+              List.of(
+                  owner.getAddress(),
+                  Literals.bytes(claim.commitmentHash),
+                  Literals.bytes(preclaimSignature)));
+      post(claim, callData, State.PRECLAIM_SUBMITTED)
+          .ifPresent(txHash -> awaitPreclaim(claim, txHash, resumed));
+    }
+
+    void awaitPreclaim(Claim claim, String txHash, boolean resumed) {
+      confirmationTracker
+          .track(txHash, settings.getMinedTimeout())
+          .whenComplete(
+              (mined, error) ->
+                  execute(
+                      claim,
+                      () -> {
+                        if (error != null) {
+                          pending(claim, txHash, "Preclaim not mined in time");
+                          return;
+                        }
+                        preclaimMined(claim, txHash, mined.getBlockHeight(), resumed);
+                      }));
+    }
+
+    void preclaimMined(Claim claim, String txHash, long height, boolean resumed) {
+      Optional<String> failure = callFailure(txHash);
+      if (failure.isPresent() && !resumed) {
+        failed(claim, txHash, "Preclaim failed: " + failure.get());
+        return;
+      }
+      claim.preclaimHeight = height;
+      record(claim, State.PRECLAIMED, txHash);
+      addPreclaimed(claim);
+    }
+
+    void addPreclaimed(Claim claim) {
+      synchronized (preclaimed) {
+        preclaimed.add(claim);
+      }
+      scheduleClaims();
+    }
+
+    /** claims of blocks arriving while claims are being signed are merged */
+    void scheduleClaims() {
+      if (claimsPending.compareAndSet(false, true)) {
+        executor.execute(this::postClaims);
+      }
+    }
+
+    /** sign the claims of all names preclaimed before the current key block at once */
+    void postClaims() {
+      claimsPending.set(false);
+      long height = chainFeed.currentHeight();
+      List<Claim> due = new ArrayList<>();
+      synchronized (preclaimed) {
+        Iterator<Claim> iterator = preclaimed.iterator();
+        while (iterator.hasNext()) {
+          Claim claim = iterator.next();
+          if (claim.preclaimHeight < height) {
+            due.add(claim);
+            iterator.remove();
+          }
+        }
+      }
+      if (due.isEmpty()) {
+        return;
+      }
+      List<String> signatures;
+      try {
+        signatures =
+            signingService.aensDelegations(
+                owner,
+                network,
+                contractId,
+                due.stream().map(claim -> claim.name).collect(Collectors.toList()));
+      } catch (RuntimeException e) {
+        log.warn("Signing {} claims failed", due.size(), e);
+        due.forEach(claim -> pending(claim, null, "Signing the claim failed: " + e.getMessage()));
+        return;
+      }
+      log.debug("Claiming {} names at height {}", due.size(), height);
+      for (int i = 0; i < due.size(); i++) {
+        Claim claim = due.get(i);
+        String signature = signatures.get(i);
+        execute(claim, () -> claim(claim, signature));
+      }
+    }
+
+    void claim(Claim claim, String signature) {
+      String callData =
+          encodeCalldata(
+              "claim",
+              List.of(
+                  owner.getAddress(),
+                  Literals.string(claim.name),
+                  claim.salt.toString(),
+                  AENS.getInitialNameFee(claim.name).toString(),
+                  Literals.bytes(signature)));
+      post(claim, callData, State.CLAIM_SUBMITTED).ifPresent(txHash -> awaitClaim(claim, txHash));
+    }
+
+    void awaitClaim(Claim claim, String txHash) {
+      confirmationTracker
+          .track(txHash, settings.getMinedTimeout())
+          .whenComplete(
+              (mined, error) ->
+                  execute(
+                      claim,
+                      () -> {
+                        if (error != null) {
+                          pending(claim, txHash, "Claim not mined in time");
+                          return;
+                        }
+                        claimMined(claim, txHash);
+                      }));
+    }
+
+    void claimMined(Claim claim, String txHash) {
+      Optional<String> failure = callFailure(txHash);
+      if (failure.isPresent()) {
+        failed(claim, txHash, "Claim failed: " + failure.get());
+        return;
+      }
+      record(claim, State.CLAIMED, txHash);
+      claim.result.complete(new NameClaimResult(claim.name, Status.CLAIMED, txHash, null));
+    }
+
+    /** @return the hash of the posted call, empty if the node rejected it */
+    Optional<String> post(Claim claim, String callData, State submitted) {
+      PostTransactionResult posted;
+      try {
+        posted =
+            nonceManager.blockingPost(
+                caller,
+                nonce ->
+                    ContractCallTransactionModel.builder()
+                        .callerId(caller.getAddress())
+                        .contractId(contractId)
+                        .callData(callData)
+                        .amount(BigInteger.ZERO)
+                        .gasLimit(settings.getGasLimit())
+                        .nonce(nonce)
+                        .virtualMachine(VirtualMachine.FATE)
+                        .build());
+      } catch (TransactionRejectedException e) {
+        failed(claim, null, e.getMessage());
+        return Optional.empty();
+      }
+      record(claim, submitted, posted.getTxHash());
+      return Optional.of(posted.getTxHash());
+    }
+
+    /** run a step of a name, a step failing unexpectedly leaves the name to the next run */
+    void execute(Claim claim, Runnable step) {
+      executor.execute(
+          () -> {
+            try {
+              step.run();
+            } catch (RuntimeException e) {
+              log.warn("Processing name {} failed", claim.name, e);
+              pending(claim, null, String.valueOf(e.getMessage()));
+            }
+          });
+    }
+
+    void pending(Claim claim, String txHash, String message) {
+      claim.result.complete(new NameClaimResult(claim.name, Status.PENDING, txHash, message));
+    }
+
+    void failed(Claim claim, String txHash, String message) {
+      record(claim, State.FAILED, txHash);
+      claim.result.complete(new NameClaimResult(claim.name, Status.FAILED, txHash, message));
+    }
+
+    void record(Claim claim, State state, String txHash) {
+      journal.record(
+          claim.name, state, claim.salt, claim.commitmentHash, claim.preclaimHeight, txHash);
+    }
+  }
+
+  private String encodeCalldata(String entrypoint, List<String> arguments) {
+    String callData =
+        aeternityService
+            .compiler
+            .blockingEncodeCalldata(contractSource, entrypoint, arguments, Collections.emptyMap())
+            .getResult();
+    if (callData == null) {
+      throw new ClaimException("Cannot encode calldata of " + entrypoint);
+    }
+    return callData;
+  }
+
+  /** @return the error of a mined call, empty if it returned ok */
+  private Optional<String> callFailure(String txHash) {
+    JsonNode callInfo = nodeApi.getTransactionInfo(txHash);
+    String returnType = callInfo.path("return_type").asText();
+    if ("ok".equals(returnType)) {
+      return Optional.empty();
+    }
+    return Optional.of(returnType + ": " + callInfo.path("return_value").asText());
+  }
+
+  /**
+   * @return the submitted transaction, pending ones carry a block height of -1, empty if it was
+   *     dropped, i.e. it is neither mined nor in the mempool anymore
+   */
+  private Optional<ChainTransaction> findSubmitted(String txHash) {
+    Optional<ChainTransaction> tx = nodeApi.findTransaction(txHash);
+    if (tx.isEmpty()) {
+      log.info("Tx {} was dropped, posting it again", txHash);
+    }
+    return tx;
+  }
+}
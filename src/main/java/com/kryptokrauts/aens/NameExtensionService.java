@@ -0,0 +1,367 @@
+package com.kryptokrauts.aens;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.kryptokrauts.aeternity.sdk.constants.Network;
+import com.kryptokrauts.aeternity.sdk.constants.VirtualMachine;
+import com.kryptokrauts.aeternity.sdk.domain.secret.KeyPair;
+import com.kryptokrauts.aeternity.sdk.service.aeternity.impl.AeternityService;
+import com.kryptokrauts.aeternity.sdk.service.transaction.domain.PostTransactionResult;
+import com.kryptokrauts.aeternity.sdk.service.transaction.type.model.ContractCallTransactionModel;
+import com.kryptokrauts.chain.BlockEvent;
+import com.kryptokrauts.chain.BlockEvent.BlockType;
+import com.kryptokrauts.chain.ChainFeed;
+import com.kryptokrauts.chain.ConfirmationTracker;
+import com.kryptokrauts.chain.NodeApi;
+import com.kryptokrauts.nonce.NonceManager;
+import com.kryptokrauts.signing.SigningService;
+import com.kryptokrauts.sophia.Literals;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Keeps names alive by extending them through a deployed {@code AENSDelegation} contract before
+ * they expire.
+ *
+ * <p>The expiry of every name is kept in a priority queue, the height is taken from the key blocks
+ * of the shared {@link ChainFeed}. Per key block only the head of the queue is looked at: names
+ * expiring within the safety margin are signed in one batch per owner and extended to a fixed
+ * height, so their new expiry is known without reading the name again. A name's TTL is read from
+ * the node once, when it's added without its expiry.
+ */
+@Slf4j
+public class NameExtensionService implements AutoCloseable {
+
+  private static final String ENTRYPOINT = "extend";
+
+  private final AeternityService aeternityService;
+
+  private final NonceManager nonceManager;
+
+  private final ConfirmationTracker confirmationTracker;
+
+  private final NodeApi nodeApi;
+
+  private final ChainFeed chainFeed;
+
+  private final SigningService signingService;
+
+  private final Network network;
+
+  private final String contractId;
+
+  private final String contractSource;
+
+  /** pays for the calls, the owners only sign */
+  private final KeyPair caller;
+
+  private final ExtensionSettings settings;
+
+  private final ConcurrentMap<String, TrackedName> names = new ConcurrentHashMap<>();
+
+  /** names not being extended right now, the earliest expiry first, guarded by itself */
+  private final PriorityQueue<TrackedName> queue =
+      new PriorityQueue<>(Comparator.comparingLong(name -> name.expiresAt));
+
+  private final AtomicBoolean extensionPending = new AtomicBoolean();
+
+  private final Consumer<BlockEvent> listener = this::onBlock;
+
+  private final ExecutorService executor;
+
+  private final AtomicLong extended = new AtomicLong();
+
+  private final AtomicLong failed = new AtomicLong();
+
+  /**
+   * @param aeternityService service used to encode the calldata
+   * @param nonceManager posts the calls on pipelined nonces
+   * @param confirmationTracker used to wait for the calls to be mined
+   * @param nodeApi used to read TTLs and the results of the calls
+   * @param chainFeed provides the height, extensions are checked once per key block
+   * @param signingService creates the delegation signatures
+   * @param network network of the contract, part of the signed data
+   * @param contractId id of the deployed {@code AENSDelegation} contract
+   * @param contractSource source code of the {@code AENSDelegation} contract
+   * @param caller account posting the calls
+   * @param settings
+   */
+  public NameExtensionService(
+      AeternityService aeternityService,
+      NonceManager nonceManager,
+      ConfirmationTracker confirmationTracker,
+      NodeApi nodeApi,
+      ChainFeed chainFeed,
+      SigningService signingService,
+      Network network,
+      String contractId,
+      String contractSource,
+      KeyPair caller,
+      ExtensionSettings settings) {
+    this.aeternityService = aeternityService;
+    this.nonceManager = nonceManager;
+    this.confirmationTracker = confirmationTracker;
+    this.nodeApi = nodeApi;
+    this.chainFeed = chainFeed;
+    this.signingService = signingService;
+    this.network = network;
+    this.contractId = contractId;
+    this.contractSource = contractSource;
+    this.caller = caller;
+    this.settings = settings;
+    this.executor =
+        Executors.newFixedThreadPool(
+            settings.getWorkers(),
+            runnable -> {
+              Thread thread = new Thread(runnable, "name-extension-service");
+              thread.setDaemon(true);
+              return thread;
+            });
+  }
+
+  /**
+   * keep the given name alive, its expiry is read from the node
+   *
+   * @param owner owner of the name, signs the extensions
+   * @param name the name including its namespace
+   */
+  public void addName(KeyPair owner, String name) {
+    addName(owner, name, nodeApi.get("/v3/names/" + name).path("ttl").asLong());
+  }
+
+  /**
+   * keep the given name alive
+   *
+   * @param owner owner of the name, signs the extensions
+   * @param name the name including its namespace
+   * @param expiresAt the name's current TTL height
+   */
+  public void addName(KeyPair owner, String name, long expiresAt) {
+    TrackedName tracked = new TrackedName(owner, name, expiresAt);
+    TrackedName replaced = names.put(name, tracked);
+    synchronized (queue) {
+      if (replaced != null) {
+        queue.remove(replaced);
+      }
+      queue.add(tracked);
+    }
+  }
+
+  public void removeName(String name) {
+    TrackedName removed = names.remove(name);
+    if (removed != null) {
+      synchronized (queue) {
+        queue.remove(removed);
+      }
+    }
+  }
+
+  /** @return the expiry as last extended or added, empty if the name isn't tracked */
+  public Optional<Long> getExpiresAt(String name) {
+    return Optional.ofNullable(names.get(name)).map(tracked -> tracked.expiresAt);
+  }
+
+  public int getTrackedCount() {
+    return names.size();
+  }
+
+  public long getExtendedCount() {
+    return extended.get();
+  }
+
+  public long getFailedCount() {
+    return failed.get();
+  }
+
+  public void start() {
+    chainFeed.addListener(listener);
+    chainFeed.start();
+  }
+
+  @Override
+  public void close() {
+    chainFeed.removeListener(listener);
+    executor.shutdownNow();
+  }
+
+  /** called on the feed's thread, key blocks arriving while names are being signed are merged */
+  private void onBlock(BlockEvent block) {
+    if (block.getType() == BlockType.KEY && extensionPending.compareAndSet(false, true)) {
+      executor.execute(
+          () -> {
+            extensionPending.set(false);
+            extendDue(chainFeed.currentHeight());
+          });
+    }
+  }
+
+  private void extendDue(long height) {
+    long expiresAt = height + settings.getExtendBy();
+    Map<KeyPair, List<TrackedName>> dueByOwner = new LinkedHashMap<>();
+    // names which already live longer than an extension would make them
+    List<TrackedName> notShortened = new ArrayList<>();
+    int due = 0;
+    synchronized (queue) {
+      while (due < settings.getMaxPerBlock()
+          && !queue.isEmpty()
+          && queue.peek().expiresAt - height <= settings.getSafetyMargin()) {
+        TrackedName name = queue.poll();
+        if (name.expiresAt <= height) {
+          log.warn("Name {} expired at {} before it could be extended", name.name, name.expiresAt);
+          names.remove(name.name, name);
+          failed.incrementAndGet();
+          continue;
+        }
+        if (name.expiresAt >= expiresAt) {
+          notShortened.add(name);
+          continue;
+        }
+        dueByOwner.computeIfAbsent(name.owner, owner -> new ArrayList<>()).add(name);
+        due++;
+      }
+      queue.addAll(notShortened);
+    }
+    if (due == 0) {
+      return;
+    }
+    log.debug("Extending {} names at height {} to {}", due, height, expiresAt);
+    dueByOwner.forEach((owner, dueNames) -> extend(owner, dueNames, expiresAt));
+  }
+
+  private void extend(KeyPair owner, List<TrackedName> dueNames, long expiresAt) {
+    List<String> signatures;
+    try {
+      signatures =
+          signingService.aensDelegations(
+              owner,
+              network,
+              contractId,
+              dueNames.stream().map(name -> name.name).collect(Collectors.toList()));
+    } catch (RuntimeException e) {
+      log.warn("Signing {} extensions failed", dueNames.size(), e);
+      dueNames.forEach(name -> requeue(name, false));
+      return;
+    }
+    for (int i = 0; i < dueNames.size(); i++) {
+      TrackedName name = dueNames.get(i);
+      String signature = signatures.get(i);
+      executor.execute(() -> extend(name, signature, expiresAt));
+    }
+  }
+
+  private void extend(TrackedName name, String signature, long expiresAt) {
+    String txHash;
+    try {
+      String callData =
+          aeternityService
+              .compiler
+              .blockingEncodeCalldata(
+                  contractSource,
+                  ENTRYPOINT,
+                  List.of(
+                      name.owner.getAddress(),
+                      Literals.string(name.name),
+                      Literals.bytes(signature),
+                      "Some(FixedTTL(" + expiresAt + "))"),
+                  Collections.emptyMap())
+              .getResult();
+      if (callData == null) {
+        throw new IllegalStateException("Cannot encode calldata of " + ENTRYPOINT);
+      }
+      PostTransactionResult posted =
+          nonceManager.blockingPost(
+              caller,
+              nonce ->
+                  ContractCallTransactionModel.builder()
+                      .callerId(caller.getAddress())
+                      .contractId(contractId)
+                      .callData(callData)
+                      .amount(BigInteger.ZERO)
+                      .gasLimit(settings.getGasLimit())
+                      .nonce(nonce)
+                      .virtualMachine(VirtualMachine.FATE)
+                      .build());
+      txHash = posted.getTxHash();
+    } catch (RuntimeException e) {
+      log.warn("Posting the extension of {} failed", name.name, e);
+      requeue(name, false);
+      return;
+    }
+    confirmationTracker
+        .track(txHash, settings.getMinedTimeout())
+        .whenComplete(
+            (mined, error) -> executor.execute(() -> settle(name, txHash, expiresAt, error)));
+  }
+
+  private void settle(TrackedName name, String txHash, long expiresAt, Throwable error) {
+    if (error != null) {
+      log.warn("Extension {} of {} wasn't mined in time", txHash, name.name);
+      requeue(name, false);
+      return;
+    }
+    JsonNode callInfo;
+    try {
+      callInfo = nodeApi.getTransactionInfo(txHash);
+    } catch (RuntimeException e) {
+      log.warn("Reading the result of extension {} of {} failed", txHash, name.name, e);
+      requeue(name, false);
+      return;
+    }
+    if (!"ok".equals(callInfo.path("return_type").asText())) {
+      log.warn(
+          "Extension {} of {} failed: {}",
+          txHash,
+          name.name,
+          callInfo.path("return_value").asText());
+      requeue(name, false);
+      return;
+    }
+    name.expiresAt = expiresAt;
+    requeue(name, true);
+  }
+
+  /** put a name back into the queue unless it has been removed meanwhile */
+  private void requeue(TrackedName name, boolean extended) {
+    if (extended) {
+      this.extended.incrementAndGet();
+    } else {
+      failed.incrementAndGet();
+    }
+    synchronized (queue) {
+      if (names.get(name.name) == name) {
+        queue.add(name);
+      }
+    }
+  }
+
+  private static class TrackedName {
+
+    final KeyPair owner;
+
+    final String name;
+
+    /** only changed while the name isn't queued */
+    volatile long expiresAt;
+
+    TrackedName(KeyPair owner, String name, long expiresAt) {
+      this.owner = owner;
+      this.name = name;
+      this.expiresAt = expiresAt;
+    }
+  }
+}
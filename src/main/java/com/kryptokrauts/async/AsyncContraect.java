@@ -0,0 +1,195 @@
+package com.kryptokrauts.async;
+
+import com.kryptokrauts.aeternity.sdk.domain.secret.KeyPair;
+import com.kryptokrauts.chain.ConfirmationTracker;
+import com.kryptokrauts.chain.MinedTransaction;
+import com.kryptokrauts.metrics.CallMetrics;
+import io.reactivex.Single;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Non-blocking front of the blocking generated contract classes.
+ *
+ * <p>Calls run on small shared pools, a thread is only held while a request is on the wire. For
+ * stateful calls the generated instance has to be configured with {@code
+ * waitForTxIncludedInBlockEnabled(false)}, so it returns the tx hash as soon as the node accepted
+ * the transaction; waiting for the transaction to be mined is done by the {@link
+ * ConfirmationTracker} without any thread.
+ *
+ * <p>The generated classes read the caller's nonce from the chain, so the stateful calls of one
+ * caller are queued in a lane and the next one is submitted once the previous one is mined. Calls
+ * of different callers are independent, thousands of callers can have a call in flight at the
+ * same time.
+ */
+@Slf4j
+public class AsyncContraect implements AutoCloseable {
+
+  private static final int DEFAULT_SUBMIT_THREADS = 8;
+
+  private static final int DEFAULT_READ_THREADS = 16;
+
+  private final ConfirmationTracker confirmationTracker;
+
+  private final Duration minedTimeout;
+
+  private final ExecutorService submitPool;
+
+  private final ExecutorService readPool;
+
+  /** tail of the queued calls per caller address */
+  private final ConcurrentMap<String, CompletableFuture<?>> lanes = new ConcurrentHashMap<>();
+
+  public AsyncContraect(ConfirmationTracker confirmationTracker, Duration minedTimeout) {
+    this(confirmationTracker, minedTimeout, DEFAULT_SUBMIT_THREADS, DEFAULT_READ_THREADS);
+  }
+
+  /**
+   * @param confirmationTracker used to wait for stateful calls to be mined
+   * @param minedTimeout how long to wait for a stateful call to be mined
+   * @param submitThreads threads posting stateful calls, bounds the concurrent post requests
+   * @param readThreads threads performing read-only calls, bounds the concurrent dry-runs
+   */
+  public AsyncContraect(
+      ConfirmationTracker confirmationTracker,
+      Duration minedTimeout,
+      int submitThreads,
+      int readThreads) {
+    this.confirmationTracker = confirmationTracker;
+    this.minedTimeout = minedTimeout;
+    this.submitPool =
+        Executors.newFixedThreadPool(submitThreads, daemonThreads("contraect-submit"));
+    this.readPool = Executors.newFixedThreadPool(readThreads, daemonThreads("contraect-read"));
+  }
+
+  /**
+   * queue a stateful call of the given caller, e.g. {@code () -> token.transfer(to, value)}
+   *
+   * @param caller the account signing the call, i.e. the key pair of the generated instance
+   * @param call the generated method returning the tx hash
+   * @return completes once the transaction is mined
+   */
+  public CompletableFuture<MinedTransaction> submit(KeyPair caller, Supplier<String> call) {
+    CompletableFuture<MinedTransaction> mined = new CompletableFuture<>();
+    lanes.compute(
+        caller.getAddress(),
+        (address, tail) -> {
+          CompletableFuture<?> previous =
+              tail != null ? tail : CompletableFuture.completedFuture(null);
+          // a failed call must not block the lane, the next call starts anyway
+          previous
+              .handle((ignored, error) -> null)
+              .thenApplyAsync(ignored -> call.get(), submitPool)
+              .thenCompose(txHash -> confirmationTracker.track(txHash, minedTimeout))
+              .whenComplete(
+                  (result, error) -> {
+                    if (error != null) {
+                      mined.completeExceptionally(error);
+                    } else {
+                      mined.complete(result);
+                    }
+                  });
+          return mined;
+        });
+    // drop the lane once it ran empty, unless another call has been queued meanwhile
+    mined.whenComplete((result, error) -> lanes.remove(caller.getAddress(), mined));
+    return mined;
+  }
+
+  /**
+   * queue a stateful call and record its submit and mined latency and its failures, e.g. {@code
+   * submit(alice, registry.calls("FungibleToken", "transfer"), () -> token.transfer(to, value))}
+   *
+   * @see #submit(KeyPair, Supplier)
+   */
+  public CompletableFuture<MinedTransaction> submit(
+      KeyPair caller, CallMetrics metrics, Supplier<String> call) {
+    long[] submitted = new long[1];
+    return submit(
+            caller,
+            () -> {
+              String txHash = metrics.submit(call);
+              submitted[0] = System.nanoTime();
+              return txHash;
+            })
+        .whenComplete(
+            (mined, error) -> {
+              if (mined != null) {
+                metrics.getMined().recordSince(submitted[0]);
+              } else if (submitted[0] != 0) {
+                // failures of the submission are already recorded
+                metrics.recordFailure(error);
+              }
+            });
+  }
+
+  /** @see #submit(KeyPair, Supplier) */
+  public Single<MinedTransaction> rxSubmit(KeyPair caller, Supplier<String> call) {
+    return toSingle(submit(caller, call));
+  }
+
+  /**
+   * perform a read-only call, e.g. {@code token::total_supply}
+   *
+   * @param call the generated method
+   * @return completes with the decoded result of the call
+   */
+  public <T> CompletableFuture<T> read(Supplier<T> call) {
+    return CompletableFuture.supplyAsync(call, readPool);
+  }
+
+  /**
+   * perform a read-only call and record its latency and failures
+   *
+   * @see #read(Supplier)
+   */
+  public <T> CompletableFuture<T> read(CallMetrics metrics, Supplier<T> call) {
+    return read(() -> metrics.read(call));
+  }
+
+  /** @see #read(Supplier) */
+  public <T> Single<T> rxRead(Supplier<T> call) {
+    return toSingle(read(call));
+  }
+
+  /** @return the number of callers with queued or unmined calls */
+  public int activeCallers() {
+    return lanes.size();
+  }
+
+  @Override
+  public void close() {
+    submitPool.shutdown();
+    readPool.shutdown();
+  }
+
+  private static <T> Single<T> toSingle(CompletableFuture<T> future) {
+    return Single.create(
+        emitter ->
+            future.whenComplete(
+                (result, error) -> {
+                  if (error != null) {
+                    emitter.onError(error);
+                  } else {
+                    emitter.onSuccess(result);
+                  }
+                }));
+  }
+
+  private static ThreadFactory daemonThreads(String name) {
+    AtomicInteger counter = new AtomicInteger();
+    return runnable -> {
+      Thread thread = new Thread(runnable, name + "-" + counter.incrementAndGet());
+      thread.setDaemon(true);
+      return thread;
+    };
+  }
+}
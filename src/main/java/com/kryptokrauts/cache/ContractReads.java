@@ -0,0 +1,35 @@
+package com.kryptokrauts.cache;
+
+import java.util.function.Supplier;
+
+/**
+ * Cached reads of a single contract, e.g. wrapping a generated class:
+ *
+ * <pre>
+ * ContractReads reads = readCache.forContract(contractId);
+ * BigInteger totalSupply = reads.get("total_supply", token::total_supply);
+ * Meta_info metaInfo = reads.getImmutable("meta_info", token::meta_info);
+ * Boolean exists = reads.get("nameExists", () -&gt; hamster.nameExists(name), name);
+ * </pre>
+ */
+public class ContractReads {
+
+  private final ReadCache readCache;
+
+  private final String contractId;
+
+  ContractReads(ReadCache readCache, String contractId) {
+    this.readCache = readCache;
+    this.contractId = contractId;
+  }
+
+  /** @see ReadCache#get(String, String, Supplier, Object...) */
+  public <T> T get(String entrypoint, Supplier<T> loader, Object... arguments) {
+    return readCache.get(contractId, entrypoint, loader, arguments);
+  }
+
+  /** @see ReadCache#getImmutable(String, String, Supplier, Object...) */
+  public <T> T getImmutable(String entrypoint, Supplier<T> loader, Object... arguments) {
+    return readCache.getImmutable(contractId, entrypoint, loader, arguments);
+  }
+}
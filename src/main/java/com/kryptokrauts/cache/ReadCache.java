@@ -0,0 +1,174 @@
+package com.kryptokrauts.cache;
+
+import com.kryptokrauts.chain.BlockEvent;
+import com.kryptokrauts.chain.ChainFeed;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import lombok.Value;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Read-through cache for read-only contract entrypoints, e.g. the non stateful methods of the
+ * generated contract classes.
+ *
+ * <p>Results are keyed by contract id, entrypoint and arguments (compared by value). Regular
+ * entries belong to the block they were read at: every key or micro block published by the {@link
+ * ChainFeed} moves the cache to a new version which invalidates all of them at once without
+ * touching the entries. Entries of entrypoints whose result never changes, like the meta info of
+ * a token, are cached for good. Both tiers are bounded and evict the least recently used entry.
+ *
+ * <p>A read can see the state of a block the feed hasn't published yet, at most one poll interval
+ * of the feed.
+ */
+@Slf4j
+public class ReadCache implements AutoCloseable {
+
+  private final ChainFeed chainFeed;
+
+  private final Consumer<BlockEvent> listener = block -> version.incrementAndGet();
+
+  /** incremented with every block, entries of older versions are stale */
+  private final AtomicLong version = new AtomicLong();
+
+  private final Map<Key, Entry> entries;
+
+  private final Map<Key, Entry> immutableEntries;
+
+  private final LongAdder hits = new LongAdder();
+
+  private final LongAdder misses = new LongAdder();
+
+  /**
+   * @param chainFeed feed whose blocks invalidate the cache
+   * @param maxEntries maximum number of entries of each tier
+   */
+  public ReadCache(ChainFeed chainFeed, int maxEntries) {
+    this.chainFeed = chainFeed;
+    this.entries = lruMap(maxEntries);
+    this.immutableEntries = lruMap(maxEntries);
+    chainFeed.addListener(listener);
+    chainFeed.start();
+  }
+
+  /**
+   * @param contractId
+   * @param entrypoint
+   * @param loader performs the call on a cache miss
+   * @param arguments arguments of the call
+   * @return the result as of the current block
+   */
+  public <T> T get(String contractId, String entrypoint, Supplier<T> loader, Object... arguments) {
+    return get(entries, contractId, entrypoint, loader, arguments);
+  }
+
+  /**
+   * like {@link #get(String, String, Supplier, Object...)} for entrypoints whose result never
+   * changes for the same arguments, which is therefore never invalidated
+   */
+  public <T> T getImmutable(
+      String contractId, String entrypoint, Supplier<T> loader, Object... arguments) {
+    return get(immutableEntries, contractId, entrypoint, loader, arguments);
+  }
+
+  /**
+   * @param contractId
+   * @return a view of this cache bound to one contract
+   */
+  public ContractReads forContract(String contractId) {
+    return new ContractReads(this, contractId);
+  }
+
+  /** drop all entries, e.g. after a transaction of which the caller needs to see the effect */
+  public void invalidate() {
+    version.incrementAndGet();
+  }
+
+  public long getHits() {
+    return hits.sum();
+  }
+
+  public long getMisses() {
+    return misses.sum();
+  }
+
+  @Override
+  public void close() {
+    chainFeed.removeListener(listener);
+  }
+
+  @SuppressWarnings("unchecked")
+  private <T> T get(
+      Map<Key, Entry> tier,
+      String contractId,
+      String entrypoint,
+      Supplier<T> loader,
+      Object... arguments) {
+    Key key = new Key(contractId, entrypoint, Arrays.asList(arguments));
+    boolean immutable = tier == immutableEntries;
+    long currentVersion = version.get();
+    Entry entry;
+    boolean load = false;
+    synchronized (tier) {
+      entry = tier.get(key);
+      if (entry == null || (!immutable && entry.version != currentVersion)) {
+        entry = new Entry(currentVersion, new CompletableFuture<>());
+        tier.put(key, entry);
+        load = true;
+      }
+    }
+    if (load) {
+      misses.increment();
+      try {
+        entry.value.complete(loader.get());
+      } catch (RuntimeException e) {
+        synchronized (tier) {
+          tier.remove(key, entry);
+        }
+        entry.value.completeExceptionally(e);
+      }
+    } else {
+      hits.increment();
+    }
+    try {
+      return (T) entry.value.join();
+    } catch (CompletionException e) {
+      throw (RuntimeException) e.getCause();
+    }
+  }
+
+  private static Map<Key, Entry> lruMap(int maxEntries) {
+    return new LinkedHashMap<>(16, 0.75f, true) {
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<Key, Entry> eldest) {
+        return size() > maxEntries;
+      }
+    };
+  }
+
+  @Value
+  private static class Key {
+
+    String contractId;
+
+    String entrypoint;
+
+    List<Object> arguments;
+  }
+
+  /** concurrent misses of the same key share one call via the future */
+  @Value
+  private static class Entry {
+
+    long version;
+
+    CompletableFuture<Object> value;
+  }
+}
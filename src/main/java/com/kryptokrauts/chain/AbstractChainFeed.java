@@ -0,0 +1,43 @@
+package com.kryptokrauts.chain;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+import lombok.extern.slf4j.Slf4j;
+
+/** Listener handling shared by the {@link ChainFeed} implementations. */
+@Slf4j
+abstract class AbstractChainFeed implements ChainFeed {
+
+  private final List<Consumer<BlockEvent>> listeners = new CopyOnWriteArrayList<>();
+
+  protected volatile long currentHeight = -1;
+
+  @Override
+  public void addListener(Consumer<BlockEvent> listener) {
+    listeners.add(listener);
+  }
+
+  @Override
+  public void removeListener(Consumer<BlockEvent> listener) {
+    listeners.remove(listener);
+  }
+
+  @Override
+  public long currentHeight() {
+    return currentHeight;
+  }
+
+  protected void publish(BlockEvent event) {
+    if (event.getType() == BlockEvent.BlockType.KEY) {
+      currentHeight = Math.max(currentHeight, event.getHeight());
+    }
+    for (Consumer<BlockEvent> listener : listeners) {
+      try {
+        listener.accept(event);
+      } catch (RuntimeException e) {
+        log.error("Listener failed to handle block {}", event.getHash(), e);
+      }
+    }
+  }
+}
@@ -0,0 +1,23 @@
+package com.kryptokrauts.chain;
+
+import java.util.List;
+import lombok.Value;
+
+/** A block which has been observed by a {@link ChainFeed}. */
+@Value
+public class BlockEvent {
+
+  public enum BlockType {
+    KEY,
+    MICRO
+  }
+
+  BlockType type;
+
+  String hash;
+
+  long height;
+
+  /** transactions included in the block, always empty for key blocks */
+  List<ChainTransaction> transactions;
+}
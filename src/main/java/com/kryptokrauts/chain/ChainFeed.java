@@ -0,0 +1,30 @@
+package com.kryptokrauts.chain;
+
+import java.util.function.Consumer;
+
+/**
+ * Follows the chain head and notifies its listeners once per new key block and micro block. All
+ * components which need to react on new blocks share one feed instead of polling the node on
+ * their own.
+ */
+public interface ChainFeed extends AutoCloseable {
+
+  /**
+   * register a listener which is called for each new block, in chain order. Listeners are called
+   * on the feed's thread and must not block.
+   *
+   * @param listener
+   */
+  void addListener(Consumer<BlockEvent> listener);
+
+  void removeListener(Consumer<BlockEvent> listener);
+
+  /** start following the chain, calling this more than once has no effect */
+  void start();
+
+  /** the height of the latest key block seen by the feed, -1 if none has been seen yet */
+  long currentHeight();
+
+  @Override
+  void close();
+}
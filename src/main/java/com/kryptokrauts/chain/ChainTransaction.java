@@ -0,0 +1,22 @@
+package com.kryptokrauts.chain;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import lombok.Value;
+
+/** A transaction as it has been included into a micro block. */
+@Value
+public class ChainTransaction {
+
+  String hash;
+
+  String blockHash;
+
+  long blockHeight;
+
+  /** the node's JSON representation of the (inner) transaction, e.g. {"type":"SpendTx",...} */
+  JsonNode tx;
+
+  public String getType() {
+    return tx.path("type").asText();
+  }
+}
@@ -0,0 +1,221 @@
+package com.kryptokrauts.chain;
+
+import com.kryptokrauts.metrics.Counter;
+import com.kryptokrauts.metrics.MetricsRegistry;
+import com.kryptokrauts.metrics.Timer;
+import com.kryptokrauts.trace.TransactionTracer;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Completes a future for every tracked transaction as soon as it shows up in a block published by
+ * the shared {@link ChainFeed}. Tracking thousands of transactions costs no additional requests,
+ * the feed fetches each block exactly once.
+ *
+ * <p>Close a tracker which isn't needed anymore to stop it from listening to a feed that lives on.
+ */
+@Slf4j
+public class ConfirmationTracker implements AutoCloseable {
+
+  private static final int DEFAULT_RECENTLY_MINED_CAPACITY = 100_000;
+
+  /** numbers the trackers to tell their gauges apart */
+  private static final AtomicInteger TRACKERS = new AtomicInteger();
+
+  private final ChainFeed chainFeed;
+
+  private final MetricsRegistry metricsRegistry;
+
+  /** label value of this tracker's pending gauge */
+  private final String trackerLabel = String.valueOf(TRACKERS.incrementAndGet());
+
+  private final Consumer<BlockEvent> listener = this::onBlock;
+
+  private final ConcurrentMap<String, TrackedTransaction> pending = new ConcurrentHashMap<>();
+
+  /**
+   * transactions mined recently, covers transactions which are mined before they are tracked,
+   * guarded by its own monitor
+   */
+  private final Map<String, MinedTransaction> recentlyMined;
+
+  private final Timer minedTimer;
+
+  private final Counter timeouts;
+
+  private final TransactionTracer tracer = TransactionTracer.getDefault();
+
+  public ConfirmationTracker(ChainFeed chainFeed) {
+    this(chainFeed, DEFAULT_RECENTLY_MINED_CAPACITY);
+  }
+
+  public ConfirmationTracker(ChainFeed chainFeed, int recentlyMinedCapacity) {
+    this(chainFeed, recentlyMinedCapacity, MetricsRegistry.getDefault());
+  }
+
+  /**
+   * @param chainFeed publishes the blocks the tracked transactions are looked up in
+   * @param recentlyMinedCapacity transactions remembered for being tracked after they were mined
+   * @param metricsRegistry receives the time from tracking until mined, timeouts and the number of
+   *     pending transactions, the latter labeled with the number of the tracker
+   */
+  public ConfirmationTracker(
+      ChainFeed chainFeed, int recentlyMinedCapacity, MetricsRegistry metricsRegistry) {
+    this.minedTimer = metricsRegistry.timer("contraect_tx_mined_seconds");
+    this.timeouts = metricsRegistry.counter("contraect_tx_mined_timeouts_total");
+    this.metricsRegistry = metricsRegistry;
+    metricsRegistry.gauge("contraect_tx_pending", pending::size, "tracker", trackerLabel);
+    this.recentlyMined =
+        new LinkedHashMap<>() {
+          @Override
+          protected boolean removeEldestEntry(Map.Entry<String, MinedTransaction> eldest) {
+            return size() > recentlyMinedCapacity;
+          }
+        };
+    this.chainFeed = chainFeed;
+    chainFeed.addListener(listener);
+    chainFeed.start();
+  }
+
+  /**
+   * @param txHash
+   * @return a future which completes once the transaction is included into a micro block
+   */
+  public CompletableFuture<MinedTransaction> track(String txHash) {
+    return register(txHash).copy();
+  }
+
+  /**
+   * @param txHash
+   * @param timeout
+   * @return a future which completes once the transaction is included into a micro block or fails
+   *     with a {@link TimeoutException} if this didn't happen in time. The timeout only affects
+   *     the returned future, other callers tracking the same transaction keep waiting.
+   */
+  public CompletableFuture<MinedTransaction> track(String txHash, Duration timeout) {
+    TrackedTransaction tracked = register(txHash);
+    return tracked
+        .copy()
+        .orTimeout(timeout.toMillis(), TimeUnit.MILLISECONDS)
+        .whenComplete(
+            (mined, error) -> {
+              if (error != null) {
+                unregister(txHash, tracked);
+                if (error instanceof TimeoutException) {
+                  timeouts.increment();
+                }
+              }
+            });
+  }
+
+  /**
+   * wait until the given transaction is included into a micro block
+   *
+   * @param txHash
+   * @param timeout
+   * @return the mined transaction
+   * @throws TimeoutException if the transaction isn't mined in time
+   * @throws InterruptedException
+   */
+  public MinedTransaction awaitMined(String txHash, Duration timeout)
+      throws TimeoutException, InterruptedException {
+    TrackedTransaction tracked = register(txHash);
+    try {
+      return tracked.get(timeout.toMillis(), TimeUnit.MILLISECONDS);
+    } catch (ExecutionException e) {
+      throw new IllegalStateException(e.getCause());
+    } catch (TimeoutException e) {
+      unregister(txHash, tracked);
+      timeouts.increment();
+      throw new TimeoutException(
+          String.format("Transaction %s was not mined within %s, aborting", txHash, timeout));
+    }
+  }
+
+  /** add a waiter to the shared future of the given transaction */
+  private TrackedTransaction register(String txHash) {
+    TrackedTransaction tracked =
+        pending.compute(
+            txHash,
+            (hash, existing) -> {
+              TrackedTransaction result =
+                  existing != null ? existing : new TrackedTransaction(System.nanoTime());
+              result.waiters++;
+              return result;
+            });
+    MinedTransaction mined;
+    synchronized (recentlyMined) {
+      mined = recentlyMined.get(txHash);
+    }
+    if (mined != null) {
+      pending.remove(txHash, tracked);
+      tracked.complete(mined);
+    }
+    return tracked;
+  }
+
+  /** remove a waiter which gave up, the transaction is dropped once nobody waits for it anymore */
+  private void unregister(String txHash, TrackedTransaction tracked) {
+    pending.computeIfPresent(
+        txHash,
+        (hash, existing) -> existing == tracked && --existing.waiters == 0 ? null : existing);
+  }
+
+  /** @return the number of tracked transactions which haven't been mined yet */
+  public int pendingCount() {
+    return pending.size();
+  }
+
+  /**
+   * stop listening to the feed and drop the pending gauge, the feed itself keeps running for its
+   * other listeners
+   */
+  @Override
+  public void close() {
+    chainFeed.removeListener(listener);
+    metricsRegistry.remove("contraect_tx_pending", "tracker", trackerLabel);
+  }
+
+  private void onBlock(BlockEvent block) {
+    tracer.onBlock(block);
+    for (ChainTransaction tx : block.getTransactions()) {
+      MinedTransaction mined =
+          new MinedTransaction(tx.getHash(), tx.getType(), block.getHash(), block.getHeight());
+      synchronized (recentlyMined) {
+        recentlyMined.put(tx.getHash(), mined);
+      }
+      TrackedTransaction future = pending.remove(tx.getHash());
+      if (future != null) {
+        minedTimer.recordSince(future.trackedAt);
+        log.debug(
+            "Tx {} mined in {} at height {}", tx.getHash(), block.getHash(), block.getHeight());
+        future.complete(mined);
+      }
+    }
+  }
+
+  /**
+   * a pending transaction along with the time it started to be tracked, shared by all its waiters
+   */
+  private static class TrackedTransaction extends CompletableFuture<MinedTransaction> {
+
+    private final long trackedAt;
+
+    /** callers waiting for the transaction, only changed while computing its pending entry */
+    private int waiters;
+
+    private TrackedTransaction(long trackedAt) {
+      this.trackedAt = trackedAt;
+    }
+  }
+}
@@ -0,0 +1,83 @@
+package com.kryptokrauts.chain;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import lombok.Value;
+import org.bouncycastle.crypto.digests.Blake2bDigest;
+
+/**
+ * An event emitted by a contract call, as found in the {@code log} of the call info.
+ *
+ * <p>The first topic is the Blake2b hash of the event's constructor name, the following topics are
+ * the indexed (word sized) arguments, e.g. addresses as the integer of their 32 byte public key.
+ * Non indexed arguments like strings end up in {@code data}.
+ */
+@Value
+public class ContractEvent {
+
+  /** the emitting contract, e.g. {@code ct_...} */
+  String contractId;
+
+  List<BigInteger> topics;
+
+  /** the encoded non indexed payload, e.g. {@code cb_...} */
+  String data;
+
+  /**
+   * @param callInfo the call info of a contract call, see {@link NodeApi#getTransactionInfo}
+   * @return the events of the call in emission order, empty for reverted calls
+   */
+  public static List<ContractEvent> fromCallInfo(JsonNode callInfo) {
+    List<ContractEvent> events = new ArrayList<>();
+    for (JsonNode log : callInfo.path("log")) {
+      List<BigInteger> topics = new ArrayList<>();
+      for (JsonNode topic : log.path("topics")) {
+        topics.add(topic.isNumber() ? topic.bigIntegerValue() : new BigInteger(topic.asText()));
+      }
+      events.add(
+          new ContractEvent(log.path("address").asText(), topics, log.path("data").asText()));
+    }
+    return events;
+  }
+
+  /**
+   * @param eventName name of the event's constructor, e.g. {@code Transfer}
+   * @return the first topic of events with this name
+   */
+  public static BigInteger topicHash(String eventName) {
+    byte[] name = eventName.getBytes(StandardCharsets.US_ASCII);
+    Blake2bDigest digest = new Blake2bDigest(256);
+    digest.update(name, 0, name.length);
+    byte[] hash = new byte[32];
+    digest.doFinal(hash, 0);
+    return new BigInteger(1, hash);
+  }
+
+  /**
+   * @param topic an indexed address argument
+   * @return the 32 byte public key of the address
+   */
+  public static byte[] topicToAccountId(BigInteger topic) {
+    byte[] bytes = topic.toByteArray();
+    // drop the sign byte or left pad to exactly 32 bytes
+    byte[] accountId = new byte[32];
+    int length = Math.min(bytes.length, 32);
+    System.arraycopy(bytes, bytes.length - length, accountId, 32 - length, length);
+    return accountId;
+  }
+
+  /** @return true if this event was emitted by the given contract and has the given name */
+  public boolean is(String contractId, BigInteger topicHash) {
+    return this.contractId.equals(contractId)
+        && !topics.isEmpty()
+        && topics.get(0).equals(topicHash);
+  }
+
+  /** @return the event's topics without the name hash, i.e. its indexed arguments */
+  public List<BigInteger> getArguments() {
+    return topics.isEmpty() ? topics : topics.subList(1, topics.size());
+  }
+}
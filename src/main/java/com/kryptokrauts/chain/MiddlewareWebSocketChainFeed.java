@@ -0,0 +1,157 @@
+package com.kryptokrauts.chain;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.kryptokrauts.chain.BlockEvent.BlockType;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.WebSocket;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * {@link ChainFeed} pushing blocks as they are announced by the middleware websocket (port 4001 in
+ * the docker-compose setup). The node's own websocket on port 3014 only serves state channels and
+ * doesn't announce blocks.
+ *
+ * <p>The middleware announces transactions one by one, hence each published micro block event
+ * carries a single transaction. The connection is re-established if it drops.
+ */
+@Slf4j
+public class MiddlewareWebSocketChainFeed extends AbstractChainFeed {
+
+  private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+  private static final List<String> SUBSCRIPTIONS = List.of("KeyBlocks", "Transactions");
+
+  private static final Duration RECONNECT_DELAY = Duration.ofSeconds(1);
+
+  private final URI websocketUri;
+
+  private final HttpClient httpClient = HttpClient.newHttpClient();
+
+  private final AtomicBoolean started = new AtomicBoolean();
+
+  private final ScheduledExecutorService reconnectScheduler =
+      Executors.newSingleThreadScheduledExecutor(
+          runnable -> {
+            Thread thread = new Thread(runnable, "chain-feed-reconnect");
+            thread.setDaemon(true);
+            return thread;
+          });
+
+  private volatile WebSocket webSocket;
+
+  private volatile boolean closed;
+
+  /** @param websocketUri e.g. {@code ws://localhost:4001/websocket} */
+  public MiddlewareWebSocketChainFeed(URI websocketUri) {
+    this.websocketUri = websocketUri;
+  }
+
+  @Override
+  public void start() {
+    if (started.compareAndSet(false, true)) {
+      connect();
+    }
+  }
+
+  @Override
+  public void close() {
+    closed = true;
+    reconnectScheduler.shutdownNow();
+    if (webSocket != null) {
+      webSocket.sendClose(WebSocket.NORMAL_CLOSURE, "closed");
+    }
+  }
+
+  private void connect() {
+    httpClient
+        .newWebSocketBuilder()
+        .buildAsync(websocketUri, new FeedListener())
+        .whenComplete(
+            (ws, error) -> {
+              if (error != null) {
+                log.warn("Connecting to {} failed: {}", websocketUri, error.getMessage());
+                scheduleReconnect();
+                return;
+              }
+              webSocket = ws;
+              SUBSCRIPTIONS.forEach(
+                  subscription ->
+                      ws.sendText(
+                          "{\"op\":\"Subscribe\",\"payload\":\"" + subscription + "\"}", true));
+            });
+  }
+
+  private void scheduleReconnect() {
+    if (!closed) {
+      reconnectScheduler.schedule(
+          this::connect, RECONNECT_DELAY.toMillis(), TimeUnit.MILLISECONDS);
+    }
+  }
+
+  void onMessage(String message) {
+    try {
+      JsonNode json = OBJECT_MAPPER.readTree(message);
+      JsonNode payload = json.path("payload");
+      switch (json.path("subscription").asText()) {
+        case "KeyBlocks":
+          publish(
+              new BlockEvent(
+                  BlockType.KEY,
+                  payload.path("hash").asText(),
+                  payload.path("height").asLong(),
+                  Collections.emptyList()));
+          break;
+        case "Transactions":
+          ChainTransaction tx = NodeApi.toChainTransaction(payload);
+          publish(
+              new BlockEvent(
+                  BlockType.MICRO, tx.getBlockHash(), tx.getBlockHeight(), List.of(tx)));
+          break;
+        default:
+          // subscription confirmations and other messages
+          log.debug("Ignoring middleware message {}", message);
+      }
+    } catch (Exception e) {
+      log.warn("Cannot handle middleware message {}", message, e);
+    }
+  }
+
+  private class FeedListener implements WebSocket.Listener {
+
+    private final StringBuilder buffer = new StringBuilder();
+
+    @Override
+    public CompletionStage<?> onText(WebSocket ws, CharSequence data, boolean last) {
+      buffer.append(data);
+      if (last) {
+        onMessage(buffer.toString());
+        buffer.setLength(0);
+      }
+      ws.request(1);
+      return null;
+    }
+
+    @Override
+    public CompletionStage<?> onClose(WebSocket ws, int statusCode, String reason) {
+      log.info("Middleware websocket closed ({}): {}", statusCode, reason);
+      scheduleReconnect();
+      return null;
+    }
+
+    @Override
+    public void onError(WebSocket ws, Throwable error) {
+      log.warn("Middleware websocket failed: {}", error.getMessage());
+      scheduleReconnect();
+    }
+  }
+}
@@ -0,0 +1,16 @@
+package com.kryptokrauts.chain;
+
+import lombok.Value;
+
+/** A tracked transaction which has been included into a micro block. */
+@Value
+public class MinedTransaction {
+
+  String txHash;
+
+  String txType;
+
+  String blockHash;
+
+  long blockHeight;
+}
@@ -0,0 +1,201 @@
+package com.kryptokrauts.chain;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Semaphore;
+import lombok.Value;
+
+/**
+ * Minimal client for the node endpoints the SDK doesn't expose in the shape we need to follow the
+ * chain, e.g. generations with their micro block hashes.
+ *
+ * <p>Close it to shut down the worker threads it started for its {@link TransportSettings}.
+ */
+public class NodeApi implements AutoCloseable {
+
+  private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+  private final String baseUrl;
+
+  private final HttpClient httpClient;
+
+  private final Duration requestTimeout;
+
+  /** limits the requests in flight, null if unlimited */
+  private final Semaphore inFlight;
+
+  /** the worker threads of the client, owned by this api, null if the JDK's default is used */
+  private final ExecutorService executor;
+
+  /** @param baseUrl the node's base url, e.g. the {@code baseUrl} of the service configuration */
+  public NodeApi(String baseUrl) {
+    this(baseUrl, TransportSettings.builder().build());
+  }
+
+  /**
+   * @param baseUrl the node's base url
+   * @param transportSettings pool, protocol, timeouts and concurrency limit of the endpoint
+   */
+  public NodeApi(String baseUrl, TransportSettings transportSettings) {
+    this(baseUrl, transportSettings, transportSettings.newExecutor());
+  }
+
+  /** @param httpClient a client of the caller, who takes care of its executor */
+  public NodeApi(String baseUrl, HttpClient httpClient) {
+    this(baseUrl, httpClient, TransportSettings.builder().build(), null);
+  }
+
+  private NodeApi(String baseUrl, TransportSettings transportSettings, ExecutorService executor) {
+    this(baseUrl, transportSettings.newHttpClient(executor), transportSettings, executor);
+  }
+
+  private NodeApi(
+      String baseUrl,
+      HttpClient httpClient,
+      TransportSettings transportSettings,
+      ExecutorService executor) {
+    this.baseUrl = baseUrl.endsWith("/") ? baseUrl.substring(0, baseUrl.length() - 1) : baseUrl;
+    this.httpClient = httpClient;
+    this.requestTimeout = transportSettings.getRequestTimeout();
+    this.inFlight =
+        transportSettings.getMaxConcurrentRequests() > 0
+            ? new Semaphore(transportSettings.getMaxConcurrentRequests(), true)
+            : null;
+    this.executor = executor;
+  }
+
+  public String getBaseUrl() {
+    return baseUrl;
+  }
+
+  /** @return the current generation, i.e. the latest key block and its micro blocks */
+  public Generation getCurrentGeneration() {
+    return toGeneration(get("/v3/generations/current"));
+  }
+
+  public Generation getGeneration(long height) {
+    return toGeneration(get("/v3/generations/height/" + height));
+  }
+
+  public List<ChainTransaction> getMicroBlockTransactions(String microBlockHash) {
+    JsonNode transactions = get("/v3/micro-blocks/hash/" + microBlockHash + "/transactions");
+    List<ChainTransaction> result = new ArrayList<>();
+    for (JsonNode tx : transactions.path("transactions")) {
+      result.add(toChainTransaction(tx));
+    }
+    return result;
+  }
+
+  /**
+   * @param txHash
+   * @return the transaction, pending transactions carry a block height of -1, empty if the node
+   *     doesn't know the transaction (anymore)
+   */
+  public Optional<ChainTransaction> findTransaction(String txHash) {
+    try {
+      return Optional.of(toChainTransaction(get("/v3/transactions/" + txHash)));
+    } catch (NodeApiException e) {
+      if (e.getStatusCode() == 404) {
+        return Optional.empty();
+      }
+      throw e;
+    }
+  }
+
+  /**
+   * @param txHash hash of a mined contract create or call transaction
+   * @return the call info of the transaction, e.g. {@code return_type} and {@code log}
+   */
+  public JsonNode getTransactionInfo(String txHash) {
+    return get("/v3/transactions/" + txHash + "/info").path("call_info");
+  }
+
+  /**
+   * perform a GET request against the node
+   *
+   * @param path path including the api version, e.g. {@code /v3/status}
+   * @return the parsed response body
+   * @throws NodeApiException if the request fails or the node doesn't answer with 200
+   */
+  public JsonNode get(String path) {
+    HttpRequest request =
+        HttpRequest.newBuilder(URI.create(baseUrl + path))
+            .timeout(requestTimeout)
+            .header("Accept", "application/json")
+            .GET()
+            .build();
+    try {
+      HttpResponse<String> response = send(request);
+      if (response.statusCode() != 200) {
+        throw new NodeApiException(
+            String.format(
+                "GET %s failed with %s: %s", path, response.statusCode(), response.body()),
+            response.statusCode());
+      }
+      return OBJECT_MAPPER.readTree(response.body());
+    } catch (IOException e) {
+      throw new NodeApiException("GET " + path + " failed", e);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new NodeApiException("GET " + path + " interrupted", e);
+    }
+  }
+
+  /** shut down the worker threads started for this api, if any */
+  @Override
+  public void close() {
+    if (executor != null) {
+      executor.shutdown();
+    }
+  }
+
+  private HttpResponse<String> send(HttpRequest request)
+      throws IOException, InterruptedException {
+    if (inFlight == null) {
+      return httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+    }
+    inFlight.acquire();
+    try {
+      return httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+    } finally {
+      inFlight.release();
+    }
+  }
+
+  static ChainTransaction toChainTransaction(JsonNode tx) {
+    return new ChainTransaction(
+        tx.path("hash").asText(),
+        tx.path("block_hash").asText(),
+        tx.path("block_height").asLong(),
+        tx.path("tx"));
+  }
+
+  private static Generation toGeneration(JsonNode generation) {
+    JsonNode keyBlock = generation.path("key_block");
+    List<String> microBlocks = new ArrayList<>();
+    generation.path("micro_blocks").forEach(hash -> microBlocks.add(hash.asText()));
+    return new Generation(
+        keyBlock.path("hash").asText(), keyBlock.path("height").asLong(), microBlocks);
+  }
+
+  /** a key block along with the hashes of the micro blocks following it */
+  @Value
+  public static class Generation {
+
+    String keyBlockHash;
+
+    long height;
+
+    List<String> microBlockHashes;
+  }
+}
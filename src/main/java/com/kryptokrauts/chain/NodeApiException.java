@@ -0,0 +1,24 @@
+package com.kryptokrauts.chain;
+
+import lombok.Getter;
+
+/** Signals a failed request against the node's http api. */
+public class NodeApiException extends RuntimeException {
+
+  /** http status of the node's answer, 0 if the request didn't get an answer at all */
+  @Getter private final int statusCode;
+
+  public NodeApiException(String message) {
+    this(message, 0);
+  }
+
+  public NodeApiException(String message, int statusCode) {
+    super(message);
+    this.statusCode = statusCode;
+  }
+
+  public NodeApiException(String message, Throwable cause) {
+    super(message, cause);
+    this.statusCode = 0;
+  }
+}
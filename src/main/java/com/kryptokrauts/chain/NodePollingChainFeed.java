@@ -0,0 +1,114 @@
+package com.kryptokrauts.chain;
+
+import com.kryptokrauts.chain.BlockEvent.BlockType;
+import com.kryptokrauts.chain.NodeApi.Generation;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * {@link ChainFeed} polling the current generation of the node. One poll costs a single request
+ * as long as no new micro block appeared, plus one request per new micro block to fetch its
+ * transactions, no matter how many components are interested in the chain.
+ *
+ * <p>Micro forks are not handled, a micro block which is dropped by the node after it has been
+ * published stays published.
+ */
+@Slf4j
+public class NodePollingChainFeed extends AbstractChainFeed {
+
+  private final NodeApi nodeApi;
+
+  private final Duration pollInterval;
+
+  private final AtomicBoolean started = new AtomicBoolean();
+
+  private final ScheduledExecutorService scheduler =
+      Executors.newSingleThreadScheduledExecutor(
+          runnable -> {
+            Thread thread = new Thread(runnable, "chain-feed-poller");
+            thread.setDaemon(true);
+            return thread;
+          });
+
+  /** generation seen by the last poll */
+  private Generation lastGeneration;
+
+  /** micro blocks of the last generation which have already been published */
+  private final Set<String> publishedMicroBlocks = new HashSet<>();
+
+  /**
+   * @param nodeApi
+   * @param pollInterval should be in the range of the node's micro block cycle, e.g. 100ms on the
+   *     local devnet
+   */
+  public NodePollingChainFeed(NodeApi nodeApi, Duration pollInterval) {
+    this.nodeApi = nodeApi;
+    this.pollInterval = pollInterval;
+  }
+
+  @Override
+  public void start() {
+    if (started.compareAndSet(false, true)) {
+      scheduler.scheduleWithFixedDelay(
+          this::poll, 0, pollInterval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+  }
+
+  @Override
+  public void close() {
+    scheduler.shutdownNow();
+  }
+
+  void poll() {
+    try {
+      Generation head = nodeApi.getCurrentGeneration();
+      if (lastGeneration == null) {
+        publishKeyBlock(head);
+      } else if (!lastGeneration.getKeyBlockHash().equals(head.getKeyBlockHash())) {
+        // finish the generation we were following and all generations we skipped
+        publishMicroBlocks(nodeApi.getGeneration(lastGeneration.getHeight()));
+        for (long height = lastGeneration.getHeight() + 1; height < head.getHeight(); height++) {
+          Generation skipped = nodeApi.getGeneration(height);
+          publishKeyBlock(skipped);
+          publishMicroBlocks(skipped);
+        }
+        publishKeyBlock(head);
+      }
+      publishMicroBlocks(head);
+    } catch (RuntimeException e) {
+      log.warn("Polling the chain head failed: {}", e.getMessage());
+    }
+  }
+
+  private void publishKeyBlock(Generation generation) {
+    lastGeneration = generation;
+    publishedMicroBlocks.clear();
+    publish(
+        new BlockEvent(
+            BlockType.KEY,
+            generation.getKeyBlockHash(),
+            generation.getHeight(),
+            Collections.emptyList()));
+  }
+
+  private void publishMicroBlocks(Generation generation) {
+    for (String microBlockHash : generation.getMicroBlockHashes()) {
+      if (!publishedMicroBlocks.contains(microBlockHash)) {
+        // a failed fetch leaves the block unpublished, the next poll fetches it again
+        List<ChainTransaction> transactions = nodeApi.getMicroBlockTransactions(microBlockHash);
+        publish(
+            new BlockEvent(
+                BlockType.MICRO, microBlockHash, generation.getHeight(), transactions));
+        publishedMicroBlocks.add(microBlockHash);
+      }
+    }
+  }
+}
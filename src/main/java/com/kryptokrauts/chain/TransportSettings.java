@@ -0,0 +1,71 @@
+package com.kryptokrauts.chain;
+
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import lombok.Builder;
+import lombok.Value;
+
+/**
+ * Tuning of the HTTP transport of a {@link NodeApi}.
+ *
+ * <p>Every {@code NodeApi} owns one client and with it one connection pool for its endpoint.
+ * Connections are kept alive and reused; their idle timeout is the JVM wide {@code
+ * jdk.httpclient.keepalive.timeout} (1200 seconds by default).
+ */
+@Value
+@Builder
+public class TransportSettings {
+
+  /**
+   * HTTP/2 is negotiated if the server supports it and HTTP/1.1 used otherwise. All HTTP/2 requests
+   * to an endpoint are multiplexed over a single connection.
+   */
+  @Builder.Default HttpClient.Version httpVersion = HttpClient.Version.HTTP_2;
+
+  @Builder.Default Duration connectTimeout = Duration.ofSeconds(10);
+
+  /** how long a request may take from sending it until the response headers arrive */
+  @Builder.Default Duration requestTimeout = Duration.ofSeconds(10);
+
+  /**
+   * requests in flight per endpoint, further requests wait for a slot instead of opening more
+   * connections. 0 for no limit.
+   */
+  @Builder.Default int maxConcurrentRequests = 64;
+
+  /**
+   * threads handling the responses of the endpoint, 0 to use the JDK's default executor. The pool
+   * belongs to the {@code NodeApi} and is shut down when it is closed.
+   */
+  @Builder.Default int workerThreads = 0;
+
+  /** @return a pool of {@link #workerThreads}, null if the JDK's default executor is used */
+  public ExecutorService newExecutor() {
+    if (workerThreads <= 0) {
+      return null;
+    }
+    return Executors.newFixedThreadPool(
+        workerThreads,
+        runnable -> {
+          Thread thread = new Thread(runnable, "node-api-transport");
+          thread.setDaemon(true);
+          return thread;
+        });
+  }
+
+  /**
+   * @param executor handles the responses, null for the JDK's default executor. The caller shuts
+   *     it down once the client isn't used anymore.
+   * @return a client with its own connection pool
+   */
+  public HttpClient newHttpClient(ExecutorService executor) {
+    HttpClient.Builder builder =
+        HttpClient.newBuilder().version(httpVersion).connectTimeout(connectTimeout);
+    if (executor != null) {
+      builder.executor(executor);
+    }
+    return builder.build();
+  }
+}
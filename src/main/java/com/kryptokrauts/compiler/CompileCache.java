@@ -0,0 +1,219 @@
+package com.kryptokrauts.compiler;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.kryptokrauts.aeternity.sdk.domain.StringResultWrapper;
+import com.kryptokrauts.aeternity.sdk.service.aeternity.impl.AeternityService;
+import com.kryptokrauts.aeternity.sdk.service.compiler.domain.ACIResult;
+import com.kryptokrauts.trace.CompileEvent;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import lombok.extern.slf4j.Slf4j;
+import org.bouncycastle.util.encoders.Hex;
+
+/**
+ * Content-addressed cache for compiled contracts. Entries are keyed by a SHA-256 hash of the
+ * compiler version, the contract source and all of its includes, so a changed source or compiler
+ * never hits a stale entry.
+ *
+ * <p>Entries are kept in memory and, if a cache directory is configured, on disk so that later
+ * runs don't compile again. The compiler version is part of every key, so a cache which isn't
+ * given the version asks the compiler for it once. Only a cache given the version serves entries
+ * from disk without contacting the compiler at all. Concurrent requests for the same source
+ * result in a single compilation, failed compilations are neither cached nor persisted.
+ */
+@Slf4j
+public class CompileCache {
+
+  private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+  private final AeternityService aeternityService;
+
+  private final Path cacheDirectory;
+
+  private final ConcurrentMap<String, CompletableFuture<CompiledContract>> entries =
+      new ConcurrentHashMap<>();
+
+  private volatile String compilerVersion;
+
+  /**
+   * @param aeternityService service used to compile on a cache miss
+   * @param cacheDirectory directory of the persistent tier, null to keep entries in memory only
+   */
+  public CompileCache(AeternityService aeternityService, Path cacheDirectory) {
+    this(aeternityService, cacheDirectory, null);
+  }
+
+  /**
+   * @param aeternityService service used to compile on a cache miss
+   * @param cacheDirectory directory of the persistent tier, null to keep entries in memory only
+   * @param compilerVersion version of the compiler behind the service, fetched from the compiler
+   *     on first use if null
+   */
+  public CompileCache(
+      AeternityService aeternityService, Path cacheDirectory, String compilerVersion) {
+    this.aeternityService = aeternityService;
+    this.cacheDirectory = cacheDirectory;
+    this.compilerVersion = compilerVersion;
+  }
+
+  /** @see #compile(String, Map) */
+  public CompiledContract compile(String sourceCode) {
+    return compile(sourceCode, Collections.emptyMap());
+  }
+
+  /**
+   * @param sourceCode the contract's source code
+   * @param includes custom includes of the source code by file name, standard library includes
+   *     are covered by the compiler version
+   * @return bytecode and ACI of the contract
+   * @throws CompileException if the compiler rejects the source or can't be asked for its version
+   */
+  public CompiledContract compile(String sourceCode, Map<String, String> includes) {
+    String key = cacheKey(sourceCode, includes);
+    CompletableFuture<CompiledContract> entry = entries.get(key);
+    if (entry == null) {
+      CompletableFuture<CompiledContract> newEntry = new CompletableFuture<>();
+      entry = entries.putIfAbsent(key, newEntry);
+      if (entry == null) {
+        entry = newEntry;
+        try {
+          newEntry.complete(load(key, sourceCode, includes));
+        } catch (RuntimeException e) {
+          // don't cache failures, the next call compiles again
+          entries.remove(key, newEntry);
+          newEntry.completeExceptionally(e);
+        }
+      }
+    }
+    try {
+      return entry.join();
+    } catch (CompletionException e) {
+      throw (RuntimeException) e.getCause();
+    }
+  }
+
+  String cacheKey(String sourceCode, Map<String, String> includes) {
+    try {
+      MessageDigest digest = MessageDigest.getInstance("SHA-256");
+      update(digest, getCompilerVersion());
+      update(digest, sourceCode);
+      // sort includes to get the same key regardless of the map's iteration order
+      for (Map.Entry<String, String> include : new TreeMap<>(includes).entrySet()) {
+        update(digest, include.getKey());
+        update(digest, include.getValue());
+      }
+      return Hex.toHexString(digest.digest());
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  private CompiledContract load(String key, String sourceCode, Map<String, String> includes) {
+    CompileEvent event = new CompileEvent(key);
+    event.begin();
+    CompiledContract compiled = loadOrCompile(key, sourceCode, includes, event);
+    event.commit();
+    return compiled;
+  }
+
+  private CompiledContract loadOrCompile(
+      String key, String sourceCode, Map<String, String> includes, CompileEvent event) {
+    Path file = cacheDirectory != null ? cacheDirectory.resolve(key + ".json") : null;
+    if (file != null && Files.exists(file)) {
+      try {
+        log.debug("Loading compiled contract {} from {}", key, file);
+        CompiledContract compiled = OBJECT_MAPPER.readValue(file.toFile(), CompiledContract.class);
+        event.setLoadedFromDisk(true);
+        return compiled;
+      } catch (IOException e) {
+        log.warn("Ignoring unreadable cache entry {}", file, e);
+      }
+    }
+
+    log.debug("Compiling contract {}", key);
+    Map<String, String> fileSystem = includes.isEmpty() ? null : includes;
+    StringResultWrapper bytecode =
+        aeternityService.compiler.blockingCompile(sourceCode, null, fileSystem);
+    if (bytecode == null) {
+      throw new CompileException("Compiler returned no bytecode for contract " + key);
+    }
+    if (bytecode.getRootErrorMessage() != null || bytecode.getResult() == null) {
+      throw new CompileException(
+          "Cannot compile contract " + key + ": " + errorOf(bytecode.getRootErrorMessage()));
+    }
+    ACIResult aci = aeternityService.compiler.blockingGenerateACI(sourceCode, null, fileSystem);
+    if (aci == null) {
+      throw new CompileException("Compiler returned no ACI for contract " + key);
+    }
+    if (aci.getRootErrorMessage() != null || aci.getEncodedAci() == null) {
+      throw new CompileException(
+          "Cannot generate ACI of contract " + key + ": " + errorOf(aci.getRootErrorMessage()));
+    }
+    CompiledContract compiled;
+    try {
+      compiled =
+          new CompiledContract(
+              bytecode.getResult(), OBJECT_MAPPER.writeValueAsString(aci.getEncodedAci()));
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+
+    if (file != null) {
+      store(file, compiled);
+    }
+    return compiled;
+  }
+
+  private void store(Path file, CompiledContract compiled) {
+    try {
+      Files.createDirectories(file.getParent());
+      // write to a temp file first so that concurrent processes never read a partial entry
+      Path tempFile = Files.createTempFile(file.getParent(), file.getFileName().toString(), ".tmp");
+      OBJECT_MAPPER.writeValue(tempFile.toFile(), compiled);
+      Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING);
+    } catch (IOException e) {
+      log.warn("Cannot persist compiled contract to {}", file, e);
+    }
+  }
+
+  private String getCompilerVersion() {
+    if (compilerVersion == null) {
+      StringResultWrapper version = aeternityService.compiler.blockingGetCompilerVersion();
+      if (version == null
+          || version.getRootErrorMessage() != null
+          || version.getResult() == null) {
+        throw new CompileException(
+            "Cannot determine the compiler version, configure it to use cached entries without a"
+                + " compiler: "
+                + errorOf(version != null ? version.getRootErrorMessage() : null));
+      }
+      compilerVersion = version.getResult();
+    }
+    return compilerVersion;
+  }
+
+  private static String errorOf(String rootErrorMessage) {
+    return rootErrorMessage != null ? rootErrorMessage : "empty result";
+  }
+
+  private static void update(MessageDigest digest, String value) {
+    byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+    // length prefix keeps ("ab", "c") and ("a", "bc") apart
+    digest.update(Integer.toString(bytes.length).getBytes(StandardCharsets.UTF_8));
+    digest.update((byte) ':');
+    digest.update(bytes);
+  }
+}
@@ -0,0 +1,13 @@
+package com.kryptokrauts.compiler;
+
+/** Signals that the compiler didn't return a usable result, e.g. for a source with errors. */
+public class CompileException extends RuntimeException {
+
+  public CompileException(String message) {
+    super(message);
+  }
+
+  public CompileException(String message, Throwable cause) {
+    super(message, cause);
+  }
+}
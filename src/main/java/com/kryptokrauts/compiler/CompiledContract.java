@@ -0,0 +1,23 @@
+package com.kryptokrauts.compiler;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.Value;
+
+/** Result of compiling a contract, as kept by the {@link CompileCache}. */
+@Value
+public class CompiledContract {
+
+  /** the compiled bytecode, e.g. {@code cb_...} */
+  String bytecode;
+
+  /** the contract's ACI as JSON */
+  String aci;
+
+  @JsonCreator
+  public CompiledContract(
+      @JsonProperty("bytecode") String bytecode, @JsonProperty("aci") String aci) {
+    this.bytecode = bytecode;
+    this.aci = aci;
+  }
+}
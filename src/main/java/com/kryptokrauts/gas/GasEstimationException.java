@@ -0,0 +1,9 @@
+package com.kryptokrauts.gas;
+
+/** Signals that the dry-run of a transaction didn't succeed. */
+public class GasEstimationException extends RuntimeException {
+
+  public GasEstimationException(String message) {
+    super(message);
+  }
+}
@@ -0,0 +1,34 @@
+package com.kryptokrauts.gas;
+
+import java.util.function.Supplier;
+import lombok.Builder;
+import lombok.Value;
+
+/** A contract call (or create / GA attach) whose gas consumption should be estimated. */
+@Value
+@Builder(toBuilder = true)
+public class GasEstimationRequest {
+
+  /** contract name or id, part of the profile key */
+  String contract;
+
+  /** called entrypoint, part of the profile key */
+  String entrypoint;
+
+  /**
+   * size of the variable part of the arguments which drives the gas consumption, e.g. the number
+   * of recipients of {@code BatchPayment.proceedBatchPayment}. Use 0 if the arguments have a fixed
+   * size.
+   */
+  int argumentSize;
+
+  /** public key of the account which will sign the transaction */
+  String callerPublicKey;
+
+  /**
+   * creates the unsigned transaction, only invoked if the estimate can't be derived from the
+   * profile and a dry-run is needed. Transactions of the same caller in one batch are dry-run in
+   * order, so they must carry consecutive nonces.
+   */
+  Supplier<String> unsignedTx;
+}
@@ -0,0 +1,261 @@
+package com.kryptokrauts.gas;
+
+import com.kryptokrauts.aeternity.sdk.service.aeternity.impl.AeternityService;
+import com.kryptokrauts.aeternity.sdk.service.transaction.domain.DryRunAccountModel;
+import com.kryptokrauts.aeternity.sdk.service.transaction.domain.DryRunRequest;
+import com.kryptokrauts.aeternity.sdk.service.transaction.domain.DryRunTransactionResult;
+import com.kryptokrauts.aeternity.sdk.service.transaction.domain.DryRunTransactionResults;
+import com.kryptokrauts.metrics.CallMetrics;
+import com.kryptokrauts.metrics.FailureReason;
+import com.kryptokrauts.metrics.MetricsRegistry;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.math.RoundingMode;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import lombok.Value;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Estimates the gas limit of contract calls. Pending estimations are packed into a single dry-run
+ * request, the gas used is learned per contract, entrypoint and argument size and later requests
+ * with a known profile are answered without any dry-run.
+ */
+@Slf4j
+public class GasEstimator implements AutoCloseable {
+
+  private static final int DEFAULT_MAX_BATCH_SIZE = 50;
+
+  private static final Duration DEFAULT_LINGER_TIME = Duration.ofMillis(20);
+
+  private static final int DEFAULT_SAMPLES_TO_TRUST = 3;
+
+  private static final double DEFAULT_SAFETY_MARGIN = 1.1;
+
+  private final AeternityService aeternityService;
+
+  private final int maxBatchSize;
+
+  private final int samplesToTrust;
+
+  private final BigDecimal safetyMargin;
+
+  private final MetricsRegistry metricsRegistry;
+
+  private final ConcurrentMap<ProfileKey, GasProfile> profiles = new ConcurrentHashMap<>();
+
+  /** requests waiting for the next dry-run, guarded by its own monitor */
+  private final List<PendingEstimation> pending = new ArrayList<>();
+
+  private final ScheduledExecutorService scheduler =
+      Executors.newSingleThreadScheduledExecutor(
+          runnable -> {
+            Thread thread = new Thread(runnable, "gas-estimator");
+            thread.setDaemon(true);
+            return thread;
+          });
+
+  public GasEstimator(AeternityService aeternityService) {
+    this(
+        aeternityService,
+        DEFAULT_MAX_BATCH_SIZE,
+        DEFAULT_LINGER_TIME,
+        DEFAULT_SAMPLES_TO_TRUST,
+        DEFAULT_SAFETY_MARGIN);
+  }
+
+  /**
+   * @param aeternityService service used for the dry-runs
+   * @param maxBatchSize maximum number of transactions in one dry-run request
+   * @param lingerTime how long a request waits for others to share its dry-run
+   * @param samplesToTrust dry-runs of an argument size (or distinct sizes to extrapolate) needed
+   *     before the profile replaces dry-runs
+   * @param safetyMargin factor applied to the gas used, e.g. 1.1 for 10% headroom
+   */
+  public GasEstimator(
+      AeternityService aeternityService,
+      int maxBatchSize,
+      Duration lingerTime,
+      int samplesToTrust,
+      double safetyMargin) {
+    this(
+        aeternityService,
+        maxBatchSize,
+        lingerTime,
+        samplesToTrust,
+        safetyMargin,
+        MetricsRegistry.getDefault());
+  }
+
+  /**
+   * @param metricsRegistry receives the dry-run latencies and failures per contract and entrypoint
+   * @see #GasEstimator(AeternityService, int, Duration, int, double)
+   */
+  public GasEstimator(
+      AeternityService aeternityService,
+      int maxBatchSize,
+      Duration lingerTime,
+      int samplesToTrust,
+      double safetyMargin,
+      MetricsRegistry metricsRegistry) {
+    this.aeternityService = aeternityService;
+    this.metricsRegistry = metricsRegistry;
+    this.maxBatchSize = maxBatchSize;
+    this.samplesToTrust = samplesToTrust;
+    this.safetyMargin = BigDecimal.valueOf(safetyMargin);
+    scheduler.scheduleWithFixedDelay(
+        this::flush, lingerTime.toMillis(), lingerTime.toMillis(), TimeUnit.MILLISECONDS);
+  }
+
+  /**
+   * @param request
+   * @return the gas limit to use, completed immediately if the profile is known
+   */
+  public CompletableFuture<BigInteger> estimate(GasEstimationRequest request) {
+    Optional<BigInteger> profiled = profiledEstimate(request);
+    if (profiled.isPresent()) {
+      return CompletableFuture.completedFuture(profiled.get());
+    }
+    PendingEstimation estimation = new PendingEstimation(request, new CompletableFuture<>());
+    boolean batchFull;
+    synchronized (pending) {
+      pending.add(estimation);
+      batchFull = pending.size() >= maxBatchSize;
+    }
+    if (batchFull) {
+      scheduler.execute(this::flush);
+    }
+    return estimation.getFuture();
+  }
+
+  /** @see #estimate(GasEstimationRequest) */
+  public BigInteger blockingEstimate(GasEstimationRequest request) {
+    return estimate(request).join();
+  }
+
+  /**
+   * @param request
+   * @return the gas limit derived from the learned profile without any dry-run, empty if the
+   *     profile doesn't know enough yet
+   */
+  public Optional<BigInteger> profiledEstimate(GasEstimationRequest request) {
+    GasProfile profile = profiles.get(ProfileKey.of(request));
+    return profile == null
+        ? Optional.empty()
+        : profile.estimate(request.getArgumentSize(), samplesToTrust).map(this::withMargin);
+  }
+
+  /** dry-run all pending requests now */
+  public void flush() {
+    while (true) {
+      List<PendingEstimation> batch;
+      synchronized (pending) {
+        if (pending.isEmpty()) {
+          return;
+        }
+        List<PendingEstimation> head = pending.subList(0, Math.min(maxBatchSize, pending.size()));
+        batch = new ArrayList<>(head);
+        head.clear();
+      }
+      dryRun(batch);
+    }
+  }
+
+  @Override
+  public void close() {
+    scheduler.shutdown();
+    flush();
+  }
+
+  private void dryRun(List<PendingEstimation> batch) {
+    try {
+      DryRunRequest request = DryRunRequest.builder().build();
+      Set<String> callers = new LinkedHashSet<>();
+      for (PendingEstimation estimation : batch) {
+        if (callers.add(estimation.getRequest().getCallerPublicKey())) {
+          request =
+              request.account(
+                  DryRunAccountModel.builder()
+                      .publicKey(estimation.getRequest().getCallerPublicKey())
+                      .build());
+        }
+        request = request.transactionInputItem(estimation.getRequest().getUnsignedTx().get());
+      }
+      log.debug("Dry-running {} transaction(s) of {} caller(s)", batch.size(), callers.size());
+      long start = System.nanoTime();
+      DryRunTransactionResults results =
+          aeternityService.transactions.blockingDryRunTransactions(request);
+      long elapsedNanos = System.nanoTime() - start;
+      for (int i = 0; i < batch.size(); i++) {
+        complete(batch.get(i), results.getResults().get(i), elapsedNanos);
+      }
+    } catch (RuntimeException e) {
+      batch.forEach(
+          estimation -> {
+            metricsOf(estimation.getRequest()).recordFailure(e);
+            estimation.getFuture().completeExceptionally(e);
+          });
+    }
+  }
+
+  private void complete(
+      PendingEstimation estimation, DryRunTransactionResult result, long elapsedNanos) {
+    // every transaction of the batch waited for the whole dry-run
+    metricsOf(estimation.getRequest()).getDryRun().recordNanos(elapsedNanos);
+    if (!"ok".equals(result.getResult()) || result.getContractCallObject() == null) {
+      metricsOf(estimation.getRequest()).recordFailure(FailureReason.classify(result.getReason()));
+      estimation
+          .getFuture()
+          .completeExceptionally(
+              new GasEstimationException("Dry-run failed: " + result.getReason()));
+      return;
+    }
+    BigInteger gasUsed = result.getContractCallObject().getGasUsed();
+    GasEstimationRequest request = estimation.getRequest();
+    profiles
+        .computeIfAbsent(ProfileKey.of(request), key -> new GasProfile())
+        .record(request.getArgumentSize(), gasUsed);
+    estimation.getFuture().complete(withMargin(gasUsed));
+  }
+
+  private CallMetrics metricsOf(GasEstimationRequest request) {
+    return metricsRegistry.calls(request.getContract(), request.getEntrypoint());
+  }
+
+  private BigInteger withMargin(BigInteger gas) {
+    return new BigDecimal(gas)
+        .multiply(safetyMargin)
+        .setScale(0, RoundingMode.CEILING)
+        .toBigInteger();
+  }
+
+  @Value
+  private static class ProfileKey {
+
+    String contract;
+
+    String entrypoint;
+
+    static ProfileKey of(GasEstimationRequest request) {
+      return new ProfileKey(request.getContract(), request.getEntrypoint());
+    }
+  }
+
+  @Value
+  private static class PendingEstimation {
+
+    GasEstimationRequest request;
+
+    CompletableFuture<BigInteger> future;
+  }
+}
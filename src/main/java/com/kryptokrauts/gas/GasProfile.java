@@ -0,0 +1,75 @@
+package com.kryptokrauts.gas;
+
+import java.math.BigInteger;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+
+/**
+ * Gas observed for a single entrypoint, by argument size. The profile answers estimates for sizes
+ * it has seen often enough and extrapolates along an upper envelope for unseen sizes once enough
+ * distinct sizes are known. Guarded by its own monitor.
+ */
+class GasProfile {
+
+  private final TreeMap<Integer, Observation> observations = new TreeMap<>();
+
+  synchronized void record(int argumentSize, BigInteger gasUsed) {
+    observations.computeIfAbsent(argumentSize, size -> new Observation()).add(gasUsed);
+  }
+
+  /**
+   * @param argumentSize
+   * @param samplesToTrust how many samples of a size (or distinct sizes for extrapolation) are
+   *     required before the profile is used instead of a dry-run
+   * @return the highest gas expected for the given size, empty if the profile doesn't know yet
+   */
+  synchronized Optional<BigInteger> estimate(int argumentSize, int samplesToTrust) {
+    Observation exact = observations.get(argumentSize);
+    if (exact != null && exact.samples >= samplesToTrust) {
+      return Optional.of(exact.maxGasUsed);
+    }
+    if (observations.size() < Math.max(2, samplesToTrust)) {
+      return Optional.empty();
+    }
+    // upper envelope: a line with the steepest slope seen between neighbouring sizes, shifted up
+    // until no observation lies above it
+    BigInteger slope = BigInteger.ZERO;
+    Map.Entry<Integer, Observation> previous = null;
+    for (Map.Entry<Integer, Observation> entry : observations.entrySet()) {
+      if (previous != null) {
+        BigInteger deltaGas = entry.getValue().maxGasUsed.subtract(previous.getValue().maxGasUsed);
+        BigInteger deltaSize = BigInteger.valueOf(entry.getKey() - previous.getKey());
+        slope = slope.max(ceilDiv(deltaGas, deltaSize));
+      }
+      previous = entry;
+    }
+    BigInteger intercept = null;
+    for (Map.Entry<Integer, Observation> entry : observations.entrySet()) {
+      BigInteger candidate =
+          entry.getValue().maxGasUsed.subtract(slope.multiply(BigInteger.valueOf(entry.getKey())));
+      intercept = intercept == null ? candidate : intercept.max(candidate);
+    }
+    BigInteger estimate = intercept.add(slope.multiply(BigInteger.valueOf(argumentSize)));
+    // gas doesn't shrink with growing arguments, never go below a smaller size's observation
+    Map.Entry<Integer, Observation> smaller = observations.floorEntry(argumentSize);
+    return Optional.of(smaller != null ? estimate.max(smaller.getValue().maxGasUsed) : estimate);
+  }
+
+  private static BigInteger ceilDiv(BigInteger dividend, BigInteger divisor) {
+    BigInteger[] division = dividend.divideAndRemainder(divisor);
+    return division[1].signum() > 0 ? division[0].add(BigInteger.ONE) : division[0];
+  }
+
+  private static class Observation {
+
+    private int samples;
+
+    private BigInteger maxGasUsed = BigInteger.ZERO;
+
+    void add(BigInteger gasUsed) {
+      samples++;
+      maxGasUsed = maxGasUsed.max(gasUsed);
+    }
+  }
+}
@@ -0,0 +1,109 @@
+package com.kryptokrauts.metrics;
+
+import java.math.BigInteger;
+import java.util.function.Supplier;
+import lombok.AccessLevel;
+import lombok.Getter;
+
+/**
+ * Metrics of one operation, e.g. an entrypoint of a contract. Obtain the instance once from the
+ * {@link MetricsRegistry} and keep it, recording is allocation free:
+ *
+ * <pre>
+ * CallMetrics transfer = registry.calls("FungibleToken", "transfer");
+ * long start = System.nanoTime();
+ * String txHash = token.transfer(to, value);
+ * transfer.getSubmit().recordSince(start);
+ * </pre>
+ */
+@Getter
+public class CallMetrics {
+
+  /** posting a transaction until the node accepted it */
+  private final Timer submit;
+
+  /** read-only calls and dry-runs */
+  private final Timer dryRun;
+
+  /** from being accepted by the node until the transaction is included into a micro block */
+  private final Timer mined;
+
+  /** converting results into java values */
+  private final Timer decode;
+
+  /** attempts repeated after a recoverable error, e.g. a nonce the node didn't accept */
+  private final Counter retries;
+
+  /** gas used by mined calls whose gas limit is known */
+  private final Counter gasUsed;
+
+  /** gas limit of the same calls */
+  private final Counter gasLimit;
+
+  @Getter(AccessLevel.NONE)
+  private final Counter[] failures = new Counter[FailureReason.values().length];
+
+  CallMetrics(MetricsRegistry registry, String prefix, String... labels) {
+    this.submit = registry.timer(prefix + "_submit_seconds", labels);
+    this.dryRun = registry.timer(prefix + "_dry_run_seconds", labels);
+    this.mined = registry.timer(prefix + "_mined_seconds", labels);
+    this.decode = registry.timer(prefix + "_decode_seconds", labels);
+    this.retries = registry.counter(prefix + "_retries_total", labels);
+    this.gasUsed = registry.counter(prefix + "_gas_used_total", labels);
+    this.gasLimit = registry.counter(prefix + "_gas_limit_total", labels);
+    for (FailureReason reason : FailureReason.values()) {
+      String[] withReason = new String[labels.length + 2];
+      System.arraycopy(labels, 0, withReason, 0, labels.length);
+      withReason[labels.length] = "reason";
+      withReason[labels.length + 1] = reason.label();
+      failures[reason.ordinal()] = registry.counter(prefix + "_failures_total", withReason);
+    }
+  }
+
+  public Counter getFailures(FailureReason reason) {
+    return failures[reason.ordinal()];
+  }
+
+  public void recordFailure(FailureReason reason) {
+    failures[reason.ordinal()].increment();
+  }
+
+  /** classifies the error, which allocates, but failures are off the hot path */
+  public void recordFailure(Throwable error) {
+    recordFailure(FailureReason.classify(error));
+  }
+
+  /**
+   * @param used gas used by the mined call
+   * @param limit gas limit of the call
+   */
+  public void recordGas(BigInteger used, BigInteger limit) {
+    gasUsed.add(used.longValue());
+    gasLimit.add(limit.longValue());
+  }
+
+  /**
+   * time a stateful call of a generated class configured to return without waiting for the tx
+   * to be mined, e.g. {@code () -> token.transfer(to, value)}
+   */
+  public String submit(Supplier<String> call) {
+    return time(submit, call);
+  }
+
+  /** time a read-only call of a generated class, e.g. {@code token::total_supply} */
+  public <T> T read(Supplier<T> call) {
+    return time(dryRun, call);
+  }
+
+  private <T> T time(Timer timer, Supplier<T> call) {
+    long start = System.nanoTime();
+    try {
+      T result = call.get();
+      timer.recordSince(start);
+      return result;
+    } catch (RuntimeException e) {
+      recordFailure(e);
+      throw e;
+    }
+  }
+}
@@ -0,0 +1,28 @@
+package com.kryptokrauts.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/** Monotonic counter, incrementing it doesn't allocate and doesn't lock. */
+public class Counter {
+
+  private final LongAdder value = new LongAdder();
+
+  Counter() {}
+
+  public void increment() {
+    value.increment();
+  }
+
+  public void add(long amount) {
+    value.add(amount);
+  }
+
+  public long get() {
+    return value.sum();
+  }
+
+  @Override
+  public String toString() {
+    return String.valueOf(get());
+  }
+}
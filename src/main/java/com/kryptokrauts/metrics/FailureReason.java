@@ -0,0 +1,66 @@
+package com.kryptokrauts.metrics;
+
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Why a transaction or call failed, a small fixed set so that failure counters stay cheap to
+ * scrape no matter how the node words its errors.
+ */
+public enum FailureReason {
+  NONCE_TOO_LOW("nonce_too_low", "nonce too low"),
+  NONCE_TOO_HIGH("nonce_too_high", "nonce too high"),
+  INSUFFICIENT_BALANCE("insufficient_balance", "insufficient balance", "insufficient_funds"),
+  TX_EXPIRED("tx_expired", "ttl_expired", "expired"),
+  OUT_OF_GAS("out_of_gas", "out of gas"),
+  REVERT("revert"),
+  TIMEOUT("timeout", "timed out", "not mined within"),
+  OTHER;
+
+  private final String[] markers;
+
+  FailureReason(String... markers) {
+    this.markers = markers;
+  }
+
+  /**
+   * @param message error message of the node, e.g. the reason of a dry-run or the root error of a
+   *     post request
+   * @return the first reason whose marker the message contains, {@link #OTHER} if none matches
+   */
+  public static FailureReason classify(String message) {
+    if (message == null) {
+      return OTHER;
+    }
+    String lowerCase = message.toLowerCase();
+    for (FailureReason reason : values()) {
+      for (String marker : reason.markers) {
+        if (lowerCase.contains(marker)) {
+          return reason;
+        }
+      }
+    }
+    return OTHER;
+  }
+
+  /**
+   * @param error
+   * @return the reason of the error or of the first of its causes which can be classified
+   */
+  public static FailureReason classify(Throwable error) {
+    for (Throwable cause = error; cause != null; cause = cause.getCause()) {
+      if (cause instanceof TimeoutException) {
+        return TIMEOUT;
+      }
+      FailureReason reason = classify(cause.getMessage());
+      if (reason != OTHER) {
+        return reason;
+      }
+    }
+    return OTHER;
+  }
+
+  /** @return the label value, e.g. {@code nonce_too_low} */
+  public String label() {
+    return name().toLowerCase();
+  }
+}
@@ -0,0 +1,224 @@
+package com.kryptokrauts.metrics;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+import lombok.Value;
+
+/**
+ * Timers, counters and gauges of the contract calls and of the components talking to the node,
+ * dumped in the Prometheus text format by {@link #scrape()}.
+ *
+ * <p>Looking up a metric allocates its key, so components look up their metrics once and keep
+ * them. Only {@link #calls(String, String)} is allocation free on repeated lookups so that it can
+ * be used for contracts and entrypoints only known at call time.
+ */
+public class MetricsRegistry {
+
+  private static final MetricsRegistry DEFAULT = new MetricsRegistry();
+
+  private static final double NANOS_PER_SECOND = TimeUnit.SECONDS.toNanos(1);
+
+  private final ConcurrentMap<MetricId, Object> metrics = new ConcurrentHashMap<>();
+
+  private final ConcurrentMap<String, ConcurrentMap<String, CallMetrics>> calls =
+      new ConcurrentHashMap<>();
+
+  private final ConcurrentMap<String, ConcurrentMap<String, CallMetrics>> operations =
+      new ConcurrentHashMap<>();
+
+  /** @return the registry used by components which are not given one explicitly */
+  public static MetricsRegistry getDefault() {
+    return DEFAULT;
+  }
+
+  /**
+   * @param name e.g. {@code contraect_tx_mined_seconds}
+   * @param labels label names and values, e.g. {@code "contract", "FungibleToken"}
+   * @return the timer, created on first use
+   */
+  public Timer timer(String name, String... labels) {
+    return metric(name, labels, Timer.class);
+  }
+
+  /** @see #timer(String, String...) */
+  public Counter counter(String name, String... labels) {
+    return metric(name, labels, Counter.class);
+  }
+
+  /**
+   * @param name e.g. {@code contraect_tx_pending}
+   * @param value read on every scrape
+   * @param labels label names and values
+   */
+  public void gauge(String name, LongSupplier value, String... labels) {
+    metrics.put(new MetricId(name, List.of(labels)), value);
+  }
+
+  /**
+   * Drops a metric of a component which is gone, so that it is no longer scraped.
+   *
+   * @param name the name the metric was registered with
+   * @param labels the label names and values it was registered with
+   */
+  public void remove(String name, String... labels) {
+    metrics.remove(new MetricId(name, List.of(labels)));
+  }
+
+  /** @return the metrics of calls of the entrypoint, labeled by contract and entrypoint */
+  public CallMetrics calls(String contract, String entrypoint) {
+    return lookup(calls, contract, entrypoint, "contraect_call", "contract", "entrypoint");
+  }
+
+  /**
+   * @param service e.g. {@code transactions} or {@code accounts}
+   * @param operation e.g. the type of the posted transaction
+   * @return the metrics of requests of the {@code AeternityService} not calling a contract
+   */
+  public CallMetrics operations(String service, String operation) {
+    return lookup(operations, service, operation, "aeternity_service", "service", "operation");
+  }
+
+  /** @return all metrics in the Prometheus text exposition format */
+  public String scrape() {
+    StringBuilder sb = new StringBuilder();
+    try {
+      writePrometheus(sb);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+    return sb.toString();
+  }
+
+  /** @param out receives all metrics in the Prometheus text exposition format */
+  public void writePrometheus(Appendable out) throws IOException {
+    Map<String, Map<List<String>, Object>> byName = new TreeMap<>();
+    metrics.forEach(
+        (id, metric) ->
+            byName
+                .computeIfAbsent(id.getName(), name -> new TreeMap<>(MetricsRegistry::compare))
+                .put(id.getLabels(), metric));
+    for (Map.Entry<String, Map<List<String>, Object>> family : byName.entrySet()) {
+      String name = family.getKey();
+      Object first = family.getValue().values().iterator().next();
+      String type =
+          first instanceof Timer ? "histogram" : first instanceof Counter ? "counter" : "gauge";
+      out.append("# TYPE ").append(name).append(' ').append(type).append('\n');
+      for (Map.Entry<List<String>, Object> metric : family.getValue().entrySet()) {
+        write(out, name, metric.getKey(), metric.getValue());
+      }
+    }
+  }
+
+  private static void write(Appendable out, String name, List<String> labels, Object metric)
+      throws IOException {
+    if (metric instanceof Counter) {
+      sample(out, name, labels, null, ((Counter) metric).get());
+    } else if (metric instanceof LongSupplier) {
+      sample(out, name, labels, null, ((LongSupplier) metric).getAsLong());
+    } else {
+      Timer timer = (Timer) metric;
+      long[] counts = timer.bucketCounts();
+      int last = Timer.BUCKETS - 1;
+      while (last > 0 && counts[last] == 0) {
+        last--;
+      }
+      long cumulative = 0;
+      for (int i = 0; i <= last && i < Timer.BUCKETS - 1; i++) {
+        cumulative += counts[i];
+        if (cumulative > 0) {
+          String le = String.valueOf((Timer.upperBoundNanos(i) + 1) / NANOS_PER_SECOND);
+          sample(out, name + "_bucket", labels, le, cumulative);
+        }
+      }
+      sample(out, name + "_bucket", labels, "+Inf", timer.count());
+      out.append(name).append("_sum");
+      labels(out, labels, null);
+      out.append(' ').append(String.valueOf(timer.totalNanos() / NANOS_PER_SECOND)).append('\n');
+      sample(out, name + "_count", labels, null, timer.count());
+    }
+  }
+
+  private static void sample(
+      Appendable out, String name, List<String> labels, String le, long value)
+      throws IOException {
+    out.append(name);
+    labels(out, labels, le);
+    out.append(' ').append(String.valueOf(value)).append('\n');
+  }
+
+  private static void labels(Appendable out, List<String> labels, String le) throws IOException {
+    if (labels.isEmpty() && le == null) {
+      return;
+    }
+    out.append('{');
+    for (int i = 0; i < labels.size(); i += 2) {
+      if (i > 0) {
+        out.append(',');
+      }
+      out.append(labels.get(i)).append("=\"").append(escape(labels.get(i + 1))).append('"');
+    }
+    if (le != null) {
+      out.append(labels.isEmpty() ? "" : ",").append("le=\"").append(le).append('"');
+    }
+    out.append('}');
+  }
+
+  private static String escape(String value) {
+    return value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+  }
+
+  private static int compare(List<String> left, List<String> right) {
+    return String.join("\u0000", left).compareTo(String.join("\u0000", right));
+  }
+
+  private CallMetrics lookup(
+      ConcurrentMap<String, ConcurrentMap<String, CallMetrics>> cache,
+      String first,
+      String second,
+      String prefix,
+      String firstLabel,
+      String secondLabel) {
+    ConcurrentMap<String, CallMetrics> byFirst = cache.get(first);
+    if (byFirst == null) {
+      byFirst = cache.computeIfAbsent(first, key -> new ConcurrentHashMap<>());
+    }
+    CallMetrics metrics = byFirst.get(second);
+    if (metrics == null) {
+      metrics =
+          byFirst.computeIfAbsent(
+              second,
+              key -> new CallMetrics(this, prefix, firstLabel, first, secondLabel, second));
+    }
+    return metrics;
+  }
+
+  private <T> T metric(String name, String[] labels, Class<T> type) {
+    if (labels.length % 2 != 0) {
+      throw new IllegalArgumentException("Labels must be pairs of name and value");
+    }
+    Object metric =
+        metrics.computeIfAbsent(
+            new MetricId(name, Arrays.asList(labels.clone())),
+            id -> type == Timer.class ? new Timer() : new Counter());
+    if (!type.isInstance(metric)) {
+      throw new IllegalArgumentException(name + " is already registered as another type");
+    }
+    return type.cast(metric);
+  }
+
+  @Value
+  private static class MetricId {
+
+    String name;
+
+    List<String> labels;
+  }
+}
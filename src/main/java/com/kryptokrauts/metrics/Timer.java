@@ -0,0 +1,109 @@
+package com.kryptokrauts.metrics;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Distribution of durations in buckets of powers of two nanoseconds, i.e. bucket {@code i} counts
+ * durations in {@code [2^(i-1), 2^i)}. Recording a duration doesn't allocate and doesn't lock,
+ * concurrent recorders only contend on the cells of a {@link LongAdder}.
+ */
+public class Timer {
+
+  static final int BUCKETS = 64;
+
+  private final LongAdder[] buckets = new LongAdder[BUCKETS];
+
+  private final LongAdder count = new LongAdder();
+
+  private final LongAdder totalNanos = new LongAdder();
+
+  private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
+
+  Timer() {
+    for (int i = 0; i < BUCKETS; i++) {
+      buckets[i] = new LongAdder();
+    }
+  }
+
+  /** @param nanos duration, e.g. the difference of two {@link System#nanoTime()} calls */
+  public void recordNanos(long nanos) {
+    long duration = Math.max(nanos, 0);
+    buckets[bucket(duration)].increment();
+    count.increment();
+    totalNanos.add(duration);
+    maxNanos.accumulate(duration);
+  }
+
+  /** @param startNanos {@link System#nanoTime()} at the start of the measured operation */
+  public void recordSince(long startNanos) {
+    recordNanos(System.nanoTime() - startNanos);
+  }
+
+  public long count() {
+    return count.sum();
+  }
+
+  public long totalNanos() {
+    return totalNanos.sum();
+  }
+
+  public long maxNanos() {
+    return maxNanos.get();
+  }
+
+  /**
+   * @param percentile e.g. 99.9
+   * @return upper bound of the bucket containing the percentile, i.e. at most twice the exact
+   *     value, 0 if nothing has been recorded
+   */
+  public long percentileNanos(double percentile) {
+    long[] counts = bucketCounts();
+    long total = 0;
+    for (long bucketCount : counts) {
+      total += bucketCount;
+    }
+    long rank = (long) Math.ceil(total * percentile / 100);
+    long seen = 0;
+    for (int i = 0; i < BUCKETS; i++) {
+      seen += counts[i];
+      if (seen >= rank && seen > 0) {
+        return Math.min(upperBoundNanos(i), maxNanos());
+      }
+    }
+    return 0;
+  }
+
+  /** @return a summary like {@code count=12 p50=1.0ms p99=4.1ms max=4.1ms} */
+  @Override
+  public String toString() {
+    return String.format(
+        "count=%d p50=%.1fms p99=%.1fms max=%.1fms",
+        count(),
+        millis(percentileNanos(50)),
+        millis(percentileNanos(99)),
+        millis(maxNanos()));
+  }
+
+  long[] bucketCounts() {
+    long[] counts = new long[BUCKETS];
+    for (int i = 0; i < BUCKETS; i++) {
+      counts[i] = buckets[i].sum();
+    }
+    return counts;
+  }
+
+  /** @return the largest duration counted by the given bucket */
+  static long upperBoundNanos(int bucket) {
+    return bucket == BUCKETS - 1 ? Long.MAX_VALUE : (1L << bucket) - 1;
+  }
+
+  private static int bucket(long nanos) {
+    return Math.min(BUCKETS - Long.numberOfLeadingZeros(nanos), BUCKETS - 1);
+  }
+
+  private static double millis(long nanos) {
+    return nanos / (double) TimeUnit.MILLISECONDS.toNanos(1);
+  }
+}
@@ -0,0 +1,79 @@
+package com.kryptokrauts.migration;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * Bloom filter over 20 byte eth addresses. The addresses are hashes already, so the probe
+ * positions are derived from their bytes by double hashing instead of hashing them again.
+ *
+ * <p>Not thread-safe, the owner has to synchronize access.
+ */
+class BloomFilter {
+
+  private final long[] bits;
+
+  private final int hashes;
+
+  /**
+   * @param expectedEntries
+   * @param falsePositiveRate
+   */
+  BloomFilter(int expectedEntries, double falsePositiveRate) {
+    int entries = Math.max(1, expectedEntries);
+    double ln2 = Math.log(2);
+    long size = (long) Math.ceil(-entries * Math.log(falsePositiveRate) / (ln2 * ln2));
+    this.bits = new long[(int) Math.max(1, (size + 63) / 64)];
+    this.hashes = Math.max(1, (int) Math.round((double) bits.length * 64 / entries * ln2));
+  }
+
+  private BloomFilter(long[] bits, int hashes) {
+    this.bits = bits;
+    this.hashes = hashes;
+  }
+
+  void add(byte[] address) {
+    long size = bits.length * 64L;
+    ByteBuffer buffer = ByteBuffer.wrap(address);
+    long h1 = buffer.getLong(0);
+    long h2 = buffer.getLong(8) | 1;
+    for (int i = 0; i < hashes; i++) {
+      long bit = Math.floorMod(h1 + i * h2, size);
+      bits[(int) (bit >>> 6)] |= 1L << bit;
+    }
+  }
+
+  /** @return false if the address was never added, true if it probably was */
+  boolean mightContain(byte[] address) {
+    long size = bits.length * 64L;
+    ByteBuffer buffer = ByteBuffer.wrap(address);
+    long h1 = buffer.getLong(0);
+    long h2 = buffer.getLong(8) | 1;
+    for (int i = 0; i < hashes; i++) {
+      long bit = Math.floorMod(h1 + i * h2, size);
+      if ((bits[(int) (bit >>> 6)] & (1L << bit)) == 0) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  void write(DataOutput out) throws IOException {
+    out.writeInt(hashes);
+    out.writeInt(bits.length);
+    for (long word : bits) {
+      out.writeLong(word);
+    }
+  }
+
+  static BloomFilter read(DataInput in) throws IOException {
+    int hashes = in.readInt();
+    long[] bits = new long[in.readInt()];
+    for (int i = 0; i < bits.length; i++) {
+      bits[i] = in.readLong();
+    }
+    return new BloomFilter(bits, hashes);
+  }
+}
@@ -0,0 +1,164 @@
+package com.kryptokrauts.migration;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.math.BigInteger;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import org.bouncycastle.crypto.digests.KeccakDigest;
+
+/**
+ * Memory-mapped file of migration leaves with lines of the form {@code 0x<eth address>,amount},
+ * amounts in the smallest unit of the old token. The line number, starting at zero, is the leaf
+ * index, so the file must not contain blank lines or comments.
+ *
+ * <p>Only the offsets of the lines are held on the heap, leaves are read from the mapping on
+ * demand. Reads don't move the buffer's position and may happen from any number of threads.
+ */
+public class MerkleLeafFile implements Closeable {
+
+  /** {@code 0x} followed by 40 hex digits */
+  private static final int ADDRESS_LENGTH = 42;
+
+  private static final int MAX_LINE_LENGTH = 128;
+
+  private final FileChannel channel;
+
+  private final MappedByteBuffer buffer;
+
+  /** start offset of every line, followed by the end of the file */
+  private final int[] lineStarts;
+
+  private final int size;
+
+  public MerkleLeafFile(Path file) throws IOException {
+    this.channel = FileChannel.open(file, StandardOpenOption.READ);
+    if (channel.size() > Integer.MAX_VALUE) {
+      channel.close();
+      throw new MigrationProofException("Leaf file " + file + " exceeds 2 GiB, split it");
+    }
+    this.buffer = channel.map(MapMode.READ_ONLY, 0, channel.size());
+    int limit = buffer.limit();
+    int[] starts = new int[Math.max(16, limit / 64)];
+    int lines = 0;
+    int start = 0;
+    for (int offset = 0; offset < limit; offset++) {
+      if (buffer.get(offset) == '\n') {
+        if (lines + 1 >= starts.length) {
+          starts = Arrays.copyOf(starts, starts.length * 2);
+        }
+        starts[lines++] = start;
+        start = offset + 1;
+      }
+    }
+    if (start < limit) {
+      // last line without trailing newline
+      if (lines + 1 >= starts.length) {
+        starts = Arrays.copyOf(starts, starts.length + 2);
+      }
+      starts[lines++] = start;
+    }
+    starts[lines] = limit + (start < limit ? 1 : 0);
+    this.lineStarts = Arrays.copyOf(starts, lines + 1);
+    this.size = lines;
+  }
+
+  /** @return the number of leaves */
+  public int size() {
+    return size;
+  }
+
+  /**
+   * @param index
+   * @return the claim stored at the given leaf index
+   */
+  public MigrationClaim claim(int index) {
+    byte[] line = line(index);
+    int comma = comma(line, index);
+    String ethAddress = new String(line, 0, comma, StandardCharsets.US_ASCII);
+    String amount = new String(line, comma + 1, line.length - comma - 1, StandardCharsets.US_ASCII);
+    return new MigrationClaim(ethAddress, new BigInteger(amount));
+  }
+
+  /**
+   * Hashes a leaf straight from the mapping without creating strings.
+   *
+   * @param index leaf index
+   * @param digest digest owned by the calling thread
+   * @param out receives the hash as 64 upper case hex characters
+   * @param outOffset
+   */
+  void hashLeaf(int index, KeccakDigest digest, byte[] out, int outOffset) {
+    byte[] line = line(index);
+    int comma = comma(line, index);
+    if (comma != ADDRESS_LENGTH || line[0] != '0' || (line[1] != 'x' && line[1] != 'X')) {
+      throw malformed(index);
+    }
+    for (int i = 0; i < ADDRESS_LENGTH; i++) {
+      line[i] = upperHex(line[i], index, i < 2);
+    }
+    for (int i = comma + 1; i < line.length; i++) {
+      if (line[i] < '0' || line[i] > '9') {
+        throw malformed(index);
+      }
+    }
+    line[comma] = ':';
+    MigrationMerkleTree.keccak(digest, line, 0, line.length, out, outOffset);
+  }
+
+  @Override
+  public void close() throws IOException {
+    channel.close();
+  }
+
+  private byte[] line(int index) {
+    if (index < 0 || index >= size) {
+      throw new IndexOutOfBoundsException("Leaf " + index + " of " + size);
+    }
+    int start = lineStarts[index];
+    int end = lineStarts[index + 1] - 1;
+    if (end > start && buffer.get(end - 1) == '\r') {
+      end--;
+    }
+    if (end - start > MAX_LINE_LENGTH) {
+      throw malformed(index);
+    }
+    byte[] line = new byte[end - start];
+    buffer.get(start, line, 0, line.length);
+    return line;
+  }
+
+  private int comma(byte[] line, int index) {
+    for (int i = 0; i < line.length; i++) {
+      if (line[i] == ',') {
+        if (i == line.length - 1) {
+          break;
+        }
+        return i;
+      }
+    }
+    throw malformed(index);
+  }
+
+  private byte upperHex(byte character, int index, boolean prefix) {
+    if (prefix) {
+      return (byte) Character.toUpperCase(character);
+    }
+    if ((character >= '0' && character <= '9') || (character >= 'A' && character <= 'F')) {
+      return character;
+    }
+    if (character >= 'a' && character <= 'f') {
+      return (byte) (character - 'a' + 'A');
+    }
+    throw malformed(index);
+  }
+
+  private MigrationProofException malformed(int index) {
+    return new MigrationProofException("Malformed leaf in line " + (index + 1));
+  }
+}
@@ -0,0 +1,13 @@
+package com.kryptokrauts.migration;
+
+import java.math.BigInteger;
+import lombok.Value;
+
+/** The amount of old AE tokens an ethereum account claims to migrate. */
+@Value
+public class MigrationClaim {
+
+  String ethAddress;
+
+  BigInteger tokenAmount;
+}
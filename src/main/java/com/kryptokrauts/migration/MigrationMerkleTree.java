@@ -0,0 +1,234 @@
+package com.kryptokrauts.migration;
+
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import org.bouncycastle.crypto.digests.KeccakDigest;
+
+/**
+ * Merkle tree of the {@code TokenMigration} contract, reproducing its {@code root_hash()}.
+ *
+ * <p>Nodes are the upper case hex strings of Keccak-256 hashes:
+ *
+ * <ul>
+ *   <li>leaf: {@code keccak256(upper(eth_addr) + ":" + token_amount)}
+ *   <li>parent: {@code keccak256(left + right)}, the node at an even index being the left one
+ * </ul>
+ *
+ * A level of odd size pairs its last node with itself. Every level is stored as a single array of
+ * 64 ascii bytes per node and hashed in parallel on a {@link ForkJoinPool}.
+ */
+public class MigrationMerkleTree {
+
+  static final int NODE_LENGTH = 64;
+
+  /** nodes hashed by a single fork join task */
+  private static final int BATCH_SIZE = 2048;
+
+  private static final byte[] HEX = "0123456789ABCDEF".getBytes(StandardCharsets.US_ASCII);
+
+  /** leaves first, root last */
+  private final List<byte[]> levels;
+
+  private MigrationMerkleTree(List<byte[]> levels) {
+    this.levels = levels;
+  }
+
+  /**
+   * @param leaves
+   * @param pool pool hashing leaves and levels
+   * @return the tree over all leaves of the file
+   */
+  public static MigrationMerkleTree build(MerkleLeafFile leaves, ForkJoinPool pool) {
+    if (leaves.size() == 0) {
+      throw new MigrationProofException("Leaf file is empty");
+    }
+    if (leaves.size() > Integer.MAX_VALUE / NODE_LENGTH) {
+      throw new MigrationProofException("Too many leaves: " + leaves.size());
+    }
+    List<byte[]> levels = new ArrayList<>();
+    byte[] level = new byte[leaves.size() * NODE_LENGTH];
+    pool.invoke(new HashLeaves(leaves, level, 0, leaves.size()));
+    levels.add(level);
+    while (level.length > NODE_LENGTH) {
+      int parents = (level.length / NODE_LENGTH + 1) / 2;
+      byte[] parentLevel = new byte[parents * NODE_LENGTH];
+      pool.invoke(new HashParents(level, parentLevel, 0, parents));
+      levels.add(parentLevel);
+      level = parentLevel;
+    }
+    return new MigrationMerkleTree(levels);
+  }
+
+  /** @return the number of leaves */
+  public int size() {
+    return levels.get(0).length / NODE_LENGTH;
+  }
+
+  /** @return the root as returned by {@code root_hash()} */
+  public String getRoot() {
+    return node(levels.get(levels.size() - 1), 0);
+  }
+
+  /**
+   * @param index
+   * @return hash of the leaf at the given index
+   */
+  public String getLeaf(int index) {
+    return node(levels.get(0), index);
+  }
+
+  /**
+   * @param leafIndex
+   * @return the {@code siblings} argument for the leaf, bottom up
+   */
+  public List<String> proof(int leafIndex) {
+    if (leafIndex < 0 || leafIndex >= size()) {
+      throw new IndexOutOfBoundsException("Leaf " + leafIndex + " of " + size());
+    }
+    List<String> siblings = new ArrayList<>(levels.size() - 1);
+    int index = leafIndex;
+    for (byte[] level : levels.subList(0, levels.size() - 1)) {
+      int sibling = index ^ 1;
+      siblings.add(node(level, sibling * NODE_LENGTH < level.length ? sibling : index));
+      index /= 2;
+    }
+    return siblings;
+  }
+
+  /**
+   * @param ethAddress
+   * @param tokenAmount
+   * @return the leaf hash of the given claim
+   */
+  public static String leafHash(String ethAddress, BigInteger tokenAmount) {
+    return hash(ethAddress.toUpperCase(Locale.ROOT) + ":" + tokenAmount);
+  }
+
+  /**
+   * Same computation as {@code contained_in_merkle_tree}, without a call to the node.
+   *
+   * @param leafHash
+   * @param leafIndex
+   * @param siblings
+   * @return the root the leaf leads to
+   */
+  public static String computeRoot(String leafHash, BigInteger leafIndex, List<String> siblings) {
+    String node = leafHash;
+    BigInteger index = leafIndex;
+    for (String sibling : siblings) {
+      node = index.testBit(0) ? hash(sibling + node) : hash(node + sibling);
+      index = index.shiftRight(1);
+    }
+    return node;
+  }
+
+  /**
+   * @param proof
+   * @param root
+   * @return true if the contract would accept the proof
+   */
+  public static boolean verify(MigrationProof proof, String root) {
+    String leafHash = leafHash(proof.getEthAddress(), proof.getTokenAmount());
+    return computeRoot(leafHash, proof.getLeafIndex(), proof.getSiblings())
+        .equalsIgnoreCase(root);
+  }
+
+  /** hashes ascii input into 64 upper case hex characters */
+  static void keccak(
+      KeccakDigest digest, byte[] input, int offset, int length, byte[] out, int outOffset) {
+    byte[] hash = new byte[32];
+    digest.update(input, offset, length);
+    digest.doFinal(hash, 0);
+    for (int i = 0; i < hash.length; i++) {
+      out[outOffset + 2 * i] = HEX[(hash[i] >> 4) & 0xF];
+      out[outOffset + 2 * i + 1] = HEX[hash[i] & 0xF];
+    }
+  }
+
+  private static String hash(String input) {
+    byte[] bytes = input.getBytes(StandardCharsets.US_ASCII);
+    byte[] out = new byte[NODE_LENGTH];
+    keccak(new KeccakDigest(256), bytes, 0, bytes.length, out, 0);
+    return new String(out, StandardCharsets.US_ASCII);
+  }
+
+  private static String node(byte[] level, int index) {
+    return new String(level, index * NODE_LENGTH, NODE_LENGTH, StandardCharsets.US_ASCII);
+  }
+
+  private static class HashLeaves extends RecursiveAction {
+
+    private final MerkleLeafFile leaves;
+
+    private final byte[] level;
+
+    private final int from;
+
+    private final int to;
+
+    HashLeaves(MerkleLeafFile leaves, byte[] level, int from, int to) {
+      this.leaves = leaves;
+      this.level = level;
+      this.from = from;
+      this.to = to;
+    }
+
+    @Override
+    protected void compute() {
+      if (to - from > BATCH_SIZE) {
+        int middle = (from + to) >>> 1;
+        invokeAll(
+            new HashLeaves(leaves, level, from, middle), new HashLeaves(leaves, level, middle, to));
+        return;
+      }
+      KeccakDigest digest = new KeccakDigest(256);
+      for (int index = from; index < to; index++) {
+        leaves.hashLeaf(index, digest, level, index * NODE_LENGTH);
+      }
+    }
+  }
+
+  private static class HashParents extends RecursiveAction {
+
+    private final byte[] children;
+
+    private final byte[] parents;
+
+    private final int from;
+
+    private final int to;
+
+    HashParents(byte[] children, byte[] parents, int from, int to) {
+      this.children = children;
+      this.parents = parents;
+      this.from = from;
+      this.to = to;
+    }
+
+    @Override
+    protected void compute() {
+      if (to - from > BATCH_SIZE) {
+        int middle = (from + to) >>> 1;
+        invokeAll(
+            new HashParents(children, parents, from, middle),
+            new HashParents(children, parents, middle, to));
+        return;
+      }
+      KeccakDigest digest = new KeccakDigest(256);
+      byte[] pair = new byte[2 * NODE_LENGTH];
+      for (int index = from; index < to; index++) {
+        int left = 2 * index * NODE_LENGTH;
+        // the last node of an odd level is paired with itself
+        int right = left + NODE_LENGTH < children.length ? left + NODE_LENGTH : left;
+        System.arraycopy(children, left, pair, 0, NODE_LENGTH);
+        System.arraycopy(children, right, pair, NODE_LENGTH, NODE_LENGTH);
+        keccak(digest, pair, 0, pair.length, parents, index * NODE_LENGTH);
+      }
+    }
+  }
+}
@@ -0,0 +1,22 @@
+package com.kryptokrauts.migration;
+
+import java.math.BigInteger;
+import java.util.List;
+import lombok.Value;
+
+/**
+ * A locally verified leaf of the migration tree, carrying the arguments of {@code
+ * contained_in_merkle_tree} and {@code migrate}.
+ */
+@Value
+public class MigrationProof {
+
+  /** upper case, the form the leaf hash is computed of */
+  String ethAddress;
+
+  BigInteger tokenAmount;
+
+  BigInteger leafIndex;
+
+  List<String> siblings;
+}
@@ -0,0 +1,155 @@
+package com.kryptokrauts.migration;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Validates migration claims locally and prepares the proofs to send to {@code migrate}, so only
+ * claims the contract will accept cost a transaction.
+ *
+ * <p>The tree is built once from the leaf file and checked against the root of the contract.
+ * Claims are then looked up by address and verified in parallel on a {@link ForkJoinPool}.
+ */
+@Slf4j
+public class MigrationProofEngine {
+
+  private final MerkleLeafFile leaves;
+
+  private final ForkJoinPool pool;
+
+  private final MigrationMerkleTree tree;
+
+  /** leaf index by upper case eth address */
+  private final Map<String, Integer> indexes;
+
+  /**
+   * @param leaves
+   * @param expectedRoot the root of the contract, as returned by {@code root_hash()}
+   */
+  public MigrationProofEngine(MerkleLeafFile leaves, String expectedRoot) {
+    this(leaves, expectedRoot, ForkJoinPool.commonPool());
+  }
+
+  /**
+   * @param leaves
+   * @param expectedRoot the root of the contract, as returned by {@code root_hash()}
+   * @param pool pool building the tree and verifying claims
+   */
+  public MigrationProofEngine(MerkleLeafFile leaves, String expectedRoot, ForkJoinPool pool) {
+    this.leaves = leaves;
+    this.pool = pool;
+    long start = System.currentTimeMillis();
+    this.tree = MigrationMerkleTree.build(leaves, pool);
+    if (!tree.getRoot().equalsIgnoreCase(expectedRoot)) {
+      throw new MigrationProofException(
+          "Leaf file leads to root " + tree.getRoot() + " instead of " + expectedRoot);
+    }
+    this.indexes = new HashMap<>(leaves.size() * 2);
+    for (int index = 0; index < leaves.size(); index++) {
+      indexes.put(upper(leaves.claim(index).getEthAddress()), index);
+    }
+    log.info(
+        "Built migration tree of {} leaves in {} ms",
+        leaves.size(),
+        System.currentTimeMillis() - start);
+  }
+
+  /** @return the root of the tree */
+  public String getRoot() {
+    return tree.getRoot();
+  }
+
+  /**
+   * @param leafIndex
+   * @return the proof of the leaf stored at the given index
+   */
+  public MigrationProof proof(int leafIndex) {
+    MigrationClaim claim = leaves.claim(leafIndex);
+    return new MigrationProof(
+        upper(claim.getEthAddress()),
+        claim.getTokenAmount(),
+        BigInteger.valueOf(leafIndex),
+        tree.proof(leafIndex));
+  }
+
+  /**
+   * @param claim
+   * @return the verified proof of the claim, empty if the contract would reject it
+   */
+  public Optional<MigrationProof> prepare(MigrationClaim claim) {
+    Integer leafIndex = indexes.get(upper(claim.getEthAddress()));
+    if (leafIndex == null) {
+      return Optional.empty();
+    }
+    MigrationProof proof =
+        new MigrationProof(
+            upper(claim.getEthAddress()),
+            claim.getTokenAmount(),
+            BigInteger.valueOf(leafIndex),
+            tree.proof(leafIndex));
+    // hash the claimed amount instead of trusting the file, exactly like the contract does
+    return Optional.of(proof).filter(candidate -> MigrationMerkleTree.verify(candidate, getRoot()));
+  }
+
+  /**
+   * Verifies all claims in parallel.
+   *
+   * @param claims
+   * @return proofs of the valid claims and the rejected ones
+   */
+  public PreparedMigrations prepareAll(Collection<MigrationClaim> claims) {
+    List<MigrationClaim> claimList = new ArrayList<>(claims);
+    List<Optional<MigrationProof>> results =
+        pool.submit(
+                () ->
+                    claimList.parallelStream().map(this::prepare).collect(Collectors.toList()))
+            .join();
+    List<MigrationProof> proofs = new ArrayList<>();
+    List<MigrationClaim> rejected = new ArrayList<>();
+    for (int i = 0; i < results.size(); i++) {
+      if (results.get(i).isPresent()) {
+        proofs.add(results.get(i).get());
+      } else {
+        rejected.add(claimList.get(i));
+      }
+    }
+    log.info("Prepared {} migrations, rejected {} claims", proofs.size(), rejected.size());
+    return new PreparedMigrations(proofs, rejected);
+  }
+
+  /**
+   * Proofs of every leaf of the file, each verified against the root.
+   *
+   * @return proofs by leaf index
+   */
+  public List<MigrationProof> proveAll() {
+    return pool.submit(
+            () ->
+                IntStream.range(0, leaves.size())
+                    .parallel()
+                    .mapToObj(index -> checked(proof(index)))
+                    .collect(Collectors.toList()))
+        .join();
+  }
+
+  private MigrationProof checked(MigrationProof proof) {
+    if (!MigrationMerkleTree.verify(proof, tree.getRoot())) {
+      throw new MigrationProofException("Proof of leaf " + proof.getLeafIndex() + " is invalid");
+    }
+    return proof;
+  }
+
+  private static String upper(String ethAddress) {
+    return ethAddress.toUpperCase(Locale.ROOT);
+  }
+}
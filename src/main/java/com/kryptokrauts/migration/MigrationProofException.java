@@ -0,0 +1,13 @@
+package com.kryptokrauts.migration;
+
+/** Signals a leaf file which is malformed or doesn't reproduce the root of the contract. */
+public class MigrationProofException extends RuntimeException {
+
+  public MigrationProofException(String message) {
+    super(message);
+  }
+
+  public MigrationProofException(String message, Throwable cause) {
+    super(message, cause);
+  }
+}
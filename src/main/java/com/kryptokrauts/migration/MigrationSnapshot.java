@@ -0,0 +1,172 @@
+package com.kryptokrauts.migration;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.HashSet;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Migration status of the addresses checked so far, valid for a specific {@code
+ * migrations_count()}.
+ *
+ * <p>A migration can't be undone, so migrated addresses stay in the exact set forever. A Bloom
+ * filter over them answers the common negative case without touching the set. Addresses found
+ * not migrated are only valid as long as the count doesn't change.
+ *
+ * <p>The file holds the count, the filter and both sets as raw 20 byte addresses and is replaced
+ * atomically on every save. Not thread-safe, the owner has to synchronize access.
+ */
+class MigrationSnapshot {
+
+  private static final int VERSION = 1;
+
+  private static final double FALSE_POSITIVE_RATE = 0.01;
+
+  private static final int ADDRESS_BYTES = 20;
+
+  private static final int MIN_FILTER_CAPACITY = 1024;
+
+  private BigInteger migrationsCount;
+
+  private final Set<ByteBuffer> migrated;
+
+  private final Set<ByteBuffer> notMigrated;
+
+  private BloomFilter filter;
+
+  private int filterCapacity;
+
+  private MigrationSnapshot(
+      BigInteger migrationsCount, Set<ByteBuffer> migrated, Set<ByteBuffer> notMigrated) {
+    this.migrationsCount = migrationsCount;
+    this.migrated = migrated;
+    this.notMigrated = notMigrated;
+    rebuildFilter();
+  }
+
+  static MigrationSnapshot empty() {
+    return new MigrationSnapshot(BigInteger.valueOf(-1), new HashSet<>(), new HashSet<>());
+  }
+
+  /**
+   * @param file
+   * @return the snapshot stored in the file, empty if there is none
+   */
+  static MigrationSnapshot load(Path file) {
+    if (!Files.exists(file)) {
+      return empty();
+    }
+    try (DataInputStream in =
+        new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+      if (in.readInt() != VERSION) {
+        return empty();
+      }
+      BigInteger count = new BigInteger(in.readUTF());
+      // the filter is rebuilt, it's stored for consumers which only need the filter
+      BloomFilter.read(in);
+      Set<ByteBuffer> migrated = readAddresses(in);
+      Set<ByteBuffer> notMigrated = readAddresses(in);
+      return new MigrationSnapshot(count, migrated, notMigrated);
+    } catch (IOException e) {
+      throw new UncheckedIOException("Cannot read migration snapshot " + file, e);
+    }
+  }
+
+  void save(Path file) {
+    try {
+      Path directory = file.toAbsolutePath().getParent();
+      Files.createDirectories(directory);
+      Path tempFile = Files.createTempFile(directory, file.getFileName().toString(), ".tmp");
+      try (DataOutputStream out =
+          new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tempFile)))) {
+        out.writeInt(VERSION);
+        out.writeUTF(migrationsCount.toString());
+        filter.write(out);
+        writeAddresses(out, migrated);
+        writeAddresses(out, notMigrated);
+      }
+      Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING);
+    } catch (IOException e) {
+      throw new UncheckedIOException("Cannot write migration snapshot " + file, e);
+    }
+  }
+
+  BigInteger getMigrationsCount() {
+    return migrationsCount;
+  }
+
+  /**
+   * Moves to a new count, forgetting the addresses found not migrated under the old one.
+   *
+   * @param count
+   */
+  void reset(BigInteger count) {
+    migrationsCount = count;
+    notMigrated.clear();
+  }
+
+  /**
+   * @param address
+   * @return the known status, empty if the address has to be checked
+   */
+  Optional<Boolean> status(byte[] address) {
+    if (filter.mightContain(address) && migrated.contains(ByteBuffer.wrap(address))) {
+      return Optional.of(true);
+    }
+    return notMigrated.contains(ByteBuffer.wrap(address)) ? Optional.of(false) : Optional.empty();
+  }
+
+  void record(byte[] address, boolean isMigrated) {
+    if (isMigrated) {
+      if (migrated.add(ByteBuffer.wrap(address))) {
+        filter.add(address);
+        if (migrated.size() > filterCapacity) {
+          rebuildFilter();
+        }
+      }
+      notMigrated.remove(ByteBuffer.wrap(address));
+    } else {
+      notMigrated.add(ByteBuffer.wrap(address));
+    }
+  }
+
+  int migratedCount() {
+    return migrated.size();
+  }
+
+  /** sized for twice the current set, rebuilt once the set outgrows it */
+  private void rebuildFilter() {
+    filterCapacity = Math.max(MIN_FILTER_CAPACITY, migrated.size() * 2);
+    filter = new BloomFilter(filterCapacity, FALSE_POSITIVE_RATE);
+    migrated.forEach(address -> filter.add(address.array()));
+  }
+
+  private static Set<ByteBuffer> readAddresses(DataInputStream in) throws IOException {
+    int size = in.readInt();
+    Set<ByteBuffer> addresses = new HashSet<>(size * 2);
+    for (int i = 0; i < size; i++) {
+      byte[] address = new byte[ADDRESS_BYTES];
+      in.readFully(address);
+      addresses.add(ByteBuffer.wrap(address));
+    }
+    return addresses;
+  }
+
+  private static void writeAddresses(DataOutputStream out, Set<ByteBuffer> addresses)
+      throws IOException {
+    out.writeInt(addresses.size());
+    for (ByteBuffer address : addresses) {
+      out.write(address.array());
+    }
+  }
+}
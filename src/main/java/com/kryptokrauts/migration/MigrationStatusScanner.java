@@ -0,0 +1,371 @@
+package com.kryptokrauts.migration;
+
+import com.kryptokrauts.aeternity.sdk.constants.ApiIdentifiers;
+import com.kryptokrauts.aeternity.sdk.constants.VirtualMachine;
+import com.kryptokrauts.aeternity.sdk.service.aeternity.impl.AeternityService;
+import com.kryptokrauts.aeternity.sdk.service.transaction.domain.DryRunAccountModel;
+import com.kryptokrauts.aeternity.sdk.service.transaction.domain.DryRunRequest;
+import com.kryptokrauts.aeternity.sdk.service.transaction.domain.DryRunTransactionResult;
+import com.kryptokrauts.aeternity.sdk.service.transaction.domain.DryRunTransactionResults;
+import com.kryptokrauts.aeternity.sdk.service.transaction.type.model.ContractCallTransactionModel;
+import com.kryptokrauts.aeternity.sdk.util.EncodingUtils;
+import com.kryptokrauts.contraect.generated.TokenMigration;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import lombok.extern.slf4j.Slf4j;
+import org.bouncycastle.util.encoders.Hex;
+
+/**
+ * Answers {@code is_migrated} for large sets of eth addresses.
+ *
+ * <p>Addresses with an unknown status are checked with batched dry-runs, a bounded number of them
+ * in flight. The calldata of every address is derived from a single encoded template instead of
+ * asking the compiler per address. Results are kept in a snapshot which is persisted after every
+ * scan and stays valid as long as {@code migrations_count()} doesn't change, so repeated checks
+ * of the same holders are answered locally.
+ */
+@Slf4j
+public class MigrationStatusScanner implements AutoCloseable {
+
+  private static final String ENTRYPOINT = "is_migrated";
+
+  private static final int DEFAULT_BATCH_SIZE = 50;
+
+  private static final int DEFAULT_MAX_IN_FLIGHT = 4;
+
+  private static final BigInteger GAS_LIMIT = BigInteger.valueOf(100_000);
+
+  /** encoded into the template and replaced by each address, all addresses have its length */
+  private static final String PLACEHOLDER = "0X" + "5A".repeat(20);
+
+  private static final byte FATE_TRUE = (byte) 0xff;
+
+  private static final byte FATE_FALSE = (byte) 0x7f;
+
+  private final AeternityService aeternityService;
+
+  private final String contractId;
+
+  private final String contractSource;
+
+  private final Supplier<BigInteger> migrationsCount;
+
+  private final Path snapshotFile;
+
+  private final int batchSize;
+
+  private final ExecutorService executor;
+
+  /** random account the dry-runs are executed for */
+  private final String callerId;
+
+  /** guarded by this */
+  private final MigrationSnapshot snapshot;
+
+  private final AtomicLong remoteChecks = new AtomicLong();
+
+  private final Object templateLock = new Object();
+
+  private volatile byte[] calldataTemplate;
+
+  private volatile int placeholderOffset;
+
+  /**
+   * @param aeternityService service used for encoding and dry-runs
+   * @param contractId id of the migration contract
+   * @param contractSource source of the contract, used to encode the calldata template
+   * @param migrationsCount reads {@code migrations_count()}
+   * @param snapshotFile where the snapshot is persisted, loaded if it exists
+   * @param callerId any account id, it doesn't have to exist
+   */
+  public MigrationStatusScanner(
+      AeternityService aeternityService,
+      String contractId,
+      String contractSource,
+      Supplier<BigInteger> migrationsCount,
+      Path snapshotFile,
+      String callerId) {
+    this(
+        aeternityService,
+        contractId,
+        contractSource,
+        migrationsCount,
+        snapshotFile,
+        callerId,
+        DEFAULT_BATCH_SIZE,
+        DEFAULT_MAX_IN_FLIGHT);
+  }
+
+  /**
+   * @param aeternityService service used for encoding and dry-runs
+   * @param contractId id of the migration contract
+   * @param contractSource source of the contract, used to encode the calldata template
+   * @param migrationsCount reads {@code migrations_count()}
+   * @param snapshotFile where the snapshot is persisted, loaded if it exists
+   * @param callerId any account id, it doesn't have to exist
+   * @param batchSize number of calls in one dry-run request
+   * @param maxInFlight number of dry-run requests in flight
+   */
+  public MigrationStatusScanner(
+      AeternityService aeternityService,
+      String contractId,
+      String contractSource,
+      Supplier<BigInteger> migrationsCount,
+      Path snapshotFile,
+      String callerId,
+      int batchSize,
+      int maxInFlight) {
+    this.aeternityService = aeternityService;
+    this.contractId = contractId;
+    this.contractSource = contractSource;
+    this.migrationsCount = migrationsCount;
+    this.snapshotFile = snapshotFile;
+    this.callerId = callerId;
+    this.batchSize = batchSize;
+    this.executor =
+        Executors.newFixedThreadPool(
+            maxInFlight,
+            runnable -> {
+              Thread thread = new Thread(runnable, "migration-scanner");
+              thread.setDaemon(true);
+              return thread;
+            });
+    this.snapshot = MigrationSnapshot.load(snapshotFile);
+  }
+
+  /**
+   * @param tokenMigration instance of the generated class bound to the contract
+   * @param aeternityService
+   * @param contractId
+   * @param contractSource
+   * @param snapshotFile
+   * @param callerId
+   * @return a scanner reading the count through the generated class
+   */
+  public static MigrationStatusScanner of(
+      TokenMigration tokenMigration,
+      AeternityService aeternityService,
+      String contractId,
+      String contractSource,
+      Path snapshotFile,
+      String callerId) {
+    return new MigrationStatusScanner(
+        aeternityService,
+        contractId,
+        contractSource,
+        tokenMigration::migrations_count,
+        snapshotFile,
+        callerId);
+  }
+
+  /**
+   * Checks the given addresses, only the ones without a valid status in the snapshot remotely.
+   *
+   * @param ethAddresses
+   * @return the status by address as given, addresses whose dry-run failed are missing
+   */
+  public Map<String, Boolean> scan(Collection<String> ethAddresses) {
+    refresh();
+    List<byte[]> unknown = new ArrayList<>();
+    synchronized (this) {
+      for (String ethAddress : ethAddresses) {
+        byte[] address = decode(ethAddress);
+        if (snapshot.status(address).isEmpty()) {
+          unknown.add(address);
+        }
+      }
+    }
+    if (!unknown.isEmpty()) {
+      log.info("Checking {} of {} addresses remotely", unknown.size(), ethAddresses.size());
+      // a template which can't be encoded fails the scan instead of every batch
+      template();
+      List<CompletableFuture<Void>> batches = new ArrayList<>();
+      for (int from = 0; from < unknown.size(); from += batchSize) {
+        List<byte[]> batch = unknown.subList(from, Math.min(unknown.size(), from + batchSize));
+        batches.add(CompletableFuture.runAsync(() -> checkOrSkip(batch), executor));
+      }
+      CompletableFuture.allOf(batches.toArray(CompletableFuture[]::new)).join();
+      synchronized (this) {
+        snapshot.save(snapshotFile);
+        log.debug("Snapshot holds {} migrated addresses", snapshot.migratedCount());
+      }
+    }
+    Map<String, Boolean> statuses = new LinkedHashMap<>();
+    for (String ethAddress : ethAddresses) {
+      lookup(ethAddress).ifPresent(status -> statuses.put(ethAddress, status));
+    }
+    return statuses;
+  }
+
+  /**
+   * @param ethAddress
+   * @return the status according to the snapshot, empty if the address has to be scanned
+   */
+  public synchronized Optional<Boolean> lookup(String ethAddress) {
+    return snapshot.status(decode(ethAddress));
+  }
+
+  /** @return the {@code migrations_count()} the snapshot is valid for */
+  public synchronized BigInteger getMigrationsCount() {
+    return snapshot.getMigrationsCount();
+  }
+
+  /** @return the number of addresses checked by dry-runs so far */
+  public long getRemoteChecks() {
+    return remoteChecks.get();
+  }
+
+  @Override
+  public void close() {
+    executor.shutdownNow();
+  }
+
+  /** drops the negative results once migrations happened */
+  private void refresh() {
+    BigInteger count = migrationsCount.get();
+    synchronized (this) {
+      if (!count.equals(snapshot.getMigrationsCount())) {
+        log.info("Migrations count changed from {} to {}", snapshot.getMigrationsCount(), count);
+        snapshot.reset(count);
+      }
+    }
+  }
+
+  /** a failed batch leaves its addresses unscanned, they are checked again by the next scan */
+  private void checkOrSkip(List<byte[]> batch) {
+    try {
+      check(batch);
+    } catch (RuntimeException e) {
+      log.warn("Dry-run of {} addresses failed, leaving them unscanned", batch.size(), e);
+    }
+  }
+
+  private void check(List<byte[]> batch) {
+    DryRunRequest request =
+        DryRunRequest.builder()
+            .build()
+            .account(DryRunAccountModel.builder().publicKey(callerId).build());
+    for (byte[] address : batch) {
+      request = request.transactionInputItem(unsignedCall(address));
+    }
+    DryRunTransactionResults results =
+        aeternityService.transactions.blockingDryRunTransactions(request);
+    remoteChecks.addAndGet(batch.size());
+    synchronized (this) {
+      for (int i = 0; i < batch.size(); i++) {
+        byte[] address = batch.get(i);
+        decodeResult(results.getResults().get(i))
+            .ifPresent(isMigrated -> snapshot.record(address, isMigrated));
+      }
+    }
+  }
+
+  private String unsignedCall(byte[] address) {
+    return aeternityService
+        .transactions
+        .blockingCreateUnsignedTransaction(
+            ContractCallTransactionModel.builder()
+                .callerId(callerId)
+                .contractId(contractId)
+                .callData(calldata(address))
+                .amount(BigInteger.ZERO)
+                .gasLimit(GAS_LIMIT)
+                .nonce(BigInteger.ONE)
+                .virtualMachine(VirtualMachine.FATE)
+                .build())
+        .getResult();
+  }
+
+  private String calldata(byte[] address) {
+    byte[] template = template();
+    byte[] calldata = template.clone();
+    byte[] argument =
+        ("0X" + Hex.toHexString(address).toUpperCase(Locale.ROOT))
+            .getBytes(StandardCharsets.US_ASCII);
+    System.arraycopy(argument, 0, calldata, placeholderOffset, argument.length);
+    return EncodingUtils.encodeCheck(calldata, ApiIdentifiers.CONTRACT_BYTE_ARRAY);
+  }
+
+  /** encodes the call once, every address has the same length so only the bytes differ */
+  private byte[] template() {
+    if (calldataTemplate == null) {
+      synchronized (templateLock) {
+        if (calldataTemplate == null) {
+          String encoded =
+              aeternityService
+                  .compiler
+                  .blockingEncodeCalldata(
+                      contractSource,
+                      ENTRYPOINT,
+                      List.of("\"" + PLACEHOLDER + "\""),
+                      Collections.emptyMap())
+                  .getResult();
+          if (encoded == null) {
+            throw new MigrationProofException("Cannot encode calldata of " + ENTRYPOINT);
+          }
+          byte[] template = EncodingUtils.decodeCheckWithIdentifier(encoded);
+          placeholderOffset = indexOf(template, PLACEHOLDER.getBytes(StandardCharsets.US_ASCII));
+          calldataTemplate = template;
+        }
+      }
+    }
+    return calldataTemplate;
+  }
+
+  private static Optional<Boolean> decodeResult(DryRunTransactionResult result) {
+    if (!"ok".equals(result.getResult()) || result.getContractCallObject() == null) {
+      log.warn("Dry-run of {} failed: {}", ENTRYPOINT, result.getReason());
+      return Optional.empty();
+    }
+    byte[] value =
+        EncodingUtils.decodeCheckWithIdentifier(result.getContractCallObject().getReturnValue());
+    if (value.length == 1 && value[0] == FATE_TRUE) {
+      return Optional.of(true);
+    }
+    if (value.length == 1 && value[0] == FATE_FALSE) {
+      return Optional.of(false);
+    }
+    log.warn("Unexpected return value of {}: {}", ENTRYPOINT, Hex.toHexString(value));
+    return Optional.empty();
+  }
+
+  private static int indexOf(byte[] bytes, byte[] pattern) {
+    outer:
+    for (int i = 0; i <= bytes.length - pattern.length; i++) {
+      for (int j = 0; j < pattern.length; j++) {
+        if (bytes[i + j] != pattern[j]) {
+          continue outer;
+        }
+      }
+      return i;
+    }
+    throw new MigrationProofException("Placeholder not found in calldata template");
+  }
+
+  /** @return the 20 address bytes of {@code 0x<40 hex digits>}, in any case */
+  private static byte[] decode(String ethAddress) {
+    if (ethAddress.length() != PLACEHOLDER.length()
+        || !ethAddress.toUpperCase(Locale.ROOT).startsWith("0X")) {
+      throw new IllegalArgumentException("Invalid eth address " + ethAddress);
+    }
+    try {
+      return Hex.decode(ethAddress.substring(2));
+    } catch (RuntimeException e) {
+      throw new IllegalArgumentException("Invalid eth address " + ethAddress, e);
+    }
+  }
+}
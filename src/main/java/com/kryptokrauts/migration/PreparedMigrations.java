@@ -0,0 +1,15 @@
+package com.kryptokrauts.migration;
+
+import java.util.List;
+import lombok.Value;
+
+/** Outcome of validating a set of claims against the local migration tree. */
+@Value
+public class PreparedMigrations {
+
+  /** proofs of the claims which are contained in the tree, in the order of the claims */
+  List<MigrationProof> proofs;
+
+  /** claims of unknown addresses or with amounts differing from the tree */
+  List<MigrationClaim> rejected;
+}
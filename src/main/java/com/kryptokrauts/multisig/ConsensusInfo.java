@@ -0,0 +1,30 @@
+package com.kryptokrauts.multisig;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import java.util.ArrayList;
+import java.util.List;
+import lombok.Value;
+
+/** The result of {@code get_consensus_info()}. */
+@Value
+public class ConsensusInfo {
+
+  int confirmationsRequired;
+
+  /** addresses of the signers which confirmed the current transaction */
+  List<String> confirmedBy;
+
+  boolean hasConsensus;
+
+  boolean expired;
+
+  static ConsensusInfo fromJson(JsonNode info) {
+    List<String> confirmedBy = new ArrayList<>();
+    info.path("confirmed_by").forEach(address -> confirmedBy.add(address.asText()));
+    return new ConsensusInfo(
+        info.path("confirmations_required").asInt(),
+        confirmedBy,
+        info.path("has_consensus").asBoolean(),
+        info.path("expired").asBoolean());
+  }
+}
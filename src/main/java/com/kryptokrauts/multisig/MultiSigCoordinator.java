@@ -0,0 +1,271 @@
+package com.kryptokrauts.multisig;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.kryptokrauts.aeternity.sdk.constants.VirtualMachine;
+import com.kryptokrauts.aeternity.sdk.domain.secret.KeyPair;
+import com.kryptokrauts.aeternity.sdk.service.aeternity.impl.AeternityService;
+import com.kryptokrauts.aeternity.sdk.service.transaction.domain.PostTransactionResult;
+import com.kryptokrauts.aeternity.sdk.service.transaction.type.model.ContractCallTransactionModel;
+import com.kryptokrauts.aeternity.sdk.service.transaction.type.model.GeneralizedAccountsMetaTransactionModel;
+import com.kryptokrauts.chain.ConfirmationTracker;
+import com.kryptokrauts.chain.NodeApi;
+import com.kryptokrauts.nonce.NonceManager;
+import com.kryptokrauts.signing.SigningService;
+import com.kryptokrauts.sophia.Literals;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeoutException;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Drives a transaction of a {@code SimpleGAMultiSig} generalized account from its proposal to the
+ * authorizing meta transaction.
+ *
+ * <p>Cosigners are independent accounts, so once the proposal is mined the coordinator signs and
+ * posts the confirmations of all required cosigners at the same time and they are mined in the
+ * same block. After every mined confirmation {@code get_consensus_info()} is read; the meta
+ * transaction is posted as soon as it reports consensus. Should a confirmation revert, spare
+ * cosigners are asked to confirm instead.
+ */
+@Slf4j
+public class MultiSigCoordinator {
+
+  private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+  private final AeternityService aeternityService;
+
+  private final NonceManager nonceManager;
+
+  private final ConfirmationTracker confirmationTracker;
+
+  private final NodeApi nodeApi;
+
+  private final SigningService signingService;
+
+  private final String contractSource;
+
+  private final MultiSigSettings settings;
+
+  /**
+   * @param aeternityService service used to encode calldata and read the consensus info
+   * @param nonceManager posts the calls of the signers
+   * @param confirmationTracker used to wait for the calls to be mined
+   * @param nodeApi used to read the results of the calls
+   * @param signingService signs the transaction hash for every signer
+   * @param contractSource source code of the {@code SimpleGAMultiSig} contract
+   * @param settings
+   */
+  public MultiSigCoordinator(
+      AeternityService aeternityService,
+      NonceManager nonceManager,
+      ConfirmationTracker confirmationTracker,
+      NodeApi nodeApi,
+      SigningService signingService,
+      String contractSource,
+      MultiSigSettings settings) {
+    this.aeternityService = aeternityService;
+    this.nonceManager = nonceManager;
+    this.confirmationTracker = confirmationTracker;
+    this.nodeApi = nodeApi;
+    this.signingService = signingService;
+    this.contractSource = contractSource;
+    this.settings = settings;
+  }
+
+  /**
+   * propose, confirm and authorize the given transaction and wait until it's mined
+   *
+   * @param proposal
+   * @return the transactions involved
+   * @throws MultiSigException if a step reverted and no spare cosigner is left
+   */
+  public MultiSigResult execute(MultiSigProposal proposal) {
+    String contractId =
+        aeternityService.accounts.blockingGetAccount(proposal.getGaId()).getGaContractId();
+    String proposeTxHash =
+        await(
+            call(
+                proposal.getProposer(),
+                contractId,
+                "propose",
+                List.of(
+                    Literals.bytes(proposal.getGaTxHash()),
+                    "RelativeTTL(" + proposal.getRelativeTtl() + ")",
+                    await(sign(proposal.getProposer(), proposal.getGaTxHash())))));
+    await(awaitOk(proposeTxHash, "propose"));
+
+    ConsensusInfo info = consensusInfo(contractId);
+    List<String> confirmTxHashes = new ArrayList<>();
+    Iterator<KeyPair> spares =
+        proposal.getCosigners().stream()
+            .filter(cosigner -> !info.getConfirmedBy().contains(cosigner.getAddress()))
+            .iterator();
+    ConsensusInfo reached = info;
+    while (!reached.isHasConsensus()) {
+      int missing = reached.getConfirmationsRequired() - reached.getConfirmedBy().size();
+      List<KeyPair> confirmers = new ArrayList<>();
+      while (confirmers.size() < missing && spares.hasNext()) {
+        confirmers.add(spares.next());
+      }
+      if (confirmers.isEmpty()) {
+        throw new MultiSigException(
+            "No cosigner left to confirm, " + missing + " confirmations missing");
+      }
+      reached = confirm(contractId, proposal.getGaTxHash(), confirmers, confirmTxHashes);
+    }
+    log.debug("Consensus on {} reached: {}", proposal.getGaTxHash(), reached);
+    return new MultiSigResult(
+        proposeTxHash, confirmTxHashes, await(authorize(proposal)), reached);
+  }
+
+  /** @return the consensus info of the generalized account's contract */
+  public ConsensusInfo consensusInfo(String gaContractId) {
+    Object info =
+        aeternityService.transactions.blockingReadOnlyContractCall(
+            gaContractId, "get_consensus_info", contractSource);
+    return ConsensusInfo.fromJson(OBJECT_MAPPER.valueToTree(info));
+  }
+
+  /**
+   * post the confirmations of all given cosigners at once
+   *
+   * @return the consensus info once it reports consensus or every confirmation is settled
+   */
+  private ConsensusInfo confirm(
+      String contractId, String gaTxHash, List<KeyPair> confirmers, List<String> confirmTxHashes) {
+    CompletableFuture<ConsensusInfo> consensus = new CompletableFuture<>();
+    List<CompletableFuture<Void>> confirmations = new ArrayList<>();
+    for (KeyPair confirmer : confirmers) {
+      confirmations.add(
+          sign(confirmer, gaTxHash)
+              .thenCompose(signature -> call(confirmer, contractId, "confirm", List.of(signature)))
+              .thenCompose(txHash -> awaitOk(txHash, "confirm"))
+              .thenAcceptAsync(
+                  txHash -> {
+                    synchronized (confirmTxHashes) {
+                      confirmTxHashes.add(txHash);
+                    }
+                    ConsensusInfo info = consensusInfo(contractId);
+                    if (info.isHasConsensus()) {
+                      consensus.complete(info);
+                    }
+                  })
+              .exceptionally(
+                  error -> {
+                    log.warn("Confirmation of {} failed", confirmer.getAddress(), error);
+                    return null;
+                  }));
+    }
+    CompletableFuture.allOf(confirmations.toArray(CompletableFuture[]::new))
+        .thenApplyAsync(settled -> consensusInfo(contractId))
+        .whenComplete(
+            (info, error) -> {
+              // a failed read must not leave the caller waiting forever
+              if (error != null) {
+                consensus.completeExceptionally(error);
+              } else {
+                consensus.complete(info);
+              }
+            });
+    return await(consensus);
+  }
+
+  private CompletableFuture<String> authorize(MultiSigProposal proposal) {
+    String authData =
+        aeternityService
+            .compiler
+            .blockingEncodeCalldata(contractSource, "authorize", null, Collections.emptyMap())
+            .getResult();
+    if (authData == null) {
+      throw new MultiSigException("Cannot encode calldata of authorize");
+    }
+    PostTransactionResult posted =
+        aeternityService.transactions.blockingPostTransaction(
+            GeneralizedAccountsMetaTransactionModel.builder()
+                .gaId(proposal.getGaId())
+                .authData(authData)
+                .innerTxModel(proposal.getInnerTx())
+                .build(),
+            proposal.getAuthorizer().getEncodedPrivateKey());
+    if (posted.getRootErrorMessage() != null) {
+      throw new MultiSigException("Meta transaction rejected: " + posted.getRootErrorMessage());
+    }
+    return confirmationTracker
+        .track(posted.getTxHash(), settings.getMinedTimeout())
+        .thenApply(mined -> posted.getTxHash());
+  }
+
+  /** @return the signature of the transaction hash as sophia literal */
+  private CompletableFuture<String> sign(KeyPair signer, String gaTxHash) {
+    return signingService.signHash(signer, gaTxHash);
+  }
+
+  /** @return the hash of the posted call */
+  private CompletableFuture<String> call(
+      KeyPair caller, String contractId, String entrypoint, List<String> arguments) {
+    String callData =
+        aeternityService
+            .compiler
+            .blockingEncodeCalldata(contractSource, entrypoint, arguments, Collections.emptyMap())
+            .getResult();
+    if (callData == null) {
+      throw new MultiSigException("Cannot encode calldata of " + entrypoint);
+    }
+    CompletableFuture<String> txHash = new CompletableFuture<>();
+    nonceManager
+        .post(
+            caller,
+            nonce ->
+                ContractCallTransactionModel.builder()
+                    .callerId(caller.getAddress())
+                    .contractId(contractId)
+                    .callData(callData)
+                    .amount(BigInteger.ZERO)
+                    .gasLimit(settings.getGasLimit())
+                    .nonce(nonce)
+                    .virtualMachine(VirtualMachine.FATE)
+                    .build())
+        .subscribe(
+            posted -> txHash.complete(posted.getTxHash()), txHash::completeExceptionally);
+    return txHash;
+  }
+
+  /** @return completes with the hash once the call is mined, fails if it didn't return ok */
+  private CompletableFuture<String> awaitOk(String txHash, String entrypoint) {
+    return confirmationTracker
+        .track(txHash, settings.getMinedTimeout())
+        .handleAsync(
+            (mined, error) -> {
+              if (error != null) {
+                throw new CompletionException(
+                    new TimeoutException(entrypoint + " " + txHash + " wasn't mined in time"));
+              }
+              JsonNode callInfo = nodeApi.getTransactionInfo(txHash);
+              if (!"ok".equals(callInfo.path("return_type").asText())) {
+                throw new MultiSigException(
+                    String.format(
+                        "%s %s failed: %s",
+                        entrypoint, txHash, callInfo.path("return_value").asText()));
+              }
+              return txHash;
+            });
+  }
+
+  /** join the future, failures are thrown as they are instead of wrapped */
+  private static <T> T await(CompletableFuture<T> future) {
+    try {
+      return future.join();
+    } catch (CompletionException e) {
+      if (e.getCause() instanceof RuntimeException) {
+        throw (RuntimeException) e.getCause();
+      }
+      throw new MultiSigException(String.valueOf(e.getCause().getMessage()), e.getCause());
+    }
+  }
+}
@@ -0,0 +1,13 @@
+package com.kryptokrauts.multisig;
+
+/** Signals a multisig transaction which couldn't be authorized, e.g. a reverted confirmation. */
+public class MultiSigException extends RuntimeException {
+
+  public MultiSigException(String message) {
+    super(message);
+  }
+
+  public MultiSigException(String message, Throwable cause) {
+    super(message, cause);
+  }
+}
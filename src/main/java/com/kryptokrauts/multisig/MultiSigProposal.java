@@ -0,0 +1,35 @@
+package com.kryptokrauts.multisig;
+
+import com.kryptokrauts.aeternity.sdk.domain.secret.KeyPair;
+import com.kryptokrauts.aeternity.sdk.service.transaction.type.model.AbstractTransactionModel;
+import java.util.List;
+import lombok.Builder;
+import lombok.Singular;
+import lombok.Value;
+
+/** A transaction of a generalized account secured by {@code SimpleGAMultiSig}. */
+@Value
+@Builder
+public class MultiSigProposal {
+
+  /** address of the generalized account */
+  String gaId;
+
+  /** the transaction to authorize, its nonce has to be 0 */
+  AbstractTransactionModel<?> innerTx;
+
+  /** hash of the inner transaction as computed by {@code computeGAInnerTxHash} */
+  String gaTxHash;
+
+  /** proposes the transaction, which counts as its first confirmation */
+  KeyPair proposer;
+
+  /** signers available to confirm, only as many as the threshold requires are used */
+  @Singular List<KeyPair> cosigners;
+
+  /** blocks until the proposal expires */
+  @Builder.Default long relativeTtl = 200;
+
+  /** posts the meta transaction and pays its fee */
+  KeyPair authorizer;
+}
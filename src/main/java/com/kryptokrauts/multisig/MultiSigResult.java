@@ -0,0 +1,19 @@
+package com.kryptokrauts.multisig;
+
+import java.util.List;
+import lombok.Value;
+
+/** Transactions which led to an authorized multisig transaction. */
+@Value
+public class MultiSigResult {
+
+  String proposeTxHash;
+
+  /** the successful confirmations */
+  List<String> confirmTxHashes;
+
+  String metaTxHash;
+
+  /** consensus info as read right before the meta transaction was posted */
+  ConsensusInfo consensusInfo;
+}
@@ -0,0 +1,18 @@
+package com.kryptokrauts.multisig;
+
+import java.math.BigInteger;
+import java.time.Duration;
+import lombok.Builder;
+import lombok.Value;
+
+/** Tuning of the {@link MultiSigCoordinator}. */
+@Value
+@Builder
+public class MultiSigSettings {
+
+  /** gas limit of the propose and confirm calls */
+  @Builder.Default BigInteger gasLimit = BigInteger.valueOf(100_000);
+
+  /** how long to wait for each transaction to be mined */
+  @Builder.Default Duration minedTimeout = Duration.ofSeconds(60);
+}
@@ -0,0 +1,294 @@
+package com.kryptokrauts.node;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.kryptokrauts.aeternity.sdk.domain.secret.KeyPair;
+import com.kryptokrauts.aeternity.sdk.service.aeternity.AeternityServiceConfiguration;
+import com.kryptokrauts.aeternity.sdk.service.aeternity.AeternityServiceFactory;
+import com.kryptokrauts.aeternity.sdk.service.aeternity.impl.AeternityService;
+import com.kryptokrauts.aeternity.sdk.service.transaction.domain.PostTransactionResult;
+import com.kryptokrauts.aeternity.sdk.service.transaction.type.model.AbstractTransactionModel;
+import com.kryptokrauts.chain.NodeApi;
+import com.kryptokrauts.nonce.NonceManager;
+import io.reactivex.Single;
+import java.io.IOException;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Client of several nodes of the same network.
+ *
+ * <p>Every node's status is probed periodically. A node is healthy as long as it answers and its
+ * top block is at most {@link MultiNodeSettings#getMaxHeightLag()} key blocks behind the highest
+ * node. Reads go to the healthy node with the lowest latency and fail over to the next node if
+ * the request can't be transported.
+ *
+ * <p>Writes of a sender stick to one node and its {@link NonceManager}, so the sender's
+ * transactions reach the mempool in nonce order. Once that node is down or stalls the sender
+ * moves to the best healthy node and continues with the nonce of the chain as seen by that node.
+ * Transactions only the stalled node has seen must be posted again.
+ */
+@Slf4j
+public class MultiNodeClient implements AutoCloseable {
+
+  private final List<Node> nodes;
+
+  private final MultiNodeSettings settings;
+
+  /** the node each sender writes to */
+  private final ConcurrentMap<String, Node> writers = new ConcurrentHashMap<>();
+
+  private final ScheduledExecutorService prober =
+      Executors.newSingleThreadScheduledExecutor(
+          runnable -> {
+            Thread thread = new Thread(runnable, "multi-node-prober");
+            thread.setDaemon(true);
+            return thread;
+          });
+
+  /**
+   * probes all nodes right away and then periodically
+   *
+   * @param configurations one configuration per node, differing in the {@code baseUrl}
+   * @param settings
+   */
+  public MultiNodeClient(
+      List<AeternityServiceConfiguration> configurations, MultiNodeSettings settings) {
+    if (configurations.isEmpty()) {
+      throw new IllegalArgumentException("At least one node is needed");
+    }
+    this.settings = settings;
+    AeternityServiceFactory factory = new AeternityServiceFactory();
+    this.nodes =
+        configurations.stream()
+            .map(
+                configuration -> {
+                  AeternityService service = factory.getService(configuration);
+                  NodeApi nodeApi =
+                      new NodeApi(configuration.getBaseUrl(), settings.getTransportSettings());
+                  return new Node(
+                      configuration, service, nodeApi, new NonceManager(service, nodeApi));
+                })
+            .collect(Collectors.toList());
+    probe();
+    long interval = settings.getProbeInterval().toMillis();
+    prober.scheduleWithFixedDelay(this::probe, interval, interval, TimeUnit.MILLISECONDS);
+  }
+
+  /**
+   * perform a read on the best node, e.g. {@code service ->
+   * service.accounts.blockingGetAccount(address)}
+   *
+   * @param call the read
+   * @return the result of the first node which could be reached
+   */
+  public <T> T read(Function<AeternityService, T> call) {
+    RuntimeException lastError = null;
+    for (Node node : byPreference()) {
+      try {
+        return call.apply(node.service);
+      } catch (RuntimeException e) {
+        if (!isTransportError(e)) {
+          throw e;
+        }
+        log.debug("Reading from {} failed, trying the next node", node.getBaseUrl(), e);
+        markFailure(node);
+        lastError = e;
+      }
+    }
+    throw lastError;
+  }
+
+  /**
+   * @return the configuration of the best node, to create generated classes performing read-only
+   *     calls
+   */
+  public AeternityServiceConfiguration readConfiguration() {
+    return byPreference().get(0).configuration;
+  }
+
+  /**
+   * @param sender
+   * @return the configuration of the sender's node, to create generated classes performing
+   *     stateful calls signed by the sender
+   */
+  public AeternityServiceConfiguration writeConfiguration(KeyPair sender) {
+    return writeNode(sender).configuration;
+  }
+
+  /** @return the base url of the node the sender's transactions are posted to */
+  public String writeNodeOf(KeyPair sender) {
+    return writeNode(sender).getBaseUrl();
+  }
+
+  /**
+   * post a transaction through the {@link NonceManager} of the sender's node
+   *
+   * @see NonceManager#post(KeyPair, Function)
+   */
+  public Single<PostTransactionResult> post(
+      KeyPair sender, Function<BigInteger, AbstractTransactionModel<?>> txFactory) {
+    Node node = writeNode(sender);
+    return node.nonceManager
+        .post(sender, txFactory)
+        .doOnError(
+            error -> {
+              if (isTransportError(error)) {
+                markFailure(node);
+              }
+            });
+  }
+
+  /** @see #post(KeyPair, Function) */
+  public PostTransactionResult blockingPost(
+      KeyPair sender, Function<BigInteger, AbstractTransactionModel<?>> txFactory) {
+    return post(sender, txFactory).blockingGet();
+  }
+
+  /** @return the status of every node, in the order of the configurations */
+  public List<NodeStatus> status() {
+    return nodes.stream()
+        .map(
+            node ->
+                new NodeStatus(
+                    node.getBaseUrl(),
+                    node.healthy,
+                    node.height,
+                    node.latencyNanos / TimeUnit.MILLISECONDS.toNanos(1)))
+        .collect(Collectors.toList());
+  }
+
+  /** request every node's status now and update which nodes are healthy */
+  public void probe() {
+    for (Node node : nodes) {
+      long start = System.nanoTime();
+      try {
+        JsonNode status = node.nodeApi.get("/v3/status");
+        long latency = System.nanoTime() - start;
+        node.latencyNanos =
+            Double.isNaN(node.latencyNanos)
+                ? latency
+                : settings.getLatencySmoothing() * latency
+                    + (1 - settings.getLatencySmoothing()) * node.latencyNanos;
+        node.height = status.path("top_block_height").asLong(-1);
+        node.failures.set(0);
+      } catch (RuntimeException e) {
+        log.debug("Probing {} failed: {}", node.getBaseUrl(), e.getMessage());
+        node.failures.incrementAndGet();
+      }
+    }
+    long highest = nodes.stream().mapToLong(node -> node.height).max().orElse(-1);
+    for (Node node : nodes) {
+      boolean healthy =
+          node.failures.get() < settings.getFailuresToMarkDown()
+              && node.height >= 0
+              && node.height >= highest - settings.getMaxHeightLag();
+      if (healthy != node.healthy) {
+        log.info(
+            "Node {} is {} at height {} of {}",
+            node.getBaseUrl(),
+            healthy ? "healthy" : "unhealthy",
+            node.height,
+            highest);
+      }
+      node.healthy = healthy;
+    }
+  }
+
+  @Override
+  public void close() {
+    prober.shutdownNow();
+    nodes.forEach(node -> node.nodeApi.close());
+  }
+
+  private Node writeNode(KeyPair sender) {
+    Node[] previous = new Node[1];
+    Node node =
+        writers.compute(
+            sender.getAddress(),
+            (address, assigned) -> {
+              previous[0] = assigned;
+              return assigned != null && assigned.healthy ? assigned : byPreference().get(0);
+            });
+    if (previous[0] != null && previous[0] != node) {
+      log.info(
+          "Moving writes of {} from {} to {}",
+          sender.getAddress(),
+          previous[0].getBaseUrl(),
+          node.getBaseUrl());
+      node.nonceManager.resync(sender);
+    }
+    return node;
+  }
+
+  private void markFailure(Node node) {
+    if (node.failures.incrementAndGet() >= settings.getFailuresToMarkDown()) {
+      node.healthy = false;
+    }
+  }
+
+  /** @return healthy nodes first, each group ordered by latency */
+  private List<Node> byPreference() {
+    List<Node> ordered = new ArrayList<>(nodes);
+    ordered.sort(
+        Comparator.comparing((Node node) -> !node.healthy)
+            .thenComparingDouble(
+                node -> Double.isNaN(node.latencyNanos) ? Double.MAX_VALUE : node.latencyNanos));
+    return ordered;
+  }
+
+  /** @return whether the node couldn't be reached, as opposed to rejecting the request */
+  private static boolean isTransportError(Throwable error) {
+    for (Throwable cause = error; cause != null; cause = cause.getCause()) {
+      if (cause instanceof IOException || cause instanceof TimeoutException) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private static class Node {
+
+    private final AeternityServiceConfiguration configuration;
+
+    private final AeternityService service;
+
+    private final NodeApi nodeApi;
+
+    private final NonceManager nonceManager;
+
+    private final AtomicInteger failures = new AtomicInteger();
+
+    private volatile boolean healthy = true;
+
+    private volatile long height = -1;
+
+    private volatile double latencyNanos = Double.NaN;
+
+    private Node(
+        AeternityServiceConfiguration configuration,
+        AeternityService service,
+        NodeApi nodeApi,
+        NonceManager nonceManager) {
+      this.configuration = configuration;
+      this.service = service;
+      this.nodeApi = nodeApi;
+      this.nonceManager = nonceManager;
+    }
+
+    private String getBaseUrl() {
+      return nodeApi.getBaseUrl();
+    }
+  }
+}
@@ -0,0 +1,29 @@
+package com.kryptokrauts.node;
+
+import com.kryptokrauts.chain.TransportSettings;
+import java.time.Duration;
+import lombok.Builder;
+import lombok.Value;
+
+/** Tuning of the {@link MultiNodeClient}. */
+@Value
+@Builder
+public class MultiNodeSettings {
+
+  /** how often every node's status is requested */
+  @Builder.Default Duration probeInterval = Duration.ofSeconds(1);
+
+  /** key blocks a node may be behind the highest node before it is considered stalled */
+  @Builder.Default int maxHeightLag = 2;
+
+  /** consecutive failed probes or requests after which a node is considered down */
+  @Builder.Default int failuresToMarkDown = 2;
+
+  /** weight of the latest probe in the smoothed latency, between 0 and 1 */
+  @Builder.Default double latencySmoothing = 0.3;
+
+  /** transport of the probes, the request timeout bounds how long a probe may take */
+  @Builder.Default
+  TransportSettings transportSettings =
+      TransportSettings.builder().requestTimeout(Duration.ofSeconds(2)).build();
+}
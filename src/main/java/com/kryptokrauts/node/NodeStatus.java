@@ -0,0 +1,19 @@
+package com.kryptokrauts.node;
+
+import lombok.Value;
+
+/** A node's view as seen by the latest probes of the {@link MultiNodeClient}. */
+@Value
+public class NodeStatus {
+
+  String baseUrl;
+
+  /** reachable and not behind the other nodes */
+  boolean healthy;
+
+  /** height of the node's top block, -1 if it never answered */
+  long height;
+
+  /** smoothed latency of the probes */
+  double latencyMillis;
+}
@@ -0,0 +1,47 @@
+package com.kryptokrauts.nonce;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeSet;
+
+/** Local nonce state of a single account, guarded by its own monitor. */
+class AccountNonces {
+
+  /** the next nonce which has never been handed out */
+  private BigInteger next;
+
+  /** nonces which have been handed out but were given back, lowest first */
+  private final TreeSet<BigInteger> released = new TreeSet<>();
+
+  AccountNonces(BigInteger onChainNonce) {
+    this.next = onChainNonce.add(BigInteger.ONE);
+  }
+
+  synchronized BigInteger allocate() {
+    BigInteger gap = released.pollFirst();
+    if (gap != null) {
+      return gap;
+    }
+    BigInteger nonce = next;
+    next = next.add(BigInteger.ONE);
+    return nonce;
+  }
+
+  synchronized void release(BigInteger nonce) {
+    if (nonce.compareTo(next) < 0) {
+      released.add(nonce);
+    }
+  }
+
+  synchronized List<BigInteger> drainReleased() {
+    List<BigInteger> gaps = new ArrayList<>(released);
+    released.clear();
+    return gaps;
+  }
+
+  synchronized void resync(BigInteger onChainNonce) {
+    next = onChainNonce.add(BigInteger.ONE);
+    released.clear();
+  }
+}
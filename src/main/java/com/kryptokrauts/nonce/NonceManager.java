@@ -0,0 +1,397 @@
+package com.kryptokrauts.nonce;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.kryptokrauts.aeternity.sdk.domain.secret.KeyPair;
+import com.kryptokrauts.aeternity.sdk.service.account.domain.AccountResult;
+import com.kryptokrauts.aeternity.sdk.service.aeternity.impl.AeternityService;
+import com.kryptokrauts.aeternity.sdk.service.transaction.domain.PostTransactionResult;
+import com.kryptokrauts.aeternity.sdk.service.transaction.type.model.AbstractTransactionModel;
+import com.kryptokrauts.aeternity.sdk.service.transaction.type.model.SpendTransactionModel;
+import com.kryptokrauts.chain.NodeApi;
+import com.kryptokrauts.chain.NodeApiException;
+import com.kryptokrauts.metrics.CallMetrics;
+import com.kryptokrauts.metrics.MetricsRegistry;
+import com.kryptokrauts.metrics.Timer;
+import com.kryptokrauts.trace.CallSite;
+import com.kryptokrauts.trace.PostTransactionEvent;
+import com.kryptokrauts.trace.TransactionTracer;
+import io.reactivex.Single;
+import java.math.BigInteger;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Hands out nonces per {@link KeyPair} locally so that many transactions of the same sender can be
+ * posted back-to-back without waiting for each of them to be mined.
+ *
+ * <p>The account's nonce is only fetched on first use of an account and whenever the node tells us
+ * that our local view is out of sync. Given a {@link NodeApi} the manager asks the node for the
+ * account's next nonce, which covers its transactions pending in the mempool, otherwise it
+ * continues with the nonce of the last mined transaction. Nonces of rejected transactions are
+ * handed out again so that no gap blocks the transactions that are already queued in the mempool.
+ *
+ * <p>The manager assumes that it is the only party creating transactions for an account. If
+ * transactions are created elsewhere (e.g. by a generated contract class) call {@link
+ * #resync(KeyPair)} before continuing to use the manager for that account. {@link #post(KeyPair,
+ * Function)} repairs such a situation on its own.
+ */
+@Slf4j
+public class NonceManager {
+
+  private static final int DEFAULT_MAX_ATTEMPTS = 5;
+
+  private static final long DEFAULT_RETRY_DELAY_MILLIS = 500;
+
+  /** errors of the node's mempool checks, a transaction failing them never reaches the chain */
+  private static final List<String> MEMPOOL_REJECTIONS =
+      List.of(
+          "nonce_too_low",
+          "nonce too low",
+          "nonce_too_high",
+          "nonce too high",
+          "tx_nonce_already_used_for_account",
+          "insufficient_funds",
+          "insufficient_balance",
+          "too_low_fee",
+          "too_low_gas_price",
+          "too_high_gas_limit",
+          "ttl_expired",
+          "signature_check_failed");
+
+  private final AeternityService aeternityService;
+
+  /** asked for the next nonce including pending transactions, null to use the mined nonce */
+  private final NodeApi nodeApi;
+
+  private final int maxAttempts;
+
+  private final long retryDelayMillis;
+
+  private final ConcurrentMap<String, AccountNonces> accounts = new ConcurrentHashMap<>();
+
+  /** metrics of the posted transactions per transaction type */
+  private final ClassValue<CallMetrics> postMetrics;
+
+  private final Timer getAccountTimer;
+
+  private final TransactionTracer tracer = TransactionTracer.getDefault();
+
+  public NonceManager(AeternityService aeternityService) {
+    this(aeternityService, DEFAULT_MAX_ATTEMPTS, DEFAULT_RETRY_DELAY_MILLIS);
+  }
+
+  /**
+   * @param aeternityService the service used to post transactions
+   * @param nodeApi the node asked for the next nonce of an account, including its transactions
+   *     pending in the mempool
+   */
+  public NonceManager(AeternityService aeternityService, NodeApi nodeApi) {
+    this(
+        aeternityService,
+        nodeApi,
+        DEFAULT_MAX_ATTEMPTS,
+        DEFAULT_RETRY_DELAY_MILLIS,
+        MetricsRegistry.getDefault());
+  }
+
+  /**
+   * @param aeternityService the service used to read the on-chain nonce and post transactions
+   * @param maxAttempts how often a transaction is posted before its error is propagated
+   * @param retryDelayMillis delay before a transaction with a nonce too far ahead of the chain is
+   *     posted again
+   */
+  public NonceManager(AeternityService aeternityService, int maxAttempts, long retryDelayMillis) {
+    this(aeternityService, maxAttempts, retryDelayMillis, MetricsRegistry.getDefault());
+  }
+
+  /**
+   * @param metricsRegistry receives the post latencies, retries and failures per transaction type
+   * @see #NonceManager(AeternityService, int, long)
+   */
+  public NonceManager(
+      AeternityService aeternityService,
+      int maxAttempts,
+      long retryDelayMillis,
+      MetricsRegistry metricsRegistry) {
+    this(aeternityService, null, maxAttempts, retryDelayMillis, metricsRegistry);
+  }
+
+  /**
+   * @param nodeApi the node asked for the next nonce of an account, null to continue with the nonce
+   *     of its last mined transaction
+   * @see #NonceManager(AeternityService, int, long, MetricsRegistry)
+   */
+  public NonceManager(
+      AeternityService aeternityService,
+      NodeApi nodeApi,
+      int maxAttempts,
+      long retryDelayMillis,
+      MetricsRegistry metricsRegistry) {
+    this.aeternityService = aeternityService;
+    this.nodeApi = nodeApi;
+    this.maxAttempts = maxAttempts;
+    this.retryDelayMillis = retryDelayMillis;
+    this.postMetrics =
+        new ClassValue<>() {
+          @Override
+          protected CallMetrics computeValue(Class<?> type) {
+            return metricsRegistry.operations(
+                "transactions", type.getSimpleName().replace("TransactionModel", ""));
+          }
+        };
+    this.getAccountTimer =
+        metricsRegistry.timer(
+            "aeternity_service_request_seconds", "service", "accounts", "operation", "getAccount");
+  }
+
+  /**
+   * reserve the next nonce for the given account
+   *
+   * @param keyPair
+   * @return the reserved nonce which must either be used or given back via {@link
+   *     #release(KeyPair, BigInteger)}
+   */
+  public BigInteger nextNonce(KeyPair keyPair) {
+    return nonces(keyPair).allocate();
+  }
+
+  /**
+   * give back a nonce which was reserved but will never reach the chain, e.g. because the node
+   * rejected the transaction. The nonce will be handed out again to close the gap.
+   *
+   * @param keyPair
+   * @param nonce
+   */
+  public void release(KeyPair keyPair, BigInteger nonce) {
+    nonces(keyPair).release(nonce);
+  }
+
+  /**
+   * drop the local state of the given account and continue after its last transaction, pending
+   * ones included if the manager was given a {@link NodeApi}
+   *
+   * @param keyPair
+   */
+  public void resync(KeyPair keyPair) {
+    BigInteger lastNonce = fetchLastNonce(keyPair.getAddress());
+    nonces(keyPair).resync(lastNonce);
+    log.debug("Resynced nonce of {} to last nonce {}", keyPair.getAddress(), lastNonce);
+  }
+
+  /**
+   * close all gaps left by rejected transactions which haven't been refilled by later transactions
+   * yet. Each gap is filled with a zero amount spend to the sender itself so that transactions
+   * with higher nonces waiting in the mempool can be mined.
+   *
+   * @param keyPair
+   * @return the results of the posted gap filling transactions
+   */
+  public List<PostTransactionResult> fillGaps(KeyPair keyPair) {
+    List<BigInteger> gaps = nonces(keyPair).drainReleased();
+    log.debug("Filling {} nonce gap(s) of {}", gaps.size(), keyPair.getAddress());
+    return Single.concat(
+            gaps.stream()
+                .map(
+                    nonce ->
+                        aeternityService.transactions.asyncPostTransaction(
+                            SpendTransactionModel.builder()
+                                .sender(keyPair.getAddress())
+                                .recipient(keyPair.getAddress())
+                                .amount(BigInteger.ZERO)
+                                .nonce(nonce)
+                                .build(),
+                            keyPair.getEncodedPrivateKey()))
+                .collect(Collectors.toList()))
+        .toList()
+        .blockingGet();
+  }
+
+  /**
+   * reserve a nonce, build the transaction with it and post it without waiting for it to be mined.
+   * If the node rejects the transaction because of its nonce the manager repairs its state and
+   * posts the transaction again. Other rejections fail with a {@link
+   * TransactionRejectedException}, posts whose outcome is unknown with a {@link
+   * TransactionUncertainException}.
+   *
+   * @param keyPair the sender which signs the transaction
+   * @param txFactory creates the transaction model for the given nonce
+   * @return the result of the post request, traced with the call site of the calling thread
+   */
+  public Single<PostTransactionResult> post(
+      KeyPair keyPair, Function<BigInteger, AbstractTransactionModel<?>> txFactory) {
+    return post(keyPair, txFactory, tracer.currentCallSite(), 1);
+  }
+
+  /** @see #post(KeyPair, Function) */
+  public PostTransactionResult blockingPost(
+      KeyPair keyPair, Function<BigInteger, AbstractTransactionModel<?>> txFactory) {
+    return post(keyPair, txFactory).blockingGet();
+  }
+
+  private Single<PostTransactionResult> post(
+      KeyPair keyPair,
+      Function<BigInteger, AbstractTransactionModel<?>> txFactory,
+      CallSite callSite,
+      int attempt) {
+    return Single.defer(
+        () -> {
+          BigInteger nonce = nextNonce(keyPair);
+          AbstractTransactionModel<?> tx;
+          try {
+            tx = txFactory.apply(nonce);
+          } catch (RuntimeException e) {
+            // nothing was posted, a gap would block every later transaction of the sender
+            release(keyPair, nonce);
+            throw e;
+          }
+          CallMetrics metrics = postMetrics.get(tx.getClass());
+          String txType = tx.getClass().getSimpleName();
+          long tracedNonce = nonce.longValue();
+          PostTransactionEvent event = tracer.beginPost();
+          long start = System.nanoTime();
+          return aeternityService
+              .transactions
+              .asyncPostTransaction(tx, keyPair.getEncodedPrivateKey())
+              .flatMap(
+                  result -> {
+                    if (result.getRootErrorMessage() != null) {
+                      // the SDK folds transport errors into the result as well
+                      return Single.<PostTransactionResult>error(
+                          isMempoolRejection(result.getRootErrorMessage())
+                              ? new TransactionRejectedException(result.getRootErrorMessage())
+                              : new TransactionUncertainException(result.getRootErrorMessage()));
+                    }
+                    metrics.getSubmit().recordSince(start);
+                    tracer.posted(
+                        event, callSite, txType, attempt, tracedNonce, result.getTxHash(), null);
+                    return Single.just(result);
+                  })
+              .onErrorResumeNext(
+                  error -> {
+                    tracer.posted(event, callSite, txType, attempt, tracedNonce, null, error);
+                    return handleRejection(
+                        keyPair, txFactory, callSite, attempt, nonce, metrics, error);
+                  });
+        });
+  }
+
+  private Single<PostTransactionResult> handleRejection(
+      KeyPair keyPair,
+      Function<BigInteger, AbstractTransactionModel<?>> txFactory,
+      CallSite callSite,
+      int attempt,
+      BigInteger nonce,
+      CallMetrics metrics,
+      Throwable error) {
+    if (!(error instanceof TransactionRejectedException)) {
+      // the node may have accepted the tx, its nonce must not be handed out again
+      log.debug("Tx with nonce {} of {} may be posted, resyncing", nonce, keyPair.getAddress());
+      metrics.recordFailure(error);
+      try {
+        resync(keyPair);
+      } catch (RuntimeException e) {
+        log.warn("Resyncing the nonce of {} failed", keyPair.getAddress(), e);
+      }
+      return Single.error(
+          error instanceof TransactionUncertainException
+              ? error
+              : new TransactionUncertainException(String.valueOf(error.getMessage()), error));
+    }
+    String message = String.valueOf(error.getMessage()).toLowerCase();
+    if (attempt >= maxAttempts) {
+      metrics.recordFailure(error);
+      release(keyPair, nonce);
+      return Single.error(error);
+    }
+    if (message.contains("nonce_too_low") || message.contains("nonce too low")) {
+      // somebody else used the nonce, continue with the chain's view
+      log.debug("Nonce {} of {} already used, resyncing", nonce, keyPair.getAddress());
+      metrics.getRetries().increment();
+      resync(keyPair);
+      return post(keyPair, txFactory, callSite, attempt + 1);
+    }
+    if (message.contains("nonce_too_high") || message.contains("nonce too high")) {
+      // the mempool doesn't accept nonces that far ahead yet, give the chain time to catch up
+      log.debug("Nonce {} of {} too far ahead, retrying", nonce, keyPair.getAddress());
+      metrics.getRetries().increment();
+      release(keyPair, nonce);
+      return Single.timer(retryDelayMillis, TimeUnit.MILLISECONDS)
+          .flatMap(ignored -> post(keyPair, txFactory, callSite, attempt + 1));
+    }
+    log.debug("Tx with nonce {} of {} rejected: {}", nonce, keyPair.getAddress(), message);
+    metrics.recordFailure(error);
+    release(keyPair, nonce);
+    return Single.error(error);
+  }
+
+  private AccountNonces nonces(KeyPair keyPair) {
+    String address = keyPair.getAddress();
+    AccountNonces nonces = accounts.get(address);
+    if (nonces != null) {
+      return nonces;
+    }
+    // fetch outside of the map's lock, concurrent first uses may fetch twice but share one state
+    AccountNonces fetched = new AccountNonces(fetchLastNonce(address));
+    nonces = accounts.putIfAbsent(address, fetched);
+    return nonces != null ? nonces : fetched;
+  }
+
+  /** @return the nonce of the account's last transaction, zero if the account doesn't exist */
+  private BigInteger fetchLastNonce(String address) {
+    return nodeApi != null ? fetchPendingNonce(address) : fetchOnChainNonce(address);
+  }
+
+  private BigInteger fetchPendingNonce(String address) {
+    try {
+      JsonNode nextNonce =
+          nodeApi.get("/v3/accounts/" + address + "/next-nonce").path("next_nonce");
+      if (!nextNonce.isIntegralNumber()) {
+        throw new NodeApiException("No next_nonce in the answer for " + address);
+      }
+      return nextNonce.bigIntegerValue().subtract(BigInteger.ONE);
+    } catch (NodeApiException e) {
+      if (e.getStatusCode() == 404) {
+        // accounts which never received a transaction don't exist on chain yet
+        return BigInteger.ZERO;
+      }
+      throw e;
+    }
+  }
+
+  private BigInteger fetchOnChainNonce(String address) {
+    long start = System.nanoTime();
+    AccountResult account;
+    try {
+      account = aeternityService.accounts.blockingGetAccount(address);
+    } catch (RuntimeException e) {
+      if (isAccountNotFound(e.getMessage())) {
+        return BigInteger.ZERO;
+      }
+      throw e;
+    }
+    getAccountTimer.recordSince(start);
+    if (account.getRootErrorMessage() != null) {
+      if (isAccountNotFound(account.getRootErrorMessage())) {
+        return BigInteger.ZERO;
+      }
+      throw new NodeApiException(
+          "Cannot read the nonce of " + address + ": " + account.getRootErrorMessage());
+    }
+    return account.getNonce() != null ? account.getNonce() : BigInteger.ZERO;
+  }
+
+  private static boolean isMempoolRejection(String message) {
+    String lowerCase = message.toLowerCase();
+    return MEMPOOL_REJECTIONS.stream().anyMatch(lowerCase::contains);
+  }
+
+  /** accounts which never received a transaction don't exist on chain yet */
+  private static boolean isAccountNotFound(String message) {
+    return message != null && message.toLowerCase().contains("account not found");
+  }
+}
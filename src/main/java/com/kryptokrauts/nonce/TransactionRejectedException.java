@@ -0,0 +1,12 @@
+package com.kryptokrauts.nonce;
+
+/**
+ * Signals that the node definitively refused to accept a posted transaction into its mempool, e.g.
+ * because of its nonce, fee or the sender's balance. The transaction will never be mined.
+ */
+public class TransactionRejectedException extends RuntimeException {
+
+  public TransactionRejectedException(String message) {
+    super(message);
+  }
+}
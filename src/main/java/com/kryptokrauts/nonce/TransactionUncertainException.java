@@ -0,0 +1,16 @@
+package com.kryptokrauts.nonce;
+
+/**
+ * Signals a post whose outcome is unknown, e.g. because the request failed in transport or timed
+ * out. The node may have accepted the transaction, so it must not be treated as rejected.
+ */
+public class TransactionUncertainException extends RuntimeException {
+
+  public TransactionUncertainException(String message) {
+    super(message);
+  }
+
+  public TransactionUncertainException(String message, Throwable cause) {
+    super(message, cause);
+  }
+}
@@ -0,0 +1,19 @@
+package com.kryptokrauts.oracle;
+
+import com.kryptokrauts.aeternity.sdk.domain.secret.KeyPair;
+import lombok.Value;
+
+/** An oracle registered through {@code OracleDelegation} along with the handler of its queries. */
+@Value
+public class DelegatedOracle {
+
+  /** the oracle's account, signs the delegation of every response */
+  KeyPair owner;
+
+  QueryHandler handler;
+
+  /** @return {@code ok_...} */
+  public String getOracleId() {
+    return owner.getOracleAddress();
+  }
+}
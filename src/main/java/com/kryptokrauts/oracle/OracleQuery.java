@@ -0,0 +1,40 @@
+package com.kryptokrauts.oracle;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.kryptokrauts.aeternity.sdk.util.EncodingUtils;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import lombok.Value;
+
+/** An open query of an oracle as listed by the node. */
+@Value
+public class OracleQuery {
+
+  /** {@code ok_...} */
+  String oracleId;
+
+  /** {@code oq_...} */
+  String queryId;
+
+  String senderId;
+
+  /** the query, decoded as UTF-8 */
+  String query;
+
+  BigInteger fee;
+
+  /** the height up to which the query can be answered */
+  long expiresAt;
+
+  static OracleQuery fromJson(JsonNode query) {
+    return new OracleQuery(
+        query.path("oracle_id").asText(),
+        query.path("id").asText(),
+        query.path("sender_id").asText(),
+        new String(
+            EncodingUtils.decodeCheckWithIdentifier(query.path("query").asText()),
+            StandardCharsets.UTF_8),
+        query.path("fee").bigIntegerValue(),
+        query.path("ttl").asLong());
+  }
+}
@@ -0,0 +1,449 @@
+package com.kryptokrauts.oracle;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.kryptokrauts.aeternity.sdk.constants.Network;
+import com.kryptokrauts.aeternity.sdk.constants.VirtualMachine;
+import com.kryptokrauts.aeternity.sdk.domain.secret.KeyPair;
+import com.kryptokrauts.aeternity.sdk.service.aeternity.impl.AeternityService;
+import com.kryptokrauts.aeternity.sdk.service.transaction.domain.PostTransactionResult;
+import com.kryptokrauts.aeternity.sdk.service.transaction.type.model.ContractCallTransactionModel;
+import com.kryptokrauts.chain.BlockEvent;
+import com.kryptokrauts.chain.ChainFeed;
+import com.kryptokrauts.chain.NodeApi;
+import com.kryptokrauts.chain.NodeApiException;
+import com.kryptokrauts.nonce.NonceManager;
+import com.kryptokrauts.signing.SigningService;
+import com.kryptokrauts.sophia.Literals;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Answers the queries of oracles registered through {@code OracleDelegation}.
+ *
+ * <p>Once per block the open queries of every oracle are read from the node. New queries run
+ * through their oracle's {@link QueryHandler} on a worker pool, the query closest to expiry first.
+ * Finished responses are collected, their delegation signatures created in bulk by the {@link
+ * SigningService} and the {@code respond} calls posted by the {@link NonceManager} without waiting
+ * for earlier ones to be mined. A query counts as answered once it's no longer open; a response
+ * which didn't close its query within a few blocks is posted again.
+ */
+@Slf4j
+public class OracleResponder implements AutoCloseable {
+
+  private static final String ENTRYPOINT = "respond";
+
+  private static final int PAGE_SIZE = 1000;
+
+  private final AeternityService aeternityService;
+
+  private final NonceManager nonceManager;
+
+  private final NodeApi nodeApi;
+
+  private final ChainFeed chainFeed;
+
+  private final SigningService signingService;
+
+  private final Network network;
+
+  private final String contractId;
+
+  private final String contractSource;
+
+  /** pays for the respond calls */
+  private final KeyPair caller;
+
+  private final ResponderSettings settings;
+
+  private final ConcurrentMap<String, DelegatedOracle> oracles = new ConcurrentHashMap<>();
+
+  /** open queries being worked on, by query id */
+  private final ConcurrentMap<String, TrackedQuery> tracked = new ConcurrentHashMap<>();
+
+  /** responses waiting for their signature */
+  private final BlockingQueue<TrackedQuery> responses = new LinkedBlockingQueue<>();
+
+  private final AtomicBoolean pollPending = new AtomicBoolean();
+
+  private final Consumer<BlockEvent> listener = this::onBlock;
+
+  private final ExecutorService poller = singleThread("oracle-responder-poller");
+
+  private final ExecutorService signer = singleThread("oracle-responder-signer");
+
+  /** runs handlers and posts, the earliest deadline first */
+  private final ThreadPoolExecutor workers;
+
+  private final AtomicLong answered = new AtomicLong();
+
+  private final AtomicLong failed = new AtomicLong();
+
+  private final AtomicLong expired = new AtomicLong();
+
+  /** latest latencies in millis, guarded by itself */
+  private final long[] latencies;
+
+  private int latencyCount;
+
+  /**
+   * @param aeternityService service used to encode the calldata
+   * @param nonceManager posts the responses on pipelined nonces
+   * @param nodeApi reads the open queries
+   * @param chainFeed triggers a poll per block
+   * @param signingService creates the delegation signatures
+   * @param network network of the oracles, part of the signed data
+   * @param contractId the {@code OracleDelegation} contract the oracles delegated to
+   * @param contractSource source of the contract
+   * @param caller account posting the responses
+   * @param settings
+   */
+  public OracleResponder(
+      AeternityService aeternityService,
+      NonceManager nonceManager,
+      NodeApi nodeApi,
+      ChainFeed chainFeed,
+      SigningService signingService,
+      Network network,
+      String contractId,
+      String contractSource,
+      KeyPair caller,
+      ResponderSettings settings) {
+    this.aeternityService = aeternityService;
+    this.nonceManager = nonceManager;
+    this.nodeApi = nodeApi;
+    this.chainFeed = chainFeed;
+    this.signingService = signingService;
+    this.network = network;
+    this.contractId = contractId;
+    this.contractSource = contractSource;
+    this.caller = caller;
+    this.settings = settings;
+    this.latencies = new long[settings.getLatencySamples()];
+    this.workers =
+        new ThreadPoolExecutor(
+            settings.getWorkers(),
+            settings.getWorkers(),
+            0,
+            TimeUnit.MILLISECONDS,
+            new PriorityBlockingQueue<>(),
+            runnable -> {
+              Thread thread = new Thread(runnable, "oracle-responder-worker");
+              thread.setDaemon(true);
+              return thread;
+            });
+  }
+
+  /** answer the queries of the given oracle from the next block on */
+  public void addOracle(DelegatedOracle oracle) {
+    oracles.put(oracle.getOracleId(), oracle);
+  }
+
+  public void removeOracle(String oracleId) {
+    oracles.remove(oracleId);
+    tracked.values().removeIf(query -> query.oracle.getOracleId().equals(oracleId));
+  }
+
+  public void start() {
+    chainFeed.addListener(listener);
+    chainFeed.start();
+    signer.execute(this::signAndPost);
+  }
+
+  public ResponderStats stats() {
+    int backlog = 0;
+    int inFlight = 0;
+    for (TrackedQuery query : tracked.values()) {
+      if (query.postedAtHeight < 0) {
+        backlog++;
+      } else {
+        inFlight++;
+      }
+    }
+    long[] sorted;
+    synchronized (latencies) {
+      sorted = Arrays.copyOf(latencies, Math.min(latencyCount, latencies.length));
+    }
+    Arrays.sort(sorted);
+    return new ResponderStats(
+        backlog,
+        inFlight,
+        answered.get(),
+        failed.get(),
+        expired.get(),
+        percentile(sorted, 50),
+        percentile(sorted, 99),
+        sorted.length == 0 ? 0 : sorted[sorted.length - 1]);
+  }
+
+  @Override
+  public void close() {
+    chainFeed.removeListener(listener);
+    poller.shutdownNow();
+    signer.shutdownNow();
+    workers.shutdownNow();
+  }
+
+  /** called on the feed's thread, polls of blocks arriving while one is running are merged */
+  private void onBlock(BlockEvent block) {
+    if (pollPending.compareAndSet(false, true)) {
+      poller.execute(
+          () -> {
+            pollPending.set(false);
+            poll();
+          });
+    }
+  }
+
+  private void poll() {
+    long height = chainFeed.currentHeight();
+    for (DelegatedOracle oracle : oracles.values()) {
+      try {
+        List<OracleQuery> open = openQueries(oracle.getOracleId());
+        Set<String> openIds =
+            open.stream().map(OracleQuery::getQueryId).collect(Collectors.toSet());
+        forget(oracle.getOracleId(), openIds, height);
+        for (OracleQuery query : open) {
+          TrackedQuery known = tracked.get(query.getQueryId());
+          if (known == null) {
+            TrackedQuery added = new TrackedQuery(oracle, query, System.currentTimeMillis());
+            tracked.put(query.getQueryId(), added);
+            workers.execute(new DeadlineTask(query.getExpiresAt(), () -> handle(added)));
+          } else if (known.postedAtHeight >= 0
+              && height - known.postedAtHeight >= settings.getResubmitAfterBlocks()) {
+            log.info("Query {} still open, posting its response again", query.getQueryId());
+            known.postedAtHeight = -1;
+            responses.add(known);
+          }
+        }
+      } catch (NodeApiException e) {
+        log.warn("Reading queries of {} failed: {}", oracle.getOracleId(), e.getMessage());
+      }
+    }
+  }
+
+  /** drop the queries which have been closed or expired */
+  private void forget(String oracleId, Set<String> openIds, long height) {
+    tracked
+        .values()
+        .removeIf(
+            query -> {
+              if (!query.oracle.getOracleId().equals(oracleId)) {
+                return false;
+              }
+              if (!openIds.contains(query.query.getQueryId())) {
+                if (query.postedAtHeight >= 0) {
+                  answered.incrementAndGet();
+                } else if (query.query.getExpiresAt() <= height) {
+                  expired.incrementAndGet();
+                  log.warn("Query {} expired before it was answered", query.query.getQueryId());
+                }
+                return true;
+              }
+              return false;
+            });
+  }
+
+  private void handle(TrackedQuery query) {
+    try {
+      String response = query.oracle.getHandler().respond(query.query);
+      if (response == null) {
+        return;
+      }
+      query.response = response;
+      responses.add(query);
+    } catch (Exception e) {
+      failed.incrementAndGet();
+      log.warn("Handler failed on query {}, retrying", query.query.getQueryId(), e);
+      tracked.remove(query.query.getQueryId(), query);
+    }
+  }
+
+  /** takes all responses available at once and signs them in one batch per oracle */
+  private void signAndPost() {
+    try {
+      while (!Thread.currentThread().isInterrupted()) {
+        List<TrackedQuery> batch = new ArrayList<>();
+        batch.add(responses.take());
+        responses.drainTo(batch);
+        Map<DelegatedOracle, List<TrackedQuery>> byOracle = new LinkedHashMap<>();
+        batch.forEach(
+            query -> byOracle.computeIfAbsent(query.oracle, key -> new ArrayList<>()).add(query));
+        byOracle.forEach(this::signAndPost);
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  private void signAndPost(DelegatedOracle oracle, List<TrackedQuery> queries) {
+    List<String> signatures;
+    try {
+      signatures =
+          signingService.oracleDelegations(
+              oracle.getOwner(),
+              network,
+              contractId,
+              queries.stream().map(query -> query.query.getQueryId()).collect(Collectors.toList()));
+    } catch (RuntimeException e) {
+      log.warn("Signing {} responses of {} failed", queries.size(), oracle.getOracleId(), e);
+      failed.addAndGet(queries.size());
+      queries.forEach(query -> tracked.remove(query.query.getQueryId(), query));
+      return;
+    }
+    for (int i = 0; i < queries.size(); i++) {
+      TrackedQuery query = queries.get(i);
+      String signature = signatures.get(i);
+      workers.execute(new DeadlineTask(query.query.getExpiresAt(), () -> post(query, signature)));
+    }
+  }
+
+  private void post(TrackedQuery query, String signature) {
+    try {
+      String callData =
+          aeternityService
+              .compiler
+              .blockingEncodeCalldata(
+                  contractSource,
+                  ENTRYPOINT,
+                  List.of(
+                      query.oracle.getOracleId(),
+                      query.query.getQueryId(),
+                      Literals.bytes(signature),
+                      Literals.string(query.response)),
+                  Collections.emptyMap())
+              .getResult();
+      if (callData == null) {
+        throw new IllegalStateException("Cannot encode calldata of " + ENTRYPOINT);
+      }
+      PostTransactionResult result =
+          nonceManager.blockingPost(
+              caller,
+              nonce ->
+                  ContractCallTransactionModel.builder()
+                      .callerId(caller.getAddress())
+                      .contractId(contractId)
+                      .callData(callData)
+                      .amount(BigInteger.ZERO)
+                      .gasLimit(settings.getGasLimit())
+                      .nonce(nonce)
+                      .virtualMachine(VirtualMachine.FATE)
+                      .build());
+      query.postedAtHeight = chainFeed.currentHeight();
+      recordLatency(System.currentTimeMillis() - query.seenAt);
+      log.debug("Posted response to {} in {}", query.query.getQueryId(), result.getTxHash());
+    } catch (RuntimeException e) {
+      failed.incrementAndGet();
+      log.warn("Posting response to {} failed, retrying", query.query.getQueryId(), e);
+      tracked.remove(query.query.getQueryId(), query);
+    }
+  }
+
+  private List<OracleQuery> openQueries(String oracleId) {
+    List<OracleQuery> queries = new ArrayList<>();
+    String from = null;
+    while (true) {
+      JsonNode page =
+          nodeApi.get(
+              "/v3/oracles/"
+                  + oracleId
+                  + "/queries?type=open&limit="
+                  + PAGE_SIZE
+                  + (from != null ? "&from=" + from : ""));
+      int size = 0;
+      for (JsonNode query : page.path("oracle_queries")) {
+        OracleQuery parsed = OracleQuery.fromJson(query);
+        if (!parsed.getQueryId().equals(from)) {
+          queries.add(parsed);
+        }
+        from = parsed.getQueryId();
+        size++;
+      }
+      if (size < PAGE_SIZE) {
+        return queries;
+      }
+    }
+  }
+
+  private void recordLatency(long millis) {
+    synchronized (latencies) {
+      latencies[latencyCount++ % latencies.length] = millis;
+    }
+  }
+
+  private static long percentile(long[] sorted, int percent) {
+    return sorted.length == 0 ? 0 : sorted[(sorted.length - 1) * percent / 100];
+  }
+
+  private static ExecutorService singleThread(String name) {
+    return Executors.newSingleThreadExecutor(
+        runnable -> {
+          Thread thread = new Thread(runnable, name);
+          thread.setDaemon(true);
+          return thread;
+        });
+  }
+
+  private static class TrackedQuery {
+
+    final DelegatedOracle oracle;
+
+    final OracleQuery query;
+
+    /** when the query was first seen */
+    final long seenAt;
+
+    volatile String response;
+
+    /** key block height the response was posted at, -1 while not posted */
+    volatile long postedAtHeight = -1;
+
+    TrackedQuery(DelegatedOracle oracle, OracleQuery query, long seenAt) {
+      this.oracle = oracle;
+      this.query = query;
+      this.seenAt = seenAt;
+    }
+  }
+
+  /** a task of the worker pool, ordered by the expiry of its query */
+  private static class DeadlineTask implements Runnable, Comparable<DeadlineTask> {
+
+    private final long expiresAt;
+
+    private final Runnable task;
+
+    DeadlineTask(long expiresAt, Runnable task) {
+      this.expiresAt = expiresAt;
+      this.task = task;
+    }
+
+    @Override
+    public void run() {
+      task.run();
+    }
+
+    @Override
+    public int compareTo(DeadlineTask other) {
+      return Long.compare(expiresAt, other.expiresAt);
+    }
+  }
+}
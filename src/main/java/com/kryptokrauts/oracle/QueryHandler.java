@@ -0,0 +1,13 @@
+package com.kryptokrauts.oracle;
+
+/** Computes the response of a query, called concurrently on the responder's workers. */
+@FunctionalInterface
+public interface QueryHandler {
+
+  /**
+   * @param query
+   * @return the response to send, null to leave the query unanswered
+   * @throws Exception the query is retried with the next block
+   */
+  String respond(OracleQuery query) throws Exception;
+}
@@ -0,0 +1,23 @@
+package com.kryptokrauts.oracle;
+
+import java.math.BigInteger;
+import lombok.Builder;
+import lombok.Value;
+
+/** Tuning of the {@link OracleResponder}. */
+@Value
+@Builder
+public class ResponderSettings {
+
+  /** threads running handlers and posting responses */
+  @Builder.Default int workers = 8;
+
+  /** gas limit of a single {@code respond} call */
+  @Builder.Default BigInteger gasLimit = BigInteger.valueOf(100_000);
+
+  /** key blocks after which a posted response which didn't close its query is sent again */
+  @Builder.Default int resubmitAfterBlocks = 3;
+
+  /** number of response latencies the percentiles are computed of */
+  @Builder.Default int latencySamples = 1024;
+}
@@ -0,0 +1,29 @@
+package com.kryptokrauts.oracle;
+
+import lombok.Value;
+
+/** A snapshot of the {@link OracleResponder}'s load. */
+@Value
+public class ResponderStats {
+
+  /** open queries waiting for their handler, signature or post */
+  int backlog;
+
+  /** responses posted whose queries are still open */
+  int inFlight;
+
+  /** queries closed by a posted response */
+  long answered;
+
+  long failed;
+
+  /** queries which expired before a response was posted */
+  long expired;
+
+  /** from the block the query was first seen in until its response was posted */
+  long latencyP50Millis;
+
+  long latencyP99Millis;
+
+  long latencyMaxMillis;
+}
@@ -0,0 +1,437 @@
+package com.kryptokrauts.payout;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.kryptokrauts.aeternity.sdk.constants.VirtualMachine;
+import com.kryptokrauts.aeternity.sdk.domain.secret.KeyPair;
+import com.kryptokrauts.aeternity.sdk.service.aeternity.impl.AeternityService;
+import com.kryptokrauts.aeternity.sdk.service.keypair.KeyPairService;
+import com.kryptokrauts.aeternity.sdk.service.keypair.KeyPairServiceFactory;
+import com.kryptokrauts.aeternity.sdk.service.transaction.domain.PostTransactionResult;
+import com.kryptokrauts.aeternity.sdk.service.transaction.type.model.ContractCallTransactionModel;
+import com.kryptokrauts.chain.ChainTransaction;
+import com.kryptokrauts.chain.ConfirmationTracker;
+import com.kryptokrauts.chain.NodeApi;
+import com.kryptokrauts.gas.GasEstimationRequest;
+import com.kryptokrauts.gas.GasEstimator;
+import com.kryptokrauts.metrics.CallMetrics;
+import com.kryptokrauts.metrics.FailureReason;
+import com.kryptokrauts.metrics.MetricsRegistry;
+import com.kryptokrauts.nonce.NonceManager;
+import com.kryptokrauts.nonce.TransactionRejectedException;
+import com.kryptokrauts.nonce.TransactionUncertainException;
+import com.kryptokrauts.payout.ChunkResult.Status;
+import com.kryptokrauts.payout.PayoutJournal.Entry;
+import com.kryptokrauts.payout.PayoutJournal.State;
+import com.kryptokrauts.trace.EncodeCalldataEvent;
+import com.kryptokrauts.trace.TransactionTracer;
+import com.kryptokrauts.trace.TransactionTracer.Scope;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Pays any number of payees through a deployed {@code BatchPayment} contract.
+ *
+ * <p>The contract sums and pays the recipients of a call with non tail recursive functions, so a
+ * single call can only handle a limited number of recipients. The engine streams the payees,
+ * cuts them into chunks which fit into the gas limit of a call and posts the chunks concurrently
+ * on consecutive nonces of the payer.
+ *
+ * <p>Every chunk's progress is written to a {@link PayoutJournal}. Running a payout again with the
+ * same payees and journal skips paid chunks, picks up the outcome of chunks which were submitted
+ * but not yet mined and only submits chunks again which provably didn't pay anybody.
+ */
+@Slf4j
+public class BatchPayoutEngine {
+
+  private static final String ENTRYPOINT = "proceedBatchPayment";
+
+  private final AeternityService aeternityService;
+
+  private final NonceManager nonceManager;
+
+  private final ConfirmationTracker confirmationTracker;
+
+  private final GasEstimator gasEstimator;
+
+  private final NodeApi nodeApi;
+
+  private final String contractId;
+
+  private final String contractSource;
+
+  private final PayoutSettings settings;
+
+  private final KeyPairService keyPairService = new KeyPairServiceFactory().getService();
+
+  private final CallMetrics callMetrics;
+
+  private final TransactionTracer tracer = TransactionTracer.getDefault();
+
+  /**
+   * @param aeternityService service used to encode the calldata
+   * @param nonceManager hands out the payer's nonces
+   * @param confirmationTracker used to wait for the chunks to be mined
+   * @param gasEstimator learns the gas profile used to size the chunks
+   * @param nodeApi used to read the results of the calls
+   * @param contractId id of the deployed {@code BatchPayment} contract
+   * @param contractSource source code of the {@code BatchPayment} contract
+   * @param settings
+   */
+  public BatchPayoutEngine(
+      AeternityService aeternityService,
+      NonceManager nonceManager,
+      ConfirmationTracker confirmationTracker,
+      GasEstimator gasEstimator,
+      NodeApi nodeApi,
+      String contractId,
+      String contractSource,
+      PayoutSettings settings) {
+    this.aeternityService = aeternityService;
+    this.nonceManager = nonceManager;
+    this.confirmationTracker = confirmationTracker;
+    this.gasEstimator = gasEstimator;
+    this.nodeApi = nodeApi;
+    this.contractId = contractId;
+    this.contractSource = contractSource;
+    this.settings = settings;
+    this.callMetrics = MetricsRegistry.getDefault().calls(contractId, ENTRYPOINT);
+  }
+
+  /**
+   * pay all payees and wait until every chunk is settled
+   *
+   * @param payer the account funding the payout
+   * @param payees the payees, consumed lazily and in order. A payout which is run again must
+   *     provide the same payees in the same order.
+   * @param journal the journal of this payout
+   * @return the result of every chunk
+   */
+  public PayoutReport payout(KeyPair payer, Iterator<Payee> payees, PayoutJournal journal) {
+    int chunkSize =
+        journal
+            .getChunkSize()
+            .orElseGet(
+                () -> {
+                  int size = determineChunkSize(payer);
+                  journal.recordChunkSize(size);
+                  return size;
+                });
+    log.info("Paying out in chunks of {} payees", chunkSize);
+
+    // bounds the chunks being processed as well as the payer's transactions in the mempool, the
+    // report still holds every chunk with its payees
+    Semaphore inFlight = new Semaphore(settings.getMaxInFlight());
+    ExecutorService executor = Executors.newFixedThreadPool(settings.getMaxInFlight());
+    List<CompletableFuture<ChunkResult>> results = new ArrayList<>();
+    try {
+      int index = 0;
+      while (payees.hasNext()) {
+        List<Payee> chunkPayees = new ArrayList<>(chunkSize);
+        while (payees.hasNext() && chunkPayees.size() < chunkSize) {
+          chunkPayees.add(payees.next());
+        }
+        PayoutChunk chunk = PayoutChunk.of(index++, chunkPayees);
+        inFlight.acquire();
+        results.add(
+            CompletableFuture.supplyAsync(() -> process(payer, chunk, journal), executor)
+                .exceptionally(error -> unsettled(chunk, journal, error))
+                .whenComplete((result, error) -> inFlight.release()));
+      }
+      return new PayoutReport(
+          chunkSize, results.stream().map(CompletableFuture::join).collect(Collectors.toList()));
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new PayoutException("Interrupted while submitting chunks", e);
+    } finally {
+      executor.shutdown();
+    }
+  }
+
+  /**
+   * @return the gas a single call paying the given number of payees is expected to use, empty as
+   *     long as the gas profile of the contract hasn't been learned
+   */
+  public Optional<BigInteger> profiledGas(int payees) {
+    return gasEstimator.profiledEstimate(profileRequest(payees));
+  }
+
+  private ChunkResult process(KeyPair payer, PayoutChunk chunk, PayoutJournal journal) {
+    Optional<Entry> entry = journal.get(chunk.getId());
+    if (entry.isPresent()) {
+      switch (entry.get().getState()) {
+        case PAID:
+          return new ChunkResult(chunk, Status.ALREADY_PAID, entry.get().getTxHash(), null);
+        case PREPARED:
+          return new ChunkResult(
+              chunk,
+              Status.UNCERTAIN,
+              null,
+              "Posted with nonce " + entry.get().getNonce() + " but the tx hash was not recorded");
+        case SUBMITTED:
+          Optional<ChunkResult> resumed = resume(chunk, entry.get(), journal);
+          if (resumed.isPresent()) {
+            return resumed.get();
+          }
+          break;
+        default:
+          break;
+      }
+    }
+    return submit(payer, chunk, journal);
+  }
+
+  /** the outcome of a chunk whose processing failed unexpectedly, derived from the journal */
+  private ChunkResult unsettled(PayoutChunk chunk, PayoutJournal journal, Throwable error) {
+    log.warn("Processing chunk {} failed", chunk.getIndex(), error);
+    Optional<Entry> entry = journal.get(chunk.getId());
+    Status status = Status.FAILED;
+    if (entry.isPresent() && entry.get().getState() == State.PREPARED) {
+      status = Status.UNCERTAIN;
+    } else if (entry.isPresent() && entry.get().getState() == State.SUBMITTED) {
+      status = Status.PENDING;
+    }
+    return new ChunkResult(
+        chunk,
+        status,
+        entry.map(Entry::getTxHash).orElse(null),
+        String.valueOf(error.getMessage()));
+  }
+
+  /** @return the outcome of a submitted chunk, empty if its transaction was dropped */
+  private Optional<ChunkResult> resume(PayoutChunk chunk, Entry entry, PayoutJournal journal) {
+    Optional<ChainTransaction> tx = nodeApi.findTransaction(entry.getTxHash());
+    if (tx.isEmpty()) {
+      log.info("Tx {} of chunk {} was dropped, resubmitting", entry.getTxHash(), chunk.getIndex());
+      return Optional.empty();
+    }
+    if (tx.get().getBlockHeight() < 0) {
+      return Optional.of(awaitOutcome(chunk, entry.getTxHash(), journal, null));
+    }
+    return Optional.of(settle(chunk, entry.getTxHash(), journal, null));
+  }
+
+  private ChunkResult submit(KeyPair payer, PayoutChunk chunk, PayoutJournal journal) {
+    try (Scope scope = tracer.enter(contractId, ENTRYPOINT)) {
+      return submitInScope(payer, chunk, journal);
+    }
+  }
+
+  private ChunkResult submitInScope(KeyPair payer, PayoutChunk chunk, PayoutJournal journal) {
+    EncodeCalldataEvent encodeEvent = new EncodeCalldataEvent(tracer.currentCallSite());
+    encodeEvent.begin();
+    String callData =
+        aeternityService
+            .compiler
+            .blockingEncodeCalldata(
+                contractSource,
+                ENTRYPOINT,
+                List.of(chunk.toSophiaMap()),
+                Collections.emptyMap())
+            .getResult();
+    encodeEvent.commit();
+    if (callData == null) {
+      journal.record(chunk.getId(), State.FAILED, null, null);
+      return new ChunkResult(chunk, Status.FAILED, null, "Cannot encode calldata");
+    }
+    BigInteger gasLimit =
+        gasEstimator
+            .profiledEstimate(profileRequest(chunk.getPayees().size()))
+            .orElse(settings.getMaxGasPerCall());
+
+    AtomicReference<BigInteger> usedNonce = new AtomicReference<>();
+    PostTransactionResult posted;
+    try {
+      posted =
+          nonceManager.blockingPost(
+              payer,
+              nonce -> {
+                // journaled before posting, a crash from here on must not lead to a second payment
+                usedNonce.set(nonce);
+                journal.record(chunk.getId(), State.PREPARED, nonce, null);
+                return callTransaction(payer, chunk, callData, gasLimit, nonce);
+              });
+    } catch (TransactionRejectedException e) {
+      // the mempool refused the tx, it will never be mined and the chunk can be paid again
+      journal.record(chunk.getId(), State.FAILED, usedNonce.get(), null);
+      return new ChunkResult(chunk, Status.FAILED, null, e.getMessage());
+    } catch (TransactionUncertainException e) {
+      // the node may have accepted the tx, the chunk stays prepared so no run pays it again
+      return new ChunkResult(
+          chunk,
+          Status.UNCERTAIN,
+          null,
+          "Posted with nonce " + usedNonce.get() + " with unknown outcome: " + e.getMessage());
+    }
+    journal.record(chunk.getId(), State.SUBMITTED, usedNonce.get(), posted.getTxHash());
+    return awaitOutcome(chunk, posted.getTxHash(), journal, gasLimit);
+  }
+
+  /** @param gasLimit gas limit of the call, null if the call was posted by an earlier run */
+  private ChunkResult awaitOutcome(
+      PayoutChunk chunk, String txHash, PayoutJournal journal, BigInteger gasLimit) {
+    long start = System.nanoTime();
+    try {
+      confirmationTracker.awaitMined(txHash, settings.getMinedTimeout());
+      callMetrics.getMined().recordSince(start);
+    } catch (TimeoutException e) {
+      callMetrics.recordFailure(FailureReason.TIMEOUT);
+      return new ChunkResult(chunk, Status.PENDING, txHash, e.getMessage());
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      return new ChunkResult(chunk, Status.PENDING, txHash, "Interrupted");
+    }
+    return settle(chunk, txHash, journal, gasLimit);
+  }
+
+  private ChunkResult settle(
+      PayoutChunk chunk, String txHash, PayoutJournal journal, BigInteger gasLimit) {
+    JsonNode callInfo = nodeApi.getTransactionInfo(txHash);
+    if (gasLimit != null) {
+      callMetrics.recordGas(callInfo.path("gas_used").bigIntegerValue(), gasLimit);
+    }
+    String returnType = callInfo.path("return_type").asText();
+    if ("ok".equals(returnType)) {
+      journal.record(chunk.getId(), State.PAID, null, txHash);
+      return new ChunkResult(chunk, Status.PAID, txHash, null);
+    }
+    // a reverted call pays nobody, so the chunk can safely be submitted again
+    journal.record(chunk.getId(), State.FAILED, null, txHash);
+    String reason = returnType + ": " + callInfo.path("return_value").asText();
+    callMetrics.recordFailure(FailureReason.classify(reason));
+    return new ChunkResult(chunk, Status.FAILED, txHash, reason);
+  }
+
+  /**
+   * dry-run chunks of a few sizes in a single request and find the largest size whose profiled gas
+   * stays below the limit
+   */
+  private int determineChunkSize(KeyPair payer) {
+    if (settings.getChunkSize() > 0) {
+      return settings.getChunkSize();
+    }
+    int maxChunkSize = settings.getMaxChunkSize();
+    TreeSet<Integer> probeSizes =
+        new TreeSet<>(
+            List.of(Math.max(1, maxChunkSize / 4), Math.max(1, maxChunkSize / 2), maxChunkSize));
+    // the probes are dry-run in order on top of the payer's on-chain nonce
+    BigInteger nonce = aeternityService.accounts.blockingGetAccount(payer.getAddress()).getNonce();
+    Map<Integer, CompletableFuture<BigInteger>> probes = new TreeMap<>();
+    for (int size : probeSizes) {
+      nonce = nonce.add(BigInteger.ONE);
+      probes.put(size, gasEstimator.estimate(probeRequest(payer, size, nonce)));
+    }
+    gasEstimator.flush();
+
+    int chunkSize = 0;
+    // the smallest probed size which doesn't fit, bounds the search below
+    int exceeded = maxChunkSize + 1;
+    for (Map.Entry<Integer, CompletableFuture<BigInteger>> probe : probes.entrySet()) {
+      int size = probe.getKey();
+      try {
+        BigInteger gas = probe.getValue().join();
+        log.debug("Probed {} payees per call with gas {}", size, gas);
+        if (size < exceeded && gas.compareTo(settings.getMaxGasPerCall()) <= 0) {
+          chunkSize = size;
+          continue;
+        }
+      } catch (CompletionException e) {
+        // running out of gas or a revert means the chunk doesn't fit into a single call
+        log.debug("Probing {} payees per call failed: {}", size, e.getCause().getMessage());
+      }
+      exceeded = Math.min(exceeded, size);
+    }
+    // the profile extrapolates monotonically, so the largest fitting size can be searched
+    int low = chunkSize + 1;
+    int high = exceeded - 1;
+    while (low <= high) {
+      int middle = (low + high) >>> 1;
+      Optional<BigInteger> gas = gasEstimator.profiledEstimate(profileRequest(middle));
+      if (gas.isEmpty()) {
+        break;
+      }
+      if (gas.get().compareTo(settings.getMaxGasPerCall()) <= 0) {
+        chunkSize = middle;
+        low = middle + 1;
+      } else {
+        high = middle - 1;
+      }
+    }
+    if (chunkSize == 0) {
+      throw new PayoutException(
+          "Not even " + probeSizes.first() + " payees fit into " + settings.getMaxGasPerCall());
+    }
+    return chunkSize;
+  }
+
+  private GasEstimationRequest probeRequest(KeyPair payer, int size, BigInteger nonce) {
+    PayoutChunk probe =
+        PayoutChunk.of(
+            -1,
+            IntStream.range(0, size)
+                .mapToObj(i -> keyPairService.generateKeyPair().getAddress())
+                .map(recipient -> new Payee(recipient, BigInteger.ONE))
+                .collect(Collectors.toList()));
+    return profileRequest(size)
+        .toBuilder()
+        .callerPublicKey(payer.getAddress())
+        .unsignedTx(
+            () ->
+                aeternityService
+                    .transactions
+                    .blockingCreateUnsignedTransaction(
+                        callTransaction(
+                            payer,
+                            probe,
+                            aeternityService
+                                .compiler
+                                .blockingEncodeCalldata(
+                                    contractSource,
+                                    ENTRYPOINT,
+                                    List.of(probe.toSophiaMap()),
+                                    Collections.emptyMap())
+                                .getResult(),
+                            settings.getMaxGasPerCall(),
+                            nonce))
+                    .getResult())
+        .build();
+  }
+
+  /** a request which only identifies the profile, it can't be dry-run */
+  private GasEstimationRequest profileRequest(int size) {
+    return GasEstimationRequest.builder()
+        .contract(contractId)
+        .entrypoint(ENTRYPOINT)
+        .argumentSize(size)
+        .build();
+  }
+
+  private ContractCallTransactionModel callTransaction(
+      KeyPair payer, PayoutChunk chunk, String callData, BigInteger gasLimit, BigInteger nonce) {
+    return ContractCallTransactionModel.builder()
+        .callerId(payer.getAddress())
+        .contractId(contractId)
+        .callData(callData)
+        .amount(chunk.getTotal())
+        .gasLimit(gasLimit)
+        .nonce(nonce)
+        .virtualMachine(VirtualMachine.FATE)
+        .build();
+  }
+}
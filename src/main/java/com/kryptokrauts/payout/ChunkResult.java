@@ -0,0 +1,41 @@
+package com.kryptokrauts.payout;
+
+import lombok.Value;
+
+/** Outcome of a single chunk of a payout. */
+@Value
+public class ChunkResult {
+
+  public enum Status {
+    /** the chunk's call was mined and returned ok in this run */
+    PAID,
+    /** the journal shows that the chunk was paid by an earlier run, nothing was submitted */
+    ALREADY_PAID,
+    /** nobody was paid, the chunk is submitted again by the next run with the same journal */
+    FAILED,
+    /**
+     * the chunk's transaction was accepted but not mined in time, the next run with the same
+     * journal picks up its outcome
+     */
+    PENDING,
+    /**
+     * the chunk was handed to the node but the run stopped before its tx hash was journaled. It is
+     * never submitted again automatically and has to be reconciled manually.
+     */
+    UNCERTAIN
+  }
+
+  PayoutChunk chunk;
+
+  Status status;
+
+  /** hash of the chunk's call transaction, null if none is known */
+  String txHash;
+
+  /** reason of a chunk which isn't paid */
+  String message;
+
+  public boolean isPaid() {
+    return status == Status.PAID || status == Status.ALREADY_PAID;
+  }
+}
@@ -0,0 +1,13 @@
+package com.kryptokrauts.payout;
+
+import java.math.BigInteger;
+import lombok.Value;
+
+/** A single recipient of a payout along with the amount of aettos to send. */
+@Value
+public class Payee {
+
+  String recipient;
+
+  BigInteger amount;
+}
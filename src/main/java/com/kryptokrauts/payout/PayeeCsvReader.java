@@ -0,0 +1,81 @@
+package com.kryptokrauts.payout;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Streams payees from a csv file with lines of the form {@code ak_...,amount}, amounts in aettos.
+ * Blank lines, comments starting with {@code #} and a header line are skipped. Only one line is
+ * held in memory, so the file may contain any number of payees.
+ */
+public class PayeeCsvReader implements Iterator<Payee>, Closeable {
+
+  private final BufferedReader reader;
+
+  private int lineNumber;
+
+  private Payee next;
+
+  public PayeeCsvReader(Path file) throws IOException {
+    this.reader = Files.newBufferedReader(file, StandardCharsets.UTF_8);
+  }
+
+  @Override
+  public boolean hasNext() {
+    if (next == null) {
+      next = readPayee();
+    }
+    return next != null;
+  }
+
+  @Override
+  public Payee next() {
+    if (!hasNext()) {
+      throw new NoSuchElementException();
+    }
+    Payee payee = next;
+    next = null;
+    return payee;
+  }
+
+  @Override
+  public void close() throws IOException {
+    reader.close();
+  }
+
+  private Payee readPayee() {
+    try {
+      String line;
+      while ((line = reader.readLine()) != null) {
+        lineNumber++;
+        line = line.trim();
+        boolean header = lineNumber == 1 && !line.startsWith("ak_");
+        if (line.isEmpty() || line.startsWith("#") || header) {
+          continue;
+        }
+        String[] columns = line.split(",");
+        if (columns.length != 2 || !columns[0].trim().startsWith("ak_")) {
+          throw new PayoutException("Invalid payee in line " + lineNumber + ": " + line);
+        }
+        BigInteger amount = new BigInteger(columns[1].trim());
+        if (amount.signum() <= 0) {
+          throw new PayoutException("Amount must be positive in line " + lineNumber);
+        }
+        return new Payee(columns[0].trim(), amount);
+      }
+      return null;
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    } catch (NumberFormatException e) {
+      throw new PayoutException("Invalid amount in line " + lineNumber, e);
+    }
+  }
+}
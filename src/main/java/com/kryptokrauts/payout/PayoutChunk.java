@@ -0,0 +1,54 @@
+package com.kryptokrauts.payout;
+
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.List;
+import lombok.Value;
+import org.bouncycastle.util.encoders.Hex;
+
+/** The payees paid by a single {@code proceedBatchPayment} call. */
+@Value
+public class PayoutChunk {
+
+  /** position of the chunk within the payout */
+  int index;
+
+  /** stable id derived from position and content of the chunk, used as key of the journal */
+  String id;
+
+  List<Payee> payees;
+
+  static PayoutChunk of(int index, List<Payee> payees) {
+    try {
+      MessageDigest digest = MessageDigest.getInstance("SHA-256");
+      digest.update((index + "\n").getBytes(StandardCharsets.UTF_8));
+      for (Payee payee : payees) {
+        digest.update(
+            (payee.getRecipient() + "," + payee.getAmount() + "\n")
+                .getBytes(StandardCharsets.UTF_8));
+      }
+      return new PayoutChunk(index, Hex.toHexString(digest.digest()), List.copyOf(payees));
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  /** @return the sum of all amounts, i.e. the value the call has to carry */
+  public BigInteger getTotal() {
+    return payees.stream().map(Payee::getAmount).reduce(BigInteger.ZERO, BigInteger::add);
+  }
+
+  /** @return the recipients as sophia map literal, the argument of {@code proceedBatchPayment} */
+  String toSophiaMap() {
+    StringBuilder map = new StringBuilder("{");
+    for (Payee payee : payees) {
+      if (map.length() > 1) {
+        map.append(',');
+      }
+      map.append('[').append(payee.getRecipient()).append("] = ").append(payee.getAmount());
+    }
+    return map.append('}').toString();
+  }
+}
@@ -0,0 +1,13 @@
+package com.kryptokrauts.payout;
+
+/** Signals a payout which can't be processed at all, e.g. an unreadable journal. */
+public class PayoutException extends RuntimeException {
+
+  public PayoutException(String message) {
+    super(message);
+  }
+
+  public PayoutException(String message, Throwable cause) {
+    super(message, cause);
+  }
+}
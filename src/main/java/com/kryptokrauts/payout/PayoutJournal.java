@@ -0,0 +1,183 @@
+package com.kryptokrauts.payout;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigInteger;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.zip.CRC32;
+import lombok.Value;
+
+/**
+ * Append-only record of the state of each chunk of a payout, the basis of paying nobody twice when
+ * a payout is run again after a failure or crash.
+ *
+ * <p>Every state change is written as one line and forced to disk before the engine continues:
+ * {@code PREPARED} before a chunk's transaction is posted, {@code SUBMITTED} with the tx hash once
+ * the node accepted it and {@code PAID} or {@code FAILED} once the call was mined. The latest line
+ * of a chunk wins. The first line records the chunk size, so a later run cuts the same chunks.
+ *
+ * <p>Each line ends with the CRC32 of its content. A last line cut short by a crash, i.e. without
+ * its line break or with a wrong checksum, is dropped on the next start. A damaged line anywhere
+ * else makes the journal unreadable instead of being taken for a valid state.
+ */
+public class PayoutJournal implements AutoCloseable {
+
+  private static final String CHUNK_SIZE_PREFIX = "chunk-size ";
+
+  private final Map<String, Entry> entries = new HashMap<>();
+
+  private final FileChannel channel;
+
+  private final BufferedWriter writer;
+
+  private Integer chunkSize;
+
+  /**
+   * @param file the journal, created if it doesn't exist, otherwise its state is loaded
+   * @throws IOException
+   */
+  public PayoutJournal(Path file) throws IOException {
+    channel =
+        FileChannel.open(
+            file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+    try {
+      long complete = replay(Files.readAllBytes(file));
+      // drop a partially written last line
+      channel.truncate(complete);
+      channel.position(complete);
+    } catch (IOException | RuntimeException e) {
+      channel.close();
+      throw e;
+    }
+    writer = new BufferedWriter(Channels.newWriter(channel, StandardCharsets.UTF_8));
+  }
+
+  public synchronized Optional<Integer> getChunkSize() {
+    return Optional.ofNullable(chunkSize);
+  }
+
+  public synchronized Optional<Entry> get(String chunkId) {
+    return Optional.ofNullable(entries.get(chunkId));
+  }
+
+  synchronized void recordChunkSize(int size) {
+    if (chunkSize != null) {
+      throw new IllegalStateException("Chunk size already recorded: " + chunkSize);
+    }
+    chunkSize = size;
+    append(CHUNK_SIZE_PREFIX + size);
+  }
+
+  synchronized void record(String chunkId, State state, BigInteger nonce, String txHash) {
+    Entry entry = new Entry(state, nonce, txHash);
+    entries.put(chunkId, entry);
+    append(
+        String.join(
+            " ",
+            chunkId,
+            state.name(),
+            nonce != null ? nonce.toString() : "-",
+            txHash != null ? txHash : "-"));
+  }
+
+  @Override
+  public synchronized void close() throws IOException {
+    writer.close();
+  }
+
+  private void append(String line) {
+    try {
+      writer.write(line);
+      writer.write(' ');
+      writer.write(checksum(line));
+      writer.newLine();
+      writer.flush();
+      channel.force(false);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  /** @return the length of the complete lines, which have been loaded */
+  private long replay(byte[] bytes) {
+    int start = 0;
+    for (int end = indexOf(bytes, '\n', start); end >= 0; end = indexOf(bytes, '\n', start)) {
+      String line = new String(bytes, start, end - start, StandardCharsets.UTF_8);
+      int separator = line.lastIndexOf(' ');
+      if (!line.isBlank()) {
+        if (separator < 0
+            || !line.substring(separator + 1).equals(checksum(line.substring(0, separator)))) {
+          if (end == bytes.length - 1) {
+            // torn by a crash while appending
+            break;
+          }
+          throw new PayoutException("Corrupt journal line: " + line);
+        }
+        load(line.substring(0, separator));
+      }
+      start = end + 1;
+    }
+    return start;
+  }
+
+  private static int indexOf(byte[] bytes, char c, int from) {
+    for (int i = from; i < bytes.length; i++) {
+      if (bytes[i] == c) {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  private static String checksum(String content) {
+    CRC32 crc = new CRC32();
+    crc.update(content.getBytes(StandardCharsets.UTF_8));
+    return String.format("%08x", crc.getValue());
+  }
+
+  private void load(String line) {
+    if (line.startsWith(CHUNK_SIZE_PREFIX)) {
+      chunkSize = Integer.valueOf(line.substring(CHUNK_SIZE_PREFIX.length()).trim());
+      return;
+    }
+    String[] columns = line.split(" ");
+    if (columns.length != 4) {
+      throw new PayoutException("Invalid journal line: " + line);
+    }
+    entries.put(
+        columns[0],
+        new Entry(
+            State.valueOf(columns[1]),
+            "-".equals(columns[2]) ? null : new BigInteger(columns[2]),
+            "-".equals(columns[3]) ? null : columns[3]));
+  }
+
+  public enum State {
+    PREPARED,
+    SUBMITTED,
+    PAID,
+    FAILED
+  }
+
+  /** the latest journaled state of a chunk */
+  @Value
+  public static class Entry {
+
+    State state;
+
+    /** nonce of the chunk's transaction, null if not known */
+    BigInteger nonce;
+
+    /** hash of the chunk's transaction, null if not known */
+    String txHash;
+  }
+}
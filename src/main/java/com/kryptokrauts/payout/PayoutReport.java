@@ -0,0 +1,24 @@
+package com.kryptokrauts.payout;
+
+import java.util.List;
+import java.util.stream.Collectors;
+import lombok.Value;
+
+/** Per chunk results of a payout, ordered by chunk index. */
+@Value
+public class PayoutReport {
+
+  int chunkSize;
+
+  List<ChunkResult> results;
+
+  /** @return true if every chunk has been paid, in this or an earlier run */
+  public boolean isComplete() {
+    return results.stream().allMatch(ChunkResult::isPaid);
+  }
+
+  /** @return the chunks which weren't paid, i.e. failed or uncertain chunks */
+  public List<ChunkResult> getUnpaid() {
+    return results.stream().filter(result -> !result.isPaid()).collect(Collectors.toList());
+  }
+}
@@ -0,0 +1,27 @@
+package com.kryptokrauts.payout;
+
+import java.math.BigInteger;
+import java.time.Duration;
+import lombok.Builder;
+import lombok.Value;
+
+/** Tuning of the {@link BatchPayoutEngine}. */
+@Value
+@Builder
+public class PayoutSettings {
+
+  /** upper bound of payees per call when the chunk size is derived from the gas profile */
+  @Builder.Default int maxChunkSize = 500;
+
+  /** fixed number of payees per call, 0 to derive it from the gas profile */
+  @Builder.Default int chunkSize = 0;
+
+  /** the gas a single call may use, chunks are cut to stay below */
+  @Builder.Default BigInteger maxGasPerCall = BigInteger.valueOf(5_000_000);
+
+  /** number of chunks posted but not yet mined at the same time */
+  @Builder.Default int maxInFlight = 16;
+
+  /** how long to wait for a chunk's transaction to be mined */
+  @Builder.Default Duration minedTimeout = Duration.ofSeconds(60);
+}
@@ -0,0 +1,9 @@
+package com.kryptokrauts.signing;
+
+/** Signals a signature which couldn't be created. */
+public class SigningException extends RuntimeException {
+
+  public SigningException(String message, Throwable cause) {
+    super(message, cause);
+  }
+}
@@ -0,0 +1,272 @@
+package com.kryptokrauts.signing;
+
+import com.kryptokrauts.aeternity.sdk.constants.Network;
+import com.kryptokrauts.aeternity.sdk.domain.secret.KeyPair;
+import com.kryptokrauts.aeternity.sdk.service.ServiceConfiguration;
+import com.kryptokrauts.aeternity.sdk.service.delegation.DelegationService;
+import com.kryptokrauts.aeternity.sdk.service.delegation.DelegationServiceFactory;
+import com.kryptokrauts.aeternity.sdk.util.SigningUtil;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import lombok.Value;
+import org.bouncycastle.util.encoders.Hex;
+
+/**
+ * Creates signatures on a pool of worker threads instead of the calling thread.
+ *
+ * <p>Covers raw signatures of hashes, e.g. the confirmation of a generalized account transaction,
+ * and AENS / oracle delegation signatures. The batch methods split the inputs into one slice per
+ * worker, so thousands of signatures cost a handful of tasks. Ed25519 signatures are
+ * deterministic, so results are cached by signer and input and signing the same input twice is
+ * free.
+ */
+public class SigningService implements AutoCloseable {
+
+  private final ExecutorService workers;
+
+  private final int parallelism;
+
+  /** guarded by its own monitor, 0 capacity disables caching */
+  private final Map<CacheKey, CompletableFuture<String>> cache;
+
+  private final ConcurrentMap<DelegatorKey, DelegationService> delegationServices =
+      new ConcurrentHashMap<>();
+
+  public SigningService() {
+    this(Runtime.getRuntime().availableProcessors(), 10_000);
+  }
+
+  /**
+   * @param threads number of worker threads, e.g. the number of cores
+   * @param cacheSize maximum number of cached signatures, 0 to disable the cache
+   */
+  public SigningService(int threads, int cacheSize) {
+    AtomicInteger counter = new AtomicInteger();
+    this.parallelism = threads;
+    this.workers =
+        Executors.newFixedThreadPool(
+            threads,
+            runnable -> {
+              Thread thread = new Thread(runnable, "signer-" + counter.incrementAndGet());
+              thread.setDaemon(true);
+              return thread;
+            });
+    this.cache =
+        new LinkedHashMap<>(16, 0.75f, true) {
+          @Override
+          protected boolean removeEldestEntry(Map.Entry<CacheKey, CompletableFuture<String>> e) {
+            return size() > cacheSize;
+          }
+        };
+  }
+
+  /**
+   * sign a hash the way a generalized account expects it, e.g. for {@code SimpleGAMultiSig}
+   *
+   * @param signer
+   * @param hash the hash to sign, e.g. a GA tx hash
+   * @return the signature as sophia bytes literal {@code #...}
+   */
+  public CompletableFuture<String> signHash(KeyPair signer, String hash) {
+    return submit(hashTask(signer, hash));
+  }
+
+  /** @see #signHash(KeyPair, String) */
+  public List<String> signHashes(KeyPair signer, List<String> hashes) {
+    return batch(hashes, hash -> hashTask(signer, hash));
+  }
+
+  /**
+   * @param signer owner of the name(s)
+   * @param network network the contract lives in
+   * @param contractId the contract receiving the delegation
+   * @param name the name to delegate, null for a delegation of the pre-claim
+   * @return the delegation signature
+   */
+  public CompletableFuture<String> aensDelegation(
+      KeyPair signer, Network network, String contractId, String name) {
+    return submit(aensTask(signer, network, contractId, name));
+  }
+
+  /** @see #aensDelegation(KeyPair, Network, String, String) */
+  public List<String> aensDelegations(
+      KeyPair signer, Network network, String contractId, List<String> names) {
+    return batch(names, name -> aensTask(signer, network, contractId, name));
+  }
+
+  /**
+   * @param signer the oracle
+   * @param network network the contract lives in
+   * @param contractId the contract receiving the delegation
+   * @param queryId the query to respond to, null for a delegation of the oracle itself
+   * @return the delegation signature
+   */
+  public CompletableFuture<String> oracleDelegation(
+      KeyPair signer, Network network, String contractId, String queryId) {
+    return submit(oracleTask(signer, network, contractId, queryId));
+  }
+
+  /** @see #oracleDelegation(KeyPair, Network, String, String) */
+  public List<String> oracleDelegations(
+      KeyPair signer, Network network, String contractId, List<String> queryIds) {
+    return batch(queryIds, queryId -> oracleTask(signer, network, contractId, queryId));
+  }
+
+  @Override
+  public void close() {
+    workers.shutdown();
+  }
+
+  private Task hashTask(KeyPair signer, String hash) {
+    return new Task(
+        new CacheKey(Kind.HASH, signer.getAddress(), null, hash),
+        () -> "#" + Hex.toHexString(SigningUtil.sign(hash, signer.getEncodedPrivateKey())));
+  }
+
+  private Task aensTask(KeyPair signer, Network network, String contractId, String name) {
+    DelegationService delegationService = delegationService(signer, network);
+    return new Task(
+        new CacheKey(Kind.AENS, signer.getAddress(), network, contractId + ":" + name),
+        () ->
+            name == null
+                ? delegationService.createAensDelegationSignature(contractId)
+                : delegationService.createAensDelegationSignature(contractId, name));
+  }
+
+  private Task oracleTask(KeyPair signer, Network network, String contractId, String queryId) {
+    DelegationService delegationService = delegationService(signer, network);
+    return new Task(
+        new CacheKey(Kind.ORACLE, signer.getAddress(), network, contractId + ":" + queryId),
+        () ->
+            queryId == null
+                ? delegationService.createOracleDelegationSignature(contractId)
+                : delegationService.createOracleDelegationSignature(contractId, queryId));
+  }
+
+  /** sign on a worker unless the signature is cached */
+  private CompletableFuture<String> submit(Task task) {
+    CompletableFuture<String> signature;
+    synchronized (cache) {
+      signature = cache.get(task.getKey());
+      if (signature != null) {
+        return signature;
+      }
+      signature = new CompletableFuture<>();
+      cache.put(task.getKey(), signature);
+    }
+    CompletableFuture<String> result = signature;
+    workers.execute(() -> complete(task, result));
+    return result;
+  }
+
+  /** sign on the current thread unless the signature is cached */
+  private String signNow(Task task) {
+    CompletableFuture<String> signature;
+    synchronized (cache) {
+      signature = cache.get(task.getKey());
+      if (signature == null) {
+        signature = new CompletableFuture<>();
+        cache.put(task.getKey(), signature);
+      } else if (signature.isDone()) {
+        return signature.join();
+      } else {
+        // queued on another worker, signing again is cheaper than waiting for a free worker
+        signature = new CompletableFuture<>();
+      }
+    }
+    complete(task, signature);
+    return signature.join();
+  }
+
+  private void complete(Task task, CompletableFuture<String> signature) {
+    try {
+      signature.complete(task.getSigner().sign());
+    } catch (Exception e) {
+      synchronized (cache) {
+        cache.remove(task.getKey(), signature);
+      }
+      signature.completeExceptionally(new SigningException("Cannot sign " + task.getKey(), e));
+    }
+  }
+
+  /** one task per worker, each signing a slice of the inputs in a row */
+  private List<String> batch(List<String> inputs, Function<String, Task> tasks) {
+    int sliceSize = Math.max(1, (inputs.size() + parallelism - 1) / parallelism);
+    List<CompletableFuture<List<String>>> slices = new ArrayList<>();
+    for (int from = 0; from < inputs.size(); from += sliceSize) {
+      List<String> slice = inputs.subList(from, Math.min(inputs.size(), from + sliceSize));
+      slices.add(
+          CompletableFuture.supplyAsync(
+              () -> slice.stream().map(tasks).map(this::signNow).collect(Collectors.toList()),
+              workers));
+    }
+    try {
+      return slices.stream()
+          .map(CompletableFuture::join)
+          .flatMap(List::stream)
+          .collect(Collectors.toList());
+    } catch (CompletionException e) {
+      throw (RuntimeException) e.getCause();
+    }
+  }
+
+  private DelegationService delegationService(KeyPair signer, Network network) {
+    return delegationServices.computeIfAbsent(
+        new DelegatorKey(signer.getAddress(), network),
+        key ->
+            new DelegationServiceFactory()
+                .getService(
+                    ServiceConfiguration.configure().network(network).keyPair(signer).compile()));
+  }
+
+  private enum Kind {
+    HASH,
+    AENS,
+    ORACLE
+  }
+
+  @Value
+  private static class CacheKey {
+
+    Kind kind;
+
+    String signer;
+
+    Network network;
+
+    String input;
+  }
+
+  @Value
+  private static class DelegatorKey {
+
+    String signer;
+
+    Network network;
+  }
+
+  @Value
+  private static class Task {
+
+    CacheKey key;
+
+    Signer signer;
+  }
+
+  @FunctionalInterface
+  private interface Signer {
+
+    String sign() throws Exception;
+  }
+}
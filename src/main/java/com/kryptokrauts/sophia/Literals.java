@@ -0,0 +1,53 @@
+package com.kryptokrauts.sophia;
+
+import com.kryptokrauts.aeternity.sdk.util.EncodingUtils;
+import org.bouncycastle.util.encoders.Hex;
+
+/** Sophia literals of the arguments passed to the compiler when encoding calldata. */
+public final class Literals {
+
+  private Literals() {}
+
+  /** the literal of a hash or signature given as {@code xx_...}, {@code #...} or hex */
+  public static String bytes(String value) {
+    if (value.startsWith("#")) {
+      return value;
+    }
+    if (value.length() > 3 && value.charAt(2) == '_') {
+      return "#" + Hex.toHexString(EncodingUtils.decodeCheckWithIdentifier(value));
+    }
+    return "#" + value;
+  }
+
+  public static String string(String value) {
+    StringBuilder out = new StringBuilder(value.length() + 2);
+    appendString(value, out);
+    return out.toString();
+  }
+
+  /** append the string literal of the value, escaping quotes, backslashes and line breaks */
+  static void appendString(String value, StringBuilder out) {
+    out.append('"');
+    for (int i = 0; i < value.length(); i++) {
+      char c = value.charAt(i);
+      switch (c) {
+        case '"':
+        case '\\':
+          out.append('\\').append(c);
+          break;
+        case '\n':
+          out.append("\\n");
+          break;
+        case '\r':
+          out.append("\\r");
+          break;
+        case '\t':
+          out.append("\\t");
+          break;
+        default:
+          out.append(c);
+      }
+    }
+    out.append('"');
+  }
+}
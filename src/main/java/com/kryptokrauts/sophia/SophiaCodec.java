@@ -0,0 +1,90 @@
+package com.kryptokrauts.sophia;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Encodes values to sophia literals and decodes call results by their {@link SophiaType}.
+ *
+ * <p>The builder of the literals is reused per thread, so encoding only allocates the resulting
+ * string. Decoding streams the JSON instead of reading it into a tree first.
+ */
+public final class SophiaCodec {
+
+  /** builders grown beyond are dropped after use instead of being kept per thread */
+  private static final int MAX_RETAINED_CAPACITY = 1 << 20;
+
+  private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+  private static final ThreadLocal<StringBuilder> BUILDER =
+      ThreadLocal.withInitial(() -> new StringBuilder(1024));
+
+  private SophiaCodec() {}
+
+  /** @return the sophia literal of the value, e.g. an argument of the calldata encoding */
+  public static String encode(SophiaType type, Object value) {
+    StringBuilder out = BUILDER.get();
+    out.setLength(0);
+    try {
+      type.write(value, out);
+      return out.toString();
+    } catch (ClassCastException e) {
+      throw new SophiaCodecException("Value doesn't match " + type, e);
+    } finally {
+      if (out.capacity() > MAX_RETAINED_CAPACITY) {
+        BUILDER.remove();
+      }
+    }
+  }
+
+  /** append the sophia literal of the value */
+  public static void encode(SophiaType type, Object value, StringBuilder out) {
+    try {
+      type.write(value, out);
+    } catch (ClassCastException e) {
+      throw new SophiaCodecException("Value doesn't match " + type, e);
+    }
+  }
+
+  /** @param json a call result as decoded by the compiler */
+  public static Object decode(SophiaType type, String json) {
+    try (JsonParser parser = JSON_FACTORY.createParser(json)) {
+      return decode(type, parser);
+    } catch (IOException e) {
+      throw new SophiaCodecException("Cannot decode " + type, e);
+    }
+  }
+
+  /** @param json a call result as decoded by the compiler */
+  public static Object decode(SophiaType type, InputStream json) {
+    try (JsonParser parser = JSON_FACTORY.createParser(json)) {
+      return decode(type, parser);
+    } catch (IOException e) {
+      throw new SophiaCodecException("Cannot decode " + type, e);
+    }
+  }
+
+  /**
+   * convert a call result the SDK already decoded to maps, lists and numbers, e.g. the result of a
+   * read only call
+   */
+  public static Object convert(SophiaType type, Object decoded) {
+    try {
+      return type.convert(decoded);
+    } catch (ClassCastException | IndexOutOfBoundsException e) {
+      throw new SophiaCodecException("Result doesn't match " + type, e);
+    }
+  }
+
+  private static Object decode(SophiaType type, JsonParser parser) throws IOException {
+    parser.nextToken();
+    Object value = type.read(parser);
+    if (parser.nextToken() != null) {
+      throw new SophiaCodecException("Trailing content after " + type);
+    }
+    return value;
+  }
+}
@@ -0,0 +1,13 @@
+package com.kryptokrauts.sophia;
+
+/** Thrown if a value doesn't match the sophia type it is encoded or decoded as. */
+public class SophiaCodecException extends RuntimeException {
+
+  public SophiaCodecException(String message) {
+    super(message);
+  }
+
+  public SophiaCodecException(String message, Throwable cause) {
+    super(message, cause);
+  }
+}
@@ -0,0 +1,611 @@
+package com.kryptokrauts.sophia;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import java.io.IOException;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import org.bouncycastle.util.encoders.Hex;
+import org.javatuples.Tuple;
+
+/**
+ * A sophia type which writes values as sophia literals, the input of the compiler's calldata
+ * encoding, and reads them from the JSON the compiler decodes call results to.
+ *
+ * <p>Values are plain java objects: {@code int} is a {@link BigInteger} (any {@link Number} is
+ * written), {@code address} and the other ids as well as {@code bytes}, {@code hash} and {@code
+ * signature} are strings, lists and tuples are {@link List}s (tuples may be written from {@link
+ * Tuple}s), maps are {@link Map}s, options are {@link Optional}s, records are {@link Map}s by field
+ * name and variants are {@link SophiaVariant}s.
+ *
+ * <p>Writing appends to a single builder and reading consumes the JSON tokens into the final
+ * collections, so neither creates a string per element or a JSON tree.
+ */
+public abstract class SophiaType {
+
+  private static final SophiaType INT =
+      new SophiaType("int") {
+        @Override
+        void write(Object value, StringBuilder out) {
+          if (value instanceof BigInteger || value instanceof Long || value instanceof Integer) {
+            out.append(value);
+          } else if (value instanceof Number) {
+            out.append(((Number) value).longValue());
+          } else {
+            throw mismatch(value);
+          }
+        }
+
+        @Override
+        Object read(JsonParser parser) throws IOException {
+          expect(parser, JsonToken.VALUE_NUMBER_INT);
+          return parser.getBigIntegerValue();
+        }
+
+        @Override
+        Object convert(Object decoded) {
+          if (decoded instanceof BigInteger) {
+            return decoded;
+          }
+          if (decoded instanceof Number) {
+            return BigInteger.valueOf(((Number) decoded).longValue());
+          }
+          throw mismatch(decoded);
+        }
+      };
+
+  private static final SophiaType BOOL =
+      new SophiaType("bool") {
+        @Override
+        void write(Object value, StringBuilder out) {
+          out.append((boolean) (Boolean) value);
+        }
+
+        @Override
+        Object read(JsonParser parser) throws IOException {
+          if (!parser.currentToken().isBoolean()) {
+            throw new SophiaCodecException("Expected bool but got " + parser.currentToken());
+          }
+          return parser.getBooleanValue();
+        }
+
+        @Override
+        Object convert(Object decoded) {
+          if (decoded instanceof Boolean) {
+            return decoded;
+          }
+          throw mismatch(decoded);
+        }
+      };
+
+  private static final SophiaType STRING =
+      new SophiaType("string") {
+        @Override
+        void write(Object value, StringBuilder out) {
+          Literals.appendString((String) value, out);
+        }
+
+        @Override
+        Object read(JsonParser parser) throws IOException {
+          return readString(parser);
+        }
+
+        @Override
+        Object convert(Object decoded) {
+          return convertString(decoded);
+        }
+      };
+
+  private static final SophiaType BYTES =
+      new SophiaType("bytes") {
+        @Override
+        void write(Object value, StringBuilder out) {
+          if (value instanceof byte[]) {
+            out.append('#').append(Hex.toHexString((byte[]) value));
+            return;
+          }
+          String bytes = (String) value;
+          if (!bytes.startsWith("#")) {
+            out.append('#');
+          }
+          out.append(bytes);
+        }
+
+        @Override
+        Object read(JsonParser parser) throws IOException {
+          return readString(parser);
+        }
+
+        @Override
+        Object convert(Object decoded) {
+          return convertString(decoded);
+        }
+      };
+
+  private static final SophiaType ID =
+      new SophiaType("address") {
+        @Override
+        void write(Object value, StringBuilder out) {
+          out.append((String) value);
+        }
+
+        @Override
+        Object read(JsonParser parser) throws IOException {
+          return readString(parser);
+        }
+
+        @Override
+        Object convert(Object decoded) {
+          return convertString(decoded);
+        }
+      };
+
+  private static final SophiaType TTL =
+      variantType(Map.of("RelativeTTL", List.of(INT), "FixedTTL", List.of(INT)));
+
+  private final String name;
+
+  private SophiaType(String name) {
+    this.name = name;
+  }
+
+  public static SophiaType intType() {
+    return INT;
+  }
+
+  public static SophiaType boolType() {
+    return BOOL;
+  }
+
+  public static SophiaType stringType() {
+    return STRING;
+  }
+
+  /** {@code bytes(n)}, {@code hash} and {@code signature} */
+  public static SophiaType bytesType() {
+    return BYTES;
+  }
+
+  /** {@code address}, contracts, {@code oracle} and {@code oracle_query}, given by their id */
+  public static SophiaType idType() {
+    return ID;
+  }
+
+  /** {@code Chain.ttl}, a variant of {@code RelativeTTL(int)} and {@code FixedTTL(int)} */
+  public static SophiaType ttlType() {
+    return TTL;
+  }
+
+  public static SophiaType listType(SophiaType element) {
+    return new ListType(element);
+  }
+
+  public static SophiaType mapType(SophiaType key, SophiaType value) {
+    return new MapType(key, value);
+  }
+
+  public static SophiaType optionType(SophiaType value) {
+    return new OptionType(value);
+  }
+
+  public static SophiaType tupleType(SophiaType... elements) {
+    return new TupleType(List.of(elements));
+  }
+
+  /** @param fields the types of the record's fields by name, in declaration order */
+  public static SophiaType recordType(Map<String, SophiaType> fields) {
+    return new RecordType(new LinkedHashMap<>(fields));
+  }
+
+  /** @param constructors the argument types of the variant's constructors by name */
+  public static SophiaType variantType(Map<String, List<SophiaType>> constructors) {
+    return new VariantType(Map.copyOf(constructors));
+  }
+
+  /** append the literal of the value */
+  abstract void write(Object value, StringBuilder out);
+
+  /** read the value starting at the parser's current token, which is left on its last token */
+  abstract Object read(JsonParser parser) throws IOException;
+
+  /** convert a result already decoded to plain java objects, e.g. by the SDK */
+  abstract Object convert(Object decoded);
+
+  @Override
+  public String toString() {
+    return name;
+  }
+
+  SophiaCodecException mismatch(Object value) {
+    return new SophiaCodecException(
+        "Cannot convert "
+            + (value == null ? "null" : value.getClass().getSimpleName())
+            + " to "
+            + name);
+  }
+
+  private static void expect(JsonParser parser, JsonToken token) {
+    if (parser.currentToken() != token) {
+      throw new SophiaCodecException("Expected " + token + " but got " + parser.currentToken());
+    }
+  }
+
+  private static String readString(JsonParser parser) throws IOException {
+    expect(parser, JsonToken.VALUE_STRING);
+    return parser.getText();
+  }
+
+  String convertString(Object decoded) {
+    if (decoded instanceof String) {
+      return (String) decoded;
+    }
+    throw mismatch(decoded);
+  }
+
+  private static class ListType extends SophiaType {
+
+    private final SophiaType element;
+
+    ListType(SophiaType element) {
+      super("list(" + element + ")");
+      this.element = element;
+    }
+
+    @Override
+    void write(Object value, StringBuilder out) {
+      out.append('[');
+      boolean first = true;
+      for (Object item : (Collection<?>) value) {
+        if (!first) {
+          out.append(',');
+        }
+        element.write(item, out);
+        first = false;
+      }
+      out.append(']');
+    }
+
+    @Override
+    Object read(JsonParser parser) throws IOException {
+      expect(parser, JsonToken.START_ARRAY);
+      List<Object> list = new ArrayList<>();
+      while (parser.nextToken() != JsonToken.END_ARRAY) {
+        list.add(element.read(parser));
+      }
+      return list;
+    }
+
+    @Override
+    Object convert(Object decoded) {
+      if (!(decoded instanceof List)) {
+        throw mismatch(decoded);
+      }
+      List<?> items = (List<?>) decoded;
+      List<Object> list = new ArrayList<>(items.size());
+      for (Object item : items) {
+        list.add(element.convert(item));
+      }
+      return list;
+    }
+  }
+
+  /** decoded maps are lists of key value pairs, keys can't be JSON field names in general */
+  private static class MapType extends SophiaType {
+
+    private final SophiaType key;
+
+    private final SophiaType value;
+
+    MapType(SophiaType key, SophiaType value) {
+      super("map(" + key + ", " + value + ")");
+      this.key = key;
+      this.value = value;
+    }
+
+    @Override
+    void write(Object map, StringBuilder out) {
+      out.append('{');
+      boolean first = true;
+      for (Map.Entry<?, ?> entry : ((Map<?, ?>) map).entrySet()) {
+        if (!first) {
+          out.append(',');
+        }
+        out.append('[');
+        key.write(entry.getKey(), out);
+        out.append("]=");
+        value.write(entry.getValue(), out);
+        first = false;
+      }
+      out.append('}');
+    }
+
+    @Override
+    Object read(JsonParser parser) throws IOException {
+      Map<Object, Object> map = new HashMap<>();
+      if (parser.currentToken() == JsonToken.START_OBJECT) {
+        // maps with string keys may come as objects
+        while (parser.nextToken() != JsonToken.END_OBJECT) {
+          Object entryKey = key.convert(parser.getCurrentName());
+          parser.nextToken();
+          map.put(entryKey, value.read(parser));
+        }
+        return map;
+      }
+      expect(parser, JsonToken.START_ARRAY);
+      while (parser.nextToken() != JsonToken.END_ARRAY) {
+        expect(parser, JsonToken.START_ARRAY);
+        parser.nextToken();
+        Object entryKey = key.read(parser);
+        parser.nextToken();
+        map.put(entryKey, value.read(parser));
+        parser.nextToken();
+        expect(parser, JsonToken.END_ARRAY);
+      }
+      return map;
+    }
+
+    @Override
+    Object convert(Object decoded) {
+      if (decoded instanceof Map) {
+        Map<?, ?> entries = (Map<?, ?>) decoded;
+        Map<Object, Object> map = new HashMap<>(capacity(entries.size()));
+        entries.forEach((k, v) -> map.put(key.convert(k), value.convert(v)));
+        return map;
+      }
+      if (!(decoded instanceof List)) {
+        throw mismatch(decoded);
+      }
+      List<?> entries = (List<?>) decoded;
+      Map<Object, Object> map = new HashMap<>(capacity(entries.size()));
+      for (Object entry : entries) {
+        List<?> pair = (List<?>) entry;
+        map.put(key.convert(pair.get(0)), value.convert(pair.get(1)));
+      }
+      return map;
+    }
+
+    private static int capacity(int size) {
+      return (int) (size / 0.75f) + 1;
+    }
+  }
+
+  private static class OptionType extends SophiaType {
+
+    private final SophiaType value;
+
+    OptionType(SophiaType value) {
+      super("option(" + value + ")");
+      this.value = value;
+    }
+
+    @Override
+    void write(Object option, StringBuilder out) {
+      Optional<?> optional = (Optional<?>) option;
+      if (optional.isEmpty()) {
+        out.append("None");
+        return;
+      }
+      out.append("Some(");
+      value.write(optional.get(), out);
+      out.append(')');
+    }
+
+    @Override
+    Object read(JsonParser parser) throws IOException {
+      expect(parser, JsonToken.START_OBJECT);
+      parser.nextToken();
+      String constructor = parser.getCurrentName();
+      parser.nextToken();
+      expect(parser, JsonToken.START_ARRAY);
+      Optional<Object> option = Optional.empty();
+      if (parser.nextToken() != JsonToken.END_ARRAY) {
+        option = Optional.of(value.read(parser));
+        parser.nextToken();
+      }
+      parser.nextToken();
+      expect(parser, JsonToken.END_OBJECT);
+      if ("Some".equals(constructor) != option.isPresent()) {
+        throw new SophiaCodecException("Malformed option " + constructor);
+      }
+      return option;
+    }
+
+    @Override
+    Object convert(Object decoded) {
+      if (!(decoded instanceof Map)) {
+        throw mismatch(decoded);
+      }
+      List<?> some = (List<?>) ((Map<?, ?>) decoded).get("Some");
+      return some == null ? Optional.empty() : Optional.of(value.convert(some.get(0)));
+    }
+  }
+
+  private static class TupleType extends SophiaType {
+
+    private final List<SophiaType> elements;
+
+    TupleType(List<SophiaType> elements) {
+      super(elements.toString().replace('[', '(').replace(", ", " * ").replace(']', ')'));
+      this.elements = elements;
+    }
+
+    @Override
+    void write(Object value, StringBuilder out) {
+      List<?> items = value instanceof Tuple ? ((Tuple) value).toList() : (List<?>) value;
+      if (items.size() != elements.size()) {
+        throw mismatch(value);
+      }
+      out.append('(');
+      for (int i = 0; i < items.size(); i++) {
+        if (i > 0) {
+          out.append(',');
+        }
+        elements.get(i).write(items.get(i), out);
+      }
+      out.append(')');
+    }
+
+    @Override
+    Object read(JsonParser parser) throws IOException {
+      expect(parser, JsonToken.START_ARRAY);
+      List<Object> tuple = new ArrayList<>(elements.size());
+      for (SophiaType element : elements) {
+        parser.nextToken();
+        tuple.add(element.read(parser));
+      }
+      parser.nextToken();
+      expect(parser, JsonToken.END_ARRAY);
+      return tuple;
+    }
+
+    @Override
+    Object convert(Object decoded) {
+      if (!(decoded instanceof List) || ((List<?>) decoded).size() != elements.size()) {
+        throw mismatch(decoded);
+      }
+      List<?> items = (List<?>) decoded;
+      List<Object> tuple = new ArrayList<>(elements.size());
+      for (int i = 0; i < elements.size(); i++) {
+        tuple.add(elements.get(i).convert(items.get(i)));
+      }
+      return tuple;
+    }
+  }
+
+  private static class RecordType extends SophiaType {
+
+    private final Map<String, SophiaType> fields;
+
+    RecordType(Map<String, SophiaType> fields) {
+      super("record" + fields.keySet());
+      this.fields = fields;
+    }
+
+    @Override
+    void write(Object value, StringBuilder out) {
+      Map<?, ?> record = (Map<?, ?>) value;
+      out.append('{');
+      boolean first = true;
+      for (Map.Entry<String, SophiaType> field : fields.entrySet()) {
+        if (!record.containsKey(field.getKey())) {
+          throw new SophiaCodecException("Field " + field.getKey() + " of " + this + " missing");
+        }
+        if (!first) {
+          out.append(',');
+        }
+        out.append(field.getKey()).append('=');
+        field.getValue().write(record.get(field.getKey()), out);
+        first = false;
+      }
+      out.append('}');
+    }
+
+    @Override
+    Object read(JsonParser parser) throws IOException {
+      expect(parser, JsonToken.START_OBJECT);
+      Map<String, Object> record = new LinkedHashMap<>();
+      while (parser.nextToken() != JsonToken.END_OBJECT) {
+        String name = parser.getCurrentName();
+        SophiaType field = fields.get(name);
+        if (field == null) {
+          throw new SophiaCodecException("Unknown field " + name + " of " + this);
+        }
+        parser.nextToken();
+        record.put(name, field.read(parser));
+      }
+      return record;
+    }
+
+    @Override
+    Object convert(Object decoded) {
+      if (!(decoded instanceof Map)) {
+        throw mismatch(decoded);
+      }
+      Map<?, ?> values = (Map<?, ?>) decoded;
+      Map<String, Object> record = new LinkedHashMap<>();
+      fields.forEach((name, field) -> record.put(name, field.convert(values.get(name))));
+      return record;
+    }
+  }
+
+  private static class VariantType extends SophiaType {
+
+    private final Map<String, List<SophiaType>> constructors;
+
+    VariantType(Map<String, List<SophiaType>> constructors) {
+      super("variant" + constructors.keySet());
+      this.constructors = constructors;
+    }
+
+    @Override
+    void write(Object value, StringBuilder out) {
+      SophiaVariant variant = (SophiaVariant) value;
+      List<SophiaType> arguments = arguments(variant.getConstructor());
+      if (variant.getArguments().size() != arguments.size()) {
+        throw mismatch(value);
+      }
+      out.append(variant.getConstructor());
+      if (arguments.isEmpty()) {
+        return;
+      }
+      out.append('(');
+      for (int i = 0; i < arguments.size(); i++) {
+        if (i > 0) {
+          out.append(',');
+        }
+        arguments.get(i).write(variant.getArguments().get(i), out);
+      }
+      out.append(')');
+    }
+
+    @Override
+    Object read(JsonParser parser) throws IOException {
+      expect(parser, JsonToken.START_OBJECT);
+      parser.nextToken();
+      String constructor = parser.getCurrentName();
+      List<SophiaType> types = arguments(constructor);
+      parser.nextToken();
+      expect(parser, JsonToken.START_ARRAY);
+      List<Object> arguments = new ArrayList<>(types.size());
+      for (SophiaType type : types) {
+        parser.nextToken();
+        arguments.add(type.read(parser));
+      }
+      parser.nextToken();
+      expect(parser, JsonToken.END_ARRAY);
+      parser.nextToken();
+      expect(parser, JsonToken.END_OBJECT);
+      return new SophiaVariant(constructor, arguments);
+    }
+
+    @Override
+    Object convert(Object decoded) {
+      if (!(decoded instanceof Map) || ((Map<?, ?>) decoded).size() != 1) {
+        throw mismatch(decoded);
+      }
+      Map.Entry<?, ?> entry = ((Map<?, ?>) decoded).entrySet().iterator().next();
+      String constructor = String.valueOf(entry.getKey());
+      List<SophiaType> types = arguments(constructor);
+      List<?> values = (List<?>) entry.getValue();
+      List<Object> arguments = new ArrayList<>(types.size());
+      for (int i = 0; i < types.size(); i++) {
+        arguments.add(types.get(i).convert(values.get(i)));
+      }
+      return new SophiaVariant(constructor, arguments);
+    }
+
+    private List<SophiaType> arguments(String constructor) {
+      List<SophiaType> arguments = constructors.get(constructor);
+      if (arguments == null) {
+        throw new SophiaCodecException("Unknown constructor " + constructor + " of " + this);
+      }
+      return arguments;
+    }
+  }
+}
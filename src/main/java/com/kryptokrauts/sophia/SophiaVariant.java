@@ -0,0 +1,17 @@
+package com.kryptokrauts.sophia;
+
+import java.util.List;
+import lombok.Value;
+
+/** A value of a sophia variant type, e.g. {@code RelativeTTL(50)}. */
+@Value
+public class SophiaVariant {
+
+  String constructor;
+
+  List<Object> arguments;
+
+  public static SophiaVariant of(String constructor, Object... arguments) {
+    return new SophiaVariant(constructor, List.of(arguments));
+  }
+}
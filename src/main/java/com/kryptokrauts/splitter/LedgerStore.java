@@ -0,0 +1,282 @@
+package com.kryptokrauts.splitter;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Append-only store of the inputs of the ledger: registrations, weight changes, deposits and
+ * splits. Shares and totals aren't stored, they are derived again when the store is replayed.
+ *
+ * <p>Everything derived from one block is written as a single length prefixed frame and forced to
+ * disk, a frame cut short by a crash is dropped on the next start.
+ */
+class LedgerStore implements AutoCloseable {
+
+  private static final byte REGISTERED = 1;
+
+  private static final byte WEIGHTS_REPLACED = 2;
+
+  private static final byte ADDRESS_UPDATED = 3;
+
+  private static final byte DEPOSITED = 4;
+
+  private static final byte SPLITTED = 5;
+
+  private static final byte BLOCK_APPLIED = 6;
+
+  /** receives the records of the store in the order they were written */
+  interface Listener {
+
+    void registered(String contractId, BigInteger balance);
+
+    void weightsReplaced(String contractId, Map<String, Integer> weights);
+
+    void addressUpdated(String contractId, String oldAddress, String newAddress);
+
+    void deposited(String contractId, BigInteger amount);
+
+    void splitted(
+        String contractId,
+        String txHash,
+        long blockHeight,
+        String payer,
+        BigInteger value,
+        BigInteger remainder);
+
+    void blockApplied(String blockHash, long height);
+  }
+
+  private final FileChannel channel;
+
+  LedgerStore(Path file) throws IOException {
+    this.channel =
+        FileChannel.open(
+            file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+  }
+
+  /**
+   * replay all complete frames and position the store behind them
+   *
+   * @param listener
+   */
+  void replay(Listener listener) throws IOException {
+    long position = 0;
+    ByteBuffer length = ByteBuffer.allocate(Integer.BYTES);
+    while (true) {
+      length.clear();
+      if (channel.read(length, position) < Integer.BYTES) {
+        break;
+      }
+      ByteBuffer frame = ByteBuffer.allocate(length.getInt(0));
+      if (channel.read(frame, position + Integer.BYTES) < frame.capacity()) {
+        break;
+      }
+      read(frame.array(), listener);
+      position += Integer.BYTES + frame.capacity();
+    }
+    // drop a partially written frame
+    channel.truncate(position);
+    channel.position(position);
+  }
+
+  /** @return a frame collecting the records of one block */
+  Frame frame() {
+    return new Frame();
+  }
+
+  @Override
+  public void close() throws IOException {
+    channel.close();
+  }
+
+  private void read(byte[] frame, Listener listener) throws IOException {
+    DataInputStream in = new DataInputStream(new ByteArrayInputStream(frame));
+    while (in.available() > 0) {
+      byte type = in.readByte();
+      switch (type) {
+        case REGISTERED:
+          listener.registered(in.readUTF(), readBigInteger(in));
+          break;
+        case WEIGHTS_REPLACED:
+          String contractId = in.readUTF();
+          Map<String, Integer> weights = new LinkedHashMap<>();
+          for (int count = in.readInt(); count > 0; count--) {
+            weights.put(in.readUTF(), in.readInt());
+          }
+          listener.weightsReplaced(contractId, weights);
+          break;
+        case ADDRESS_UPDATED:
+          listener.addressUpdated(in.readUTF(), in.readUTF(), in.readUTF());
+          break;
+        case DEPOSITED:
+          listener.deposited(in.readUTF(), readBigInteger(in));
+          break;
+        case SPLITTED:
+          listener.splitted(
+              in.readUTF(),
+              in.readUTF(),
+              in.readLong(),
+              in.readUTF(),
+              readBigInteger(in),
+              readBigInteger(in));
+          break;
+        case BLOCK_APPLIED:
+          listener.blockApplied(in.readUTF(), in.readLong());
+          break;
+        default:
+          throw new IOException("Unknown record type " + type);
+      }
+    }
+  }
+
+  private static BigInteger readBigInteger(DataInputStream in) throws IOException {
+    byte[] bytes = new byte[in.readUnsignedByte()];
+    in.readFully(bytes);
+    return new BigInteger(bytes);
+  }
+
+  /** records written together, nothing reaches the store before {@link #commit(Listener)} */
+  class Frame implements Listener {
+
+    private final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+
+    private final DataOutputStream out = new DataOutputStream(bytes);
+
+    private boolean empty = true;
+
+    @Override
+    public void registered(String contractId, BigInteger balance) {
+      write(
+          () -> {
+            out.writeByte(REGISTERED);
+            out.writeUTF(contractId);
+            writeBigInteger(balance);
+          });
+    }
+
+    @Override
+    public void weightsReplaced(String contractId, Map<String, Integer> weights) {
+      write(
+          () -> {
+            out.writeByte(WEIGHTS_REPLACED);
+            out.writeUTF(contractId);
+            out.writeInt(weights.size());
+            for (Map.Entry<String, Integer> weight : weights.entrySet()) {
+              out.writeUTF(weight.getKey());
+              out.writeInt(weight.getValue());
+            }
+          });
+    }
+
+    @Override
+    public void addressUpdated(String contractId, String oldAddress, String newAddress) {
+      write(
+          () -> {
+            out.writeByte(ADDRESS_UPDATED);
+            out.writeUTF(contractId);
+            out.writeUTF(oldAddress);
+            out.writeUTF(newAddress);
+          });
+    }
+
+    @Override
+    public void deposited(String contractId, BigInteger amount) {
+      write(
+          () -> {
+            out.writeByte(DEPOSITED);
+            out.writeUTF(contractId);
+            writeBigInteger(amount);
+          });
+    }
+
+    @Override
+    public void splitted(
+        String contractId,
+        String txHash,
+        long blockHeight,
+        String payer,
+        BigInteger value,
+        BigInteger remainder) {
+      write(
+          () -> {
+            out.writeByte(SPLITTED);
+            out.writeUTF(contractId);
+            out.writeUTF(txHash);
+            out.writeLong(blockHeight);
+            out.writeUTF(payer);
+            writeBigInteger(value);
+            writeBigInteger(remainder);
+          });
+    }
+
+    @Override
+    public void blockApplied(String blockHash, long height) {
+      write(
+          () -> {
+            out.writeByte(BLOCK_APPLIED);
+            out.writeUTF(blockHash);
+            out.writeLong(height);
+          });
+    }
+
+    boolean isEmpty() {
+      return empty;
+    }
+
+    /**
+     * append the frame, force it to disk and pass its records on exactly like a replay would
+     *
+     * @param listener
+     */
+    void commit(Listener listener) {
+      if (empty) {
+        return;
+      }
+      byte[] frame = bytes.toByteArray();
+      ByteBuffer buffer = ByteBuffer.allocate(Integer.BYTES + frame.length);
+      buffer.putInt(frame.length).put(frame).flip();
+      try {
+        synchronized (LedgerStore.this) {
+          while (buffer.hasRemaining()) {
+            channel.write(buffer);
+          }
+          channel.force(false);
+        }
+        read(frame, listener);
+      } catch (IOException e) {
+        throw new UncheckedIOException("Writing the ledger store failed", e);
+      }
+    }
+
+    private void write(RecordWriter writer) {
+      try {
+        writer.write();
+        empty = false;
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
+      }
+    }
+
+    private void writeBigInteger(BigInteger value) throws IOException {
+      byte[] bytes = value.toByteArray();
+      out.writeByte(bytes.length);
+      out.write(bytes);
+    }
+  }
+
+  private interface RecordWriter {
+
+    void write() throws IOException;
+  }
+}
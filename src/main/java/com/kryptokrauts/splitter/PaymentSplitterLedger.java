@@ -0,0 +1,364 @@
+package com.kryptokrauts.splitter;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.kryptokrauts.aeternity.sdk.constants.ApiIdentifiers;
+import com.kryptokrauts.aeternity.sdk.util.EncodingUtils;
+import com.kryptokrauts.chain.BlockEvent;
+import com.kryptokrauts.chain.BlockEvent.BlockType;
+import com.kryptokrauts.chain.ChainFeed;
+import com.kryptokrauts.chain.ChainTransaction;
+import com.kryptokrauts.chain.ContractEvent;
+import com.kryptokrauts.chain.NodeApi;
+import com.kryptokrauts.chain.NodeApi.Generation;
+import com.kryptokrauts.chain.NodeApiException;
+import java.io.IOException;
+import java.math.BigInteger;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Ledger of the payouts of any number of {@code PaymentSplitter} instances, derived from their
+ * events instead of querying recipient accounts.
+ *
+ * <p>A splitter is registered with its {@code recipientConditions} and balance. From then on the
+ * ledger follows the chain: deposits by spends and calls, {@code RecipientAdded} and {@code
+ * AddressUpdated} change the weight table, and every {@code PaymentReceivedAndSplitted} is turned
+ * into one share per recipient, computed exactly like {@code payAndSplit} does.
+ *
+ * <p>The inputs are kept in an append-only {@link LedgerStore}. A restarted ledger replays the
+ * store and catches up the blocks it missed, so reports never require a remote call. Calls
+ * wrapped into generalized account meta transactions are not followed.
+ */
+@Slf4j
+public class PaymentSplitterLedger implements AutoCloseable {
+
+  private static final BigInteger RECIPIENT_ADDED = ContractEvent.topicHash("RecipientAdded");
+
+  private static final BigInteger ADDRESS_UPDATED = ContractEvent.topicHash("AddressUpdated");
+
+  private static final BigInteger UPDATING_ALL_RECIPIENTS =
+      ContractEvent.topicHash("UpdatingAllRecipients");
+
+  private static final BigInteger PAYMENT_RECEIVED_AND_SPLITTED =
+      ContractEvent.topicHash("PaymentReceivedAndSplitted");
+
+  private static final long RETRY_DELAY_MILLIS = 500;
+
+  private final ChainFeed chainFeed;
+
+  private final NodeApi nodeApi;
+
+  private final LedgerStore store;
+
+  /** guarded by this */
+  private final Map<String, SplitterState> splitters = new HashMap<>();
+
+  /** applies the records of the store, guarded by this */
+  private final LedgerStore.Listener state = new StateUpdater();
+
+  /** height of the last applied micro block, guarded by this */
+  private long appliedHeight = -1;
+
+  /** micro blocks applied at {@link #appliedHeight}, guarded by this */
+  private final Set<String> appliedBlocks = new HashSet<>();
+
+  private final BlockingQueue<BlockEvent> blocks = new LinkedBlockingQueue<>();
+
+  private final Consumer<BlockEvent> listener = blocks::add;
+
+  private final ExecutorService worker =
+      Executors.newSingleThreadExecutor(
+          runnable -> {
+            Thread thread = new Thread(runnable, "payment-splitter-ledger");
+            thread.setDaemon(true);
+            return thread;
+          });
+
+  /**
+   * @param chainFeed
+   * @param nodeApi used to read events and to catch up missed blocks
+   * @param storeFile the store, created if it doesn't exist, otherwise replayed
+   * @throws IOException
+   */
+  public PaymentSplitterLedger(ChainFeed chainFeed, NodeApi nodeApi, Path storeFile)
+      throws IOException {
+    this.chainFeed = chainFeed;
+    this.nodeApi = nodeApi;
+    this.store = new LedgerStore(storeFile);
+    synchronized (this) {
+      store.replay(state);
+    }
+    log.info("Replayed ledger of {} splitters up to height {}", splitters.size(), appliedHeight);
+  }
+
+  /**
+   * Starts tracking a splitter. Registering a splitter twice has no effect, so a restarted
+   * application may register all its splitters again.
+   *
+   * @param contractId
+   * @param recipientConditions the current weights by recipient, e.g. the ones of {@code init}
+   * @param balance the current balance of the contract, zero for a fresh deployment
+   */
+  public synchronized void register(
+      String contractId, Map<String, BigInteger> recipientConditions, BigInteger balance) {
+    if (splitters.containsKey(contractId)) {
+      return;
+    }
+    LedgerStore.Frame frame = store.frame();
+    frame.registered(contractId, balance);
+    frame.weightsReplaced(contractId, toWeights(recipientConditions));
+    frame.commit(state);
+  }
+
+  /** catch up missed blocks and follow the chain in the background */
+  public void start() {
+    chainFeed.addListener(listener);
+    chainFeed.start();
+    worker.execute(this::run);
+  }
+
+  /** @return the reports of all registered splitters */
+  public synchronized List<SplitterReport> reports() {
+    return splitters.values().stream().map(SplitterState::report).collect(Collectors.toList());
+  }
+
+  /**
+   * @param contractId
+   * @return the report of the splitter, empty if it isn't registered
+   */
+  public synchronized Optional<SplitterReport> report(String contractId) {
+    return Optional.ofNullable(splitters.get(contractId)).map(SplitterState::report);
+  }
+
+  /**
+   * @param contractId
+   * @param recipient
+   * @return the sum of the shares the recipient received from the splitter
+   */
+  public synchronized BigInteger paidOut(String contractId, String recipient) {
+    SplitterState splitter = splitters.get(contractId);
+    return splitter == null ? BigInteger.ZERO : splitter.getPaidOut(recipient);
+  }
+
+  /**
+   * @param contractId
+   * @param recipient
+   * @return the shares the recipient received from the splitter, oldest first
+   */
+  public synchronized List<SplitPayment> history(String contractId, String recipient) {
+    SplitterState splitter = splitters.get(contractId);
+    return splitter == null ? List.of() : splitter.getHistory(recipient);
+  }
+
+  /** @return the height of the last micro block applied */
+  public synchronized long getAppliedHeight() {
+    return appliedHeight;
+  }
+
+  @Override
+  public void close() throws IOException {
+    chainFeed.removeListener(listener);
+    worker.shutdownNow();
+    store.close();
+  }
+
+  private void run() {
+    try {
+      catchUp();
+      while (!Thread.currentThread().isInterrupted()) {
+        BlockEvent block = blocks.take();
+        if (block.getType() == BlockType.MICRO && !isApplied(block.getHash(), block.getHeight())) {
+          apply(block.getHash(), block.getHeight(), block.getTransactions());
+        }
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    } catch (RuntimeException e) {
+      log.error("Ledger stopped", e);
+    }
+  }
+
+  /** apply the micro blocks mined since the last run, blocks seen by the feed meanwhile queue up */
+  private void catchUp() throws InterruptedException {
+    long from = getAppliedHeight();
+    if (from < 0) {
+      return;
+    }
+    long to = retry(nodeApi::getCurrentGeneration).getHeight();
+    for (long height = from; height <= to; height++) {
+      long generationHeight = height;
+      Generation generation = retry(() -> nodeApi.getGeneration(generationHeight));
+      for (String microBlock : generation.getMicroBlockHashes()) {
+        if (!isApplied(microBlock, height)) {
+          apply(microBlock, height, retry(() -> nodeApi.getMicroBlockTransactions(microBlock)));
+        }
+      }
+    }
+    log.info("Ledger caught up from height {} to {}", from, to);
+  }
+
+  private synchronized boolean isApplied(String blockHash, long height) {
+    return height < appliedHeight || (height == appliedHeight && appliedBlocks.contains(blockHash));
+  }
+
+  private void apply(String blockHash, long height, List<ChainTransaction> transactions)
+      throws InterruptedException {
+    Set<String> tracked;
+    synchronized (this) {
+      tracked = new HashSet<>(splitters.keySet());
+    }
+    LedgerStore.Frame frame = store.frame();
+    for (ChainTransaction tx : transactions) {
+      JsonNode body = tx.getTx();
+      if ("SpendTx".equals(tx.getType())) {
+        String recipient = contractOf(body.path("recipient_id").asText());
+        if (tracked.contains(recipient)) {
+          frame.deposited(recipient, body.path("amount").bigIntegerValue());
+        }
+      } else if ("ContractCallTx".equals(tx.getType())
+          && tracked.contains(body.path("contract_id").asText())) {
+        applyCall(frame, tx, height);
+      }
+    }
+    synchronized (this) {
+      if (frame.isEmpty() && height == appliedHeight) {
+        // only the first block of a generation is stored if nothing happened, a restart reads
+        // the others of the generation again
+        state.blockApplied(blockHash, height);
+      } else {
+        frame.blockApplied(blockHash, height);
+        frame.commit(state);
+      }
+    }
+  }
+
+  private void applyCall(LedgerStore.Frame frame, ChainTransaction tx, long height)
+      throws InterruptedException {
+    String contractId = tx.getTx().path("contract_id").asText();
+    JsonNode callInfo = retry(() -> nodeApi.getTransactionInfo(tx.getHash()));
+    if (!"ok".equals(callInfo.path("return_type").asText())) {
+      // the amount of a failed call is returned to the caller
+      return;
+    }
+    BigInteger amount = tx.getTx().path("amount").bigIntegerValue();
+    if (amount.signum() > 0) {
+      frame.deposited(contractId, amount);
+    }
+    List<ContractEvent> events =
+        ContractEvent.fromCallInfo(callInfo).stream()
+            .filter(event -> event.getContractId().equals(contractId))
+            .collect(Collectors.toList());
+    // updateRecipientConditions emits one RecipientAdded per recipient of the new table
+    if (events.stream().anyMatch(event -> event.is(contractId, UPDATING_ALL_RECIPIENTS))) {
+      Map<String, Integer> weights = new LinkedHashMap<>();
+      for (ContractEvent event : events) {
+        if (event.is(contractId, RECIPIENT_ADDED)) {
+          List<BigInteger> arguments = event.getArguments();
+          weights.put(address(arguments.get(0)), arguments.get(1).intValueExact());
+        }
+      }
+      frame.weightsReplaced(contractId, weights);
+    }
+    for (ContractEvent event : events) {
+      List<BigInteger> arguments = event.getArguments();
+      if (event.is(contractId, ADDRESS_UPDATED)) {
+        frame.addressUpdated(contractId, address(arguments.get(0)), address(arguments.get(1)));
+      } else if (event.is(contractId, PAYMENT_RECEIVED_AND_SPLITTED)) {
+        frame.splitted(
+            contractId,
+            tx.getHash(),
+            height,
+            address(arguments.get(0)),
+            arguments.get(1),
+            arguments.get(2));
+      }
+    }
+  }
+
+  /** skipping a block would corrupt the ledger, so retry until the node answers */
+  private <T> T retry(Supplier<T> request) throws InterruptedException {
+    while (true) {
+      try {
+        return request.get();
+      } catch (NodeApiException e) {
+        log.warn("Ledger request failed, retrying: {}", e.getMessage());
+        Thread.sleep(RETRY_DELAY_MILLIS);
+      }
+    }
+  }
+
+  private static Map<String, Integer> toWeights(Map<String, BigInteger> recipientConditions) {
+    Map<String, Integer> weights = new LinkedHashMap<>();
+    recipientConditions.forEach(
+        (recipient, weight) -> weights.put(recipient, weight.intValueExact()));
+    return weights;
+  }
+
+  private static String address(BigInteger topic) {
+    return EncodingUtils.encodeCheck(
+        ContractEvent.topicToAccountId(topic), ApiIdentifiers.ACCOUNT_PUBKEY);
+  }
+
+  /** a spend may address a contract by its account id, i.e. {@code ak_} with its public key */
+  private static String contractOf(String recipientId) {
+    return recipientId.startsWith("ak_") ? "ct_" + recipientId.substring(3) : recipientId;
+  }
+
+  /** applies records to the in-memory state, called with the ledger's monitor held */
+  private class StateUpdater implements LedgerStore.Listener {
+
+    @Override
+    public void registered(String contractId, BigInteger balance) {
+      splitters.put(contractId, new SplitterState(contractId, balance));
+    }
+
+    @Override
+    public void weightsReplaced(String contractId, Map<String, Integer> weights) {
+      splitters.get(contractId).replaceWeights(weights);
+    }
+
+    @Override
+    public void addressUpdated(String contractId, String oldAddress, String newAddress) {
+      splitters.get(contractId).updateAddress(oldAddress, newAddress);
+    }
+
+    @Override
+    public void deposited(String contractId, BigInteger amount) {
+      splitters.get(contractId).deposit(amount);
+    }
+
+    @Override
+    public void splitted(
+        String contractId,
+        String txHash,
+        long blockHeight,
+        String payer,
+        BigInteger value,
+        BigInteger remainder) {
+      splitters.get(contractId).split(txHash, blockHeight, payer, value, remainder);
+    }
+
+    @Override
+    public void blockApplied(String blockHash, long height) {
+      if (height > appliedHeight) {
+        appliedHeight = height;
+        appliedBlocks.clear();
+      }
+      appliedBlocks.add(blockHash);
+    }
+  }
+}
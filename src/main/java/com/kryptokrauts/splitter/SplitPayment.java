@@ -0,0 +1,24 @@
+package com.kryptokrauts.splitter;
+
+import java.math.BigInteger;
+import lombok.Value;
+
+/** The share a single recipient received from one {@code payAndSplit} call. */
+@Value
+public class SplitPayment {
+
+  String contractId;
+
+  String txHash;
+
+  long blockHeight;
+
+  /** the account calling {@code payAndSplit} */
+  String payer;
+
+  /** the value sent along with the call */
+  BigInteger value;
+
+  /** the amount sent to the recipient */
+  BigInteger amount;
+}
@@ -0,0 +1,38 @@
+package com.kryptokrauts.splitter;
+
+import java.math.BigInteger;
+import java.util.Map;
+import lombok.Value;
+
+/** Reconciliation state of a single {@code PaymentSplitter} instance, derived from its events. */
+@Value
+public class SplitterReport {
+
+  String contractId;
+
+  /** the current {@code recipientConditions} */
+  Map<String, Integer> weights;
+
+  /** matches {@code getTotalAmountSplitted()} */
+  BigInteger totalSplitted;
+
+  /** amount sent to every recipient who ever received a share */
+  Map<String, BigInteger> paidOut;
+
+  /** the rounding remainder left in the contract by the last split */
+  BigInteger balance;
+
+  /**
+   * false if the events didn't add up, e.g. the weights didn't sum up to 100 or the balance before
+   * a split differed from the one tracked
+   */
+  boolean consistent;
+
+  /**
+   * @return the sum of all shares, below the total splitted as the remainder of a split stays in
+   *     the contract and is counted again by the next one
+   */
+  public BigInteger getPaidOutTotal() {
+    return paidOut.values().stream().reduce(BigInteger.ZERO, BigInteger::add);
+  }
+}
@@ -0,0 +1,97 @@
+package com.kryptokrauts.splitter;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * State of one splitter, driven by the same calls when following the chain and when replaying the
+ * store. Not thread-safe, the ledger synchronizes access.
+ */
+class SplitterState {
+
+  private static final BigInteger HUNDRED = BigInteger.valueOf(100);
+
+  private final String contractId;
+
+  private Map<String, Integer> weights = new LinkedHashMap<>();
+
+  private BigInteger balance;
+
+  private BigInteger totalSplitted = BigInteger.ZERO;
+
+  private final Map<String, BigInteger> paidOut = new HashMap<>();
+
+  private final Map<String, List<SplitPayment>> history = new HashMap<>();
+
+  private boolean consistent = true;
+
+  SplitterState(String contractId, BigInteger balance) {
+    this.contractId = contractId;
+    this.balance = balance;
+  }
+
+  void replaceWeights(Map<String, Integer> recipientConditions) {
+    weights = new LinkedHashMap<>(recipientConditions);
+  }
+
+  /** mirrors {@code updateAddress}, the new address takes over the weight */
+  void updateAddress(String oldAddress, String newAddress) {
+    Integer weight = weights.remove(oldAddress);
+    if (weight == null) {
+      consistent = false;
+      return;
+    }
+    weights.put(newAddress, weight);
+  }
+
+  void deposit(BigInteger amount) {
+    balance = balance.add(amount);
+  }
+
+  /**
+   * mirrors {@code payAndSplit}: every recipient gets {@code balance / 100 * weight}
+   *
+   * @param remainder the balance left after the split, as emitted by the event
+   */
+  void split(
+      String txHash, long blockHeight, String payer, BigInteger value, BigInteger remainder) {
+    int weightSum = weights.values().stream().mapToInt(Integer::intValue).sum();
+    if (weightSum != 100 || !balance.mod(HUNDRED).equals(remainder)) {
+      consistent = false;
+    }
+    BigInteger unit = balance.divide(HUNDRED);
+    weights.forEach(
+        (recipient, weight) -> {
+          BigInteger amount = unit.multiply(BigInteger.valueOf(weight));
+          paidOut.merge(recipient, amount, BigInteger::add);
+          history
+              .computeIfAbsent(recipient, key -> new ArrayList<>())
+              .add(new SplitPayment(contractId, txHash, blockHeight, payer, value, amount));
+        });
+    totalSplitted = totalSplitted.add(balance);
+    // the event tells the real remainder, which corrects a drifted balance
+    balance = remainder;
+  }
+
+  BigInteger getPaidOut(String recipient) {
+    return paidOut.getOrDefault(recipient, BigInteger.ZERO);
+  }
+
+  List<SplitPayment> getHistory(String recipient) {
+    return List.copyOf(history.getOrDefault(recipient, List.of()));
+  }
+
+  SplitterReport report() {
+    return new SplitterReport(
+        contractId,
+        Map.copyOf(weights),
+        totalSplitted,
+        Map.copyOf(paidOut),
+        balance,
+        consistent);
+  }
+}
@@ -0,0 +1,199 @@
+package com.kryptokrauts.token;
+
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+/**
+ * Open addressing hash table from 32 byte account ids to token balances, stored in parallel
+ * primitive arrays: four longs per key and two longs per balance. Balances which don't fit into
+ * 127 bits are kept aside as {@link BigInteger}, marked by a negative high word.
+ *
+ * <p>Not thread-safe, the owner has to synchronize access.
+ */
+class BalanceTable {
+
+  private static final int KEY_LONGS = 4;
+
+  private static final double MAX_LOAD = 0.5;
+
+  private long[] keys;
+
+  private long[] highs;
+
+  private long[] lows;
+
+  private boolean[] used;
+
+  /** balances wider than 127 bits by slot */
+  private Map<Integer, BigInteger> wideBalances = new HashMap<>();
+
+  private int size;
+
+  private BigInteger total = BigInteger.ZERO;
+
+  BalanceTable(int expectedHolders) {
+    int capacity = Integer.highestOneBit(Math.max(16, (int) (expectedHolders / MAX_LOAD)) - 1) << 1;
+    allocate(capacity);
+  }
+
+  BigInteger get(byte[] accountId) {
+    int slot = find(ByteBuffer.wrap(accountId));
+    return used[slot] ? balance(slot) : BigInteger.ZERO;
+  }
+
+  /** @return true if the account ever held a balance, even if it is zero now */
+  boolean contains(byte[] accountId) {
+    return used[find(ByteBuffer.wrap(accountId))];
+  }
+
+  void set(byte[] accountId, BigInteger balance) {
+    if (balance.signum() < 0) {
+      throw new IllegalArgumentException("Negative balance " + balance);
+    }
+    ByteBuffer key = ByteBuffer.wrap(accountId);
+    int slot = find(key);
+    if (!used[slot]) {
+      if (size + 1 > keys.length / KEY_LONGS * MAX_LOAD) {
+        allocate(keys.length / KEY_LONGS * 2);
+        slot = find(key);
+      }
+      used[slot] = true;
+      for (int i = 0; i < KEY_LONGS; i++) {
+        keys[slot * KEY_LONGS + i] = key.getLong(i * Long.BYTES);
+      }
+      size++;
+    } else {
+      total = total.subtract(balance(slot));
+    }
+    store(slot, balance);
+    total = total.add(balance);
+  }
+
+  void add(byte[] accountId, BigInteger delta) {
+    set(accountId, get(accountId).add(delta));
+  }
+
+  int size() {
+    return size;
+  }
+
+  BigInteger total() {
+    return total;
+  }
+
+  /** @return the account ids and balances of the largest holders, largest first */
+  List<Map.Entry<byte[], BigInteger>> top(int count) {
+    // min-heap of the best slots so far, the smallest of them is replaced first
+    PriorityQueue<Integer> best = new PriorityQueue<>(count + 1, this::compareSlots);
+    for (int slot = 0; slot < used.length; slot++) {
+      if (used[slot]) {
+        best.add(slot);
+        if (best.size() > count) {
+          best.poll();
+        }
+      }
+    }
+    List<Map.Entry<byte[], BigInteger>> result = new ArrayList<>(best.size());
+    while (!best.isEmpty()) {
+      int slot = best.poll();
+      result.add(0, Map.entry(accountId(slot), balance(slot)));
+    }
+    return result;
+  }
+
+  private int compareSlots(int first, int second) {
+    if (highs[first] < 0 || highs[second] < 0) {
+      return balance(first).compareTo(balance(second));
+    }
+    int compared = Long.compare(highs[first], highs[second]);
+    return compared != 0 ? compared : Long.compareUnsigned(lows[first], lows[second]);
+  }
+
+  /** @return the slot holding the key or the empty slot where it belongs */
+  private int find(ByteBuffer key) {
+    int mask = used.length - 1;
+    // account ids are public keys, so any of their bits is a good hash already
+    int slot = (int) (key.getLong(0) ^ key.getLong(Long.BYTES * 3)) & mask;
+    while (used[slot] && !matches(slot, key)) {
+      slot = (slot + 1) & mask;
+    }
+    return slot;
+  }
+
+  private boolean matches(int slot, ByteBuffer key) {
+    for (int i = 0; i < KEY_LONGS; i++) {
+      if (keys[slot * KEY_LONGS + i] != key.getLong(i * Long.BYTES)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private byte[] accountId(int slot) {
+    ByteBuffer accountId = ByteBuffer.allocate(KEY_LONGS * Long.BYTES);
+    for (int i = 0; i < KEY_LONGS; i++) {
+      accountId.putLong(keys[slot * KEY_LONGS + i]);
+    }
+    return accountId.array();
+  }
+
+  private BigInteger balance(int slot) {
+    if (highs[slot] < 0) {
+      return wideBalances.get(slot);
+    }
+    BigInteger low = BigInteger.valueOf(lows[slot] & Long.MAX_VALUE);
+    if (lows[slot] < 0) {
+      low = low.setBit(Long.SIZE - 1);
+    }
+    return BigInteger.valueOf(highs[slot]).shiftLeft(Long.SIZE).or(low);
+  }
+
+  private void store(int slot, BigInteger balance) {
+    if (balance.bitLength() < 2 * Long.SIZE) {
+      highs[slot] = balance.shiftRight(Long.SIZE).longValue();
+      lows[slot] = balance.longValue();
+      wideBalances.remove(slot);
+    } else {
+      highs[slot] = -1;
+      wideBalances.put(slot, balance);
+    }
+  }
+
+  private void allocate(int capacity) {
+    long[] oldKeys = keys;
+    long[] oldHighs = highs;
+    long[] oldLows = lows;
+    boolean[] oldUsed = used;
+    Map<Integer, BigInteger> oldWideBalances = wideBalances;
+
+    keys = new long[capacity * KEY_LONGS];
+    highs = new long[capacity];
+    lows = new long[capacity];
+    used = new boolean[capacity];
+    wideBalances = new HashMap<>();
+    if (oldUsed == null) {
+      return;
+    }
+    for (int oldSlot = 0; oldSlot < oldUsed.length; oldSlot++) {
+      if (oldUsed[oldSlot]) {
+        ByteBuffer key = ByteBuffer.allocate(KEY_LONGS * Long.BYTES);
+        for (int i = 0; i < KEY_LONGS; i++) {
+          key.putLong(oldKeys[oldSlot * KEY_LONGS + i]);
+        }
+        int slot = find(key);
+        used[slot] = true;
+        System.arraycopy(oldKeys, oldSlot * KEY_LONGS, keys, slot * KEY_LONGS, KEY_LONGS);
+        highs[slot] = oldHighs[oldSlot];
+        lows[slot] = oldLows[oldSlot];
+        if (oldHighs[oldSlot] < 0) {
+          wideBalances.put(slot, oldWideBalances.get(oldSlot));
+        }
+      }
+    }
+  }
+}
@@ -0,0 +1,13 @@
+package com.kryptokrauts.token;
+
+import java.math.BigInteger;
+import lombok.Value;
+
+/** An account holding tokens. */
+@Value
+public class Holder {
+
+  String address;
+
+  BigInteger balance;
+}
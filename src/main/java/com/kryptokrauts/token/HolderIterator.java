@@ -0,0 +1,160 @@
+package com.kryptokrauts.token;
+
+import static com.kryptokrauts.sophia.SophiaType.idType;
+import static com.kryptokrauts.sophia.SophiaType.intType;
+import static com.kryptokrauts.sophia.SophiaType.listType;
+import static com.kryptokrauts.sophia.SophiaType.tupleType;
+
+import com.kryptokrauts.aeternity.sdk.service.aeternity.impl.AeternityService;
+import com.kryptokrauts.aeternity.sdk.service.transaction.domain.ContractTxOptions;
+import com.kryptokrauts.metrics.CallMetrics;
+import com.kryptokrauts.metrics.MetricsRegistry;
+import com.kryptokrauts.sophia.SophiaCodec;
+import com.kryptokrauts.sophia.SophiaType;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Streams the holders of a {@code FungibleToken} contract page by page through its {@code
+ * holders_page(from, limit)} entrypoint instead of reading the whole {@code balances()} map.
+ *
+ * <p>While the holders of a page are consumed the next page is already being read, so at most two
+ * pages are held in memory. Holders are indexed in the order they received tokens for the first
+ * time and never removed, so holders added during the iteration are appended and still returned
+ * if they arrive before the last page is read.
+ */
+public class HolderIterator implements Iterator<Holder>, AutoCloseable {
+
+  private static final SophiaType PAGE = listType(tupleType(idType(), intType()));
+
+  /** reads a page of holders, e.g. by a read only call of {@code holders_page} */
+  @FunctionalInterface
+  public interface PageReader {
+
+    List<Holder> read(long from, int limit);
+  }
+
+  private final PageReader reader;
+
+  private final int pageSize;
+
+  private final ExecutorService prefetcher =
+      Executors.newSingleThreadExecutor(
+          runnable -> {
+            Thread thread = new Thread(runnable, "token-holder-prefetcher");
+            thread.setDaemon(true);
+            return thread;
+          });
+
+  private List<Holder> page = List.of();
+
+  private int position;
+
+  private long nextFrom;
+
+  /** the next page being read, null once the last page has been read */
+  private CompletableFuture<List<Holder>> prefetched;
+
+  /**
+   * @param reader reads the pages
+   * @param pageSize holders per page, bounded by the gas a read only call may use
+   */
+  public HolderIterator(PageReader reader, int pageSize) {
+    if (pageSize < 1) {
+      throw new IllegalArgumentException("Page size must be positive");
+    }
+    this.reader = reader;
+    this.pageSize = pageSize;
+    this.prefetched = fetch(0);
+  }
+
+  /**
+   * @param aeternityService service used for the read only calls
+   * @param contractId id of the token contract
+   * @param contractSource source code of the {@code FungibleToken} contract
+   * @param pageSize holders per page
+   * @return an iterator over all holders of the token, reading the first page right away
+   */
+  public static HolderIterator of(
+      AeternityService aeternityService, String contractId, String contractSource, int pageSize) {
+    CallMetrics metrics = MetricsRegistry.getDefault().calls(contractId, "holders_page");
+    return new HolderIterator(
+        (from, limit) -> {
+          Object result =
+              metrics.read(
+                  () ->
+                      aeternityService.transactions.blockingReadOnlyContractCall(
+                          contractId,
+                          "holders_page",
+                          contractSource,
+                          ContractTxOptions.builder()
+                              .params(List.of(BigInteger.valueOf(from), BigInteger.valueOf(limit)))
+                              .build()));
+          long start = System.nanoTime();
+          List<?> entries = (List<?>) SophiaCodec.convert(PAGE, result);
+          List<Holder> holders = new ArrayList<>(entries.size());
+          for (Object entry : entries) {
+            List<?> holder = (List<?>) entry;
+            holders.add(new Holder((String) holder.get(0), (BigInteger) holder.get(1)));
+          }
+          metrics.getDecode().recordSince(start);
+          return holders;
+        },
+        pageSize);
+  }
+
+  @Override
+  public boolean hasNext() {
+    while (position == page.size()) {
+      if (prefetched == null) {
+        return false;
+      }
+      page = await(prefetched);
+      position = 0;
+      nextFrom += page.size();
+      if (page.size() < pageSize) {
+        prefetched = null;
+        prefetcher.shutdown();
+      } else {
+        prefetched = fetch(nextFrom);
+      }
+    }
+    return true;
+  }
+
+  @Override
+  public Holder next() {
+    if (!hasNext()) {
+      throw new NoSuchElementException();
+    }
+    return page.get(position++);
+  }
+
+  /** stop prefetching if the iteration ends early */
+  @Override
+  public void close() {
+    prefetcher.shutdownNow();
+  }
+
+  private CompletableFuture<List<Holder>> fetch(long from) {
+    return CompletableFuture.supplyAsync(() -> reader.read(from, pageSize), prefetcher);
+  }
+
+  private static List<Holder> await(CompletableFuture<List<Holder>> page) {
+    try {
+      return page.join();
+    } catch (CompletionException e) {
+      if (e.getCause() instanceof RuntimeException) {
+        throw (RuntimeException) e.getCause();
+      }
+      throw new IllegalStateException("Reading holders failed", e.getCause());
+    }
+  }
+}
@@ -0,0 +1,294 @@
+package com.kryptokrauts.token;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.kryptokrauts.aeternity.sdk.constants.ApiIdentifiers;
+import com.kryptokrauts.aeternity.sdk.util.EncodingUtils;
+import com.kryptokrauts.chain.BlockEvent;
+import com.kryptokrauts.chain.ChainFeed;
+import com.kryptokrauts.chain.ChainTransaction;
+import com.kryptokrauts.chain.ContractEvent;
+import com.kryptokrauts.chain.NodeApi;
+import com.kryptokrauts.chain.NodeApi.Generation;
+import com.kryptokrauts.chain.NodeApiException;
+import com.kryptokrauts.contraect.generated.FungibleToken;
+import java.math.BigInteger;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Local index of the balances of a {@code FungibleToken} contract.
+ *
+ * <p>The index is seeded once from the contract's {@code balances()} entrypoint and then follows
+ * the chain, applying the {@code Transfer(from, to, value)} events of every micro block. Queries
+ * are answered from a compact in-memory table without contacting the node.
+ *
+ * <p>Events are read from the call info of every contract call, so transfers triggered by other
+ * contracts are covered as well. Calls wrapped into generalized account meta transactions are not
+ * followed.
+ */
+@Slf4j
+public class TokenBalanceIndex implements AutoCloseable {
+
+  private static final BigInteger TRANSFER = ContractEvent.topicHash("Transfer");
+
+  private static final Duration FIRST_BLOCK_TIMEOUT = Duration.ofSeconds(30);
+
+  private static final long RETRY_DELAY_MILLIS = 500;
+
+  private final String contractId;
+
+  private final Supplier<Map<String, BigInteger>> balances;
+
+  private final ChainFeed chainFeed;
+
+  private final NodeApi nodeApi;
+
+  /** guarded by this */
+  private final BalanceTable table;
+
+  private final BlockingQueue<BlockEvent> blocks = new LinkedBlockingQueue<>();
+
+  private final Consumer<BlockEvent> listener = blocks::add;
+
+  private final CompletableFuture<Void> seeded = new CompletableFuture<>();
+
+  private final ExecutorService worker =
+      Executors.newSingleThreadExecutor(
+          runnable -> {
+            Thread thread = new Thread(runnable, "token-balance-index");
+            thread.setDaemon(true);
+            return thread;
+          });
+
+  private volatile String appliedBlockHash;
+
+  /**
+   * @param contractId id of the token contract
+   * @param balances reads all balances of the token, i.e. calls {@code balances()}
+   * @param chainFeed
+   * @param nodeApi used to read the events of contract calls
+   * @param expectedHolders initial capacity of the index
+   */
+  public TokenBalanceIndex(
+      String contractId,
+      Supplier<Map<String, BigInteger>> balances,
+      ChainFeed chainFeed,
+      NodeApi nodeApi,
+      int expectedHolders) {
+    this.contractId = contractId;
+    this.balances = balances;
+    this.chainFeed = chainFeed;
+    this.nodeApi = nodeApi;
+    this.table = new BalanceTable(expectedHolders);
+  }
+
+  /**
+   * @param token instance of the generated class bound to the token contract
+   * @param contractId id of the token contract
+   * @param chainFeed
+   * @param nodeApi
+   * @return an index of the token which still has to be started
+   */
+  public static TokenBalanceIndex of(
+      FungibleToken token, String contractId, ChainFeed chainFeed, NodeApi nodeApi) {
+    return new TokenBalanceIndex(
+        contractId,
+        () ->
+            token.balances().entrySet().stream()
+                .collect(
+                    Collectors.toMap(entry -> entry.getKey().getAddress(), Map.Entry::getValue)),
+        chainFeed,
+        nodeApi,
+        1024);
+  }
+
+  /** subscribe to the chain feed and seed the index in the background */
+  public void start() {
+    chainFeed.addListener(listener);
+    chainFeed.start();
+    worker.execute(this::run);
+  }
+
+  /**
+   * wait until the index has been seeded and answers queries
+   *
+   * @param timeout
+   * @throws TimeoutException
+   * @throws InterruptedException
+   */
+  public void awaitSeeded(Duration timeout) throws TimeoutException, InterruptedException {
+    try {
+      seeded.get(timeout.toMillis(), TimeUnit.MILLISECONDS);
+    } catch (ExecutionException e) {
+      throw new IllegalStateException("Seeding the index failed", e.getCause());
+    }
+  }
+
+  /**
+   * @param address
+   * @return the balance of the account, zero if it never held tokens
+   */
+  public synchronized BigInteger balanceOf(String address) {
+    return table.get(accountId(address));
+  }
+
+  /**
+   * @param address
+   * @return true if the account ever held tokens, like {@code balance(address)} returning Some
+   */
+  public synchronized boolean isHolder(String address) {
+    return table.contains(accountId(address));
+  }
+
+  /**
+   * @param count
+   * @return the accounts with the largest balances, largest first
+   */
+  public synchronized List<Holder> topHolders(int count) {
+    return table.top(count).stream()
+        .map(
+            entry ->
+                new Holder(
+                    EncodingUtils.encodeCheck(entry.getKey(), ApiIdentifiers.ACCOUNT_PUBKEY),
+                    entry.getValue()))
+        .collect(Collectors.toList());
+  }
+
+  /** @return the number of accounts which ever held tokens */
+  public synchronized int holderCount() {
+    return table.size();
+  }
+
+  /** @return the sum of all balances, maintained on every change */
+  public synchronized BigInteger totalSupply() {
+    return table.total();
+  }
+
+  /**
+   * @param totalSupply the supply reported by the contract
+   * @return true if the indexed balances add up to the given supply
+   */
+  public boolean verifyTotalSupply(BigInteger totalSupply) {
+    return totalSupply().equals(totalSupply);
+  }
+
+  /** @return hash of the last block whose events have been applied */
+  public String getAppliedBlockHash() {
+    return appliedBlockHash;
+  }
+
+  @Override
+  public void close() {
+    chainFeed.removeListener(listener);
+    worker.shutdownNow();
+  }
+
+  private void run() {
+    try {
+      // the first block tells where the feed is, everything seeded later is at or after it
+      BlockEvent first = blocks.poll(FIRST_BLOCK_TIMEOUT.toMillis(), TimeUnit.MILLISECONDS);
+      Generation seedGeneration = seed();
+      String seedBlockHash = topBlockHash(seedGeneration);
+      appliedBlockHash = seedBlockHash;
+      seeded.complete(null);
+      log.info("Seeded index of {} with {} holders", contractId, holderCount());
+
+      boolean skipping = true;
+      BlockEvent block = first != null ? first : blocks.take();
+      while (!Thread.currentThread().isInterrupted()) {
+        if (skipping) {
+          // drop the blocks which are already covered by the seed
+          skipping =
+              block.getHeight() < seedGeneration.getHeight()
+                  || (block.getHeight() == seedGeneration.getHeight()
+                      && !block.getHash().equals(seedBlockHash));
+          if (block.getHash().equals(seedBlockHash)) {
+            block = blocks.take();
+            continue;
+          }
+        }
+        if (!skipping) {
+          apply(block);
+        }
+        block = blocks.take();
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    } catch (RuntimeException e) {
+      log.error("Index of {} stopped", contractId, e);
+      seeded.completeExceptionally(e);
+    }
+  }
+
+  /** seed from a state which is known to be the one of a specific block */
+  private Generation seed() throws InterruptedException {
+    while (true) {
+      Generation before = nodeApi.getCurrentGeneration();
+      Map<String, BigInteger> snapshot = balances.get();
+      Generation after = nodeApi.getCurrentGeneration();
+      if (topBlockHash(before).equals(topBlockHash(after))) {
+        synchronized (this) {
+          snapshot.forEach((address, balance) -> table.set(accountId(address), balance));
+        }
+        return after;
+      }
+      log.debug("Chain moved while seeding the index of {}, retrying", contractId);
+      Thread.sleep(RETRY_DELAY_MILLIS);
+    }
+  }
+
+  private void apply(BlockEvent block) throws InterruptedException {
+    for (ChainTransaction tx : block.getTransactions()) {
+      if ("ContractCallTx".equals(tx.getType())) {
+        for (ContractEvent event : ContractEvent.fromCallInfo(callInfo(tx.getHash()))) {
+          if (event.is(contractId, TRANSFER)) {
+            applyTransfer(event.getArguments());
+          }
+        }
+      }
+    }
+    appliedBlockHash = block.getHash();
+  }
+
+  private synchronized void applyTransfer(List<BigInteger> arguments) {
+    BigInteger value = arguments.get(2);
+    table.add(ContractEvent.topicToAccountId(arguments.get(0)), value.negate());
+    table.add(ContractEvent.topicToAccountId(arguments.get(1)), value);
+  }
+
+  /** skipping a call would corrupt the index, so retry until the node answers */
+  private JsonNode callInfo(String txHash) throws InterruptedException {
+    while (true) {
+      try {
+        return nodeApi.getTransactionInfo(txHash);
+      } catch (NodeApiException e) {
+        log.warn("Reading events of {} failed, retrying: {}", txHash, e.getMessage());
+        Thread.sleep(RETRY_DELAY_MILLIS);
+      }
+    }
+  }
+
+  private static String topBlockHash(Generation generation) {
+    List<String> microBlocks = generation.getMicroBlockHashes();
+    return microBlocks.isEmpty()
+        ? generation.getKeyBlockHash()
+        : microBlocks.get(microBlocks.size() - 1);
+  }
+
+  private static byte[] accountId(String address) {
+    return EncodingUtils.decodeCheckWithIdentifier(address);
+  }
+}
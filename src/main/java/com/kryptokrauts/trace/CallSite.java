@@ -0,0 +1,16 @@
+package com.kryptokrauts.trace;
+
+import lombok.Value;
+
+/** The contract and entrypoint a transaction calls. */
+@Value
+public class CallSite {
+
+  /** for transactions not calling a contract */
+  public static final CallSite NONE = new CallSite("", "");
+
+  /** contract name or id */
+  String contract;
+
+  String entrypoint;
+}
@@ -0,0 +1,30 @@
+package com.kryptokrauts.trace;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/** Loading a contract's bytecode and ACI on a miss of the in memory compile cache. */
+@Name("com.kryptokrauts.Compile")
+@Label("Compile")
+@Description("Loading a compiled contract from disk or the compiler")
+@Category({"Contraect", "Compiler"})
+public class CompileEvent extends Event {
+
+  @Label("Cache Key")
+  String cacheKey;
+
+  /** false if the contract had to be compiled */
+  @Label("Loaded From Disk")
+  boolean loadedFromDisk;
+
+  public CompileEvent(String cacheKey) {
+    this.cacheKey = cacheKey;
+  }
+
+  public void setLoadedFromDisk(boolean loadedFromDisk) {
+    this.loadedFromDisk = loadedFromDisk;
+  }
+}
@@ -0,0 +1,26 @@
+package com.kryptokrauts.trace;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/** Encoding the calldata of a contract call, which is a request to the compiler. */
+@Name("com.kryptokrauts.EncodeCalldata")
+@Label("Encode Calldata")
+@Description("Encoding the calldata of a contract call by the compiler")
+@Category({"Contraect", "Compiler"})
+public class EncodeCalldataEvent extends Event {
+
+  @Label("Contract")
+  String contract;
+
+  @Label("Entrypoint")
+  String entrypoint;
+
+  public EncodeCalldataEvent(CallSite callSite) {
+    this.contract = callSite.getContract();
+    this.entrypoint = callSite.getEntrypoint();
+  }
+}
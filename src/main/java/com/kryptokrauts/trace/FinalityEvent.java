@@ -0,0 +1,18 @@
+package com.kryptokrauts.trace;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/** From the inclusion into a micro block until the next key block closes its generation. */
+@Name("com.kryptokrauts.Finality")
+@Label("Finality")
+@Description("From the inclusion into a micro block until the next key block")
+public class FinalityEvent extends TransactionEvent {
+
+  @Label("Key Block Hash")
+  String keyBlockHash;
+
+  @Label("Height")
+  long height;
+}
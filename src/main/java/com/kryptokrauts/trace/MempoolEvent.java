@@ -0,0 +1,18 @@
+package com.kryptokrauts.trace;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/** Time a transaction spent in the mempool, from being accepted until its micro block. */
+@Name("com.kryptokrauts.Mempool")
+@Label("Mempool")
+@Description("From being accepted by the node until included into a micro block")
+public class MempoolEvent extends TransactionEvent {
+
+  @Label("Micro Block Hash")
+  String microBlockHash;
+
+  @Label("Height")
+  long height;
+}
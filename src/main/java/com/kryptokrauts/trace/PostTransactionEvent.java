@@ -0,0 +1,22 @@
+package com.kryptokrauts.trace;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/** Posting a signed transaction until the node accepted or rejected it. */
+@Name("com.kryptokrauts.PostTransaction")
+@Label("Post Transaction")
+@Description("Posting a signed transaction until the node accepted or rejected it")
+public class PostTransactionEvent extends TransactionEvent {
+
+  @Label("Tx Type")
+  String txType;
+
+  @Label("Attempt")
+  int attempt;
+
+  /** empty if the node accepted the transaction */
+  @Label("Error")
+  String error;
+}
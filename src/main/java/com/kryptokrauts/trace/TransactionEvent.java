@@ -0,0 +1,31 @@
+package com.kryptokrauts.trace;
+
+import jdk.jfr.Category;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+
+/** Stage of a transaction, identified by its hash and the call it performs. */
+@Category({"Contraect", "Transactions"})
+public abstract class TransactionEvent extends Event {
+
+  @Label("Tx Hash")
+  String txHash;
+
+  /** contract name or id, empty if the transaction doesn't call a contract */
+  @Label("Contract")
+  String contract;
+
+  @Label("Entrypoint")
+  String entrypoint;
+
+  /** -1 if the nonce isn't known, e.g. for transactions posted by generated classes */
+  @Label("Nonce")
+  long nonce;
+
+  void identify(String txHash, CallSite callSite, long nonce) {
+    this.txHash = txHash;
+    this.contract = callSite.getContract();
+    this.entrypoint = callSite.getEntrypoint();
+    this.nonce = nonce;
+  }
+}
@@ -0,0 +1,190 @@
+package com.kryptokrauts.trace;
+
+import com.kryptokrauts.chain.BlockEvent;
+import com.kryptokrauts.chain.BlockEvent.BlockType;
+import com.kryptokrauts.chain.ChainTransaction;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Traces transactions through their stages as JDK Flight Recorder events: {@link
+ * PostTransactionEvent}, {@link MempoolEvent} and {@link FinalityEvent}, along with the {@link
+ * EncodeCalldataEvent} and {@link CompileEvent} preceding them. Record a run with e.g. {@code
+ * -XX:StartFlightRecording=filename=target/contraect.jfr} and inspect it with {@code jfr print
+ * --events com.kryptokrauts.Mempool target/contraect.jfr} or JDK Mission Control.
+ *
+ * <p>Accepted transactions are only remembered while a recording has the mempool event enabled,
+ * without a recording tracing costs little more than creating the post events.
+ *
+ * <p>The contract and entrypoint of a transaction are taken from the {@link Scope} entered by the
+ * posting thread:
+ *
+ * <pre>
+ * try (Scope scope = tracer.enter(contractId, "proceedBatchPayment")) {
+ *   nonceManager.blockingPost(payer, nonce -&gt; callTransaction(nonce));
+ * }
+ * </pre>
+ */
+public class TransactionTracer {
+
+  private static final TransactionTracer DEFAULT = new TransactionTracer();
+
+  private static final int DEFAULT_CAPACITY = 100_000;
+
+  private final ThreadLocal<CallSite> callSite = ThreadLocal.withInitial(() -> CallSite.NONE);
+
+  /** accepted transactions waiting for their micro block, guarded by its own monitor */
+  private final Map<String, MempoolEvent> inMempool;
+
+  /** transactions waiting for the key block closing their generation, guarded by inMempool */
+  private final List<FinalityEvent> awaitingFinality = new ArrayList<>();
+
+  public TransactionTracer() {
+    this(DEFAULT_CAPACITY);
+  }
+
+  /** @param capacity transactions remembered at most between being accepted and mined */
+  public TransactionTracer(int capacity) {
+    this.inMempool =
+        new LinkedHashMap<>() {
+          @Override
+          protected boolean removeEldestEntry(Map.Entry<String, MempoolEvent> eldest) {
+            return size() > capacity;
+          }
+        };
+  }
+
+  /** @return the tracer used by components which are not given one explicitly */
+  public static TransactionTracer getDefault() {
+    return DEFAULT;
+  }
+
+  /**
+   * attribute the transactions posted by the current thread to the given call until the scope is
+   * closed
+   *
+   * @param contract contract name or id
+   * @param entrypoint
+   * @return the scope restoring the previous call site once closed
+   */
+  public Scope enter(String contract, String entrypoint) {
+    CallSite previous = callSite.get();
+    callSite.set(new CallSite(contract, entrypoint));
+    return () -> callSite.set(previous);
+  }
+
+  /** @return the call site of the current thread, {@link CallSite#NONE} outside of a scope */
+  public CallSite currentCallSite() {
+    return callSite.get();
+  }
+
+  /** @return a started event, to be passed to {@link #posted} */
+  public PostTransactionEvent beginPost() {
+    PostTransactionEvent event = new PostTransactionEvent();
+    event.begin();
+    return event;
+  }
+
+  /**
+   * finish the post event and start following the transaction if the node accepted it
+   *
+   * @param event the event returned by {@link #beginPost()}
+   * @param callSite the call site the transaction was created in
+   * @param txType e.g. {@code SpendTransactionModel}
+   * @param attempt 1 for the first post of the transaction
+   * @param nonce
+   * @param txHash hash of the accepted transaction, null if it was rejected
+   * @param error the rejection, null if it was accepted
+   */
+  public void posted(
+      PostTransactionEvent event,
+      CallSite callSite,
+      String txType,
+      int attempt,
+      long nonce,
+      String txHash,
+      Throwable error) {
+    event.end();
+    if (event.shouldCommit()) {
+      event.identify(txHash, callSite, nonce);
+      event.txType = txType;
+      event.attempt = attempt;
+      event.error = error != null ? String.valueOf(error.getMessage()) : "";
+      event.commit();
+    }
+    if (txHash != null) {
+      accepted(txHash, callSite, nonce);
+    }
+  }
+
+  /**
+   * follow a transaction posted elsewhere, e.g. by a generated class, through the mempool
+   *
+   * @param txHash
+   * @param callSite
+   * @param nonce -1 if unknown
+   */
+  public void accepted(String txHash, CallSite callSite, long nonce) {
+    MempoolEvent event = new MempoolEvent();
+    if (!event.isEnabled()) {
+      return;
+    }
+    event.identify(txHash, callSite, nonce);
+    event.begin();
+    synchronized (inMempool) {
+      inMempool.put(txHash, event);
+    }
+  }
+
+  /** @param block a block published by the chain feed followed by the confirmation tracker */
+  public void onBlock(BlockEvent block) {
+    synchronized (inMempool) {
+      if (block.getType() == BlockType.KEY) {
+        finish(block);
+        return;
+      }
+      if (inMempool.isEmpty()) {
+        return;
+      }
+      for (ChainTransaction tx : block.getTransactions()) {
+        MempoolEvent mempool = inMempool.remove(tx.getHash());
+        if (mempool != null) {
+          mempool.microBlockHash = block.getHash();
+          mempool.height = block.getHeight();
+          mempool.commit();
+          FinalityEvent finality = new FinalityEvent();
+          finality.txHash = mempool.txHash;
+          finality.contract = mempool.contract;
+          finality.entrypoint = mempool.entrypoint;
+          finality.nonce = mempool.nonce;
+          finality.height = block.getHeight();
+          finality.begin();
+          awaitingFinality.add(finality);
+        }
+      }
+    }
+  }
+
+  /** commit the finality of the transactions of the generations the key block closes */
+  private void finish(BlockEvent keyBlock) {
+    awaitingFinality.removeIf(
+        finality -> {
+          if (finality.height >= keyBlock.getHeight()) {
+            return false;
+          }
+          finality.keyBlockHash = keyBlock.getHash();
+          finality.commit();
+          return true;
+        });
+  }
+
+  /** restores the previous call site of the thread */
+  @FunctionalInterface
+  public interface Scope extends AutoCloseable {
+
+    @Override
+    void close();
+  }
+}
@@ -1,14 +1,12 @@
 package com.kryptokrauts;
 
+import com.kryptokrauts.account.FundingReport;
 import com.kryptokrauts.aeternity.sdk.constants.AENS;
 import com.kryptokrauts.aeternity.sdk.domain.secret.KeyPair;
 import com.kryptokrauts.aeternity.sdk.service.ServiceConfiguration;
-import com.kryptokrauts.aeternity.sdk.service.account.domain.AccountResult;
 import com.kryptokrauts.aeternity.sdk.service.delegation.DelegationService;
 import com.kryptokrauts.aeternity.sdk.service.delegation.DelegationServiceFactory;
 import com.kryptokrauts.aeternity.sdk.service.name.domain.NameEntryResult;
-import com.kryptokrauts.aeternity.sdk.service.transaction.domain.PostTransactionResult;
-import com.kryptokrauts.aeternity.sdk.service.transaction.type.model.SpendTransactionModel;
 import com.kryptokrauts.aeternity.sdk.service.unit.UnitConversionService;
 import com.kryptokrauts.aeternity.sdk.service.unit.impl.DefaultUnitConversionServiceImpl;
 import com.kryptokrauts.aeternity.sdk.util.CryptoUtils;
@@ -20,7 +18,9 @@ import com.kryptokrauts.contraect.generated.AENSDelegation.Hash;
 import com.kryptokrauts.contraect.generated.AENSDelegation.Pointee;
 import com.kryptokrauts.contraect.generated.AENSDelegation.Pointee.PointeeType;
 import com.kryptokrauts.contraect.generated.AENSDelegation.Signature;
+import com.kryptokrauts.payout.Payee;
 import java.math.BigInteger;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Random;
@@ -76,29 +76,20 @@ public class AENSDelegationTest extends BaseTest {
     newOwnerAddress = new Address(newOwnerKeyPair.getAddress());
     log.info(newOwnerAddress.toString());
 
-    AccountResult testAccount = aeternityService.accounts.blockingGetAccount();
-    SpendTransactionModel spendTransactionModel =
-        SpendTransactionModel.builder()
-            .amount(unitConversionService.toSmallestUnit("500")) // 500 AE
-            .nonce(testAccount.getNonce().add(BigInteger.ONE))
-            .recipient(nameOwnerKeyPair.getAddress())
-            .sender(config.getKeyPair().getAddress())
-            .build();
-    PostTransactionResult spendTxResult =
-        aeternityService.transactions.blockingPostTransaction(spendTransactionModel);
-    log.info("SpendTx result: {}", spendTxResult);
-
     // the new owner mustn't have zero balance for a successful revocation
     // see https://github.com/aeternity/aeternity/issues/3674
-    spendTransactionModel =
-        SpendTransactionModel.builder()
-            .amount(unitConversionService.toSmallestUnit("1")) // 1 AE
-            .nonce(testAccount.getNonce().add(BigInteger.valueOf(2)))
-            .recipient(newOwnerKeyPair.getAddress())
-            .sender(config.getKeyPair().getAddress())
-            .build();
-    spendTxResult = aeternityService.transactions.blockingPostTransaction(spendTransactionModel);
-    log.info("SpendTx result: {}", spendTxResult);
+    FundingReport fundingReport =
+        fundingService.fund(
+            baseKeyPair,
+            List.of(
+                new Payee(
+                    nameOwnerKeyPair.getAddress(),
+                    unitConversionService.toSmallestUnit("500")), // 500 AE
+                new Payee(
+                    newOwnerKeyPair.getAddress(),
+                    unitConversionService.toSmallestUnit("1")))); // 1 AE
+    log.info("Funding result: {}", fundingReport);
+    Assertions.assertTrue(fundingReport.isComplete());
 
     // initialize delegation service with correct config
     nameOwnerDelegationService =
@@ -0,0 +1,97 @@
+package com.kryptokrauts;
+
+import com.kryptokrauts.aeternity.sdk.constants.Network;
+import com.kryptokrauts.aeternity.sdk.constants.VirtualMachine;
+import com.kryptokrauts.aeternity.sdk.domain.secret.KeyPair;
+import com.kryptokrauts.aeternity.sdk.service.aeternity.AeternityServiceConfiguration;
+import com.kryptokrauts.aeternity.sdk.service.transaction.type.model.SpendTransactionModel;
+import com.kryptokrauts.async.AsyncContraect;
+import com.kryptokrauts.chain.MinedTransaction;
+import com.kryptokrauts.contraect.generated.CryptoHamster;
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+@Slf4j
+public class AsyncContraectTest extends BaseTest {
+
+  private static final int CALLERS = 4;
+
+  private static final int CALLS_PER_CALLER = 3;
+
+  private static final Duration MINED_TIMEOUT = Duration.ofSeconds(60);
+
+  @Test
+  public void keepsCallsOfManyCallersInFlight() throws Exception {
+    String contractId = new CryptoHamster(config, null).deploy().getValue1();
+    List<KeyPair> callers = fundedCallers();
+
+    try (AsyncContraect async = new AsyncContraect(confirmationTracker, MINED_TIMEOUT)) {
+      List<CompletableFuture<MinedTransaction>> calls = new ArrayList<>();
+      List<String> names = new ArrayList<>();
+      for (KeyPair caller : callers) {
+        CryptoHamster hamster = new CryptoHamster(submitOnly(caller), contractId);
+        for (int i = 0; i < CALLS_PER_CALLER; i++) {
+          String name = caller.getAddress().substring(3, 13) + i;
+          names.add(name);
+          calls.add(async.submit(caller, () -> hamster.createHamster(name)));
+        }
+      }
+      // everything is queued without blocking the test thread
+      Assertions.assertEquals(CALLERS, async.activeCallers());
+      CompletableFuture.allOf(calls.toArray(CompletableFuture[]::new)).join();
+
+      CryptoHamster reader = new CryptoHamster(config, contractId);
+      List<CompletableFuture<Boolean>> reads =
+          names.stream()
+              .map(name -> async.read(() -> reader.nameExists(name)))
+              .collect(Collectors.toList());
+      Assertions.assertTrue(reads.stream().allMatch(CompletableFuture::join));
+      Assertions.assertFalse(async.rxRead(() -> reader.nameExists("unknown")).blockingGet());
+    }
+  }
+
+  private List<KeyPair> fundedCallers() {
+    List<KeyPair> callers =
+        IntStream.range(0, CALLERS)
+            .mapToObj(i -> keyPairService.generateKeyPair())
+            .collect(Collectors.toList());
+    CompletableFuture.allOf(
+            callers.stream()
+                .map(
+                    caller ->
+                        nonceManager.blockingPost(
+                            baseKeyPair,
+                            nonce ->
+                                SpendTransactionModel.builder()
+                                    .sender(baseKeyPair.getAddress())
+                                    .recipient(caller.getAddress())
+                                    .amount(
+                                        unitConversionService18Decimals.toSmallestUnit(
+                                            BigDecimal.TEN))
+                                    .nonce(nonce)
+                                    .build()))
+                .map(result -> confirmationTracker.track(result.getTxHash(), MINED_TIMEOUT))
+                .toArray(CompletableFuture[]::new))
+        .join();
+    return callers;
+  }
+
+  private AeternityServiceConfiguration submitOnly(KeyPair caller) {
+    return AeternityServiceConfiguration.configure()
+        .compilerBaseUrl(config.getCompilerBaseUrl())
+        .baseUrl(config.getBaseUrl())
+        .network(Network.DEVNET)
+        .keyPair(caller)
+        .targetVM(VirtualMachine.FATE)
+        .waitForTxIncludedInBlockEnabled(false)
+        .compile();
+  }
+}
@@ -1,5 +1,10 @@
 package com.kryptokrauts;
 
+import com.kryptokrauts.account.FundingReport;
+import com.kryptokrauts.account.FundingService;
+import com.kryptokrauts.account.FundingSettings;
+import com.kryptokrauts.account.KeyPairPool;
+import com.kryptokrauts.account.KeyPairPoolSettings;
 import com.kryptokrauts.aeternity.sdk.constants.Network;
 import com.kryptokrauts.aeternity.sdk.constants.VirtualMachine;
 import com.kryptokrauts.aeternity.sdk.domain.secret.KeyPair;
@@ -10,6 +15,19 @@ import com.kryptokrauts.aeternity.sdk.service.keypair.KeyPairService;
 import com.kryptokrauts.aeternity.sdk.service.keypair.KeyPairServiceFactory;
 import com.kryptokrauts.aeternity.sdk.service.unit.UnitConversionService;
 import com.kryptokrauts.aeternity.sdk.service.unit.impl.DefaultUnitConversionServiceImpl;
+import com.kryptokrauts.chain.ChainFeed;
+import com.kryptokrauts.chain.ConfirmationTracker;
+import com.kryptokrauts.chain.NodeApi;
+import com.kryptokrauts.chain.NodePollingChainFeed;
+import com.kryptokrauts.compiler.CompileCache;
+import com.kryptokrauts.gas.GasEstimator;
+import com.kryptokrauts.nonce.NonceManager;
+import com.kryptokrauts.payout.Payee;
+import com.kryptokrauts.signing.SigningService;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.List;
 import org.junit.jupiter.api.BeforeAll;
 
 public class BaseTest {
@@ -28,6 +46,33 @@ public class BaseTest {
 
   protected static KeyPairService keyPairService = new KeyPairServiceFactory().getService();
 
+  protected static NonceManager nonceManager;
+
+  protected static NodeApi nodeApi;
+
+  /** shared by all tests, follows the chain head in the pace of the devnet's micro block cycle */
+  protected static ChainFeed chainFeed;
+
+  protected static ConfirmationTracker confirmationTracker;
+
+  protected static final Path COMPILE_CACHE_DIRECTORY = Paths.get("target", "contraect-cache");
+
+  protected static CompileCache compileCache;
+
+  /** shared by all tests so that gas profiles learned by one test serve the others */
+  protected static GasEstimator gasEstimator;
+
+  protected static SigningService signingService = new SigningService();
+
+  /** funds accounts through spends, uses the nonce manager of the current test class */
+  protected static FundingService fundingService;
+
+  /**
+   * fresh key pairs, funded ones are funded by a dedicated account so that the generated classes
+   * signing with the base key pair keep reading correct nonces from the chain
+   */
+  protected static KeyPairPool keyPairPool;
+
   @BeforeAll
   public static void init() {
     KeyPairService keyPairService = new KeyPairServiceFactory().getService();
@@ -43,5 +88,36 @@ public class BaseTest {
             .millisBetweenTrailsToWaitForConfirmation(100l)
             .compile();
     aeternityService = new AeternityServiceFactory().getService(config);
+    compileCache = new CompileCache(aeternityService, COMPILE_CACHE_DIRECTORY);
+    if (chainFeed == null) {
+      nodeApi = new NodeApi(config.getBaseUrl());
+      chainFeed = new NodePollingChainFeed(nodeApi, Duration.ofMillis(100));
+      confirmationTracker = new ConfirmationTracker(chainFeed);
+    }
+    nonceManager = new NonceManager(aeternityService, nodeApi);
+    if (gasEstimator == null) {
+      gasEstimator = new GasEstimator(aeternityService);
+    }
+    fundingService =
+        new FundingService(nonceManager, confirmationTracker, FundingSettings.builder().build());
+    if (keyPairPool == null) {
+      keyPairPool =
+          new KeyPairPool(fundingService, fundPoolFunder(), KeyPairPoolSettings.builder().build());
+      keyPairPool.start();
+    }
+  }
+
+  private static KeyPair fundPoolFunder() {
+    KeyPair funder = keyPairService.generateKeyPair();
+    FundingReport report =
+        fundingService.fund(
+            baseKeyPair,
+            List.of(
+                new Payee(
+                    funder.getAddress(), unitConversionService18Decimals.toSmallestUnit("1000"))));
+    if (!report.isComplete()) {
+      throw new IllegalStateException("Funding the key pair pool failed");
+    }
+    return funder;
   }
 }
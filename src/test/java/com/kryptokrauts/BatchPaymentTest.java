@@ -2,7 +2,6 @@ package com.kryptokrauts;
 
 import com.kryptokrauts.aeternity.sdk.domain.secret.KeyPair;
 import com.kryptokrauts.aeternity.sdk.service.account.domain.AccountResult;
-import com.kryptokrauts.aeternity.sdk.service.keypair.KeyPairServiceFactory;
 import com.kryptokrauts.contraect.generated.BatchPayment;
 import com.kryptokrauts.contraect.generated.BatchPayment.Address;
 import java.math.BigInteger;
@@ -40,11 +39,11 @@ public class BatchPaymentTest extends BaseTest {
     // initialize instance with previously deployed contract
     BatchPayment batchPaymentInstance = new BatchPayment(config, contractId);
 
-    recipient1 = new KeyPairServiceFactory().getService().generateKeyPair();
+    recipient1 = keyPairPool.generate();
     BigInteger recipient1Amount = unitConversionService18Decimals.toSmallestUnit("3.6465");
-    recipient2 = new KeyPairServiceFactory().getService().generateKeyPair();
+    recipient2 = keyPairPool.generate();
     BigInteger recipient2Amount = unitConversionService18Decimals.toSmallestUnit("8.23424");
-    recipient3 = new KeyPairServiceFactory().getService().generateKeyPair();
+    recipient3 = keyPairPool.generate();
     BigInteger recipient3Amount = unitConversionService18Decimals.toSmallestUnit("17.111");
 
     Map<Address, BigInteger> recipientMap = new HashMap<>();
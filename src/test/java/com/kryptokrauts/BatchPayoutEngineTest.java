@@ -0,0 +1,113 @@
+package com.kryptokrauts;
+
+import com.kryptokrauts.aeternity.sdk.domain.secret.KeyPair;
+import com.kryptokrauts.contraect.generated.BatchPayment;
+import com.kryptokrauts.payout.BatchPayoutEngine;
+import com.kryptokrauts.payout.ChunkResult;
+import com.kryptokrauts.payout.PayeeCsvReader;
+import com.kryptokrauts.payout.PayoutJournal;
+import com.kryptokrauts.payout.PayoutReport;
+import com.kryptokrauts.payout.PayoutSettings;
+import java.io.IOException;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.io.IOUtils;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+@Slf4j
+public class BatchPayoutEngineTest extends BaseTest {
+
+  private static final int PAYEES = 25;
+
+  private static BatchPayoutEngine engine;
+
+  @TempDir Path directory;
+
+  @BeforeAll
+  public static void deploy() throws IOException {
+    String contractId = new BatchPayment(config, null).deploy().getValue1();
+    String contractSource =
+        IOUtils.toString(
+            Paths.get("src/test/resources/contraects", "BatchPayment.aes").toUri(),
+            StandardCharsets.UTF_8.toString());
+    engine =
+        new BatchPayoutEngine(
+            aeternityService,
+            nonceManager,
+            confirmationTracker,
+            gasEstimator,
+            nodeApi,
+            contractId,
+            contractSource,
+            PayoutSettings.builder().maxChunkSize(10).build());
+  }
+
+  @Test
+  public void paysEveryoneOnceAcrossRuns() throws IOException {
+    List<KeyPair> recipients =
+        IntStream.range(0, PAYEES)
+            .mapToObj(i -> keyPairService.generateKeyPair())
+            .collect(Collectors.toList());
+    List<String> lines = new ArrayList<>(List.of("recipient,amount"));
+    for (int i = 0; i < PAYEES; i++) {
+      lines.add(recipients.get(i).getAddress() + "," + amount(i));
+    }
+    Path payees = Files.write(directory.resolve("payees.csv"), lines);
+    Path journalFile = directory.resolve("payout.journal");
+
+    PayoutReport report;
+    try (PayeeCsvReader reader = new PayeeCsvReader(payees);
+        PayoutJournal journal = new PayoutJournal(journalFile)) {
+      report = engine.payout(baseKeyPair, reader, journal);
+    }
+    log.info("Paid {} payees in chunks of {}", PAYEES, report.getChunkSize());
+    Assertions.assertTrue(report.isComplete(), () -> "Unpaid: " + report.getUnpaid());
+    Assertions.assertEquals(
+        (PAYEES + report.getChunkSize() - 1) / report.getChunkSize(), report.getResults().size());
+    Assertions.assertTrue(
+        report.getResults().stream()
+            .allMatch(result -> result.getStatus() == ChunkResult.Status.PAID));
+    assertBalances(recipients);
+
+    // a crash while appending leaves a torn last line, which must not be taken for a state
+    List<String> journaled = Files.readAllLines(journalFile);
+    String last = journaled.get(journaled.size() - 1);
+    Files.writeString(
+        journalFile, last.substring(0, last.length() / 2), StandardOpenOption.APPEND);
+
+    // running the same payout again must not pay anybody twice
+    PayoutReport rerun;
+    try (PayeeCsvReader reader = new PayeeCsvReader(payees);
+        PayoutJournal journal = new PayoutJournal(journalFile)) {
+      rerun = engine.payout(baseKeyPair, reader, journal);
+    }
+    Assertions.assertTrue(
+        rerun.getResults().stream()
+            .allMatch(result -> result.getStatus() == ChunkResult.Status.ALREADY_PAID));
+    assertBalances(recipients);
+  }
+
+  private void assertBalances(List<KeyPair> recipients) {
+    for (int i = 0; i < PAYEES; i++) {
+      String address = recipients.get(i).getAddress();
+      Assertions.assertEquals(
+          amount(i), aeternityService.accounts.blockingGetAccount(address).getBalance());
+    }
+  }
+
+  private static BigInteger amount(int payee) {
+    return BigInteger.valueOf(1000 + payee);
+  }
+}
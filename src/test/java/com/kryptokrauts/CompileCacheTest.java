@@ -0,0 +1,83 @@
+package com.kryptokrauts;
+
+import com.kryptokrauts.aeternity.sdk.constants.Network;
+import com.kryptokrauts.aeternity.sdk.service.aeternity.AeternityServiceConfiguration;
+import com.kryptokrauts.aeternity.sdk.service.aeternity.AeternityServiceFactory;
+import com.kryptokrauts.aeternity.sdk.service.aeternity.impl.AeternityService;
+import com.kryptokrauts.compiler.CompileCache;
+import com.kryptokrauts.compiler.CompileException;
+import com.kryptokrauts.compiler.CompiledContract;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Map;
+import java.util.stream.Stream;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.io.IOUtils;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+@Slf4j
+public class CompileCacheTest extends BaseTest {
+
+  @TempDir Path cacheDirectory;
+
+  @Test
+  public void compilesOnceAndServesFromDisk() throws IOException {
+    String sourceCode = getContractCode("CryptoHamster.aes");
+    CompileCache cache = new CompileCache(aeternityService, cacheDirectory);
+    CompiledContract compiled = cache.compile(sourceCode);
+    Assertions.assertTrue(compiled.getBytecode().startsWith("cb_"));
+    Assertions.assertNotNull(compiled.getAci());
+    Assertions.assertSame(compiled, cache.compile(sourceCode));
+    try (Stream<Path> files = Files.list(cacheDirectory)) {
+      Assertions.assertEquals(1, files.count());
+    }
+
+    // a fresh cache pointing to an unreachable compiler must be served from disk
+    String compilerVersion = aeternityService.compiler.blockingGetCompilerVersion().getResult();
+    AeternityService offlineService =
+        new AeternityServiceFactory()
+            .getService(
+                AeternityServiceConfiguration.configure()
+                    .compilerBaseUrl("http://localhost:1")
+                    .baseUrl("http://localhost")
+                    .network(Network.DEVNET)
+                    .keyPair(baseKeyPair)
+                    .compile());
+    CompiledContract fromDisk =
+        new CompileCache(offlineService, cacheDirectory, compilerVersion).compile(sourceCode);
+    Assertions.assertEquals(compiled, fromDisk);
+  }
+
+  @Test
+  public void keyCoversIncludes() throws IOException {
+    String sourceCode = getContractCode("CryptoHamster.aes");
+    CompileCache cache = new CompileCache(aeternityService, cacheDirectory);
+    cache.compile(sourceCode);
+    cache.compile(sourceCode, Map.of("Unused.aes", "namespace Unused =\n  function f() = 1\n"));
+    try (Stream<Path> files = Files.list(cacheDirectory)) {
+      Assertions.assertEquals(2, files.count());
+    }
+  }
+
+  @Test
+  public void doesNotCacheFailedCompilations() throws IOException {
+    CompileCache cache = new CompileCache(aeternityService, cacheDirectory);
+    String sourceCode = "contract Broken =\n  entrypoint f() = unknown_value\n";
+    Assertions.assertThrows(CompileException.class, () -> cache.compile(sourceCode));
+    Assertions.assertThrows(CompileException.class, () -> cache.compile(sourceCode));
+    try (Stream<Path> files = Files.list(cacheDirectory)) {
+      Assertions.assertEquals(0, files.count());
+    }
+  }
+
+  private String getContractCode(String contractName) throws IOException {
+    return IOUtils.toString(
+        Paths.get("src/test/resources/contraects", contractName).toUri(),
+        StandardCharsets.UTF_8.toString());
+  }
+}
@@ -0,0 +1,100 @@
+package com.kryptokrauts;
+
+import com.kryptokrauts.account.FundingReport;
+import com.kryptokrauts.account.FundingReport.Route;
+import com.kryptokrauts.account.FundingService;
+import com.kryptokrauts.account.FundingSettings;
+import com.kryptokrauts.contraect.generated.BatchPayment;
+import com.kryptokrauts.payout.BatchPayoutEngine;
+import com.kryptokrauts.payout.Payee;
+import com.kryptokrauts.payout.PayoutSettings;
+import java.io.IOException;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.io.IOUtils;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+@Slf4j
+public class FundingServiceTest extends BaseTest {
+
+  private static FundingService batchFundingService;
+
+  @BeforeAll
+  public static void deploy() throws IOException {
+    String contractId = new BatchPayment(config, null).deploy().getValue1();
+    String contractSource =
+        IOUtils.toString(
+            Paths.get("src/test/resources/contraects", "BatchPayment.aes").toUri(),
+            StandardCharsets.UTF_8.toString());
+    batchFundingService =
+        new FundingService(
+            nonceManager,
+            confirmationTracker,
+            new BatchPayoutEngine(
+                aeternityService,
+                nonceManager,
+                confirmationTracker,
+                gasEstimator,
+                nodeApi,
+                contractId,
+                contractSource,
+                PayoutSettings.builder().maxChunkSize(50).build()),
+            FundingSettings.builder().build());
+  }
+
+  @Test
+  public void routesByBatchSize() {
+    Assertions.assertEquals(Route.SPENDS, batchFundingService.cheapestRoute(1));
+    Assertions.assertEquals(Route.BATCH_PAYMENT, batchFundingService.cheapestRoute(100));
+    // without a contract everything is spent
+    Assertions.assertEquals(Route.SPENDS, fundingService.cheapestRoute(100));
+  }
+
+  @Test
+  public void fundsSmallBatchesWithSpends() {
+    List<Payee> payees = payees(3);
+    long start = System.currentTimeMillis();
+    FundingReport report = batchFundingService.fund(baseKeyPair, payees);
+    log.info("Funded {} payees in {} ms", payees.size(), System.currentTimeMillis() - start);
+    Assertions.assertEquals(Route.SPENDS, report.getRoute());
+    Assertions.assertTrue(report.isComplete(), () -> "Unfunded: " + report.getUnfunded());
+    Assertions.assertEquals(payees.size(), report.getTxHashes().size());
+    assertBalances(payees);
+  }
+
+  @Test
+  public void fundsLargeBatchesThroughTheContract() {
+    List<Payee> payees = payees(30);
+    long start = System.currentTimeMillis();
+    FundingReport report = batchFundingService.fund(baseKeyPair, payees, Route.BATCH_PAYMENT);
+    log.info("Funded {} payees in {} ms", payees.size(), System.currentTimeMillis() - start);
+    Assertions.assertEquals(Route.BATCH_PAYMENT, report.getRoute());
+    Assertions.assertTrue(report.isComplete(), () -> "Unfunded: " + report.getUnfunded());
+    assertBalances(payees);
+  }
+
+  private List<Payee> payees(int count) {
+    return IntStream.range(0, count)
+        .mapToObj(
+            i ->
+                new Payee(
+                    keyPairService.generateKeyPair().getAddress(),
+                    BigInteger.valueOf(1_000_000 + i)))
+        .collect(Collectors.toList());
+  }
+
+  private void assertBalances(List<Payee> payees) {
+    for (Payee payee : payees) {
+      Assertions.assertEquals(
+          payee.getAmount(),
+          aeternityService.accounts.blockingGetAccount(payee.getRecipient()).getBalance());
+    }
+  }
+}
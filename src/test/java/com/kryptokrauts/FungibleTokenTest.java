@@ -4,10 +4,18 @@ import com.kryptokrauts.aeternity.sdk.domain.secret.KeyPair;
 import com.kryptokrauts.contraect.generated.FungibleToken;
 import com.kryptokrauts.contraect.generated.FungibleToken.Meta_info;
 import com.kryptokrauts.contraect.generated.FungibleTokenInterface;
+import com.kryptokrauts.token.HolderIterator;
+import java.io.IOException;
 import java.math.BigDecimal;
 import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.Optional;
+import java.util.stream.Collectors;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.io.IOUtils;
 import org.javatuples.Pair;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.MethodOrderer;
@@ -109,4 +117,32 @@ public class FungibleTokenTest extends BaseTest {
         new FungibleTokenInterface.Meta_info("kryptokrauts", "KRAUT", BigInteger.valueOf(18)),
         metaInfo);
   }
+
+  @Test
+  @Order(5)
+  public void iterateHoldersPageByPage() throws IOException {
+    FungibleToken krautTokenInstance = new FungibleToken(config, contractId);
+    for (int i = 0; i < 5; i++) {
+      krautTokenInstance.transfer(
+          new FungibleToken.Address(keyPairService.generateKeyPair().getAddress()),
+          BigInteger.valueOf(i));
+    }
+    Map<String, BigInteger> balances =
+        krautTokenInstance.balances().entrySet().stream()
+            .collect(Collectors.toMap(entry -> entry.getKey().getAddress(), Map.Entry::getValue));
+    Assertions.assertEquals(
+        BigInteger.valueOf(balances.size()), krautTokenInstance.holders_count());
+
+    String contractSource =
+        IOUtils.toString(
+            Paths.get("src/test/resources/contraects", "FungibleToken.aes").toUri(),
+            StandardCharsets.UTF_8.toString());
+    Map<String, BigInteger> holders = new HashMap<>();
+    // a page size which doesn't divide the number of holders
+    try (HolderIterator iterator =
+        HolderIterator.of(aeternityService, contractId, contractSource, 3)) {
+      iterator.forEachRemaining(holder -> holders.put(holder.getAddress(), holder.getBalance()));
+    }
+    Assertions.assertEquals(balances, holders);
+  }
 }
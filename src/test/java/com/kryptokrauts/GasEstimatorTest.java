@@ -0,0 +1,115 @@
+package com.kryptokrauts;
+
+import com.kryptokrauts.aeternity.sdk.domain.secret.KeyPair;
+import com.kryptokrauts.aeternity.sdk.service.transaction.type.model.ContractCallTransactionModel;
+import com.kryptokrauts.contraect.generated.BatchPayment;
+import com.kryptokrauts.gas.GasEstimationRequest;
+import com.kryptokrauts.gas.GasEstimator;
+import java.io.IOException;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.io.IOUtils;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+@Slf4j
+public class GasEstimatorTest extends BaseTest {
+
+  private static final String ENTRYPOINT = "proceedBatchPayment";
+
+  private static String contractId;
+
+  private static String contractCode;
+
+  @BeforeAll
+  public static void deploy() throws IOException {
+    contractId = new BatchPayment(config, null).deploy().getValue1();
+    contractCode =
+        IOUtils.toString(
+            Paths.get("src/test/resources/contraects", "BatchPayment.aes").toUri(),
+            StandardCharsets.UTF_8.toString());
+  }
+
+  @Test
+  public void learnsProfileFromOneBatchedDryRun() {
+    BigInteger nonce =
+        aeternityService.accounts.blockingGetAccount(baseKeyPair.getAddress()).getNonce();
+    try (GasEstimator estimator =
+        new GasEstimator(aeternityService, 10, Duration.ofSeconds(1), 3, 1.1)) {
+      // the three requests share a single dry-run, so they carry consecutive nonces
+      List<CompletableFuture<BigInteger>> estimates =
+          IntStream.rangeClosed(1, 3)
+              .mapToObj(
+                  recipients ->
+                      estimator.estimate(
+                          request(recipients, nonce.add(BigInteger.valueOf(recipients)))))
+              .collect(Collectors.toList());
+      estimator.flush();
+      List<BigInteger> gasLimits =
+          estimates.stream().map(CompletableFuture::join).collect(Collectors.toList());
+      log.info("Estimated gas limits for 1-3 recipients: {}", gasLimits);
+      Assertions.assertTrue(gasLimits.get(0).compareTo(gasLimits.get(2)) < 0);
+
+      // three distinct sizes are enough to extrapolate, no dry-run needed anymore
+      GasEstimationRequest fiveRecipients = request(5, nonce.add(BigInteger.ONE));
+      BigInteger profiled = estimator.profiledEstimate(fiveRecipients).orElseThrow();
+      Assertions.assertTrue(profiled.compareTo(gasLimits.get(2)) > 0);
+
+      // the extrapolation must not undercut the gas really used
+      try (GasEstimator exact =
+          new GasEstimator(aeternityService, 10, Duration.ofMillis(10), 3, 1.0)) {
+        BigInteger gasUsed = exact.blockingEstimate(fiveRecipients);
+        log.info("Profiled {} vs. dry-run {} for 5 recipients", profiled, gasUsed);
+        Assertions.assertTrue(profiled.compareTo(gasUsed) >= 0);
+      }
+    }
+  }
+
+  private GasEstimationRequest request(int recipients, BigInteger nonce) {
+    List<KeyPair> keyPairs =
+        IntStream.range(0, recipients)
+            .mapToObj(i -> keyPairService.generateKeyPair())
+            .collect(Collectors.toList());
+    String recipientMap =
+        keyPairs.stream()
+            .map(keyPair -> "[" + keyPair.getAddress() + "] = 1")
+            .collect(Collectors.joining(",", "{", "}"));
+    return GasEstimationRequest.builder()
+        .contract(contractId)
+        .entrypoint(ENTRYPOINT)
+        .argumentSize(recipients)
+        .callerPublicKey(baseKeyPair.getAddress())
+        .unsignedTx(
+            () ->
+                aeternityService
+                    .transactions
+                    .blockingCreateUnsignedTransaction(
+                        ContractCallTransactionModel.builder()
+                            .callerId(baseKeyPair.getAddress())
+                            .contractId(contractId)
+                            .callData(
+                                aeternityService
+                                    .compiler
+                                    .blockingEncodeCalldata(
+                                        contractCode,
+                                        ENTRYPOINT,
+                                        List.of(recipientMap),
+                                        Collections.emptyMap())
+                                    .getResult())
+                            .amount(BigInteger.valueOf(recipients))
+                            .nonce(nonce)
+                            .virtualMachine(config.getTargetVM())
+                            .build())
+                    .getResult())
+        .build();
+  }
+}
@@ -0,0 +1,39 @@
+package com.kryptokrauts;
+
+import com.kryptokrauts.aeternity.sdk.domain.secret.KeyPair;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+@Slf4j
+public class KeyPairPoolTest extends BaseTest {
+
+  @Test
+  public void handsOutFundedKeyPairs() {
+    // more than the pool keeps ready, the rest is funded while the first ones are taken
+    List<KeyPair> taken =
+        IntStream.range(0, 15).mapToObj(i -> keyPairPool.take()).collect(Collectors.toList());
+    Set<String> addresses = new HashSet<>();
+    for (KeyPair keyPair : taken) {
+      Assertions.assertTrue(addresses.add(keyPair.getAddress()));
+      Assertions.assertEquals(
+          unitConversionService18Decimals.toSmallestUnit("1"),
+          aeternityService.accounts.blockingGetAccount(keyPair.getAddress()).getBalance());
+    }
+    log.info("{} funded key pairs ready after taking {}", keyPairPool.getFundedCount(), 15);
+  }
+
+  @Test
+  public void generatesDistinctKeyPairs() {
+    Set<String> addresses =
+        IntStream.range(0, 500)
+            .mapToObj(i -> keyPairPool.generate().getAddress())
+            .collect(Collectors.toSet());
+    Assertions.assertEquals(500, addresses.size());
+  }
+}
@@ -0,0 +1,116 @@
+package com.kryptokrauts;
+
+import com.kryptokrauts.aeternity.sdk.domain.secret.KeyPair;
+import com.kryptokrauts.aeternity.sdk.service.transaction.domain.PostTransactionResult;
+import com.kryptokrauts.aeternity.sdk.service.transaction.type.model.SpendTransactionModel;
+import com.kryptokrauts.chain.ConfirmationTracker;
+import com.kryptokrauts.metrics.CallMetrics;
+import com.kryptokrauts.metrics.Counter;
+import com.kryptokrauts.metrics.FailureReason;
+import com.kryptokrauts.metrics.MetricsRegistry;
+import com.kryptokrauts.metrics.Timer;
+import com.kryptokrauts.nonce.NonceManager;
+import java.lang.management.ManagementFactory;
+import java.math.BigInteger;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+@Slf4j
+public class MetricsTest extends BaseTest {
+
+  private static final int SPENDS = 3;
+
+  @Test
+  public void recordingDoesNotAllocate() {
+    MetricsRegistry registry = new MetricsRegistry();
+    Timer timer = registry.timer("test_seconds");
+    Counter counter = registry.counter("test_total");
+    registry.calls("FungibleToken", "transfer");
+    com.sun.management.ThreadMXBean threads =
+        (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    record(registry, timer, counter, 100_000);
+    long before = threads.getThreadAllocatedBytes(Thread.currentThread().getId());
+    record(registry, timer, counter, 1_000_000);
+    long allocated = threads.getThreadAllocatedBytes(Thread.currentThread().getId()) - before;
+
+    log.info("Allocated {} bytes for 1M recordings, timer {}", allocated, timer);
+    Assertions.assertTrue(allocated < 1024, () -> allocated + " bytes allocated");
+    Assertions.assertEquals(1_100_000, timer.count());
+  }
+
+  @Test
+  public void recordsPostsConfirmationsAndFailures() throws Exception {
+    MetricsRegistry registry = new MetricsRegistry();
+    NonceManager instrumentedNonceManager = new NonceManager(aeternityService, 5, 500, registry);
+    try (ConfirmationTracker instrumentedTracker =
+        new ConfirmationTracker(chainFeed, 1_000, registry)) {
+      KeyPair sender = keyPairPool.take();
+
+      List<PostTransactionResult> results = new ArrayList<>();
+      for (int i = 0; i < SPENDS; i++) {
+        String recipient = keyPairService.generateKeyPair().getAddress();
+        results.add(
+            instrumentedNonceManager.blockingPost(
+                sender,
+                nonce ->
+                    SpendTransactionModel.builder()
+                        .sender(sender.getAddress())
+                        .recipient(recipient)
+                        .amount(BigInteger.ONE)
+                        .nonce(nonce)
+                        .build()));
+      }
+      for (PostTransactionResult result : results) {
+        instrumentedTracker.awaitMined(result.getTxHash(), Duration.ofSeconds(30));
+      }
+      // expired long ago, the node rejects it
+      Assertions.assertThrows(
+          RuntimeException.class,
+          () ->
+              instrumentedNonceManager.blockingPost(
+                  sender,
+                  nonce ->
+                      SpendTransactionModel.builder()
+                          .sender(sender.getAddress())
+                          .recipient(sender.getAddress())
+                          .amount(BigInteger.ONE)
+                          .ttl(BigInteger.ONE)
+                          .nonce(nonce)
+                          .build()));
+
+      String scrape = registry.scrape();
+      log.info("Metrics:\n{}", scrape);
+      CallMetrics spends = registry.operations("transactions", "Spend");
+      Assertions.assertEquals(SPENDS, spends.getSubmit().count());
+      Assertions.assertEquals(
+          1,
+          Arrays.stream(FailureReason.values())
+              .mapToLong(reason -> spends.getFailures(reason).get())
+              .sum());
+      Assertions.assertEquals(SPENDS, registry.timer("contraect_tx_mined_seconds").count());
+      Assertions.assertTrue(
+          scrape.contains(
+              "aeternity_service_submit_seconds_count"
+                  + "{service=\"transactions\",operation=\"Spend\"} "
+                  + SPENDS));
+      Assertions.assertTrue(scrape.contains("contraect_tx_mined_seconds_count " + SPENDS));
+      Assertions.assertTrue(scrape.matches("(?s).*contraect_tx_pending\\{tracker=\"\\d+\"} 0\n.*"));
+    }
+    // a closed tracker is no longer scraped
+    Assertions.assertFalse(registry.scrape().contains("contraect_tx_pending"));
+  }
+
+  private static void record(MetricsRegistry registry, Timer timer, Counter counter, int times) {
+    for (int i = 0; i < times; i++) {
+      timer.recordNanos(i);
+      counter.increment();
+      registry.calls("FungibleToken", "transfer").getRetries().increment();
+    }
+  }
+}
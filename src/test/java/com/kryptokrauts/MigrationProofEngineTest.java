@@ -0,0 +1,119 @@
+package com.kryptokrauts;
+
+import com.kryptokrauts.migration.MerkleLeafFile;
+import com.kryptokrauts.migration.MigrationClaim;
+import com.kryptokrauts.migration.MigrationMerkleTree;
+import com.kryptokrauts.migration.MigrationProof;
+import com.kryptokrauts.migration.MigrationProofEngine;
+import com.kryptokrauts.migration.MigrationProofException;
+import com.kryptokrauts.migration.PreparedMigrations;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.math.BigInteger;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import org.bouncycastle.util.encoders.Hex;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class MigrationProofEngineTest extends BaseTest {
+
+  /** root of the mainnet contract, see {@link TokenMigrationTest} */
+  private static final String MAINNET_ROOT =
+      "E4DBC69BF2783B81B0423DA3F5B684C1D37CCFAE798474525C4001DB42C67669";
+
+  private static final int LEAVES = 10_001;
+
+  @TempDir static Path tempDir;
+
+  @Test
+  public void reproducesTheMainnetRoot() {
+    MigrationProof proof =
+        new MigrationProof(
+            "0x932cf9910672b8a26bd31141ff8f11e9b7dfa6e2",
+            new BigInteger("349185165700000000000"),
+            BigInteger.valueOf(12183),
+            Arrays.asList(
+                "051BDA22F68DA9DF313AF7CECC674719144C0F8ECA3FAB3198D7142B9CEAAC26",
+                "0CAB2FB45014E7525AEE712958160543F6FD72F5240190FC3DD8D81DE8C50273",
+                "06C6A716161F47FAB561CBB8396780248730967D7A29BB168C07FEF3A4D350E3",
+                "8E50602C4E28386DEACF5E13B6E6A61A6DFAE36B9E173DB7A049303EC2E53DB3",
+                "1B4D4F067BAFCD1FCCB4460AC31A05EED48563E7045DC4EF996E7D8C3EEB9EFD",
+                "3BB0582BD65EA4C994CB9391533B782A7136FB711B47C512556A97313C973F26",
+                "F884BF2270FACB34FD0A7C49092B102DFB2E43C42D3D38B44E394D9A258AEE93",
+                "19DA2DF18294D5E3E264AEBB48DA4D3622457BDD1162C7416198C732978DC210",
+                "D2888B644AE539E259B2D104214239F30B810ADE99874B5EFE68A0FD77CBC1A5",
+                "AD206ED34B49DA709CF01A84D53489D7908D78952181E9E61C536799189FE411",
+                "2FF75575202A4A1D4DF8F0888967A9E9ABEB3C364FFF1C9E9D51A946C7AD30F3",
+                "58517514D61EA90D01AA0A8547BA02D98D393DE25A615FAB868828DF88CF6769",
+                "AEEAFA5E07BB461264A856B13C3C346DFCD870EE48C1D4CE40A69DA720A8E2BD",
+                "764CEF512A9223E21BD5650B55245188876A83B15BB5B3B418B87E28F1B74FB9",
+                "7195B9E30E43FA2F188D69C5F61BB75A00CF639E7925CAF4C1FD2AF32D976B0B"));
+    Assertions.assertTrue(MigrationMerkleTree.verify(proof, MAINNET_ROOT));
+    Assertions.assertFalse(
+        MigrationMerkleTree.verify(
+            new MigrationProof(
+                proof.getEthAddress(),
+                proof.getTokenAmount().add(BigInteger.ONE),
+                proof.getLeafIndex(),
+                proof.getSiblings()),
+            MAINNET_ROOT));
+  }
+
+  @Test
+  public void preparesOnlyValidClaims() throws IOException {
+    List<MigrationClaim> claims = writeLeaves(tempDir.resolve("leaves.csv"));
+    ForkJoinPool pool = new ForkJoinPool(4);
+    try (MerkleLeafFile leaves = new MerkleLeafFile(tempDir.resolve("leaves.csv"))) {
+      Assertions.assertEquals(LEAVES, leaves.size());
+      String root = MigrationMerkleTree.build(leaves, pool).getRoot();
+      MigrationProofEngine engine = new MigrationProofEngine(leaves, root, pool);
+
+      List<MigrationProof> proofs = engine.proveAll();
+      Assertions.assertEquals(LEAVES, proofs.size());
+      // the odd last leaf is paired with itself
+      Assertions.assertTrue(MigrationMerkleTree.verify(proofs.get(LEAVES - 1), root));
+
+      List<MigrationClaim> submitted = new ArrayList<>(claims.subList(0, 100));
+      MigrationClaim tooMuch =
+          new MigrationClaim(
+              claims.get(100).getEthAddress(),
+              claims.get(100).getTokenAmount().add(BigInteger.ONE));
+      MigrationClaim unknown = new MigrationClaim("0x" + "AB".repeat(20), BigInteger.ONE);
+      submitted.add(tooMuch);
+      submitted.add(unknown);
+      PreparedMigrations prepared = engine.prepareAll(submitted);
+      Assertions.assertEquals(100, prepared.getProofs().size());
+      Assertions.assertEquals(List.of(tooMuch, unknown), prepared.getRejected());
+      Assertions.assertEquals(proofs.get(42), prepared.getProofs().get(42));
+
+      Assertions.assertThrows(
+          MigrationProofException.class, () -> new MigrationProofEngine(leaves, MAINNET_ROOT));
+    } finally {
+      pool.shutdown();
+    }
+  }
+
+  private List<MigrationClaim> writeLeaves(Path file) throws IOException {
+    Random random = new Random(42);
+    List<MigrationClaim> claims = new ArrayList<>();
+    try (BufferedWriter writer = Files.newBufferedWriter(file)) {
+      for (int i = 0; i < LEAVES; i++) {
+        byte[] address = new byte[20];
+        random.nextBytes(address);
+        MigrationClaim claim =
+            new MigrationClaim(
+                "0x" + Hex.toHexString(address), BigInteger.valueOf(random.nextInt(1_000_000) + 1));
+        claims.add(claim);
+        writer.write(claim.getEthAddress() + "," + claim.getTokenAmount() + "\n");
+      }
+    }
+    return claims;
+  }
+}
@@ -0,0 +1,89 @@
+package com.kryptokrauts;
+
+import com.kryptokrauts.aeternity.sdk.constants.Network;
+import com.kryptokrauts.aeternity.sdk.service.aeternity.AeternityServiceConfiguration;
+import com.kryptokrauts.aeternity.sdk.service.aeternity.AeternityServiceFactory;
+import com.kryptokrauts.aeternity.sdk.service.aeternity.impl.AeternityService;
+import com.kryptokrauts.contraect.generated.TokenMigration;
+import com.kryptokrauts.migration.MigrationStatusScanner;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Random;
+import org.apache.commons.io.IOUtils;
+import org.bouncycastle.util.encoders.Hex;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class MigrationStatusScannerTest extends BaseTest {
+
+  private static final String CONTRACT_ID = "ct_eJhrbPPS4V97VLKEVbSCJFpdA4uyXiZujQyLqMFoYV88TzDe6";
+
+  /** migrated according to {@link TokenMigrationTest} */
+  private static final String MIGRATED = "0x932cf9910672b8a26bd31141ff8f11e9b7dfa6e2";
+
+  private static AeternityServiceConfiguration mainnetConfig;
+
+  private static String contractSource;
+
+  @TempDir Path directory;
+
+  @BeforeAll
+  public static void configureMainnet() throws IOException {
+    mainnetConfig =
+        AeternityServiceConfiguration.configure()
+            .baseUrl("https://mainnet.aeternity.io")
+            .keyPair(keyPairService.generateKeyPair())
+            .network(Network.MAINNET)
+            .compile();
+    contractSource =
+        IOUtils.toString(
+            Paths.get("src/test/resources/contraects", "TokenMigration.aes").toUri(),
+            StandardCharsets.UTF_8.toString());
+  }
+
+  @Test
+  public void answersRepeatedChecksFromTheSnapshot() {
+    Path snapshotFile = directory.resolve("migrations.snapshot");
+    List<String> addresses = new ArrayList<>(List.of(MIGRATED));
+    Random random = new Random(7);
+    for (int i = 0; i < 120; i++) {
+      byte[] address = new byte[20];
+      random.nextBytes(address);
+      addresses.add("0x" + Hex.toHexString(address));
+    }
+
+    try (MigrationStatusScanner scanner = scanner(snapshotFile)) {
+      Map<String, Boolean> statuses = scanner.scan(addresses);
+      Assertions.assertEquals(addresses.size(), statuses.size());
+      Assertions.assertTrue(statuses.get(MIGRATED));
+      Assertions.assertEquals(1, statuses.values().stream().filter(Boolean::booleanValue).count());
+      Assertions.assertEquals(addresses.size(), scanner.getRemoteChecks());
+    }
+
+    // a new scanner starts from the persisted snapshot
+    try (MigrationStatusScanner scanner = scanner(snapshotFile)) {
+      Assertions.assertEquals(Optional.of(true), scanner.lookup(MIGRATED.toUpperCase()));
+      Assertions.assertEquals(Optional.of(false), scanner.lookup(addresses.get(1)));
+      Assertions.assertEquals(Optional.empty(), scanner.lookup("0x" + "00".repeat(20)));
+    }
+  }
+
+  private MigrationStatusScanner scanner(Path snapshotFile) {
+    AeternityService mainnet = new AeternityServiceFactory().getService(mainnetConfig);
+    return MigrationStatusScanner.of(
+        new TokenMigration(mainnetConfig, CONTRACT_ID),
+        mainnet,
+        CONTRACT_ID,
+        contractSource,
+        snapshotFile,
+        keyPairService.generateKeyPair().getAddress());
+  }
+}
@@ -0,0 +1,250 @@
+package com.kryptokrauts;
+
+import com.kryptokrauts.aeternity.sdk.constants.Network;
+import com.kryptokrauts.aeternity.sdk.constants.VirtualMachine;
+import com.kryptokrauts.aeternity.sdk.domain.secret.KeyPair;
+import com.kryptokrauts.aeternity.sdk.service.aeternity.AeternityServiceConfiguration;
+import com.kryptokrauts.aeternity.sdk.service.transaction.domain.PostTransactionResult;
+import com.kryptokrauts.aeternity.sdk.service.transaction.type.model.SpendTransactionModel;
+import com.kryptokrauts.node.MultiNodeClient;
+import com.kryptokrauts.node.MultiNodeSettings;
+import com.kryptokrauts.node.NodeStatus;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.math.BigInteger;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicReference;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+@Slf4j
+public class MultiNodeClientTest extends BaseTest {
+
+  private static final String NODE = "http://localhost";
+
+  /** the second node of docker-compose.yml */
+  private static final String NODE2 = "http://localhost:3023";
+
+  /** nothing listens here */
+  private static final String UNREACHABLE_NODE = "http://localhost:3999";
+
+  @Test
+  public void readsFromHealthyNodes() throws Exception {
+    try (MultiNodeClient client = client(NODE, NODE2)) {
+      awaitHealthy(client);
+      log.info("Nodes: {}", client.status());
+      String address = baseKeyPair.getAddress();
+      BigInteger balance =
+          client.read(service -> service.accounts.blockingGetAccount(address).getBalance());
+      Assertions.assertEquals(
+          aeternityService.accounts.blockingGetAccount(address).getBalance(),
+          balance);
+    }
+  }
+
+  @Test
+  public void writesOfASenderStickToOneNode() throws Exception {
+    try (MultiNodeClient client = client(NODE, NODE2)) {
+      awaitHealthy(client);
+      KeyPair sender = keyPairPool.take();
+      String writeNode = client.writeNodeOf(sender);
+      log.info("Writes of {} go to {}", sender.getAddress(), writeNode);
+
+      List<PostTransactionResult> results = new ArrayList<>();
+      for (int i = 0; i < 3; i++) {
+        results.add(
+            client.blockingPost(
+                sender,
+                nonce ->
+                    SpendTransactionModel.builder()
+                        .sender(sender.getAddress())
+                        .recipient(keyPairService.generateKeyPair().getAddress())
+                        .amount(BigInteger.ONE)
+                        .nonce(nonce)
+                        .build()));
+        Assertions.assertEquals(writeNode, client.writeNodeOf(sender));
+      }
+      // transactions posted to the second node are gossiped to the mining node
+      for (PostTransactionResult result : results) {
+        confirmationTracker.awaitMined(result.getTxHash(), Duration.ofSeconds(30));
+      }
+    }
+  }
+
+  @Test
+  public void writesMoveOnceTheAssignedNodeIsGone() throws Exception {
+    try (NodeProxy proxy = new NodeProxy(NODE);
+        NodeProxy proxy2 = new NodeProxy(NODE2);
+        MultiNodeClient client = client(proxy.getBaseUrl(), proxy2.getBaseUrl())) {
+      awaitHealthy(client);
+      KeyPair sender = keyPairPool.take();
+      String writeNode = client.writeNodeOf(sender);
+      for (int i = 0; i < 3; i++) {
+        PostTransactionResult result = client.blockingPost(sender, nonce -> spend(sender, nonce));
+        confirmationTracker.awaitMined(result.getTxHash(), Duration.ofSeconds(30));
+      }
+
+      // the assigned node becomes unreachable
+      (writeNode.equals(proxy.getBaseUrl()) ? proxy : proxy2).close();
+      long deadline = System.currentTimeMillis() + 10_000;
+      while (client.writeNodeOf(sender).equals(writeNode)) {
+        Assertions.assertTrue(
+            System.currentTimeMillis() < deadline, () -> "Writes didn't move: " + client.status());
+        Thread.sleep(200);
+      }
+      log.info(
+          "Writes of {} moved from {} to {}",
+          sender.getAddress(),
+          writeNode,
+          client.writeNodeOf(sender));
+
+      // the other node continues with the nonce following the mined transactions
+      BigInteger expectedNonce =
+          aeternityService
+              .accounts
+              .blockingGetAccount(sender.getAddress())
+              .getNonce()
+              .add(BigInteger.ONE);
+      AtomicReference<BigInteger> usedNonce = new AtomicReference<>();
+      PostTransactionResult result =
+          client.blockingPost(
+              sender,
+              nonce -> {
+                usedNonce.set(nonce);
+                return spend(sender, nonce);
+              });
+      Assertions.assertEquals(expectedNonce, usedNonce.get());
+      confirmationTracker.awaitMined(result.getTxHash(), Duration.ofSeconds(30));
+    }
+  }
+
+  @Test
+  public void routesAroundUnreachableNodes() {
+    try (MultiNodeClient client = client(UNREACHABLE_NODE, NODE)) {
+      List<NodeStatus> status = client.status();
+      log.info("Nodes: {}", status);
+      Assertions.assertFalse(status.get(0).isHealthy());
+      Assertions.assertTrue(status.get(1).isHealthy());
+
+      Assertions.assertEquals(NODE, client.readConfiguration().getBaseUrl());
+      Assertions.assertEquals(NODE, client.writeNodeOf(keyPairPool.generate()));
+      Assertions.assertNotNull(
+          client.read(service -> service.info.blockingGetCurrentKeyBlock().getHeight()));
+    }
+  }
+
+  private SpendTransactionModel spend(KeyPair sender, BigInteger nonce) {
+    return SpendTransactionModel.builder()
+        .sender(sender.getAddress())
+        .recipient(keyPairService.generateKeyPair().getAddress())
+        .amount(BigInteger.ONE)
+        .nonce(nonce)
+        .build();
+  }
+
+  private static MultiNodeClient client(String... baseUrls) {
+    List<AeternityServiceConfiguration> configurations = new ArrayList<>();
+    for (String baseUrl : baseUrls) {
+      configurations.add(
+          AeternityServiceConfiguration.configure()
+              .compilerBaseUrl("http://localhost:3080")
+              .baseUrl(baseUrl)
+              .network(Network.DEVNET)
+              .mdwBaseUrl("http://localhost:4000")
+              .keyPair(baseKeyPair)
+              .targetVM(VirtualMachine.FATE)
+              .millisBetweenTrailsToWaitForConfirmation(100l)
+              .compile());
+    }
+    return new MultiNodeClient(
+        configurations, MultiNodeSettings.builder().probeInterval(Duration.ofMillis(200)).build());
+  }
+
+  /** the second node might still be syncing */
+  private static void awaitHealthy(MultiNodeClient client) throws InterruptedException {
+    long deadline = System.currentTimeMillis() + 60_000;
+    while (!client.status().stream().allMatch(NodeStatus::isHealthy)) {
+      Assertions.assertTrue(
+          System.currentTimeMillis() < deadline, () -> "Nodes not healthy: " + client.status());
+      Thread.sleep(200);
+    }
+  }
+
+  /** forwards every request to a node until it is closed, to take the node away during a test */
+  private static class NodeProxy implements AutoCloseable {
+
+    private final String target;
+
+    private final HttpClient httpClient = HttpClient.newHttpClient();
+
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+
+    private final HttpServer server;
+
+    private boolean closed;
+
+    NodeProxy(String target) throws IOException {
+      this.target = target;
+      this.server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+      server.createContext("/", this::forward);
+      server.setExecutor(executor);
+      server.start();
+    }
+
+    String getBaseUrl() {
+      return "http://localhost:" + server.getAddress().getPort();
+    }
+
+    private void forward(HttpExchange exchange) throws IOException {
+      try {
+        byte[] body = exchange.getRequestBody().readAllBytes();
+        HttpRequest.Builder request =
+            HttpRequest.newBuilder(URI.create(target + exchange.getRequestURI()))
+                .method(
+                    exchange.getRequestMethod(),
+                    body.length == 0
+                        ? HttpRequest.BodyPublishers.noBody()
+                        : HttpRequest.BodyPublishers.ofByteArray(body));
+        String contentType = exchange.getRequestHeaders().getFirst("Content-Type");
+        if (contentType != null) {
+          request.header("Content-Type", contentType);
+        }
+        HttpResponse<byte[]> response =
+            httpClient.send(request.build(), HttpResponse.BodyHandlers.ofByteArray());
+        response
+            .headers()
+            .firstValue("Content-Type")
+            .ifPresent(value -> exchange.getResponseHeaders().set("Content-Type", value));
+        byte[] responseBody = response.body();
+        exchange.sendResponseHeaders(
+            response.statusCode(), responseBody.length == 0 ? -1 : responseBody.length);
+        exchange.getResponseBody().write(responseBody);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new IOException(e);
+      } finally {
+        exchange.close();
+      }
+    }
+
+    @Override
+    public synchronized void close() {
+      if (!closed) {
+        closed = true;
+        server.stop(0);
+        executor.shutdownNow();
+      }
+    }
+  }
+}
@@ -0,0 +1,151 @@
+package com.kryptokrauts;
+
+import com.kryptokrauts.aens.ClaimReport;
+import com.kryptokrauts.aens.ClaimSettings;
+import com.kryptokrauts.aens.NameClaimJournal;
+import com.kryptokrauts.aens.NameClaimResult;
+import com.kryptokrauts.aens.NameClaimScheduler;
+import com.kryptokrauts.aeternity.sdk.domain.secret.KeyPair;
+import com.kryptokrauts.aeternity.sdk.service.transaction.type.model.SpendTransactionModel;
+import com.kryptokrauts.chain.ConfirmationTracker;
+import com.kryptokrauts.contraect.generated.AENSDelegation;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.io.IOUtils;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+@Slf4j
+public class NameClaimSchedulerTest extends BaseTest {
+
+  private static final int NAMES = 12;
+
+  private static String contractId;
+
+  private static String contractSource;
+
+  private static NameClaimScheduler scheduler;
+
+  @TempDir Path directory;
+
+  @BeforeAll
+  public static void deploy() throws IOException {
+    contractId = new AENSDelegation(config, null).deploy().getValue1();
+    contractSource =
+        IOUtils.toString(
+            Paths.get("src/test/resources/contraects", "AENSDelegation.aes").toUri(),
+            StandardCharsets.UTF_8.toString());
+    scheduler =
+        new NameClaimScheduler(
+            aeternityService,
+            nonceManager,
+            confirmationTracker,
+            nodeApi,
+            chainFeed,
+            signingService,
+            config.getNetwork(),
+            contractId,
+            contractSource,
+            baseKeyPair,
+            ClaimSettings.builder().maxInFlight(NAMES / 2).build());
+  }
+
+  @Test
+  public void claimsAllNamesOnceAcrossRuns() throws IOException {
+    KeyPair owner = fundedOwner();
+    int prefix = new Random().nextInt(Integer.MAX_VALUE);
+    List<String> names =
+        IntStream.range(0, NAMES)
+            .mapToObj(i -> "scheduledClaimTestName" + prefix + "x" + i + ".chain")
+            .collect(Collectors.toList());
+    Path journalFile = directory.resolve("claims.journal");
+
+    long start = System.currentTimeMillis();
+    ClaimReport report;
+    try (NameClaimJournal journal = new NameClaimJournal(journalFile)) {
+      report = scheduler.claim(owner, names.iterator(), journal);
+    }
+    log.info("Claimed {} names in {} ms", NAMES, System.currentTimeMillis() - start);
+    Assertions.assertTrue(report.isComplete(), () -> "Unclaimed: " + report.getUnclaimed());
+    for (String name : names) {
+      Assertions.assertEquals(
+          owner.getAddress(), aeternityService.names.blockingGetNameId(name).getOwner());
+    }
+
+    // a second run with the same journal doesn't submit anything
+    ClaimReport rerun;
+    try (NameClaimJournal journal = new NameClaimJournal(journalFile)) {
+      rerun = scheduler.claim(owner, names.iterator(), journal);
+    }
+    Assertions.assertTrue(
+        rerun.getResults().stream()
+            .allMatch(result -> result.getStatus() == NameClaimResult.Status.ALREADY_CLAIMED));
+  }
+
+  @Test
+  public void resumesClaimMinedBeforeRestart() throws IOException {
+    KeyPair owner = fundedOwner();
+    String name = "resumedClaimTestName" + new Random().nextInt(Integer.MAX_VALUE) + ".chain";
+    Path journalFile = directory.resolve("claims.journal");
+    try (NameClaimJournal journal = new NameClaimJournal(journalFile)) {
+      Assertions.assertTrue(scheduler.claim(owner, List.of(name).iterator(), journal).isComplete());
+    }
+    // crash after the claim was posted, while the final CLAIMED line was only half written
+    List<String> lines = Files.readAllLines(journalFile);
+    String last = lines.get(lines.size() - 1);
+    Assertions.assertTrue(last.startsWith(name + " CLAIMED "));
+    Files.write(journalFile, lines.subList(0, lines.size() - 1));
+    Files.writeString(
+        journalFile, last.substring(0, last.length() / 2), StandardOpenOption.APPEND);
+
+    // a restarted process only sees blocks from now on, the claim was mined long before
+    ClaimReport rerun;
+    try (ConfirmationTracker restartedTracker = new ConfirmationTracker(chainFeed, 1);
+        NameClaimJournal journal = new NameClaimJournal(journalFile)) {
+      NameClaimScheduler restarted =
+          new NameClaimScheduler(
+              aeternityService,
+              nonceManager,
+              restartedTracker,
+              nodeApi,
+              chainFeed,
+              signingService,
+              config.getNetwork(),
+              contractId,
+              contractSource,
+              baseKeyPair,
+              ClaimSettings.builder().minedTimeout(Duration.ofSeconds(10)).build());
+      rerun = restarted.claim(owner, List.of(name).iterator(), journal);
+    }
+    Assertions.assertEquals(
+        NameClaimResult.Status.CLAIMED, rerun.getResults().get(0).getStatus());
+    try (NameClaimJournal journal = new NameClaimJournal(journalFile)) {
+      Assertions.assertEquals(
+          NameClaimJournal.State.CLAIMED, journal.get(name).orElseThrow().getState());
+    }
+  }
+
+  private KeyPair fundedOwner() {
+    KeyPair owner = keyPairService.generateKeyPair();
+    aeternityService.transactions.blockingPostTransaction(
+        SpendTransactionModel.builder()
+            .amount(unitConversionService18Decimals.toSmallestUnit("500"))
+            .nonce(nonceManager.nextNonce(config.getKeyPair()))
+            .recipient(owner.getAddress())
+            .sender(config.getKeyPair().getAddress())
+            .build());
+    return owner;
+  }
+}
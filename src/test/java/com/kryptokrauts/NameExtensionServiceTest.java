@@ -0,0 +1,135 @@
+package com.kryptokrauts;
+
+import com.kryptokrauts.aens.ClaimReport;
+import com.kryptokrauts.aens.ClaimSettings;
+import com.kryptokrauts.aens.ExtensionSettings;
+import com.kryptokrauts.aens.NameClaimJournal;
+import com.kryptokrauts.aens.NameClaimScheduler;
+import com.kryptokrauts.aens.NameExtensionService;
+import com.kryptokrauts.aeternity.sdk.domain.secret.KeyPair;
+import com.kryptokrauts.aeternity.sdk.service.transaction.type.model.SpendTransactionModel;
+import com.kryptokrauts.contraect.generated.AENSDelegation;
+import com.kryptokrauts.contraect.generated.AENSDelegation.Address;
+import com.kryptokrauts.contraect.generated.AENSDelegation.ChainTTL;
+import com.kryptokrauts.contraect.generated.AENSDelegation.ChainTTL.ChainTTLType;
+import com.kryptokrauts.contraect.generated.AENSDelegation.Signature;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Random;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.io.IOUtils;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+@Slf4j
+public class NameExtensionServiceTest extends BaseTest {
+
+  private static final int NAMES = 3;
+
+  private static final Duration EXTENSION_TIMEOUT = Duration.ofSeconds(30);
+
+  @TempDir Path directory;
+
+  @Test
+  public void extendsNamesWithinTheSafetyMargin() throws Exception {
+    String contractId = new AENSDelegation(config, null).deploy().getValue1();
+    String contractSource =
+        IOUtils.toString(
+            Paths.get("src/test/resources/contraects", "AENSDelegation.aes").toUri(),
+            StandardCharsets.UTF_8.toString());
+    KeyPair owner = keyPairService.generateKeyPair();
+    aeternityService.transactions.blockingPostTransaction(
+        SpendTransactionModel.builder()
+            .amount(unitConversionService18Decimals.toSmallestUnit("100"))
+            .nonce(nonceManager.nextNonce(config.getKeyPair()))
+            .recipient(owner.getAddress())
+            .sender(config.getKeyPair().getAddress())
+            .build());
+    int prefix = new Random().nextInt(Integer.MAX_VALUE);
+    List<String> names =
+        IntStream.range(0, NAMES)
+            .mapToObj(i -> "extensionTestName" + prefix + "x" + i + ".chain")
+            .collect(Collectors.toList());
+    ClaimReport claims;
+    try (NameClaimJournal journal = new NameClaimJournal(directory.resolve("claims.journal"))) {
+      claims =
+          new NameClaimScheduler(
+                  aeternityService,
+                  nonceManager,
+                  confirmationTracker,
+                  nodeApi,
+                  chainFeed,
+                  signingService,
+                  config.getNetwork(),
+                  contractId,
+                  contractSource,
+                  baseKeyPair,
+                  ClaimSettings.builder().build())
+              .claim(owner, names.iterator(), journal);
+    }
+    Assertions.assertTrue(claims.isComplete(), () -> "Unclaimed: " + claims.getUnclaimed());
+
+    // shorten the names' TTL into the safety margin
+    AENSDelegation aensDelegation = new AENSDelegation(config, contractId);
+    long shortTtl = chainFeed.currentHeight() + 100;
+    for (String name : names) {
+      aensDelegation.extend(
+          new Address(owner.getAddress()),
+          name,
+          new Signature(
+              signingService
+                  .aensDelegation(owner, config.getNetwork(), contractId, name)
+                  .join()),
+          Optional.of(new ChainTTL(BigInteger.valueOf(shortTtl), ChainTTLType.FixedTTL)));
+    }
+
+    Map<String, BigInteger> initialTtls = new HashMap<>();
+    try (NameExtensionService service =
+        new NameExtensionService(
+            aeternityService,
+            nonceManager,
+            confirmationTracker,
+            nodeApi,
+            chainFeed,
+            signingService,
+            config.getNetwork(),
+            contractId,
+            contractSource,
+            baseKeyPair,
+            ExtensionSettings.builder().safetyMargin(1000).build())) {
+      for (String name : names) {
+        initialTtls.put(name, aeternityService.names.blockingGetNameId(name).getTtl());
+        service.addName(owner, name);
+      }
+      service.start();
+
+      long deadline = System.currentTimeMillis() + EXTENSION_TIMEOUT.toMillis();
+      while (service.getExtendedCount() < NAMES) {
+        if (System.currentTimeMillis() > deadline) {
+          Assertions.fail(
+              "Only " + service.getExtendedCount() + " of " + NAMES + " names were extended");
+        }
+        Thread.sleep(200);
+      }
+      Assertions.assertEquals(NAMES, service.getTrackedCount());
+      for (String name : names) {
+        Assertions.assertTrue(service.getExpiresAt(name).get() > shortTtl);
+      }
+    }
+    for (String name : names) {
+      BigInteger ttl = aeternityService.names.blockingGetNameId(name).getTtl();
+      log.info("{} extended from {} to {}", name, initialTtls.get(name), ttl);
+      Assertions.assertTrue(ttl.compareTo(initialTtls.get(name)) > 0);
+    }
+  }
+}
@@ -0,0 +1,101 @@
+package com.kryptokrauts;
+
+import com.kryptokrauts.aeternity.sdk.domain.secret.KeyPair;
+import com.kryptokrauts.aeternity.sdk.service.transaction.domain.PostTransactionResult;
+import com.kryptokrauts.aeternity.sdk.service.transaction.type.model.SpendTransactionModel;
+import io.reactivex.Single;
+import java.math.BigInteger;
+import java.time.Duration;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+@Slf4j
+public class NonceManagerTest extends BaseTest {
+
+  private static final int NUM_SPENDS = 20;
+
+  private static final int MINED_TIMEOUT_SECONDS = 30;
+
+  @Test
+  public void pipelinedSpendsAreMined() throws Exception {
+    BigInteger amount = unitConversionService18Decimals.toSmallestUnit("0.1");
+    List<KeyPair> recipients =
+        IntStream.range(0, NUM_SPENDS)
+            .mapToObj(i -> keyPairService.generateKeyPair())
+            .collect(Collectors.toList());
+
+    // post all spends back-to-back without waiting for any of them to be mined
+    List<PostTransactionResult> results =
+        Single.merge(
+                recipients.stream()
+                    .map(
+                        recipient ->
+                            nonceManager.post(
+                                baseKeyPair,
+                                nonce ->
+                                    SpendTransactionModel.builder()
+                                        .amount(amount)
+                                        .sender(baseKeyPair.getAddress())
+                                        .recipient(recipient.getAddress())
+                                        .nonce(nonce)
+                                        .build()))
+                    .collect(Collectors.toList()))
+            .toList()
+            .blockingGet();
+    Assertions.assertEquals(NUM_SPENDS, results.size());
+    results.forEach(result -> log.info("posted spend tx: {}", result.getTxHash()));
+
+    for (PostTransactionResult result : results) {
+      awaitMined(result.getTxHash());
+    }
+    for (KeyPair recipient : recipients) {
+      Assertions.assertEquals(
+          amount,
+          aeternityService.accounts.blockingGetAccount(recipient.getAddress()).getBalance());
+    }
+  }
+
+  @Test
+  public void recoversFromForeignTransactions() throws Exception {
+    BigInteger amount = unitConversionService18Decimals.toSmallestUnit("0.1");
+    // make sure the manager knows the account before somebody else uses a nonce
+    nonceManager.release(baseKeyPair, nonceManager.nextNonce(baseKeyPair));
+    PostTransactionResult foreignTx =
+        aeternityService.transactions.blockingPostTransaction(
+            SpendTransactionModel.builder()
+                .amount(amount)
+                .sender(baseKeyPair.getAddress())
+                .recipient(keyPairService.generateKeyPair().getAddress())
+                .nonce(
+                    aeternityService
+                        .accounts
+                        .blockingGetAccount(baseKeyPair.getAddress())
+                        .getNonce()
+                        .add(BigInteger.ONE))
+                .build());
+    awaitMined(foreignTx.getTxHash());
+
+    KeyPair recipient = keyPairService.generateKeyPair();
+    PostTransactionResult result =
+        nonceManager.blockingPost(
+            baseKeyPair,
+            nonce ->
+                SpendTransactionModel.builder()
+                    .amount(amount)
+                    .sender(baseKeyPair.getAddress())
+                    .recipient(recipient.getAddress())
+                    .nonce(nonce)
+                    .build());
+    awaitMined(result.getTxHash());
+    Assertions.assertEquals(
+        amount, aeternityService.accounts.blockingGetAccount(recipient.getAddress()).getBalance());
+  }
+
+  private void awaitMined(String txHash) throws Exception {
+    confirmationTracker.awaitMined(txHash, Duration.ofSeconds(MINED_TIMEOUT_SECONDS));
+  }
+}
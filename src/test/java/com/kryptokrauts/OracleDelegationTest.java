@@ -1,14 +1,12 @@
 package com.kryptokrauts;
 
+import com.kryptokrauts.account.FundingReport;
 import com.kryptokrauts.aeternity.sdk.domain.secret.KeyPair;
 import com.kryptokrauts.aeternity.sdk.service.ServiceConfiguration;
-import com.kryptokrauts.aeternity.sdk.service.account.domain.AccountResult;
 import com.kryptokrauts.aeternity.sdk.service.delegation.DelegationService;
 import com.kryptokrauts.aeternity.sdk.service.delegation.DelegationServiceFactory;
 import com.kryptokrauts.aeternity.sdk.service.oracle.domain.OracleQueryResult;
 import com.kryptokrauts.aeternity.sdk.service.oracle.domain.RegisteredOracleResult;
-import com.kryptokrauts.aeternity.sdk.service.transaction.domain.PostTransactionResult;
-import com.kryptokrauts.aeternity.sdk.service.transaction.type.model.SpendTransactionModel;
 import com.kryptokrauts.contraect.generated.OracleDelegation;
 import com.kryptokrauts.contraect.generated.OracleDelegation.Address;
 import com.kryptokrauts.contraect.generated.OracleDelegation.ChainTTL;
@@ -16,7 +14,9 @@ import com.kryptokrauts.contraect.generated.OracleDelegation.ChainTTL.ChainTTLTy
 import com.kryptokrauts.contraect.generated.OracleDelegation.Oracle;
 import com.kryptokrauts.contraect.generated.OracleDelegation.Oracle_query;
 import com.kryptokrauts.contraect.generated.OracleDelegation.Signature;
+import com.kryptokrauts.payout.Payee;
 import java.math.BigInteger;
+import java.util.List;
 import lombok.extern.slf4j.Slf4j;
 import org.bouncycastle.crypto.CryptoException;
 import org.javatuples.Pair;
@@ -54,17 +54,11 @@ public class OracleDelegationTest extends BaseTest {
 
     // fund oracle keypair
     oracleKeyPair = keyPairService.generateKeyPair();
-    AccountResult testAccount = aeternityService.accounts.blockingGetAccount();
-    SpendTransactionModel spendTransactionModel =
-        SpendTransactionModel.builder()
-            .amount(new BigInteger("100000000"))
-            .nonce(testAccount.getNonce().add(BigInteger.ONE))
-            .recipient(oracleKeyPair.getAddress())
-            .sender(config.getKeyPair().getAddress())
-            .build();
-    PostTransactionResult spendTxResult =
-        aeternityService.transactions.blockingPostTransaction(spendTransactionModel);
-    log.info("SpendTx result: {}", spendTxResult);
+    FundingReport fundingReport =
+        fundingService.fund(
+            baseKeyPair,
+            List.of(new Payee(oracleKeyPair.getAddress(), new BigInteger("100000000"))));
+    log.info("Funding result: {}", fundingReport);
 
     // initialize delegation service with correct config for signature creation
     delegationService =
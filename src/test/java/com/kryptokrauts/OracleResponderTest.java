@@ -0,0 +1,105 @@
+package com.kryptokrauts;
+
+import com.kryptokrauts.aeternity.sdk.domain.secret.KeyPair;
+import com.kryptokrauts.aeternity.sdk.service.transaction.type.model.SpendTransactionModel;
+import com.kryptokrauts.contraect.generated.OracleDelegation;
+import com.kryptokrauts.contraect.generated.OracleDelegation.Address;
+import com.kryptokrauts.contraect.generated.OracleDelegation.ChainTTL;
+import com.kryptokrauts.contraect.generated.OracleDelegation.ChainTTL.ChainTTLType;
+import com.kryptokrauts.contraect.generated.OracleDelegation.Oracle;
+import com.kryptokrauts.contraect.generated.OracleDelegation.Signature;
+import com.kryptokrauts.oracle.DelegatedOracle;
+import com.kryptokrauts.oracle.OracleResponder;
+import com.kryptokrauts.oracle.ResponderSettings;
+import com.kryptokrauts.oracle.ResponderStats;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.time.Duration;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.io.IOUtils;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+@Slf4j
+public class OracleResponderTest extends BaseTest {
+
+  private static final int QUERIES = 5;
+
+  private static final Duration RESPONDER_TIMEOUT = Duration.ofSeconds(30);
+
+  @Test
+  public void answersAllOpenQueries() throws Exception {
+    OracleDelegation oracleDelegation = new OracleDelegation(config, null);
+    String contractId = oracleDelegation.deploy().getValue1();
+    String contractSource =
+        IOUtils.toString(
+            Paths.get("src/test/resources/contraects", "OracleDelegation.aes").toUri(),
+            StandardCharsets.UTF_8.toString());
+
+    KeyPair oracleKeyPair = keyPairService.generateKeyPair();
+    aeternityService.transactions.blockingPostTransaction(
+        SpendTransactionModel.builder()
+            .amount(new BigInteger("100000000"))
+            .nonce(nonceManager.nextNonce(config.getKeyPair()))
+            .recipient(oracleKeyPair.getAddress())
+            .sender(config.getKeyPair().getAddress())
+            .build());
+    String registerSignature =
+        signingService
+            .oracleDelegation(oracleKeyPair, config.getNetwork(), contractId, null)
+            .join();
+    Oracle oracle =
+        oracleDelegation
+            .register_oracle(
+                new Address(oracleKeyPair.getAddress()),
+                new Signature(registerSignature),
+                BigInteger.ONE,
+                new ChainTTL(new BigInteger("800"), ChainTTLType.RelativeTTL),
+                BigInteger.ZERO)
+            .getValue1();
+
+    // the generated class keeps creating queries with the base key pair, the responder's answers
+    // must not compete for its nonces
+    KeyPair responderKeyPair = keyPairPool.take();
+    try (OracleResponder responder =
+        new OracleResponder(
+            aeternityService,
+            nonceManager,
+            nodeApi,
+            chainFeed,
+            signingService,
+            config.getNetwork(),
+            contractId,
+            contractSource,
+            responderKeyPair,
+            ResponderSettings.builder().workers(4).build())) {
+      responder.addOracle(
+          new DelegatedOracle(oracleKeyPair, query -> "answer:" + query.getQuery()));
+      responder.start();
+
+      BigInteger queryFee = oracleDelegation.query_fee(oracle);
+      for (int i = 0; i < QUERIES; i++) {
+        oracleDelegation.create_query(
+            oracle,
+            "question " + i,
+            new ChainTTL(new BigInteger("100"), ChainTTLType.RelativeTTL),
+            new ChainTTL(new BigInteger("100"), ChainTTLType.RelativeTTL),
+            queryFee);
+      }
+
+      long deadline = System.currentTimeMillis() + RESPONDER_TIMEOUT.toMillis();
+      ResponderStats stats;
+      while ((stats = responder.stats()).getAnswered() < QUERIES) {
+        if (System.currentTimeMillis() > deadline) {
+          Assertions.fail("Not all queries were answered: " + stats);
+        }
+        Thread.sleep(200);
+      }
+      log.info("Responder stats: {}", stats);
+      Assertions.assertEquals(0, stats.getBacklog());
+      Assertions.assertEquals(0, stats.getExpired());
+      Assertions.assertTrue(stats.getLatencyP99Millis() <= stats.getLatencyMaxMillis());
+    }
+  }
+}
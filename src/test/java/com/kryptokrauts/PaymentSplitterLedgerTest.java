@@ -0,0 +1,111 @@
+package com.kryptokrauts;
+
+import com.kryptokrauts.aeternity.sdk.domain.secret.KeyPair;
+import com.kryptokrauts.contraect.generated.PaymentSplitter;
+import com.kryptokrauts.contraect.generated.PaymentSplitter.Address;
+import com.kryptokrauts.splitter.PaymentSplitterLedger;
+import com.kryptokrauts.splitter.SplitPayment;
+import com.kryptokrauts.splitter.SplitterReport;
+import java.math.BigInteger;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+@Slf4j
+public class PaymentSplitterLedgerTest extends BaseTest {
+
+  private static final Duration LEDGER_TIMEOUT = Duration.ofSeconds(20);
+
+  @TempDir Path directory;
+
+  @Test
+  public void reconcilesSplitsFromEvents() throws Exception {
+    KeyPair recipient1 = keyPairService.generateKeyPair();
+    KeyPair recipient2 = keyPairService.generateKeyPair();
+    KeyPair recipient3 = keyPairService.generateKeyPair();
+    Map<Address, BigInteger> recipientConditions =
+        Map.of(
+            new Address(recipient1.getAddress()), BigInteger.valueOf(60),
+            new Address(recipient2.getAddress()), BigInteger.valueOf(30),
+            new Address(recipient3.getAddress()), BigInteger.valueOf(10));
+    String contractId = new PaymentSplitter(config, null).deploy(recipientConditions).getValue1();
+    PaymentSplitter splitter = new PaymentSplitter(config, contractId);
+    Path storeFile = directory.resolve("splitters.ledger");
+
+    try (PaymentSplitterLedger ledger = new PaymentSplitterLedger(chainFeed, nodeApi, storeFile)) {
+      ledger.register(contractId, toAddresses(recipientConditions), BigInteger.ZERO);
+      ledger.start();
+
+      BigInteger tenAe = unitConversionService18Decimals.toSmallestUnit("10");
+      splitter.payAndSplit(tenAe);
+      SplitterReport report = awaitTotalSplitted(ledger, contractId, tenAe);
+      Assertions.assertEquals(
+          unitConversionService18Decimals.toSmallestUnit("6"),
+          ledger.paidOut(contractId, recipient1.getAddress()));
+      Assertions.assertEquals(
+          unitConversionService18Decimals.toSmallestUnit("3"),
+          ledger.paidOut(contractId, recipient2.getAddress()));
+      Assertions.assertEquals(
+          unitConversionService18Decimals.toSmallestUnit("1"),
+          ledger.paidOut(contractId, recipient3.getAddress()));
+      Assertions.assertEquals(tenAe, report.getPaidOutTotal());
+      Assertions.assertTrue(report.isConsistent());
+
+      // the new address takes over the weight, then all recipients are replaced
+      KeyPair recipient4 = keyPairService.generateKeyPair();
+      splitter.updateAddress(
+          new Address(recipient3.getAddress()), new Address(recipient4.getAddress()));
+      splitter.updateRecipientConditions(
+          Map.of(
+              new Address(recipient2.getAddress()), BigInteger.valueOf(50),
+              new Address(recipient4.getAddress()), BigInteger.valueOf(50)));
+      BigInteger oneAe = unitConversionService18Decimals.toSmallestUnit("1");
+      splitter.payAndSplit(oneAe);
+      report = awaitTotalSplitted(ledger, contractId, tenAe.add(oneAe));
+      log.info("Report: {}", report);
+
+      Assertions.assertEquals(splitter.getTotalAmountSplitted(), report.getTotalSplitted());
+      Assertions.assertEquals(
+          Map.of(recipient2.getAddress(), 50, recipient4.getAddress(), 50), report.getWeights());
+      List<SplitPayment> history = ledger.history(contractId, recipient2.getAddress());
+      Assertions.assertEquals(2, history.size());
+      Assertions.assertEquals(
+          unitConversionService18Decimals.toSmallestUnit("0.5"), history.get(1).getAmount());
+      Assertions.assertEquals(baseKeyPair.getAddress(), history.get(1).getPayer());
+    }
+
+    // a reopened ledger answers from its store
+    try (PaymentSplitterLedger ledger = new PaymentSplitterLedger(chainFeed, nodeApi, storeFile)) {
+      Assertions.assertEquals(
+          splitter.getTotalAmountSplitted(), ledger.report(contractId).get().getTotalSplitted());
+      Assertions.assertEquals(
+          unitConversionService18Decimals.toSmallestUnit("3.5"),
+          ledger.paidOut(contractId, recipient2.getAddress()));
+    }
+  }
+
+  private SplitterReport awaitTotalSplitted(
+      PaymentSplitterLedger ledger, String contractId, BigInteger expected)
+      throws InterruptedException {
+    long deadline = System.currentTimeMillis() + LEDGER_TIMEOUT.toMillis();
+    SplitterReport report;
+    while (!expected.equals((report = ledger.report(contractId).get()).getTotalSplitted())) {
+      if (System.currentTimeMillis() > deadline) {
+        Assertions.fail("Ledger didn't reach a total of " + expected + ": " + report);
+      }
+      Thread.sleep(100);
+    }
+    return report;
+  }
+
+  private static Map<String, BigInteger> toAddresses(Map<Address, BigInteger> conditions) {
+    return conditions.entrySet().stream()
+        .collect(Collectors.toMap(entry -> entry.getKey().getAddress(), Map.Entry::getValue));
+  }
+}
@@ -2,7 +2,6 @@ package com.kryptokrauts;
 
 import com.kryptokrauts.aeternity.sdk.domain.secret.KeyPair;
 import com.kryptokrauts.aeternity.sdk.service.account.domain.AccountResult;
-import com.kryptokrauts.aeternity.sdk.service.keypair.KeyPairServiceFactory;
 import com.kryptokrauts.contraect.generated.PaymentSplitter;
 import com.kryptokrauts.contraect.generated.PaymentSplitter.Address;
 import java.math.BigInteger;
@@ -29,9 +28,9 @@ public class PaymentSplitterTest extends BaseTest {
   @BeforeAll
   public static void deploy() {
     PaymentSplitter paymentSplitterInstance = new PaymentSplitter(config, null);
-    initialRecipient1 = new KeyPairServiceFactory().getService().generateKeyPair();
-    initialRecipient2 = new KeyPairServiceFactory().getService().generateKeyPair();
-    initialRecipient3 = new KeyPairServiceFactory().getService().generateKeyPair();
+    initialRecipient1 = keyPairPool.generate();
+    initialRecipient2 = keyPairPool.generate();
+    initialRecipient3 = keyPairPool.generate();
     Map<Address, BigInteger> recipientConditions = new HashMap<>();
     // should receive 60%
     recipientConditions.put(new Address(initialRecipient1.getAddress()), BigInteger.valueOf(60));
@@ -0,0 +1,59 @@
+package com.kryptokrauts;
+
+import com.kryptokrauts.aeternity.sdk.domain.secret.KeyPair;
+import com.kryptokrauts.cache.ContractReads;
+import com.kryptokrauts.cache.ReadCache;
+import com.kryptokrauts.contraect.generated.FungibleToken;
+import java.math.BigInteger;
+import java.util.Optional;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+@Slf4j
+public class ReadCacheTest extends BaseTest {
+
+  private static final BigInteger TOTAL_SUPPLY = BigInteger.valueOf(1_000);
+
+  private static final long BLOCK_TIMEOUT_MILLIS = 20_000;
+
+  @Test
+  public void servesReadsUntilTheChainMoves() throws InterruptedException {
+    String contractId =
+        new FungibleToken(config, null)
+            .deploy("cached", BigInteger.ZERO, "CACHE", Optional.of(TOTAL_SUPPLY))
+            .getValue1();
+    FungibleToken token = new FungibleToken(config, contractId);
+    KeyPair recipient = keyPairService.generateKeyPair();
+    FungibleToken.Address recipientAddress = new FungibleToken.Address(recipient.getAddress());
+
+    try (ReadCache readCache = new ReadCache(chainFeed, 100)) {
+      ContractReads reads = readCache.forContract(contractId);
+      Assertions.assertEquals(TOTAL_SUPPLY, reads.get("total_supply", token::total_supply));
+      Assertions.assertEquals(
+          reads.getImmutable("meta_info", token::meta_info),
+          reads.getImmutable("meta_info", token::meta_info));
+      Assertions.assertEquals(
+          Optional.empty(),
+          reads.get("balance", () -> token.balance(recipientAddress), recipientAddress));
+      log.info("hits: {}, misses: {}", readCache.getHits(), readCache.getMisses());
+      Assertions.assertTrue(readCache.getHits() >= 1);
+
+      // the block including the transfer invalidates the cached balance
+      token.transfer(recipientAddress, BigInteger.TEN);
+      long deadline = System.currentTimeMillis() + BLOCK_TIMEOUT_MILLIS;
+      while (!Optional.of(BigInteger.TEN)
+          .equals(reads.get("balance", () -> token.balance(recipientAddress), recipientAddress))) {
+        if (System.currentTimeMillis() > deadline) {
+          Assertions.fail("Cached balance was not invalidated by the next block");
+        }
+        Thread.sleep(100);
+      }
+
+      // immutable entries survive new blocks
+      long misses = readCache.getMisses();
+      reads.getImmutable("meta_info", token::meta_info);
+      Assertions.assertEquals(misses, readCache.getMisses());
+    }
+  }
+}
@@ -0,0 +1,67 @@
+package com.kryptokrauts;
+
+import com.kryptokrauts.aeternity.sdk.domain.secret.KeyPair;
+import com.kryptokrauts.aeternity.sdk.service.ServiceConfiguration;
+import com.kryptokrauts.aeternity.sdk.service.delegation.DelegationService;
+import com.kryptokrauts.aeternity.sdk.service.delegation.DelegationServiceFactory;
+import com.kryptokrauts.aeternity.sdk.util.SigningUtil;
+import com.kryptokrauts.signing.SigningService;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import org.bouncycastle.crypto.CryptoException;
+import org.bouncycastle.util.encoders.Hex;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class SigningServiceTest extends BaseTest {
+
+  private static final String CONTRACT_ID = "ct_2dh9hvKbVMxSm2DUGzBtNBYmDvPfuD6jR3U3EiUpkKmGPsh1U5";
+
+  @Test
+  public void batchSignaturesMatchSingleSignatures() throws Exception {
+    KeyPair signer = keyPairService.generateKeyPair();
+    List<String> hashes =
+        IntStream.range(0, 100)
+            .mapToObj(i -> Hex.toHexString(new byte[] {(byte) i, 1, 2, 3}))
+            .collect(Collectors.toList());
+    try (SigningService service = new SigningService(4, 1_000)) {
+      List<String> signatures = service.signHashes(signer, hashes);
+      Assertions.assertEquals(hashes.size(), signatures.size());
+      for (int i = 0; i < hashes.size(); i++) {
+        Assertions.assertEquals(
+            "#" + Hex.toHexString(SigningUtil.sign(hashes.get(i), signer.getEncodedPrivateKey())),
+            signatures.get(i));
+      }
+      // served from the cache
+      Assertions.assertSame(
+          service.signHash(signer, hashes.get(0)).join(),
+          service.signHash(signer, hashes.get(0)).join());
+    }
+  }
+
+  @Test
+  public void delegationSignaturesMatchDelegationService() throws CryptoException {
+    KeyPair nameOwner = keyPairService.generateKeyPair();
+    DelegationService delegationService =
+        new DelegationServiceFactory()
+            .getService(
+                ServiceConfiguration.configure()
+                    .network(config.getNetwork())
+                    .keyPair(nameOwner)
+                    .compile());
+    List<String> names = List.of("first.chain", "second.chain", "third.chain");
+    try (SigningService service = new SigningService(2, 0)) {
+      List<String> signatures =
+          service.aensDelegations(nameOwner, config.getNetwork(), CONTRACT_ID, names);
+      for (int i = 0; i < names.size(); i++) {
+        Assertions.assertEquals(
+            delegationService.createAensDelegationSignature(CONTRACT_ID, names.get(i)),
+            signatures.get(i));
+      }
+      Assertions.assertEquals(
+          delegationService.createOracleDelegationSignature(CONTRACT_ID),
+          service.oracleDelegation(nameOwner, config.getNetwork(), CONTRACT_ID, null).join());
+    }
+  }
+}
@@ -4,27 +4,27 @@ import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.fail;
 
-import com.kryptokrauts.aeternity.sdk.domain.StringResultWrapper;
+import com.kryptokrauts.account.FundingReport;
 import com.kryptokrauts.aeternity.sdk.domain.secret.KeyPair;
 import com.kryptokrauts.aeternity.sdk.domain.sophia.SophiaChainTTL;
 import com.kryptokrauts.aeternity.sdk.domain.sophia.SophiaChainTTL.Type;
 import com.kryptokrauts.aeternity.sdk.domain.sophia.SophiaHash;
 import com.kryptokrauts.aeternity.sdk.domain.sophia.SophiaSignature;
 import com.kryptokrauts.aeternity.sdk.service.account.domain.AccountResult;
-import com.kryptokrauts.aeternity.sdk.service.info.domain.TransactionResult;
 import com.kryptokrauts.aeternity.sdk.service.transaction.domain.ContractTxOptions;
 import com.kryptokrauts.aeternity.sdk.service.transaction.domain.ContractTxResult;
-import com.kryptokrauts.aeternity.sdk.service.transaction.domain.DryRunAccountModel;
-import com.kryptokrauts.aeternity.sdk.service.transaction.domain.DryRunRequest;
-import com.kryptokrauts.aeternity.sdk.service.transaction.domain.DryRunTransactionResult;
-import com.kryptokrauts.aeternity.sdk.service.transaction.domain.DryRunTransactionResults;
 import com.kryptokrauts.aeternity.sdk.service.transaction.domain.PostTransactionResult;
 import com.kryptokrauts.aeternity.sdk.service.transaction.type.model.AbstractTransactionModel;
 import com.kryptokrauts.aeternity.sdk.service.transaction.type.model.GeneralizedAccountsAttachTransactionModel;
-import com.kryptokrauts.aeternity.sdk.service.transaction.type.model.GeneralizedAccountsMetaTransactionModel;
 import com.kryptokrauts.aeternity.sdk.service.transaction.type.model.SpendTransactionModel;
 import com.kryptokrauts.aeternity.sdk.util.EncodingUtils;
-import com.kryptokrauts.aeternity.sdk.util.SigningUtil;
+import com.kryptokrauts.chain.MinedTransaction;
+import com.kryptokrauts.gas.GasEstimationRequest;
+import com.kryptokrauts.multisig.MultiSigCoordinator;
+import com.kryptokrauts.multisig.MultiSigProposal;
+import com.kryptokrauts.multisig.MultiSigResult;
+import com.kryptokrauts.multisig.MultiSigSettings;
+import com.kryptokrauts.payout.Payee;
 import io.reactivex.Single;
 import io.reactivex.observers.TestObserver;
 import java.io.IOException;
@@ -32,6 +32,7 @@ import java.math.BigDecimal;
 import java.math.BigInteger;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Paths;
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
@@ -41,7 +42,6 @@ import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.io.IOUtils;
-import org.bouncycastle.util.encoders.Hex;
 import org.javatuples.Pair;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -72,7 +72,7 @@ public class SimpleGAMultiSigTest extends BaseTest {
       attachGA();
       /** define recipient and amount */
       amountToSpend = unitConversionService18Decimals.toSmallestUnit(BigDecimal.ONE);
-      spendTxRecipient = keyPairService.generateKeyPair();
+      spendTxRecipient = keyPairPool.generate();
       log.debug(
           "Recipients ammount before ga spend transaction is: {}",
           getAccount(spendTxRecipient.getAddress()));
@@ -90,14 +90,32 @@ public class SimpleGAMultiSigTest extends BaseTest {
   @Test
   public void testGASuccessCase() throws Throwable {
     try {
-      /** First Signer proposes and automatically confirms */
-      this.proposeSpendTransaction(gaTxHash, DEFAULT_TTL, signers.get(0));
-
-      /** All other signers confirm */
-      IntStream.range(1, numToSign).forEach(i -> this.confirmSigner(gaTxHash, signers.get(i)));
-
-      /** Signer 2 calls Auth function (GAMeta tx) */
-      this.callAuthFunction(spendTxModel, signers.get(1));
+      /**
+       * First Signer proposes, all other signers confirm concurrently and Signer 2 calls Auth
+       * function (GAMeta tx) as soon as consensus is reached
+       */
+      MultiSigCoordinator coordinator =
+          new MultiSigCoordinator(
+              aeternityService,
+              nonceManager,
+              confirmationTracker,
+              nodeApi,
+              signingService,
+              getContractCode(),
+              MultiSigSettings.builder().build());
+      MultiSigResult result =
+          coordinator.execute(
+              MultiSigProposal.builder()
+                  .gaId(generalizedAccount.getAddress())
+                  .innerTx(spendTxModel)
+                  .gaTxHash(gaTxHash)
+                  .proposer(signers.get(0))
+                  .cosigners(signers.subList(1, numToSign))
+                  .relativeTtl(DEFAULT_TTL)
+                  .authorizer(signers.get(1))
+                  .build());
+      log.info("Multisig result: {}", result);
+      assertEquals(numToSign - 1, result.getConfirmTxHashes().size());
 
       /** check recipients balance */
       assertEquals(amountToSpend, getAccount(spendTxRecipient.getAddress()).getBalance());
@@ -187,11 +205,9 @@ public class SimpleGAMultiSigTest extends BaseTest {
     IntStream.range(0, numToSign)
         .forEach(
             i -> {
-              KeyPair signer = keyPairService.generateKeyPair();
+              // funded with 1 AE by the pool
+              KeyPair signer = keyPairPool.take();
               log.debug("Signer {} is: {}", i, signer);
-              fundAddress(
-                  signer.getAddress(),
-                  unitConversionService18Decimals.toSmallestUnit(BigDecimal.ONE));
               log.debug(
                   "Balance of Signer {} is: {}",
                   i,
@@ -230,31 +246,30 @@ public class SimpleGAMultiSigTest extends BaseTest {
             .authFun(EncodingUtils.generateAuthFunHash("authorize"))
             .callData(callData)
             .code(getCode())
-            .nonce(getNextNonce(generalizedAccount.getAddress()))
+            .nonce(nonceManager.nextNonce(generalizedAccount))
             .ownerId(gaAccountResult.getPublicKey())
             .build();
 
-    String unsignedTx =
-        aeternityService.transactions.blockingCreateUnsignedTransaction(gaAttachTx).getResult();
-
-    DryRunTransactionResults dryRunResults =
-        aeternityService.transactions.blockingDryRunTransactions(
-            DryRunRequest.builder()
-                .build()
-                .account(
-                    DryRunAccountModel.builder().publicKey(gaAccountResult.getPublicKey()).build())
-                .transactionInputItem(unsignedTx));
-    DryRunTransactionResult dryRunResult = dryRunResults.getResults().get(0);
-
-    gaAttachTx =
-        gaAttachTx
-            .toBuilder()
-            .gasLimit(dryRunResult.getContractCallObject().getGasUsed())
-            .gasPrice(dryRunResult.getContractCallObject().getGasPrice())
-            .build();
+    // the profile of the init entrypoint spares the dry-run once enough attachments were seen
+    BigInteger gasLimit =
+        gasEstimator.blockingEstimate(
+            GasEstimationRequest.builder()
+                .contract(GA_CONTRACT_NAME)
+                .entrypoint("init")
+                .argumentSize(signers.size())
+                .callerPublicKey(gaAccountResult.getPublicKey())
+                .unsignedTx(
+                    () ->
+                        aeternityService
+                            .transactions
+                            .blockingCreateUnsignedTransaction(gaAttachTx)
+                            .getResult())
+                .build());
 
     PostTransactionResult result =
-        blockingPostTx(gaAttachTx, generalizedAccount.getEncodedPrivateKey());
+        blockingPostTx(
+            gaAttachTx.toBuilder().gasLimit(gasLimit).build(),
+            generalizedAccount.getEncodedPrivateKey());
 
     log.info("GA attach transaction result: {}", result);
   }
@@ -278,48 +293,6 @@ public class SimpleGAMultiSigTest extends BaseTest {
         .getGaContractId();
   }
 
-  /**
-   * use the GA Meta function calling contracts auth entrypoint
-   *
-   * @param spendTxModel
-   * @throws Throwable
-   */
-  private void callAuthFunction(SpendTransactionModel spendTxModel, KeyPair caller) {
-    /** Call GAMeta tx */
-    log.info("{} calls authentication function", caller.getAddress());
-
-    String callData =
-        aeternityService
-            .compiler
-            .blockingEncodeCalldata(
-                getContractCode(), "authorize", null, Collections.emptyMap())
-            .getResult();
-
-    assertNotNull(callData);
-
-    try {
-      GeneralizedAccountsMetaTransactionModel gaMetaTx =
-          GeneralizedAccountsMetaTransactionModel.builder()
-              .gaId(generalizedAccount.getAddress())
-              .authData(callData)
-              .innerTxModel(spendTxModel)
-              .build();
-
-      PostTransactionResult result =
-          aeternityService.transactions.blockingPostTransaction(
-              gaMetaTx, caller.getEncodedPrivateKey());
-      log.info("gaMetaTx result: {}", result);
-      logConsensusInfo();
-    } catch (Throwable t) {
-      log.error("Error calling gaMetaTx: ", t);
-      fail(t);
-    }
-  }
-
-  private void confirmSigner(String gaTxHash, KeyPair signer) {
-    confirmSigner(gaTxHash, signer, null);
-  }
-
   /**
    * Confirm proposed tx
    *
@@ -431,13 +404,11 @@ public class SimpleGAMultiSigTest extends BaseTest {
    * helper methods
    */
   private String getSignature(String hash, KeyPair keypair) throws Throwable {
-    return "#" + Hex.toHexString(SigningUtil.sign(hash, keypair.getEncodedPrivateKey()));
+    return signingService.signHash(keypair, hash).join();
   }
 
   private String getCode() throws Exception {
-    StringResultWrapper resultWrapper =
-        aeternityService.compiler.blockingCompile(getContractCode(), null, null);
-    return resultWrapper.getResult();
+    return compileCache.compile(getContractCode()).getBytecode();
   }
 
   private String getContractCode() {
@@ -456,35 +427,17 @@ public class SimpleGAMultiSigTest extends BaseTest {
    *
    * @param recipient
    * @param amount
-   * @throws Throwable
    */
   protected void fundAddress(String recipient, BigInteger amount) {
     log.debug("Spending amount of {} to recipient {}", amount, recipient);
-    SpendTransactionModel spendTx =
-        SpendTransactionModel.builder()
-            .amount(amount)
-            .sender(baseKeyPair.getAddress())
-            .recipient(recipient)
-            .nonce(getNextNonce(baseKeyPair.getAddress()))
-            .build();
-    try {
-      blockingPostTx(spendTx);
-    } catch (Throwable e) {
-      fail("Failed funding signer " + recipient, e);
+    FundingReport report =
+        fundingService.fund(baseKeyPair, List.of(new Payee(recipient, amount)));
+    if (!report.isComplete()) {
+      fail("Failed funding signer " + recipient);
     }
     log.info("Spending amount of {} to recipient {} successful", amount, recipient);
   }
 
-  /**
-   * get next nonce for address
-   *
-   * @param address
-   * @return
-   */
-  protected BigInteger getNextNonce(String address) {
-    return getAccount(address).getNonce().add(BigInteger.ONE);
-  }
-
   protected AccountResult getAccount(String address) {
     try {
       if (address == null) {
@@ -512,7 +465,7 @@ public class SimpleGAMultiSigTest extends BaseTest {
     PostTransactionResult postTxResponse =
         aeternityService.transactions.blockingPostTransaction(tx, privateKey);
     log.debug("PostTx hash: " + postTxResponse.getTxHash());
-    TransactionResult txValue = waitForTxMined(postTxResponse.getTxHash());
+    MinedTransaction txValue = waitForTxMined(postTxResponse.getTxHash());
     log.debug(
         String.format(
             "Transaction of type %s is mined at block %s with height %s",
@@ -521,35 +474,10 @@ public class SimpleGAMultiSigTest extends BaseTest {
     return postTxResponse;
   }
 
-  protected TransactionResult waitForTxMined(String txHash) throws Throwable {
-    int blockHeight = -1;
-    TransactionResult minedTx = null;
-    int doneTrials = 1;
-
-    while (blockHeight == -1 && doneTrials < NUM_TRIALS_DEFAULT) {
-      minedTx =
-          callMethodAndGetResult(
-              () -> aeternityService.info.asyncGetTransactionByHash(txHash),
-              TransactionResult.class);
-      if (minedTx.getBlockHeight().intValue() > 1) {
-        log.debug("Mined tx: " + minedTx);
-        blockHeight = minedTx.getBlockHeight().intValue();
-      } else {
-        log.debug(
-            String.format(
-                "Transaction not mined yet, trying again in 1 second (%s of %s)...",
-                doneTrials, NUM_TRIALS_DEFAULT));
-        Thread.sleep(1000);
-        doneTrials++;
-      }
-    }
-
-    if (blockHeight == -1) {
-      throw new InterruptedException(
-          String.format(
-              "Transaction %s was not mined after %s trials, aborting", txHash, doneTrials));
-    }
-
+  protected MinedTransaction waitForTxMined(String txHash) throws Throwable {
+    MinedTransaction minedTx =
+        confirmationTracker.awaitMined(txHash, Duration.ofSeconds(NUM_TRIALS_DEFAULT));
+    log.debug("Mined tx: " + minedTx);
     return minedTx;
   }
 
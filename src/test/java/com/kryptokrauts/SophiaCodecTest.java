@@ -0,0 +1,127 @@
+package com.kryptokrauts;
+
+import static com.kryptokrauts.sophia.SophiaType.boolType;
+import static com.kryptokrauts.sophia.SophiaType.intType;
+import static com.kryptokrauts.sophia.SophiaType.listType;
+import static com.kryptokrauts.sophia.SophiaType.mapType;
+import static com.kryptokrauts.sophia.SophiaType.optionType;
+import static com.kryptokrauts.sophia.SophiaType.recordType;
+import static com.kryptokrauts.sophia.SophiaType.stringType;
+import static com.kryptokrauts.sophia.SophiaType.ttlType;
+import static com.kryptokrauts.sophia.SophiaType.tupleType;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.kryptokrauts.contraect.generated.SophiaTypes;
+import com.kryptokrauts.sophia.Literals;
+import com.kryptokrauts.sophia.SophiaCodec;
+import com.kryptokrauts.sophia.SophiaType;
+import com.kryptokrauts.sophia.SophiaVariant;
+import java.io.IOException;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.io.IOUtils;
+import org.javatuples.Pair;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+@Slf4j
+public class SophiaCodecTest extends BaseTest {
+
+  private static final SophiaType COMPLEX_TYPE =
+      recordType(
+          Map.of(
+              "test",
+              optionType(listType(intType())),
+              "test2",
+              optionType(mapType(stringType(), intType())),
+              "test3",
+              tupleType(intType(), boolType()),
+              "test4",
+              tupleType(stringType(), intType(), intType())));
+
+  private static String contractSource;
+
+  @BeforeAll
+  public static void readSource() throws IOException {
+    contractSource =
+        IOUtils.toString(
+            Paths.get("src/test/resources/contraects", "SophiaTypes.aes").toUri(),
+            StandardCharsets.UTF_8.toString());
+  }
+
+  @Test
+  public void encodesLiteralsTheCompilerAccepts() {
+    Map<BigInteger, Map<BigInteger, BigInteger>> mapOfMaps =
+        Map.of(
+            BigInteger.ONE,
+            Map.of(BigInteger.TWO, BigInteger.TEN),
+            BigInteger.TWO,
+            Collections.emptyMap());
+    String literal =
+        SophiaCodec.encode(mapType(intType(), mapType(intType(), intType())), mapOfMaps);
+    Assertions.assertEquals(
+        encodeCalldata("testMapOfMaps", "{[1] = {[2] = 10}, [2] = {}}"),
+        encodeCalldata("testMapOfMaps", literal));
+
+    Assertions.assertEquals(
+        encodeCalldata("testString", "\"say \\\"hi\\\"\""),
+        encodeCalldata("testString", SophiaCodec.encode(stringType(), "say \"hi\"")));
+    // line breaks must be escaped like in the literals of hand written calls
+    String multiline = SophiaCodec.encode(stringType(), "line\nbreak\tand tab");
+    Assertions.assertEquals(Literals.string("line\nbreak\tand tab"), multiline);
+    Assertions.assertEquals(
+        encodeCalldata("testString", "\"line\\nbreak\\tand tab\""),
+        encodeCalldata("testString", multiline));
+    Assertions.assertEquals(
+        encodeCalldata("testTuple", "(42, true)"),
+        encodeCalldata(
+            "testTuple",
+            SophiaCodec.encode(
+                tupleType(intType(), boolType()), Pair.with(BigInteger.valueOf(42), true))));
+    Assertions.assertEquals(
+        encodeCalldata("testTtl", "RelativeTTL(50)"),
+        encodeCalldata(
+            "testTtl", SophiaCodec.encode(ttlType(), SophiaVariant.of("RelativeTTL", 50))));
+  }
+
+  @Test
+  public void decodesCallResults() throws IOException {
+    String contractId = new SophiaTypes(config, null).deploy().getValue1();
+    Object result =
+        aeternityService.transactions.blockingReadOnlyContractCall(
+            contractId, "testComplexRecord", contractSource);
+    log.info("Decoded by the SDK: {}", result);
+
+    @SuppressWarnings("unchecked")
+    Map<String, Object> converted = (Map<String, Object>) SophiaCodec.convert(COMPLEX_TYPE, result);
+    Assertions.assertEquals(
+        Optional.of(List.of(BigInteger.ONE, BigInteger.TWO, BigInteger.valueOf(3))),
+        converted.get("test"));
+    Assertions.assertEquals(
+        Optional.of(Map.of("hallo", BigInteger.valueOf(3), "jiojio", BigInteger.valueOf(90832))),
+        converted.get("test2"));
+    Assertions.assertEquals(List.of(BigInteger.valueOf(42), true), converted.get("test3"));
+    Assertions.assertEquals(
+        List.of("wurst", BigInteger.valueOf(42), BigInteger.valueOf(12)), converted.get("test4"));
+
+    // streaming the same result yields the same values
+    Assertions.assertEquals(
+        converted,
+        SophiaCodec.decode(COMPLEX_TYPE, new ObjectMapper().writeValueAsString(result)));
+  }
+
+  private String encodeCalldata(String entrypoint, String literal) {
+    return aeternityService
+        .compiler
+        .blockingEncodeCalldata(
+            contractSource, entrypoint, List.of(literal), Collections.emptyMap())
+        .getResult();
+  }
+}
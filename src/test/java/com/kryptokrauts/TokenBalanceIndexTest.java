@@ -0,0 +1,74 @@
+package com.kryptokrauts;
+
+import com.kryptokrauts.aeternity.sdk.domain.secret.KeyPair;
+import com.kryptokrauts.contraect.generated.FungibleToken;
+import com.kryptokrauts.token.Holder;
+import com.kryptokrauts.token.TokenBalanceIndex;
+import java.math.BigInteger;
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+@Slf4j
+public class TokenBalanceIndexTest extends BaseTest {
+
+  private static final BigInteger TOTAL_SUPPLY = BigInteger.valueOf(1_000_000);
+
+  private static final Duration INDEX_TIMEOUT = Duration.ofSeconds(20);
+
+  private static String contractId;
+
+  @BeforeAll
+  public static void deploy() {
+    contractId =
+        new FungibleToken(config, null)
+            .deploy("index", BigInteger.valueOf(0), "IDX", Optional.of(TOTAL_SUPPLY))
+            .getValue1();
+  }
+
+  @Test
+  public void followsTransfersAfterSeeding() throws Exception {
+    FungibleToken token = new FungibleToken(config, contractId);
+    KeyPair seededHolder = keyPairService.generateKeyPair();
+    token.transfer(new FungibleToken.Address(seededHolder.getAddress()), BigInteger.valueOf(100));
+
+    try (TokenBalanceIndex index = TokenBalanceIndex.of(token, contractId, chainFeed, nodeApi)) {
+      index.start();
+      index.awaitSeeded(INDEX_TIMEOUT);
+      Assertions.assertEquals(2, index.holderCount());
+      Assertions.assertEquals(BigInteger.valueOf(100), index.balanceOf(seededHolder.getAddress()));
+
+      // transfers after seeding are applied from their events
+      KeyPair newHolder = keyPairService.generateKeyPair();
+      token.transfer(new FungibleToken.Address(newHolder.getAddress()), BigInteger.valueOf(250));
+      awaitBalance(index, newHolder.getAddress(), BigInteger.valueOf(250));
+
+      Assertions.assertEquals(3, index.holderCount());
+      Assertions.assertTrue(index.verifyTotalSupply(token.total_supply()));
+      Assertions.assertEquals(
+          token.balance(new FungibleToken.Address(baseKeyPair.getAddress())).get(),
+          index.balanceOf(baseKeyPair.getAddress()));
+      Assertions.assertFalse(index.isHolder(keyPairService.generateKeyPair().getAddress()));
+
+      List<Holder> top = index.topHolders(2);
+      log.info("Top holders: {}", top);
+      Assertions.assertEquals(baseKeyPair.getAddress(), top.get(0).getAddress());
+      Assertions.assertEquals(newHolder.getAddress(), top.get(1).getAddress());
+    }
+  }
+
+  private void awaitBalance(TokenBalanceIndex index, String address, BigInteger expected)
+      throws InterruptedException {
+    long deadline = System.currentTimeMillis() + INDEX_TIMEOUT.toMillis();
+    while (!expected.equals(index.balanceOf(address))) {
+      if (System.currentTimeMillis() > deadline) {
+        Assertions.fail("Index didn't reach balance " + expected + " of " + address);
+      }
+      Thread.sleep(100);
+    }
+  }
+}
@@ -0,0 +1,92 @@
+package com.kryptokrauts;
+
+import com.kryptokrauts.aeternity.sdk.domain.secret.KeyPair;
+import com.kryptokrauts.aeternity.sdk.service.transaction.type.model.SpendTransactionModel;
+import com.kryptokrauts.chain.MinedTransaction;
+import com.kryptokrauts.trace.FinalityEvent;
+import com.kryptokrauts.trace.MempoolEvent;
+import com.kryptokrauts.trace.PostTransactionEvent;
+import com.kryptokrauts.trace.TransactionTracer;
+import com.kryptokrauts.trace.TransactionTracer.Scope;
+import java.math.BigInteger;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+@Slf4j
+public class TransactionTracerTest extends BaseTest {
+
+  @Test
+  public void tracesTransactionsThroughTheirStages() throws Exception {
+    Path file = Files.createTempFile("contraect", ".jfr");
+    KeyPair sender = keyPairPool.take();
+    String txHash;
+    try (Recording recording = new Recording()) {
+      recording.enable(PostTransactionEvent.class);
+      recording.enable(MempoolEvent.class);
+      recording.enable(FinalityEvent.class);
+      recording.start();
+
+      try (Scope scope = TransactionTracer.getDefault().enter("Funding", "spend")) {
+        txHash =
+            nonceManager
+                .blockingPost(
+                    sender,
+                    nonce ->
+                        SpendTransactionModel.builder()
+                            .sender(sender.getAddress())
+                            .recipient(keyPairService.generateKeyPair().getAddress())
+                            .amount(BigInteger.ONE)
+                            .nonce(nonce)
+                            .build())
+                .getTxHash();
+      }
+      MinedTransaction mined = confirmationTracker.awaitMined(txHash, Duration.ofSeconds(30));
+      // the next key block closes the generation of the micro block
+      long deadline = System.currentTimeMillis() + 30_000;
+      while (nodeApi.getCurrentGeneration().getHeight() <= mined.getBlockHeight()
+          && System.currentTimeMillis() < deadline) {
+        Thread.sleep(100);
+      }
+      // give the chain feed time to publish the key block
+      Thread.sleep(500);
+
+      recording.stop();
+      recording.dump(file);
+    }
+
+    String tracedHash = txHash;
+    Map<String, RecordedEvent> events =
+        RecordingFile.readAllEvents(file).stream()
+            .filter(event -> tracedHash.equals(event.getString("txHash")))
+            .collect(
+                Collectors.toMap(
+                    event -> event.getEventType().getName(), Function.identity(), (a, b) -> b));
+    events.values().forEach(event -> log.info("{}", event));
+    for (String name :
+        List.of(
+            "com.kryptokrauts.PostTransaction",
+            "com.kryptokrauts.Mempool",
+            "com.kryptokrauts.Finality")) {
+      RecordedEvent event = events.get(name);
+      Assertions.assertNotNull(event, name + " missing");
+      Assertions.assertEquals("Funding", event.getString("contract"));
+      Assertions.assertEquals("spend", event.getString("entrypoint"));
+    }
+    RecordedEvent post = events.get("com.kryptokrauts.PostTransaction");
+    Assertions.assertEquals("", post.getString("error"));
+    Assertions.assertEquals(
+        post.getLong("nonce"), events.get("com.kryptokrauts.Finality").getLong("nonce"));
+    Files.delete(file);
+  }
+}